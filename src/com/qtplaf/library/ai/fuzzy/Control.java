@@ -15,13 +15,18 @@
 package com.qtplaf.library.ai.fuzzy;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.qtplaf.library.math.Calculator;
-import com.qtplaf.library.util.list.ListUtils;
 
 /**
  * A fuzzy control.
+ * <p>
+ * The control is compiled when constructed: labels are resolved to segment indexes with a map, and the segments where
+ * a value should be included are found by binary search over the sorted minimums and maximums, so checks by label or
+ * by segment index do not allocate.
  *
  * @author Miquel Sas
  */
@@ -38,6 +43,18 @@ public class Control {
 	 * The list of control segments.
 	 */
 	private List<Segment> segments = new ArrayList<>();
+	/**
+	 * The map of segment indexes by label.
+	 */
+	private Map<String, Integer> labelIndexes = new HashMap<>();
+	/**
+	 * The sorted minimums of the segments.
+	 */
+	private double[] minimums;
+	/**
+	 * The sorted maximums of the segments.
+	 */
+	private double[] maximums;
 
 	/**
 	 * Constructor.
@@ -48,6 +65,16 @@ public class Control {
 		super();
 		validateSegments(segments);
 		this.segments.addAll(segments);
+		minimums = new double[segments.size()];
+		maximums = new double[segments.size()];
+		for (int i = 0; i < segments.size(); i++) {
+			Segment segment = segments.get(i);
+			if (!labelIndexes.containsKey(segment.getLabel())) {
+				labelIndexes.put(segment.getLabel(), i);
+			}
+			minimums[i] = segment.getMinimum();
+			maximums[i] = segment.getMaximum();
+		}
 	}
 
 	/**
@@ -58,7 +85,18 @@ public class Control {
 	 * @return A boolean.
 	 */
 	public boolean checkGT(double value, String label) {
-		return check(value, label, Condition.GT);
+		return check(value, getIndex(label), Condition.GT);
+	}
+
+	/**
+	 * Check if the value is in the range of the segment index or GT.
+	 * 
+	 * @param value The value to check.
+	 * @param labelIndex The segment index.
+	 * @return A boolean.
+	 */
+	public boolean checkGT(double value, int labelIndex) {
+		return check(value, labelIndex, Condition.GT);
 	}
 
 	/**
@@ -69,7 +107,18 @@ public class Control {
 	 * @return A boolean.
 	 */
 	public boolean checkGE(double value, String label) {
-		return check(value, label, Condition.GE);
+		return check(value, getIndex(label), Condition.GE);
+	}
+
+	/**
+	 * Check if the value is in the range of the segment index or GE.
+	 * 
+	 * @param value The value to check.
+	 * @param labelIndex The segment index.
+	 * @return A boolean.
+	 */
+	public boolean checkGE(double value, int labelIndex) {
+		return check(value, labelIndex, Condition.GE);
 	}
 
 	/**
@@ -80,7 +129,18 @@ public class Control {
 	 * @return A boolean.
 	 */
 	public boolean checkEQ(double value, String label) {
-		return check(value, label, Condition.EQ);
+		return check(value, getIndex(label), Condition.EQ);
+	}
+
+	/**
+	 * Check if the value is in the range of the segment index or EQ.
+	 * 
+	 * @param value The value to check.
+	 * @param labelIndex The segment index.
+	 * @return A boolean.
+	 */
+	public boolean checkEQ(double value, int labelIndex) {
+		return check(value, labelIndex, Condition.EQ);
 	}
 
 	/**
@@ -99,6 +159,22 @@ public class Control {
 		return false;
 	}
 
+	/**
+	 * Check if the value is in the list of segment indexes.
+	 * 
+	 * @param value The value to check.
+	 * @param labelIndexes The list of segment indexes.
+	 * @return A boolean.
+	 */
+	public boolean checkIn(double value, int... labelIndexes) {
+		for (int labelIndex : labelIndexes) {
+			if (checkEQ(value, labelIndex)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * Check if the value is in the range of the label or LE.
 	 * 
@@ -107,7 +183,18 @@ public class Control {
 	 * @return A boolean.
 	 */
 	public boolean checkLE(double value, String label) {
-		return check(value, label, Condition.LE);
+		return check(value, getIndex(label), Condition.LE);
+	}
+
+	/**
+	 * Check if the value is in the range of the segment index or LE.
+	 * 
+	 * @param value The value to check.
+	 * @param labelIndex The segment index.
+	 * @return A boolean.
+	 */
+	public boolean checkLE(double value, int labelIndex) {
+		return check(value, labelIndex, Condition.LE);
 	}
 
 	/**
@@ -118,43 +205,52 @@ public class Control {
 	 * @return A boolean.
 	 */
 	public boolean checkLT(double value, String label) {
-		return check(value, label, Condition.LT);
+		return check(value, getIndex(label), Condition.LT);
 	}
 
 	/**
-	 * Check if the value is in the range of the label applying the condition (GT, GE, EQ, LE, LT)
+	 * Check if the value is in the range of the segment index or LT.
 	 * 
 	 * @param value The value to check.
-	 * @param label The segment label.
+	 * @param labelIndex The segment index.
+	 * @return A boolean.
+	 */
+	public boolean checkLT(double value, int labelIndex) {
+		return check(value, labelIndex, Condition.LT);
+	}
+
+	/**
+	 * Check if the value is in the range of the segment index applying the condition (GT, GE, EQ, LE, LT)
+	 * 
+	 * @param value The value to check.
+	 * @param labelIndex The segment index.
 	 * @param condition The comparison condition.
 	 * @return A boolean.
 	 */
-	private boolean check(double value, String label, Condition condition) {
-		int labelIndex = getIndex(label);
-		List<Integer> valueIndexes = getIndexes(value);
+	private boolean check(double value, int labelIndex, Condition condition) {
 		switch (condition) {
 		case GT:
-			if (ListUtils.getFirst(valueIndexes) > labelIndex) {
+			if (getFirstIndex(value) > labelIndex) {
 				return true;
 			}
 			break;
 		case GE:
-			if (ListUtils.getFirst(valueIndexes) >= labelIndex) {
+			if (getFirstIndex(value) >= labelIndex) {
 				return true;
 			}
 			break;
 		case EQ:
-			if (ListUtils.getFirst(valueIndexes) == labelIndex || ListUtils.getLast(valueIndexes) == labelIndex) {
+			if (getFirstIndex(value) == labelIndex || getLastIndex(value) == labelIndex) {
 				return true;
 			}
 			break;
 		case LE:
-			if (ListUtils.getLast(valueIndexes) <= labelIndex) {
+			if (getLastIndex(value) <= labelIndex) {
 				return true;
 			}
 			break;
 		case LT:
-			if (ListUtils.getLast(valueIndexes) < labelIndex) {
+			if (getLastIndex(value) < labelIndex) {
 				return true;
 			}
 			break;
@@ -179,12 +275,74 @@ public class Control {
 	 * @return The index of the label.
 	 */
 	public int getIndex(String label) {
-		for (int i = 0; i < segments.size(); i++) {
-			if (segments.get(i).getLabel().equals(label)) {
-				return i;
+		Integer index = labelIndexes.get(label);
+		if (index == null) {
+			throw new IllegalArgumentException();
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the first index of the segments where the value should be included, the first index of the list returned
+	 * by <tt>getIndexes</tt>, found by binary search.
+	 * 
+	 * @param value The value.
+	 * @return The first index.
+	 */
+	public int getFirstIndex(double value) {
+		checkValue(value);
+		if (value < minimums[0]) {
+			return 0;
+		}
+		// First segment with maximum GE value.
+		int low = 0;
+		int high = maximums.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (maximums[middle] < value) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return Math.min(low, maximums.length - 1);
+	}
+
+	/**
+	 * Returns the last index of the segments where the value should be included, the last index of the list returned
+	 * by <tt>getIndexes</tt>, found by binary search.
+	 * 
+	 * @param value The value.
+	 * @return The last index.
+	 */
+	public int getLastIndex(double value) {
+		checkValue(value);
+		if (value > maximums[maximums.length - 1]) {
+			return maximums.length - 1;
+		}
+		// Last segment with minimum LE value.
+		int low = -1;
+		int high = minimums.length - 1;
+		while (low < high) {
+			int middle = (low + high + 1) >> 1;
+			if (minimums[middle] <= value) {
+				low = middle;
+			} else {
+				high = middle - 1;
 			}
 		}
-		throw new IllegalArgumentException();
+		return Math.max(low, 0);
+	}
+
+	/**
+	 * Check that the value can be included in segments, that is, it is not NaN.
+	 * 
+	 * @param value The value.
+	 */
+	private void checkValue(double value) {
+		if (Double.isNaN(value)) {
+			throw new IllegalArgumentException("NaN value");
+		}
 	}
 
 	/**
@@ -226,7 +384,7 @@ public class Control {
 	 * @return The minimum value.
 	 */
 	public double getMinimum() {
-		return ListUtils.getFirst(segments).getMinimum();
+		return minimums[0];
 	}
 
 	/**
@@ -245,7 +403,7 @@ public class Control {
 	 * @return The maximum value.
 	 */
 	public double getMaximum() {
-		return ListUtils.getLast(segments).getMaximum();
+		return maximums[maximums.length - 1];
 	}
 
 	/**
@@ -191,8 +191,10 @@ public class BPNN {
 	/** Learning rate decrease factor, used to reduce the learning rate when the error increases. */
 	private double learningRateDecreaseFactor = 0.8;
 
-	/** Pool to execute recursive tasks. */
-	private ForkJoinPool pool = new ForkJoinPool();
+	/** A boolean that indicates whether neurons are processed in parallel in the pool, or serially. */
+	private boolean parallel = true;
+	/** Pool to execute recursive tasks, created the first time neurons are processed in parallel. */
+	private ForkJoinPool pool;
 	/** List of recursive tasks to process inputs. */
 	private List<LayerInputs> layerInputsTasks;
 	/** Task to update output layer errors. */
@@ -207,6 +209,69 @@ public class BPNN {
 		super();
 	}
 
+	/**
+	 * Returns a replica of this network, with the same layers, learning rate and weights, that processes neurons
+	 * serially, intended to be used by a worker thread of a data parallel learning process.
+	 * 
+	 * @param shareWeights A boolean that indicates whether the replica shares the weights arrays of this network, or
+	 *        has a copy of them.
+	 * @return The replica.
+	 */
+	public BPNN getReplica(boolean shareWeights) {
+		BPNN replica = new BPNN();
+		replica.addLayer(getInputSize(0), getOutputSize(0));
+		for (int layer = 1; layer < getSize(); layer++) {
+			replica.addLayer(getOutputSize(layer));
+		}
+		if (shareWeights) {
+			for (int layer = 0; layer < getSize(); layer++) {
+				replica.weights.set(layer, weights.get(layer));
+			}
+		} else {
+			replica.copyWeights(this);
+		}
+		replica.learningRate = learningRate;
+		replica.learningRateDecreaseFactor = learningRateDecreaseFactor;
+		replica.parallel = false;
+		return replica;
+	}
+
+	/**
+	 * Copy the weights of a network with the same layers into this network weights.
+	 * 
+	 * @param bpnn The source network.
+	 */
+	public void copyWeights(BPNN bpnn) {
+		for (int layer = 0; layer < getSize(); layer++) {
+			double[][] source = bpnn.getWeights(layer);
+			double[][] destination = getWeights(layer);
+			for (int in = 0; in < source.length; in++) {
+				System.arraycopy(source[in], 0, destination[in], 0, source[in].length);
+			}
+		}
+	}
+
+	/**
+	 * Returns the pool to execute recursive tasks, creating it if not done.
+	 * 
+	 * @return The pool.
+	 */
+	private ForkJoinPool getPool() {
+		if (pool == null) {
+			pool = new ForkJoinPool();
+		}
+		return pool;
+	}
+
+	/**
+	 * Set whether neurons are processed in parallel in the pool, or serially in the calling thread.
+	 * 
+	 * @param parallel A boolean.
+	 */
+	public void setParallel(boolean parallel) {
+		this.parallel = parallel;
+	}
+
 	/**
 	 * Add the first layer. Can only be called once.
 	 * 
@@ -476,6 +541,18 @@ public class BPNN {
 	 */
 	public void processInputs(double[] inputs) {
 
+		// Serial processing.
+		if (!parallel) {
+			ios.set(0, inputs);
+			for (int layer = 0; layer < getSize(); layer++) {
+				int outputSize = getOutputSize(layer);
+				for (int out = 0; out < outputSize; out++) {
+					processInputs(layer, out);
+				}
+			}
+			return;
+		}
+
 		// Build tasks if not done.
 		if (layerInputsTasks == null) {
 			layerInputsTasks = new ArrayList<>();
@@ -494,7 +571,7 @@ public class BPNN {
 		for (int layer = 0; layer < getSize(); layer++) {
 			LayerInputs layerInputs = layerInputsTasks.get(layer);
 			layerInputs.reset();
-			pool.invoke(layerInputs);
+			getPool().invoke(layerInputs);
 		}
 	}
 
@@ -530,6 +607,22 @@ public class BPNN {
 	 * @param errors The error vector.
 	 */
 	public void processErrors(double[] errors) {
+		// Serial processing.
+		if (!parallel) {
+			int layer = getSize() - 1;
+			int outputSize = getOutputSize(layer);
+			for (int out = 0; out < outputSize; out++) {
+				updateOutputLayerErrors(errors, out);
+			}
+			for (int layerIn = getSize() - 2; layerIn >= 0; layerIn--) {
+				int layerOut = layerIn + 1;
+				int inputSize = getInputSize(layerOut);
+				for (int in = 0; in < inputSize; in++) {
+					updateHiddenLayersErrors(layerIn, layerOut, in);
+				}
+			}
+			return;
+		}
 		// Update the output layer errors
 		updateOutputLayerErrors(errors);
 		// Update hidden layers errors
@@ -553,7 +646,7 @@ public class BPNN {
 		}
 		for (HiddenErrors task : hiddenErrorsTasks) {
 			task.reset();
-			pool.invoke(task);
+			getPool().invoke(task);
 		}
 	}
 
@@ -567,7 +660,7 @@ public class BPNN {
 			outputErrors = new OutputErrors();
 		}
 		outputErrors.reset(errors);
-		pool.invoke(outputErrors);
+		getPool().invoke(outputErrors);
 	}
 
 	/**
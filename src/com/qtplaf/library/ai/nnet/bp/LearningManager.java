@@ -16,6 +16,11 @@ package com.qtplaf.library.ai.nnet.bp;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import com.qtplaf.library.ai.nnet.Pattern;
 import com.qtplaf.library.ai.nnet.PatternSource;
@@ -24,6 +29,19 @@ import com.qtplaf.library.util.NumberUtils;
 
 /**
  * Learning process manager.
+ * <p>
+ * By default patterns are processed one at a time by the network. With more than one worker, the learning data of each
+ * iteration is split in as many contiguous shards as workers, and each worker processes its shard with a replica of
+ * the network:
+ * <ul>
+ * <li><b>Synchronous</b>, the default. In each round, every worker starts from the network weights and processes the
+ * next <i>synchronization size</i> patterns of its shard. Then the network weights are moved by the average of the
+ * weight changes of the workers, so with a synchronization size of one the network follows the average gradient.</li>
+ * <li><b>Asynchronous</b>. Replicas share the network weights and update them without locks, Hogwild style, which
+ * assumes that updates of different patterns rarely collide.</li>
+ * </ul>
+ * Check data performance is also evaluated in parallel. Learning events are fired as with serial processing, one
+ * <i>PatternProcessed</i> per pattern, serialized so listeners need not be thread safe.
  *
  * @author Miquel Sas
  */
@@ -72,6 +90,15 @@ public class LearningManager {
 	/** Decimals to calculate performance. */
 	private int performanceDecimals = 4;
 
+	/** Number of workers, one to process patterns serially in the network. */
+	private int workers = 1;
+	/** A boolean that indicates whether workers update shared weights asynchronously, without locks. */
+	private boolean asynchronous = false;
+	/** Number of patterns processed by each worker between synchronizations of weights. */
+	private int synchronizationSize = 8;
+	/** Executor of workers, created when necessary. */
+	private ExecutorService executor;
+
 	/**
 	 * Constructor.
 	 * 
@@ -100,11 +127,101 @@ public class LearningManager {
 		listeners.add(listener);
 	}
 
+	/**
+	 * Set the number of workers. With one worker, the default, patterns are processed serially by the network.
+	 * 
+	 * @param workers The number of workers.
+	 */
+	public void setWorkers(int workers) {
+		if (workers <= 0) {
+			throw new IllegalArgumentException("Workers must be greater than zero");
+		}
+		this.workers = workers;
+	}
+
+	/**
+	 * Set whether workers update the shared weights asynchronously, without locks, instead of averaging weight changes
+	 * synchronously.
+	 * 
+	 * @param asynchronous A boolean.
+	 */
+	public void setAsynchronous(boolean asynchronous) {
+		this.asynchronous = asynchronous;
+	}
+
+	/**
+	 * Set the number of patterns processed by each worker between synchronizations of weights.
+	 * 
+	 * @param synchronizationSize The synchronization size.
+	 */
+	public void setSynchronizationSize(int synchronizationSize) {
+		if (synchronizationSize <= 0) {
+			throw new IllegalArgumentException("Synchronization size must be greater than zero");
+		}
+		this.synchronizationSize = synchronizationSize;
+	}
+
+	/**
+	 * Returns the executor of workers, creating it if necessary.
+	 * 
+	 * @return The executor.
+	 */
+	private ExecutorService getExecutor() {
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(workers, runnable -> {
+				Thread thread = new Thread(runnable, "Learning worker");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		return executor;
+	}
+
+	/**
+	 * Invoke the callables in the executor and wait for them.
+	 * 
+	 * @param callables The list of callables.
+	 * @return The list of results.
+	 */
+	private <T> List<T> invokeAll(List<Callable<T>> callables) {
+		List<T> results = new ArrayList<>();
+		try {
+			for (Future<T> future : getExecutor().invokeAll(callables)) {
+				results.add(future.get());
+			}
+		} catch (InterruptedException exc) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(exc);
+		} catch (ExecutionException exc) {
+			throw new IllegalStateException(exc.getCause());
+		}
+		return results;
+	}
+
+	/**
+	 * Read all the patterns of a source.
+	 * 
+	 * @param source The source.
+	 * @return The list of patterns.
+	 */
+	private List<Pattern> readPatterns(PatternSource source) {
+		List<Pattern> patterns = new ArrayList<>(source.size());
+		source.rewind();
+		while (source.hasNext()) {
+			patterns.add(source.next());
+		}
+		return patterns;
+	}
+
 	/**
 	 * Calculates the network performance using the check data and applying the 'areEqual' method to compare outputs
 	 * from the check data and the network.
 	 */
 	private void calculateNetworkPerformance() {
+		if (workers > 1) {
+			calculateNetworkPerformanceParallel();
+			return;
+		}
 		double matches = 0;
 		if (checkData != null) {
 			checkData.rewind();
@@ -124,6 +241,40 @@ public class LearningManager {
 		registerHistory(networkPerformance, networkPerformanceHistory);
 	}
 
+	/**
+	 * Calculates the network performance in parallel, each worker checking a shard of the check data with a replica
+	 * that shares the network weights.
+	 */
+	private void calculateNetworkPerformanceParallel() {
+		List<Pattern> patterns = readPatterns(checkData);
+		int shardSize = (patterns.size() + workers - 1) / workers;
+		List<Callable<Integer>> callables = new ArrayList<>();
+		for (int worker = 0; worker < workers; worker++) {
+			int from = Math.min(worker * shardSize, patterns.size());
+			int to = Math.min(from + shardSize, patterns.size());
+			BPNN replica = bpnn.getReplica(true);
+			callables.add(() -> {
+				int matches = 0;
+				for (int i = from; i < to; i++) {
+					Pattern pattern = patterns.get(i);
+					replica.processInputs(pattern.getPatternInputs());
+					double[] networkOutputs = replica.getOutputs();
+					if (Calculator.areEqual(pattern.getPatternOutputs(), networkOutputs, performanceComparisonPrecision)) {
+						matches++;
+					}
+				}
+				return matches;
+			});
+		}
+		double matches = 0;
+		for (Integer workerMatches : invokeAll(callables)) {
+			matches += workerMatches;
+		}
+		double checkSize = patterns.size();
+		networkPerformance = NumberUtils.round(100 * matches / checkSize, performanceDecimals);
+		registerHistory(networkPerformance, networkPerformanceHistory);
+	}
+
 	/**
 	 * Calculates the learning performance for a list of patterns processed.
 	 * 
@@ -365,8 +516,15 @@ public class LearningManager {
 			// Iteration start time
 			long iterationStartTime = System.currentTimeMillis();
 
-			// Iterate patterns
-			while (!stopExecution && learningData.hasNext()) {
+			// Iterate patterns, in parallel if there are more than one workers.
+			if (workers > 1) {
+				if (asynchronous) {
+					processIterationAsynchronous();
+				} else {
+					processIterationSynchronous();
+				}
+			}
+			while (workers == 1 && !stopExecution && learningData.hasNext()) {
 
 				// The current pattern to process
 				Pattern pattern = learningData.next();
@@ -376,7 +534,7 @@ public class LearningManager {
 				long patternStartTime = System.currentTimeMillis();
 
 				// Process the pattern.
-				double error = processPattern(pattern);
+				double error = processPattern(bpnn, pattern);
 
 				// Accumulate the output error
 				totalError = ((totalError * (patterns - 1)) + error) / patterns;
@@ -431,23 +589,127 @@ public class LearningManager {
 	}
 
 	/**
-	 * Process the pattern. By default, the method does the following:
+	 * Process an iteration synchronously. The learning data is split in a shard per worker, and in each round every
+	 * worker copies the network weights in its replica and processes the next patterns of its shard. At the end of the
+	 * round, the network weights are moved by the average of the weight changes of the replicas.
+	 */
+	private void processIterationSynchronous() {
+		List<Pattern> patterns = readPatterns(learningData);
+		int shardSize = (patterns.size() + workers - 1) / workers;
+		List<BPNN> replicas = new ArrayList<>();
+		for (int worker = 0; worker < workers; worker++) {
+			replicas.add(bpnn.getReplica(false));
+		}
+		double[] errors = new double[patterns.size()];
+		for (int offset = 0; offset < shardSize; offset += synchronizationSize) {
+
+			// Process the round.
+			List<Callable<BPNN>> callables = new ArrayList<>();
+			List<int[]> ranges = new ArrayList<>();
+			for (int worker = 0; worker < workers; worker++) {
+				int shardEnd = Math.min((worker + 1) * shardSize, patterns.size());
+				int from = worker * shardSize + offset;
+				int to = Math.min(from + synchronizationSize, shardEnd);
+				if (from >= to) {
+					continue;
+				}
+				BPNN replica = replicas.get(worker);
+				ranges.add(new int[] { from, to });
+				callables.add(() -> {
+					replica.copyWeights(bpnn);
+					for (int i = from; i < to; i++) {
+						errors[i] = processPattern(replica, patterns.get(i));
+					}
+					return replica;
+				});
+			}
+			long time = System.currentTimeMillis();
+			List<BPNN> results = invokeAll(callables);
+			time = System.currentTimeMillis() - time;
+
+			// Average the weight changes.
+			for (int layer = 0; layer < bpnn.getSize(); layer++) {
+				double[][] weights = bpnn.getWeights(layer);
+				for (int in = 0; in < weights.length; in++) {
+					for (int out = 0; out < weights[in].length; out++) {
+						double change = 0;
+						for (BPNN replica : results) {
+							change += replica.getWeights(layer)[in][out] - weights[in][out];
+						}
+						weights[in][out] += change / results.size();
+					}
+				}
+			}
+
+			// Register processed patterns.
+			int count = 0;
+			for (int[] range : ranges) {
+				count += range[1] - range[0];
+			}
+			for (int[] range : ranges) {
+				for (int i = range[0]; i < range[1]; i++) {
+					patternProcessed(errors[i], time / count);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Process an iteration asynchronously. The learning data is split in a shard per worker, and each worker processes
+	 * its shard with a replica that shares and updates the network weights without locks.
+	 */
+	private void processIterationAsynchronous() {
+		List<Pattern> patterns = readPatterns(learningData);
+		int shardSize = (patterns.size() + workers - 1) / workers;
+		List<Callable<Void>> callables = new ArrayList<>();
+		for (int worker = 0; worker < workers; worker++) {
+			int from = Math.min(worker * shardSize, patterns.size());
+			int to = Math.min(from + shardSize, patterns.size());
+			BPNN replica = bpnn.getReplica(true);
+			callables.add(() -> {
+				for (int i = from; i < to; i++) {
+					long time = System.currentTimeMillis();
+					double error = processPattern(replica, patterns.get(i));
+					patternProcessed(error, System.currentTimeMillis() - time);
+				}
+				return null;
+			});
+		}
+		invokeAll(callables);
+	}
+
+	/**
+	 * Register a pattern processed by a worker, accumulating the error and firing the pattern processed event.
+	 * 
+	 * @param error The pattern error.
+	 * @param time The process time.
+	 */
+	private synchronized void patternProcessed(double error, long time) {
+		totalError = ((totalError * patternIndex) + error) / (patternIndex + 1);
+		patternProcessTime = time;
+		fireLearningEvent(LearningEvent.PatternProcessed);
+		patternIndex++;
+	}
+
+	/**
+	 * Process the pattern with the network or a replica. By default, the method does the following:
 	 * 
+	 * @param network The network or replica.
 	 * @param pattern The pattern to process.
 	 */
-	private double processPattern(Pattern pattern) {
+	private double processPattern(BPNN network, Pattern pattern) {
 
 		double[] patternInputs = pattern.getPatternInputs();
 		double[] patternOutputs = pattern.getPatternOutputs();
-		bpnn.processInputs(patternInputs);
-		double[] networkOutputs = bpnn.getOutputs();
+		network.processInputs(patternInputs);
+		double[] networkOutputs = network.getOutputs();
 
 		// Calculate the error by subtracting the network output from the target output.
 		double[] outputErrors = Calculator.subtract(patternOutputs, networkOutputs);
 		double error = getError(outputErrors);
 
 		// Delegate error processing to the learning process
-		bpnn.processErrors(outputErrors);
+		network.processErrors(outputErrors);
 
 		// Return the error.
 		return error;
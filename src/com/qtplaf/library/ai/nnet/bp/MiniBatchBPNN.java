@@ -0,0 +1,613 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtplaf.library.ai.nnet.bp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.qtplaf.library.ai.nnet.Pattern;
+import com.qtplaf.library.ai.nnet.PatternSource;
+import com.qtplaf.library.math.Calculator;
+
+/**
+ * Back propagation neural network trained by mini-batches. It has the same topology as <tt>BPNN</tt>, fully connected
+ * sigmoid layers without biases, but weights are kept in flat row-major arrays, <tt>weights[in * outputSize + out]</tt>,
+ * the same order of the raw vector of weights, and a mini-batch of patterns is processed with matrix-matrix products.
+ * <p>
+ * Forward and backward passes are parallelized across the rows of the batch, and the update of weights across the input
+ * rows of the weights matrix, so each parallel task performs a block of dot products instead of a single one. Weights
+ * are updated once per batch with the mean of the gradients of the patterns of the batch.
+ * 
+ * @author Miquel Sas
+ */
+public class MiniBatchBPNN {
+
+	/**
+	 * An operation over a range of rows.
+	 */
+	interface RowsOperation {
+		/**
+		 * Apply the operation to the range of rows.
+		 * 
+		 * @param from The first row, inclusive.
+		 * @param to The last row, exclusive.
+		 */
+		void apply(int from, int to);
+	}
+
+	/**
+	 * Recursive action that splits a range of rows until the grain size and applies the operation.
+	 */
+	class Rows extends RecursiveAction {
+		RowsOperation operation;
+		int from;
+		int to;
+		int grain;
+
+		Rows(RowsOperation operation, int from, int to, int grain) {
+			this.operation = operation;
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= grain) {
+				operation.apply(from, to);
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new Rows(operation, from, middle, grain), new Rows(operation, middle, to, grain));
+		}
+	}
+
+	/** Block size of the blocked loops. */
+	private static final int BLOCK = 64;
+
+	/** Layers input sizes. */
+	private List<Integer> inputSizes = new ArrayList<>();
+	/** Layers output sizes. */
+	private List<Integer> outputSizes = new ArrayList<>();
+	/** List of layers weights, flat row-major input x output. */
+	private List<double[]> weights = new ArrayList<>();
+	/** List of layers inputs/outputs of the batch, flat row-major batch x size. */
+	private List<double[]> ios = new ArrayList<>();
+	/** List of layers signals of the batch (inputs of the sigmoid). */
+	private List<double[]> signals = new ArrayList<>();
+	/** List of layers errors of the batch. */
+	private List<double[]> errors = new ArrayList<>();
+
+	/** The batch size. */
+	private int batchSize = 32;
+	/** The number of rows of the current batch. */
+	private int rows;
+	/** The learning rate. */
+	private double learningRate = 0.1;
+	/** Learning rate decrease factor, used to reduce the learning rate when the error increases. */
+	private double learningRateDecreaseFactor = 0.8;
+
+	/** Pool to execute recursive tasks. */
+	private ForkJoinPool pool = new ForkJoinPool();
+	/** Minimum number of batch rows per parallel task. */
+	private int rowsGrain = 8;
+	/** Minimum number of multiply-adds per parallel task. */
+	private int workGrain = 1 << 16;
+
+	/**
+	 * Constructor.
+	 */
+	public MiniBatchBPNN() {
+		super();
+	}
+
+	/**
+	 * Add the first layer. Can only be called once.
+	 * 
+	 * @param inputSize The input size.
+	 * @param outputSize The output size.
+	 */
+	public void addLayer(int inputSize, int outputSize) {
+		if (!weights.isEmpty()) {
+			throw new IllegalStateException();
+		}
+		addLayerRaw(inputSize, outputSize);
+	}
+
+	/**
+	 * Add subsequent layers. The input size of the layer is the output size of the previous one.
+	 * 
+	 * @param outputSize The output size.
+	 */
+	public void addLayer(int outputSize) {
+		if (weights.isEmpty()) {
+			throw new IllegalStateException();
+		}
+		int inputSize = getOutputSize(getSize() - 1);
+		addLayerRaw(inputSize, outputSize);
+	}
+
+	/**
+	 * Add a layer without validation.
+	 * 
+	 * @param inputSize The input size.
+	 * @param outputSize The output size.
+	 */
+	private void addLayerRaw(int inputSize, int outputSize) {
+		inputSizes.add(inputSize);
+		outputSizes.add(outputSize);
+		weights.add(new double[inputSize * outputSize]);
+		allocate();
+	}
+
+	/**
+	 * Allocate the batch buffers.
+	 */
+	private void allocate() {
+		ios.clear();
+		signals.clear();
+		errors.clear();
+		if (weights.isEmpty()) {
+			return;
+		}
+		ios.add(new double[batchSize * getInputSize(0)]);
+		for (int layer = 0; layer < getSize(); layer++) {
+			int outputSize = getOutputSize(layer);
+			ios.add(new double[batchSize * outputSize]);
+			signals.add(new double[batchSize * outputSize]);
+			errors.add(new double[batchSize * outputSize]);
+		}
+	}
+
+	/**
+	 * Returns the size as the number of layers.
+	 * 
+	 * @return The size.
+	 */
+	public int getSize() {
+		return weights.size();
+	}
+
+	/**
+	 * Returns the input size of the layer.
+	 * 
+	 * @param layer The layer index.
+	 * @return The input size.
+	 */
+	public int getInputSize(int layer) {
+		return inputSizes.get(layer);
+	}
+
+	/**
+	 * Returns the output size of the layer.
+	 * 
+	 * @param layer The layer index.
+	 * @return The output size.
+	 */
+	public int getOutputSize(int layer) {
+		return outputSizes.get(layer);
+	}
+
+	/**
+	 * Returns the layer weights, flat row-major, <tt>weights[in * outputSize + out]</tt>.
+	 * 
+	 * @param layer The layer.
+	 * @return The weights.
+	 */
+	public double[] getWeights(int layer) {
+		return weights.get(layer);
+	}
+
+	/**
+	 * Returns the batch size.
+	 * 
+	 * @return The batch size.
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Set the batch size.
+	 * 
+	 * @param batchSize The batch size.
+	 */
+	public void setBatchSize(int batchSize) {
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException("Batch size must be greater than zero");
+		}
+		this.batchSize = batchSize;
+		allocate();
+	}
+
+	/**
+	 * Set the minimum number of batch rows per parallel task of the forward and backward passes. Use the batch size
+	 * to run them in the calling thread.
+	 * 
+	 * @param rowsGrain The minimum number of rows per task.
+	 */
+	public void setRowsGrain(int rowsGrain) {
+		this.rowsGrain = Math.max(1, rowsGrain);
+	}
+
+	/**
+	 * Sets the learning rate.
+	 * 
+	 * @param learningRate The learning rate.
+	 */
+	public void setLearningRate(double learningRate) {
+		this.learningRate = learningRate;
+	}
+
+	/**
+	 * Returns the learning rate.
+	 * 
+	 * @return The learning rate.
+	 */
+	public double getLearningRate() {
+		return learningRate;
+	}
+
+	/**
+	 * Set the learning rate decrease factor.
+	 * 
+	 * @param learningRateDecreaseFactor The learning rate decrease factor.
+	 */
+	public void setLearningRateDecreaseFactor(double learningRateDecreaseFactor) {
+		this.learningRateDecreaseFactor = learningRateDecreaseFactor;
+	}
+
+	/**
+	 * Decrease the learning rate.
+	 */
+	public void decreaseLearningRate() {
+		learningRate *= learningRateDecreaseFactor;
+	}
+
+	/**
+	 * Initializes the weights with a Gaussian distribution of mean 0.0 and standard deviation 1.0.
+	 */
+	public void initializeWeights() {
+		Random random = new Random();
+		for (double[] layerWeights : weights) {
+			for (int i = 0; i < layerWeights.length; i++) {
+				layerWeights[i] = random.nextGaussian();
+			}
+		}
+	}
+
+	/**
+	 * Initialize weights with a raw vector of weights, compatible with the raw vector of <tt>BPNN</tt>.
+	 * 
+	 * @param weightsRaw The raw vector of weights.
+	 */
+	public void initializeWeights(double[] weightsRaw) {
+		if (weightsRaw.length != getWeightsRawSize()) {
+			throw new ArrayIndexOutOfBoundsException();
+		}
+		int index = 0;
+		for (double[] layerWeights : weights) {
+			System.arraycopy(weightsRaw, index, layerWeights, 0, layerWeights.length);
+			index += layerWeights.length;
+		}
+	}
+
+	/**
+	 * Returns the weights as a raw vector, compatible with the raw vector of <tt>BPNN</tt>.
+	 * 
+	 * @return The weights as a raw vector.
+	 */
+	public double[] getWeightsRaw() {
+		double[] weightsRaw = new double[getWeightsRawSize()];
+		int index = 0;
+		for (double[] layerWeights : weights) {
+			System.arraycopy(layerWeights, 0, weightsRaw, index, layerWeights.length);
+			index += layerWeights.length;
+		}
+		return weightsRaw;
+	}
+
+	/**
+	 * Returns the weights size of a raw vector.
+	 * 
+	 * @return The weights raw size.
+	 */
+	private int getWeightsRawSize() {
+		int size = 0;
+		for (double[] layerWeights : weights) {
+			size += layerWeights.length;
+		}
+		return size;
+	}
+
+	/**
+	 * Returns the outputs of a row of the last batch processed.
+	 * 
+	 * @param row The row.
+	 * @return The outputs.
+	 */
+	public double[] getOutputs(int row) {
+		int outputSize = getOutputSize(getSize() - 1);
+		double[] outputs = new double[outputSize];
+		System.arraycopy(ios.get(getSize()), row * outputSize, outputs, 0, outputSize);
+		return outputs;
+	}
+
+	/**
+	 * Process the inputs of a single pattern and return the outputs.
+	 * 
+	 * @param inputs The inputs.
+	 * @return The outputs.
+	 */
+	public double[] processInputs(double[] inputs) {
+		System.arraycopy(inputs, 0, ios.get(0), 0, getInputSize(0));
+		forward(1);
+		return getOutputs(0);
+	}
+
+	/**
+	 * Process a batch of patterns, forward and backward, and update the weights.
+	 * 
+	 * @param patterns The patterns, at most the batch size.
+	 * @return The sum of the errors of the patterns, the half of the squared differences of outputs.
+	 */
+	public double processBatch(List<Pattern> patterns) {
+		int count = patterns.size();
+		if (count == 0) {
+			return 0;
+		}
+		if (count > batchSize) {
+			throw new IllegalArgumentException("Too many patterns for the batch size");
+		}
+
+		// Load inputs.
+		int inputSize = getInputSize(0);
+		double[] inputs = ios.get(0);
+		for (int row = 0; row < count; row++) {
+			System.arraycopy(patterns.get(row).getPatternInputs(), 0, inputs, row * inputSize, inputSize);
+		}
+
+		// Forward.
+		forward(count);
+
+		// Output errors, the difference between pattern and network outputs.
+		int last = getSize() - 1;
+		int outputSize = getOutputSize(last);
+		double[] outputs = ios.get(last + 1);
+		double[] outputErrors = errors.get(last);
+		double error = 0;
+		for (int row = 0; row < count; row++) {
+			double[] patternOutputs = patterns.get(row).getPatternOutputs();
+			int offset = row * outputSize;
+			for (int out = 0; out < outputSize; out++) {
+				double difference = patternOutputs[out] - outputs[offset + out];
+				outputErrors[offset + out] = difference;
+				error += difference * difference * 0.5;
+			}
+		}
+
+		// Backward and update.
+		backward(count);
+		return error;
+	}
+
+	/**
+	 * Process an iteration over all the patterns of the source, in batches.
+	 * 
+	 * @param source The source of patterns.
+	 * @return The mean error per pattern.
+	 */
+	public double processIteration(PatternSource source) {
+		List<Pattern> batch = new ArrayList<>(batchSize);
+		double error = 0;
+		int patterns = 0;
+		source.rewind();
+		while (source.hasNext()) {
+			batch.add(source.next());
+			if (batch.size() == batchSize) {
+				error += processBatch(batch);
+				patterns += batch.size();
+				batch.clear();
+			}
+		}
+		if (!batch.isEmpty()) {
+			error += processBatch(batch);
+			patterns += batch.size();
+		}
+		return (patterns > 0 ? error / patterns : 0);
+	}
+
+	/**
+	 * Forward pass of the first rows of the batch.
+	 * 
+	 * @param count The number of rows.
+	 */
+	private void forward(int count) {
+		rows = count;
+		for (int layer = 0; layer < getSize(); layer++) {
+			final int l = layer;
+			invoke(count, rowsGrain, (from, to) -> forward(l, from, to));
+		}
+	}
+
+	/**
+	 * Forward pass of a layer for a range of rows: <tt>signals = inputs x weights</tt> and
+	 * <tt>outputs = sigmoid(signals)</tt>.
+	 * 
+	 * @param layer The layer.
+	 * @param from The first row.
+	 * @param to The last row, exclusive.
+	 */
+	private void forward(int layer, int from, int to) {
+		int inputSize = getInputSize(layer);
+		int outputSize = getOutputSize(layer);
+		double[] inputs = ios.get(layer);
+		double[] layerWeights = weights.get(layer);
+		double[] layerSignals = signals.get(layer);
+		double[] outputs = ios.get(layer + 1);
+
+		Arrays.fill(layerSignals, from * outputSize, to * outputSize, 0);
+		for (int inBlock = 0; inBlock < inputSize; inBlock += BLOCK) {
+			int inEnd = Math.min(inBlock + BLOCK, inputSize);
+			for (int outBlock = 0; outBlock < outputSize; outBlock += BLOCK) {
+				int outEnd = Math.min(outBlock + BLOCK, outputSize);
+				for (int row = from; row < to; row++) {
+					int inOffset = row * inputSize;
+					int outOffset = row * outputSize;
+					for (int in = inBlock; in < inEnd; in++) {
+						double input = inputs[inOffset + in];
+						if (input == 0) {
+							continue;
+						}
+						int weightOffset = in * outputSize;
+						for (int out = outBlock; out < outEnd; out++) {
+							layerSignals[outOffset + out] += input * layerWeights[weightOffset + out];
+						}
+					}
+				}
+			}
+		}
+		for (int i = from * outputSize; i < to * outputSize; i++) {
+			outputs[i] = Calculator.sigmoid(layerSignals[i]);
+		}
+	}
+
+	/**
+	 * Backward pass of the first rows of the batch, calculating the errors of all the layers with the current weights,
+	 * and then updating the weights.
+	 * 
+	 * @param count The number of rows.
+	 */
+	private void backward(int count) {
+
+		// Output layer errors.
+		int last = getSize() - 1;
+		invoke(count, rowsGrain, (from, to) -> outputErrors(last, from, to));
+
+		// Hidden layers errors.
+		for (int layer = last - 1; layer >= 0; layer--) {
+			final int l = layer;
+			invoke(count, rowsGrain, (from, to) -> hiddenErrors(l, from, to));
+		}
+
+		// Update weights.
+		double rate = learningRate / count;
+		for (int layer = 0; layer < getSize(); layer++) {
+			final int l = layer;
+			int grain = Math.max(1, workGrain / Math.max(1, count * getOutputSize(layer)));
+			invoke(getInputSize(layer), grain, (from, to) -> updateWeights(l, rate, from, to));
+		}
+	}
+
+	/**
+	 * Output layer errors for a range of rows, the difference multiplied by the sigmoid derivative.
+	 * 
+	 * @param layer The output layer.
+	 * @param from The first row.
+	 * @param to The last row, exclusive.
+	 */
+	private void outputErrors(int layer, int from, int to) {
+		int outputSize = getOutputSize(layer);
+		double[] layerSignals = signals.get(layer);
+		double[] layerErrors = errors.get(layer);
+		for (int i = from * outputSize; i < to * outputSize; i++) {
+			layerErrors[i] *= Calculator.sigmoidDerivative(layerSignals[i]);
+		}
+	}
+
+	/**
+	 * Hidden layer errors for a range of rows: <tt>errors = (errorsNext x transpose(weightsNext)) * derivative</tt>.
+	 * 
+	 * @param layer The hidden layer.
+	 * @param from The first row.
+	 * @param to The last row, exclusive.
+	 */
+	private void hiddenErrors(int layer, int from, int to) {
+		int size = getOutputSize(layer);
+		int sizeNext = getOutputSize(layer + 1);
+		double[] weightsNext = weights.get(layer + 1);
+		double[] errorsNext = errors.get(layer + 1);
+		double[] layerSignals = signals.get(layer);
+		double[] layerErrors = errors.get(layer);
+		for (int block = 0; block < size; block += BLOCK) {
+			int end = Math.min(block + BLOCK, size);
+			for (int row = from; row < to; row++) {
+				int offsetNext = row * sizeNext;
+				int offset = row * size;
+				for (int in = block; in < end; in++) {
+					int weightOffset = in * sizeNext;
+					double weighted = 0;
+					for (int out = 0; out < sizeNext; out++) {
+						weighted += errorsNext[offsetNext + out] * weightsNext[weightOffset + out];
+					}
+					layerErrors[offset + in] = weighted * Calculator.sigmoidDerivative(layerSignals[offset + in]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Update the weights of a range of input rows of the layer:
+	 * <tt>weights += rate * (transpose(inputs) x errors)</tt>.
+	 * 
+	 * @param layer The layer.
+	 * @param rate The learning rate divided by the number of rows of the batch.
+	 * @param from The first input row.
+	 * @param to The last input row, exclusive.
+	 */
+	private void updateWeights(int layer, double rate, int from, int to) {
+		int inputSize = getInputSize(layer);
+		int outputSize = getOutputSize(layer);
+		double[] inputs = ios.get(layer);
+		double[] layerErrors = errors.get(layer);
+		double[] layerWeights = weights.get(layer);
+		for (int rowBlock = 0; rowBlock < rows; rowBlock += BLOCK) {
+			int rowEnd = Math.min(rowBlock + BLOCK, rows);
+			for (int in = from; in < to; in++) {
+				int weightOffset = in * outputSize;
+				for (int row = rowBlock; row < rowEnd; row++) {
+					double input = inputs[row * inputSize + in];
+					if (input == 0) {
+						continue;
+					}
+					double factor = rate * input;
+					int errorOffset = row * outputSize;
+					for (int out = 0; out < outputSize; out++) {
+						layerWeights[weightOffset + out] += factor * layerErrors[errorOffset + out];
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Invoke the operation over a range of rows, in the pool if the range is greater than the grain.
+	 * 
+	 * @param count The number of rows.
+	 * @param grain The grain.
+	 * @param operation The operation.
+	 */
+	private void invoke(int count, int grain, RowsOperation operation) {
+		if (count <= grain || pool.getParallelism() == 1) {
+			operation.apply(0, count);
+			return;
+		}
+		pool.invoke(new Rows(operation, 0, count, grain));
+	}
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtplaf.library.ai.nnet.bp;
+
+import java.io.File;
+import java.util.List;
+
+import com.qtplaf.library.ai.nnet.ListPatternSource;
+import com.qtplaf.library.ai.nnet.Pattern;
+import com.qtplaf.library.ai.nnet.mnist.NumberImageReader;
+import com.qtplaf.library.math.Calculator;
+import com.qtplaf.library.util.SystemUtils;
+
+/**
+ * Compare the training throughput of <tt>BPNN</tt> and <tt>MiniBatchBPNN</tt> on the MNIST database, with the same
+ * topology and initial weights. Each engine runs some warm up rounds and then the measured rounds over the same
+ * patterns, and the patterns per second of each measured round and the check performance are printed.
+ * <p>
+ * Arguments, all optional: number of learning patterns (default 2000), batch size (default 64), warm up rounds (default
+ * 2) and measured rounds (default 3).
+ * 
+ * @author Miquel Sas
+ */
+public class TestMiniBatchBPNN {
+
+	/**
+	 * @param args
+	 */
+	public static void main(String[] args) throws Exception {
+
+		int patternsCount = (args.length > 0 ? Integer.parseInt(args[0]) : 2000);
+		int batchSize = (args.length > 1 ? Integer.parseInt(args[1]) : 64);
+		int warmUpRounds = (args.length > 2 ? Integer.parseInt(args[2]) : 2);
+		int measuredRounds = (args.length > 3 ? Integer.parseInt(args[3]) : 3);
+
+		System.out.println("Processors: " + Runtime.getRuntime().availableProcessors());
+
+		List<Pattern> learningPatterns = getPatterns("train-images.idx3-ubyte", "train-labels.idx1-ubyte");
+		learningPatterns = learningPatterns.subList(0, Math.min(patternsCount, learningPatterns.size()));
+		List<Pattern> checkPatterns = getPatterns("t10k-images.idx3-ubyte", "t10k-labels.idx1-ubyte");
+
+		// Both networks with the same initial weights.
+		BPNN bpnn = new BPNN();
+		bpnn.setLearningRate(0.1);
+		bpnn.addLayer(784, 400);
+		bpnn.addLayer(400);
+		bpnn.addLayer(10);
+		bpnn.initializeWeights();
+
+		MiniBatchBPNN miniBatch = new MiniBatchBPNN();
+		miniBatch.setLearningRate(0.1 * batchSize);
+		miniBatch.setBatchSize(batchSize);
+		miniBatch.addLayer(784, 400);
+		miniBatch.addLayer(400);
+		miniBatch.addLayer(10);
+		miniBatch.initializeWeights(bpnn.getWeightsRaw());
+
+		// BPNN.
+		for (int round = 0; round < warmUpRounds + measuredRounds; round++) {
+			long time = System.nanoTime();
+			for (Pattern pattern : learningPatterns) {
+				bpnn.processInputs(pattern.getPatternInputs());
+				bpnn.processErrors(Calculator.subtract(pattern.getPatternOutputs(), bpnn.getOutputs()));
+			}
+			print("BPNN", round, warmUpRounds, learningPatterns.size(), System.nanoTime() - time);
+		}
+		double matches = 0;
+		for (Pattern pattern : checkPatterns) {
+			bpnn.processInputs(pattern.getPatternInputs());
+			if (Calculator.areEqual(pattern.getPatternOutputs(), bpnn.getOutputs(), 0)) {
+				matches++;
+			}
+		}
+		System.out.println("BPNN performance " + (100 * matches / checkPatterns.size()));
+
+		// Mini-batch.
+		ListPatternSource source = new ListPatternSource(learningPatterns);
+		for (int round = 0; round < warmUpRounds + measuredRounds; round++) {
+			long time = System.nanoTime();
+			miniBatch.processIteration(source);
+			print("MiniBatchBPNN", round, warmUpRounds, learningPatterns.size(), System.nanoTime() - time);
+		}
+		matches = 0;
+		for (Pattern pattern : checkPatterns) {
+			double[] outputs = miniBatch.processInputs(pattern.getPatternInputs());
+			if (Calculator.areEqual(pattern.getPatternOutputs(), outputs, 0)) {
+				matches++;
+			}
+		}
+		System.out.println("MiniBatchBPNN performance " + (100 * matches / checkPatterns.size()));
+
+		System.exit(0);
+	}
+
+	private static void print(String engine, int round, int warmUpRounds, int patterns, long nanos) {
+		StringBuilder b = new StringBuilder();
+		b.append(engine);
+		b.append(round < warmUpRounds ? " warm up " : " measure ");
+		b.append(round);
+		b.append(": ");
+		b.append(Math.round(patterns / (nanos / 1e9)));
+		b.append(" patterns/s");
+		System.out.println(b.toString());
+	}
+
+	private static List<Pattern> getPatterns(String imageFileName, String labelFileName) throws Exception {
+		File fileImage = SystemUtils.getFileFromClassPathEntries(imageFileName);
+		File fileLabel = SystemUtils.getFileFromClassPathEntries(labelFileName);
+		NumberImageReader reader = new NumberImageReader(fileLabel, fileImage);
+		reader.read();
+		return reader.getPatterns();
+	}
+}
@@ -15,6 +15,7 @@
 package com.qtplaf.library.database;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 
@@ -22,13 +23,23 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import com.qtplaf.library.database.Condition.Operator;
-import com.qtplaf.library.util.list.ListUtils;
+import com.qtplaf.library.util.map.IntCache;
+import com.qtplaf.library.util.map.IntCachePolicy;
 
 /**
- * A <tt>PageRecordSet</tt> is a <tt>RecordSet</tt> that first paginates the underliying <tt>Persistor</tt> and
- * <tt>Criteria</tt>. It is aimed to be used when the underlying view is very large and visually browse is required.
+ * A <tt>PageRecordSet</tt> is a <tt>RecordSet</tt> that reads the underliying <tt>Persistor</tt> and <tt>Criteria</tt>
+ * by pages on demand. It is aimed to be used when the underlying view is very large and visually browse is required.
  * <p>
- * Note that they can not be greater that <tt>Integer.MAX_VALUE</tt>.
+ * The size is the count of the persistor, and pages have a fixed size, so the page of a record index is found directly.
+ * Pages are read with keyset seeks, records after the last key of the previous page or before the first key of the
+ * next page, and the keys of the page boundaries are sampled lazily as pages are read. When no neighbour key is known,
+ * the page is read from the nearest known key or from the start or the end, skipping records and sampling the keys
+ * of the pages skipped. Loaded pages are kept in a LRU cache.
+ * <p>
+ * The order of the view must be unique, normally including the primary key, for keyset seeks to be exact, and its
+ * fields can not be nullable, because a null key value would not match the greater than or less than conditions of
+ * the seek and records would be lost or misplaced. Note that the record set can not be greater that
+ * <tt>Integer.MAX_VALUE</tt>.
  * <p>
  * Additionally, this <tt>PageRecordSet</tt> can not be sorted since it strictly uses the underlying order of the
  * persistor.
@@ -40,165 +51,6 @@ public class PageRecordSet extends RecordSet {
 	/** Logger instance to log exceptions. */
 	private static final Logger logger = LogManager.getLogger();
 
-	/**
-	 * Runable to paginate in a thread.
-	 */
-	private class Paginator implements Runnable {
-		@Override
-		public void run() {
-			try {
-				setPaginating(true);
-				paginate();
-			} catch (Exception exc) {
-				logger.catching(exc);
-			} finally {
-				setPaginating(false);
-			}
-		}
-	}
-
-	/**
-	 * Page information.
-	 */
-	private class Page {
-		/** Index of first record. */
-		private int firstIndex;
-		/** Key of first record. */
-		private OrderKey firstKey;
-		/** Index of last record. */
-		private int lastIndex;
-		/** Key of last record. */
-		private OrderKey lastKey;
-
-		/**
-		 * Default constructor.
-		 */
-		private Page() {
-			super();
-		}
-
-		/**
-		 * Constructor.
-		 * 
-		 * @param firstIndex First index.
-		 * @param firstKey First key.
-		 * @param lastIndex Last index.
-		 * @param lastKey Last key.
-		 */
-		private Page(int firstIndex, OrderKey firstKey, int lastIndex, OrderKey lastKey) {
-			this.firstIndex = firstIndex;
-			this.firstKey = firstKey;
-			this.lastIndex = lastIndex;
-			this.lastKey = lastKey;
-		}
-
-		/**
-		 * Returns the first index.
-		 * 
-		 * @return The first index.
-		 */
-		private int getFirstIndex() {
-			return firstIndex;
-		}
-
-		/**
-		 * Set the first index.
-		 * 
-		 * @param firstIndex The first index.
-		 */
-		private void setFirstIndex(int firstIndex) {
-			this.firstIndex = firstIndex;
-		}
-
-		/**
-		 * Returns the first key.
-		 * 
-		 * @return The first key.
-		 */
-		private OrderKey getFirstKey() {
-			return firstKey;
-		}
-
-		/**
-		 * Set the first key.
-		 * 
-		 * @param firstKey The first key.
-		 */
-		private void setFirstKey(OrderKey firstKey) {
-			this.firstKey = firstKey;
-		}
-
-		/**
-		 * Returns the last index.
-		 * 
-		 * @return The last index.
-		 */
-		private int getLastIndex() {
-			return lastIndex;
-		}
-
-		/**
-		 * Set the last index.
-		 * 
-		 * @param lastIndex The last index.
-		 */
-		private void setLastIndex(int lastIndex) {
-			this.lastIndex = lastIndex;
-		}
-
-		/**
-		 * Returns the last key.
-		 * 
-		 * @return The last key.
-		 */
-		private OrderKey getLastKey() {
-			return lastKey;
-		}
-
-		/**
-		 * Set the last key.
-		 * 
-		 * @param lastKey The last key.
-		 */
-		private void setLastKey(OrderKey lastKey) {
-			this.lastKey = lastKey;
-		}
-
-		/**
-		 * Check equal.
-		 */
-		@Override
-		public boolean equals(Object o) {
-			if (o instanceof Page) {
-				Page p = (Page) o;
-				return getFirstIndex() == p.getFirstIndex();
-			}
-			return false;
-		}
-
-		/**
-		 * Returns the string representation.
-		 */
-		@Override
-		public String toString() {
-			StringBuilder b = new StringBuilder();
-			b.append("[");
-			b.append(Integer.toString(firstIndex));
-			b.append(", ");
-			b.append(Integer.toString(lastIndex));
-			b.append("]");
-			b.append(", ");
-			b.append("[");
-			b.append(firstKey);
-			b.append("]");
-			b.append(", ");
-			b.append("[");
-			b.append(lastKey);
-			b.append("]");
-			return b.toString();
-		}
-	}
-
 	/**
 	 * The persistor that will provide the rows.
 	 */
@@ -207,10 +59,6 @@ public class PageRecordSet extends RecordSet {
 	 * The criteria used to retrieve the rows.
 	 */
 	private Criteria criteria;
-	/**
-	 * The stack of pages. The page in the recordset will always be the last.
-	 */
-	private List<Page> pages = new ArrayList<>();
 	/**
 	 * The size of the recordset.
 	 */
@@ -220,14 +68,17 @@ public class PageRecordSet extends RecordSet {
 	 */
 	private int pageSize = 100;
 	/**
-	 * Current loaded page.
+	 * The first keys of the pages, by page index, null if not yet sampled.
 	 */
-	private Page currentPage;
-
+	private OrderKey[] firstKeys;
+	/**
+	 * The last keys of the pages, by page index, null if not yet sampled.
+	 */
+	private OrderKey[] lastKeys;
 	/**
-	 * A boolean that indicates whether paginating is on.
+	 * The LRU cache of loaded pages by page index, default is 10 pages.
 	 */
-	private boolean paginating = false;
+	private IntCache<List<Record>> pages = new IntCache<>(10, IntCachePolicy.lru());
 
 	/**
 	 * Constructor.
@@ -246,12 +97,21 @@ public class PageRecordSet extends RecordSet {
 	}
 
 	/**
-	 * Set the persistor.
+	 * Set the persistor. The fields of the order of its view can not be nullable.
 	 * 
 	 * @param persistor The persistor.
+	 * @throws IllegalArgumentException If a field of the order is nullable.
 	 */
 	public void setPersistor(Persistor persistor) {
+		Order order = persistor.getView().getOrderBy();
+		for (int i = 0; order != null && i < order.size(); i++) {
+			Field field = order.get(i).getField();
+			if (field.isNullable()) {
+				throw new IllegalArgumentException("Order field " + field.getAlias() + " can not be nullable");
+			}
+		}
 		this.persistor = persistor;
+		reset();
 	}
 
 	/**
@@ -261,6 +121,7 @@ public class PageRecordSet extends RecordSet {
 	 */
 	public void setCriteria(Criteria criteria) {
 		this.criteria = criteria;
+		reset();
 	}
 
 	/**
@@ -269,85 +130,66 @@ public class PageRecordSet extends RecordSet {
 	 * @param pageSize The page size.
 	 */
 	public void setPageSize(int pageSize) {
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("Page size must be greater than zero");
+		}
 		this.pageSize = pageSize;
+		reset();
 	}
 
 	/**
-	 * Get a record given its index in the record list.
-	 *
-	 * @return The Record.
-	 * @param index The index in the record list.
+	 * Set the number of loaded pages to cache, default is 10.
+	 * 
+	 * @param cacheSize The number of pages to cache.
 	 */
-	@Override
-	public Record get(int index) {
-
-		// Check pagination.
-		checkPaginate();
-
-		try {
-
-			// Page...
-			Page page = null;
-
-			// Initial state.
-			if (currentPage == null) {
-				page = findPage(index);
-				loadPage(page);
-			}
-
-			// Current loaded page.
-			page = currentPage;
-
-			// First check if the required record is in the current loaded page.
-			if (inPage(index, page)) {
-				return get(index, page);
-			}
-
-			// need to find the page.
-			page = findPage(index);
-			loadPage(page);
-			return get(index, page);
-
-		} catch (PersistorException exc) {
-			logger.catching(exc);
+	public void setCacheSize(int cacheSize) {
+		if (cacheSize < 1) {
+			throw new IllegalArgumentException("Cache size must be greater than zero");
 		}
-
-		return null;
+		pages.setCacheSize(cacheSize);
 	}
 
 	/**
-	 * Check whether the index is in the page.
-	 * 
-	 * @param index The index.
-	 * @param page The page.
-	 * @return A boolean.
+	 * Reset the size, the sampled keys and the loaded pages, to read again from the persistor.
 	 */
-	private boolean inPage(int index, Page page) {
-		return index >= page.getFirstIndex() && index <= page.getLastIndex();
+	public void reset() {
+		size = -1;
+		firstKeys = null;
+		lastKeys = null;
+		pages.clear();
 	}
 
 	/**
-	 * Get the record at the view index.
+	 * Get a record given its index in the record list.
 	 * 
-	 * @param index The index of the record in the view.
-	 * @param page The current loaded page.
-	 * @return The record.
+	 * @return The Record.
+	 * @param index The index in the record list.
 	 */
-	private Record get(int index, Page page) {
-		if (!inPage(index, page)) {
-			throw new IllegalArgumentException();
+	@Override
+	public Record get(int index) {
+		if (index < 0 || index >= size()) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+		}
+		try {
+			int pageIndex = index / pageSize;
+			List<Record> page = getPage(pageIndex);
+			int offset = index - (pageIndex * pageSize);
+			if (offset < page.size()) {
+				return page.get(offset);
+			}
+		} catch (PersistorException exc) {
+			logger.catching(exc);
 		}
-		return super.get(index - page.getFirstIndex());
+		return null;
 	}
 
 	/**
 	 * Returns this record set size.
-	 *
+	 * 
 	 * @return The size.
 	 */
 	@Override
 	public int size() {
-		checkPaginate();
 		if (size < 0) {
 			try {
 				size = (int) persistor.count(criteria);
@@ -359,223 +201,199 @@ public class PageRecordSet extends RecordSet {
 	}
 
 	/**
-	 * Returns the view order.
+	 * Returns the number of pages.
 	 * 
-	 * @return The view order.
+	 * @return The number of pages.
 	 */
-	private Order getOrder() {
-		return persistor.getView().getOrderBy();
+	private int getPageCount() {
+		return (size() + pageSize - 1) / pageSize;
 	}
 
 	/**
-	 * Load a selected page.
+	 * Returns the view order, empty if the view has no order.
 	 * 
-	 * @param page The page to load.
-	 * @throws PersistorException
+	 * @return The view order.
 	 */
-	private void loadPage(Page page) throws PersistorException {
-		RecordIterator iter = null;
-		try {
-			clear();
-
-			OrderKey firstKey = page.getFirstKey();
-			OrderKey lastKey = page.getLastKey();
-
-			Criteria criteria = new Criteria();
-			if (this.criteria != null) {
-				criteria.add(this.criteria);
-			}
-			criteria.add(getCriteria(firstKey, Operator.FIELD_GE));
-			criteria.add(getCriteria(lastKey, Operator.FIELD_LE));
-
-			iter = persistor.iterator(criteria, getOrder());
-			while (iter.hasNext()) {
-				add(iter.next());
-			}
-			currentPage = page;
-
-		} finally {
-			if (iter != null) {
-				iter.close();
-			}
-		}
+	private Order getOrder() {
+		Order order = persistor.getView().getOrderBy();
+		return (order != null ? order : new Order());
 	}
 
 	/**
-	 * Returns the additional criteria to retrieve records GE/GT the key.
+	 * Returns the page, from the cache or reading it.
 	 * 
-	 * @param key The order key.
-	 * @param operator The condition operator (FIELD_GE or FIELD_GT).
-	 * @return The additional criteria to retrieve records GE/GT the key.
+	 * @param pageIndex The page index.
+	 * @return The list of records of the page.
+	 * @throws PersistorException
 	 */
-	private Criteria getCriteria(OrderKey key, Condition.Operator operator) {
-		Criteria criteria = new Criteria();
-		for (int i = 0; i < key.size(); i++) {
-			Field field = getOrder().get(i).getField();
-			Value value = key.get(i).getValue();
-			criteria.add(new Condition(field, operator, value));
+	private List<Record> getPage(int pageIndex) throws PersistorException {
+		List<Record> page = pages.get(pageIndex);
+		if (page == null) {
+			page = readPage(pageIndex);
+			pages.put(pageIndex, page);
 		}
-		return criteria;
+		return page;
 	}
 
 	/**
-	 * Find the page that contains the record index.
+	 * Read a page seeking from the nearest sampled key, or from the start or the end.
 	 * 
-	 * @param recordIndex The record index.
-	 * @return The page.
+	 * @param pageIndex The page index.
+	 * @return The list of records of the page.
+	 * @throws PersistorException
 	 */
-	private Page findPage(int recordIndex) {
-		int pageIndex = 0;
-		Page page = null;
-		while (true) {
-			if (pageIndex == getPagesSize()) {
-				if (isPaginating()) {
-					sleep(50);
-					continue;
-				}
-				break;
-			}
-			page = getPage(pageIndex);
-			if (inPage(recordIndex, page)) {
-				break;
-			}
-			pageIndex++;
+	private List<Record> readPage(int pageIndex) throws PersistorException {
+		int pageCount = getPageCount();
+		if (firstKeys == null) {
+			firstKeys = new OrderKey[pageCount];
+			lastKeys = new OrderKey[pageCount];
 		}
-		return page;
-	}
 
-	/**
-	 * Sleep.
-	 * 
-	 * @param time Time in millis
-	 */
-	private void sleep(int time) {
-		try {
-			Thread.sleep(time);
-		} catch (InterruptedException ignore) {
+		// Without order keyset seeks are not possible, read from the start.
+		if (getOrder().isEmpty()) {
+			return read(pageIndex, null, 0, true);
 		}
-	}
 
-	/**
-	 * Check if pagination should be started.
-	 */
-	private void checkPaginate() {
-		if (!isPaginating() && isPagesEmpty()) {
-			new Thread(new Paginator()).start();
+		// Nearest page before with the last key sampled, or the start, and after with the first key, or the end.
+		int before = pageIndex - 1;
+		while (before >= 0 && lastKeys[before] == null) {
+			before--;
+		}
+		int after = pageIndex + 1;
+		while (after < pageCount && firstKeys[after] == null) {
+			after++;
 		}
+
+		// Read in the direction that skips less records.
+		int skipForward = (pageIndex - before - 1) * pageSize;
+		int skipBackward = Math.min(size(), after * pageSize) - Math.min(size(), (pageIndex + 1) * pageSize);
+		if (skipForward <= skipBackward) {
+			int startIndex = (before + 1) * pageSize;
+			return read(pageIndex, (before >= 0 ? lastKeys[before] : null), startIndex, true);
+		}
+		int startIndex = Math.min(size(), after * pageSize) - 1;
+		return read(pageIndex, (after < pageCount ? firstKeys[after] : null), startIndex, false);
 	}
 
 	/**
-	 * Paginate the underlying persistor.
+	 * Read records after (forward) or before (backward) the key, sampling the keys of the page boundaries, until the
+	 * records of the page are read.
 	 * 
+	 * @param pageIndex The page index.
+	 * @param key The key to seek, null to read from the start or the end.
+	 * @param startIndex The index of the first record read.
+	 * @param forward A boolean that indicates whether to read forward.
+	 * @return The list of records of the page.
 	 * @throws PersistorException
 	 */
-	private void paginate() throws PersistorException {
+	private List<Record> read(int pageIndex, OrderKey key, int startIndex, boolean forward) throws PersistorException {
+		Order order = getOrder();
+		Criteria criteria = new Criteria();
+		if (this.criteria != null) {
+			criteria.add(this.criteria);
+		}
+		if (key != null) {
+			criteria.add(getCriteria(order, key, forward));
+		}
+
+		List<Record> page = new ArrayList<>(pageSize);
+		int firstIndex = pageIndex * pageSize;
+		int lastIndex = Math.min(size(), firstIndex + pageSize) - 1;
+		int index = startIndex;
 		RecordIterator iter = null;
 		try {
-
-			Order order = getOrder();
-
-			int index = -1;
-			Page currentPage = null;
-			int currentPageSize = 0;
-			Record record = null;
-
-			iter = persistor.iterator(criteria, order);
+			iter = persistor.iterator(criteria, (forward ? order : getReverseOrder(order)));
 			while (iter.hasNext()) {
-				index++;
-				record = iter.next();
-				if (currentPageSize == 0) {
-					int firstIndex = index;
-					OrderKey firstKey = record.getOrderKey(order);
-					currentPage = new Page();
-					currentPage.setFirstIndex(firstIndex);
-					currentPage.setFirstKey(firstKey);
+				Record record = iter.next();
+				if (!order.isEmpty()) {
+					sample(index, record, order);
 				}
-				if (currentPageSize == pageSize - 1) {
-					int lastIndex = index;
-					OrderKey lastKey = record.getOrderKey(order);
-					currentPage.setLastIndex(lastIndex);
-					currentPage.setLastKey(lastKey);
-					addPage(currentPage);
-					currentPage = null;
-					currentPageSize = 0;
-					continue;
+				if (index >= firstIndex && index <= lastIndex) {
+					page.add(record);
 				}
-				currentPageSize++;
-			}
-			if (record != null && currentPage != null && !currentPage.equals(getLastPage())) {
-				int lastIndex = index;
-				OrderKey lastKey = record.getOrderKey(order);
-				currentPage.setLastIndex(lastIndex);
-				currentPage.setLastKey(lastKey);
-				addPage(currentPage);
+				if (index == (forward ? lastIndex : firstIndex)) {
+					break;
+				}
+				index += (forward ? 1 : -1);
 			}
 		} finally {
 			if (iter != null) {
 				iter.close();
 			}
 		}
+		if (!forward) {
+			Collections.reverse(page);
+		}
+		return page;
 	}
 
 	/**
-	 * Synchronized access to the paginating flag.
-	 */
-	synchronized private boolean isPaginating() {
-		return paginating;
-	}
-
-	/**
-	 * Synchronized access to the paginating flag.
-	 */
-	synchronized private void setPaginating(boolean b) {
-		this.paginating = b;
-	}
-
-	/**
-	 * Synchronized access to pages.
+	 * Sample the key of the record if it is the first or the last of its page.
 	 * 
-	 * param page Add a page.
-	 */
-	synchronized private void addPage(Page page) {
-		pages.add(page);
+	 * @param index The record index.
+	 * @param record The record.
+	 * @param order The order.
+	 */
+	private void sample(int index, Record record, Order order) {
+		int pageIndex = index / pageSize;
+		if (pageIndex >= firstKeys.length) {
+			return;
+		}
+		if (index % pageSize == 0 && firstKeys[pageIndex] == null) {
+			firstKeys[pageIndex] = record.getOrderKey(order);
+		}
+		if ((index % pageSize == pageSize - 1 || index == size() - 1) && lastKeys[pageIndex] == null) {
+			lastKeys[pageIndex] = record.getOrderKey(order);
+		}
 	}
 
 	/**
-	 * Synchronized access to pages.
+	 * Returns the order with the direction of each segment reversed.
 	 * 
-	 * @return The last page in the list.
+	 * @param order The order.
+	 * @return The reverse order.
 	 */
-	synchronized private Page getLastPage() {
-		return ListUtils.getLast(pages);
+	private Order getReverseOrder(Order order) {
+		Order reverse = new Order(order.size());
+		for (int i = 0; i < order.size(); i++) {
+			reverse.add(order.get(i).getField(), !order.get(i).isAsc());
+		}
+		return reverse;
 	}
 
 	/**
-	 * Synchronized access to pages.
+	 * Returns the criteria to retrieve records after (forward) or before (backward) the key in the order, that is, for
+	 * a key (k0, k1, ...), the records where (f0 &gt; k0) OR (f0 = k0 AND f1 &gt; k1) OR ..., with the comparison
+	 * reversed for descending segments or to read backward.
 	 * 
-	 * @param index The index of the page.
-	 * @return The page of index.
+	 * @param order The order.
+	 * @param key The order key.
+	 * @param forward A boolean that indicates whether the records are after the key.
+	 * @return The criteria.
 	 */
-	synchronized private Page getPage(int index) {
-		return pages.get(index);
+	private Criteria getCriteria(Order order, OrderKey key, boolean forward) {
+		Criteria criteria = new Criteria(Criteria.OR);
+		for (int i = 0; i < key.size(); i++) {
+			Criteria segment = new Criteria();
+			for (int j = 0; j < i; j++) {
+				segment.add(new Condition(order.get(j).getField(), Operator.FIELD_EQ, key.get(j).getValue()));
+			}
+			boolean after = (order.get(i).isAsc() == forward);
+			Operator operator = (after ? Operator.FIELD_GT : Operator.FIELD_LT);
+			segment.add(new Condition(order.get(i).getField(), operator, key.get(i).getValue()));
+			criteria.add(segment);
+		}
+		return criteria;
 	}
 
 	/**
-	 * Synchronized access to pages.
+	 * Check if the recordset can be sorted, it can not because it strictly uses the order of the persistor.
 	 * 
 	 * @return A boolean.
 	 */
-	synchronized private boolean isPagesEmpty() {
-		return pages.isEmpty();
-	}
-
-	/**
-	 * Synchronized access to pages.
-	 * 
-	 * @return The size of the pages.
-	 */
-	synchronized private int getPagesSize() {
-		return pages.size();
+	@Override
+	public boolean isSortable() {
+		return false;
 	}
 
 	/**
@@ -155,6 +155,15 @@ public interface Persistor {
 	 */
 	int insert(Record record) throws PersistorException;
 
+	/**
+	 * Insert a list of records in batches, using one connection and one prepared statement.
+	 * 
+	 * @param records The list of records to insert.
+	 * @return The number of inserted records.
+	 * @throws PersistorException
+	 */
+	int insert(List<Record> records) throws PersistorException;
+
 	/**
 	 * Returns a record iterator to scan the records that agree with the criteria.
 	 * 
@@ -271,6 +280,15 @@ public interface Persistor {
 	 */
 	int update(Record record) throws PersistorException;
 
+	/**
+	 * Update a list of records by primary key in batches, using one connection.
+	 * 
+	 * @param records The list of records to update.
+	 * @return The number of updated records.
+	 * @throws PersistorException
+	 */
+	int update(List<Record> records) throws PersistorException;
+
 	/**
 	 * Update a set of fields with given values for the firlter criteria. The map of values can be keyed either by
 	 * index, alias or field.
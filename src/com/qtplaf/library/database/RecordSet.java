@@ -202,6 +202,23 @@ public class RecordSet implements Iterable<Record> {
 		return records.get(index);
 	}
 
+	/**
+	 * Returns the list of records from the index, at most the page size. Record sets that read from a persistor
+	 * overwrite this method to read the page in one pass.
+	 * 
+	 * @param index The index of the first record.
+	 * @param pageSize The page size.
+	 * @return The list of records.
+	 */
+	public List<Record> getPage(int index, int pageSize) {
+		List<Record> page = new ArrayList<>();
+		int endIndex = Math.min(size(), index + pageSize);
+		for (int i = index; i < endIndex; i++) {
+			page.add(get(i));
+		}
+		return page;
+	}
+
 	/**
 	 * Find the index of the given record.
 	 *
@@ -0,0 +1,386 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtplaf.library.database.rdbms;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.qtplaf.library.database.Record;
+import com.qtplaf.library.database.Table;
+import com.qtplaf.library.database.Value;
+import com.qtplaf.library.database.rdbms.sql.Insert;
+import com.qtplaf.library.database.rdbms.sql.Update;
+
+/**
+ * A batch insert session. Holds one connection, caches one prepared statement per table, binds rows with
+ * <tt>addBatch</tt> and executes and commits every <tt>commitSize</tt> rows. Updates by primary key are batched the same
+ * way, with one prepared statement per distinct update statement. The session must be closed to flush the rows still
+ * pending and release the connection.
+ *
+ * @author Miquel Sas
+ */
+public class BatchInsertor implements AutoCloseable {
+
+	/**
+	 * A prepared statement and the number of rows pending to execute.
+	 */
+	class Batch {
+		/** The prepared statement. */
+		private PreparedStatement ps;
+		/** Number of rows added and not executed. */
+		private int pending = 0;
+		/** A boolean that indicates whether the statement is an update. */
+		private boolean update;
+
+		Batch(PreparedStatement ps, boolean update) {
+			this.ps = ps;
+			this.update = update;
+		}
+	}
+
+	/**
+	 * The database engine.
+	 */
+	private DBEngine dbEngine;
+	/**
+	 * The connection held by the session.
+	 */
+	private Connection cn;
+	/**
+	 * Map of batches keyed by table name for inserts and by SQL statement for updates, in order of first use so that
+	 * batches are executed respecting the order of the tables.
+	 */
+	private Map<String, Batch> batches = new LinkedHashMap<>();
+	/**
+	 * The number of rows after which the batches are executed and the transaction committed.
+	 */
+	private int commitSize = 1000;
+	/**
+	 * The number of rows added and not yet executed.
+	 */
+	private int pendingRows = 0;
+	/**
+	 * The number of rows executed and committed.
+	 */
+	private long insertedRows = 0;
+	/**
+	 * The number of rows updated and committed.
+	 */
+	private long updatedRows = 0;
+	/**
+	 * Nano time of the first row added.
+	 */
+	private long startTime = -1;
+	/**
+	 * Nano time of the last commit.
+	 */
+	private long endTime = -1;
+	/**
+	 * A boolean that indicates whether the session is closed.
+	 */
+	private boolean closed = false;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param dbEngine The database engine.
+	 */
+	public BatchInsertor(DBEngine dbEngine) {
+		super();
+		this.dbEngine = dbEngine;
+	}
+
+	/**
+	 * Returns the number of rows after which batches are executed and committed.
+	 *
+	 * @return The commit size.
+	 */
+	public int getCommitSize() {
+		return commitSize;
+	}
+
+	/**
+	 * Sets the number of rows after which batches are executed and committed.
+	 *
+	 * @param commitSize The commit size.
+	 */
+	public void setCommitSize(int commitSize) {
+		if (commitSize <= 0) {
+			throw new IllegalArgumentException("Commit size must be greater than zero");
+		}
+		this.commitSize = commitSize;
+	}
+
+	/**
+	 * Returns the number of rows inserted and committed.
+	 *
+	 * @return The number of rows inserted.
+	 */
+	public long getInsertedRows() {
+		return insertedRows;
+	}
+
+	/**
+	 * Returns the number of rows updated and committed.
+	 *
+	 * @return The number of rows updated.
+	 */
+	public long getUpdatedRows() {
+		return updatedRows;
+	}
+
+	/**
+	 * Returns the number of rows added and not yet executed.
+	 *
+	 * @return The number of pending rows.
+	 */
+	public int getPendingRows() {
+		return pendingRows;
+	}
+
+	/**
+	 * Returns the elapsed time in milliseconds from the first row added to the last commit.
+	 *
+	 * @return The elapsed time in milliseconds.
+	 */
+	public long getElapsedTime() {
+		if (startTime < 0 || endTime < 0) {
+			return 0;
+		}
+		return (endTime - startTime) / 1000000;
+	}
+
+	/**
+	 * Returns the number of rows inserted per second.
+	 *
+	 * @return The number of rows per second.
+	 */
+	public double getRowsPerSecond() {
+		if (startTime < 0 || endTime <= startTime) {
+			return 0;
+		}
+		return (insertedRows + updatedRows) / ((endTime - startTime) / 1000000000.0);
+	}
+
+	/**
+	 * Returns the connection, opening it if necessary.
+	 *
+	 * @return The connection.
+	 * @throws SQLException
+	 */
+	private Connection getConnection() throws SQLException {
+		if (closed) {
+			throw new SQLException("Batch insertor is closed.");
+		}
+		if (cn == null) {
+			cn = dbEngine.getConnection();
+		}
+		return cn;
+	}
+
+	/**
+	 * Acquires the connection of the session if not already held, so that a connection failure is raised before
+	 * the first row.
+	 *
+	 * @throws SQLException
+	 */
+	public void open() throws SQLException {
+		getConnection();
+	}
+
+	/**
+	 * Returns the insert batch for the table, preparing the statement with the first record if necessary.
+	 *
+	 * @param table The table.
+	 * @param record The first record, used to build the insert statement.
+	 * @return The batch.
+	 * @throws SQLException
+	 */
+	private Batch getBatch(Table table, Record record) throws SQLException {
+		String key = table.getNameSchema();
+		Batch batch = batches.get(key);
+		if (batch == null) {
+			Insert insert = dbEngine.getDBEngineAdapter().getStatementInsert(table, record);
+			batch = new Batch(getConnection().prepareStatement(dbEngine.getDBEngineAdapter().getSQL(insert)), false);
+			batches.put(key, batch);
+		}
+		return batch;
+	}
+
+	/**
+	 * Returns the update batch for the statement, preparing it if necessary.
+	 *
+	 * @param update The update statement.
+	 * @return The batch.
+	 * @throws SQLException
+	 */
+	private Batch getBatch(Update update) throws SQLException {
+		String sql = dbEngine.getDBEngineAdapter().getSQL(update);
+		Batch batch = batches.get(sql);
+		if (batch == null) {
+			batch = new Batch(getConnection().prepareStatement(sql), true);
+			batches.put(sql, batch);
+		}
+		return batch;
+	}
+
+	/**
+	 * Binds the values to the batch statement and adds it. If the number of pending rows reaches the commit size, all
+	 * batches are executed and committed.
+	 *
+	 * @param batch The batch.
+	 * @param values The list of values.
+	 * @throws SQLException
+	 */
+	private void addBatch(Batch batch, List<Value> values) throws SQLException {
+		for (int i = 0; i < values.size(); i++) {
+			DBUtils.toPreparedStatement(values.get(i), i + 1, batch.ps);
+		}
+		batch.ps.addBatch();
+		batch.pending++;
+		pendingRows++;
+		if (pendingRows >= commitSize) {
+			flush();
+		}
+	}
+
+	/**
+	 * Adds a record to the batch of the table. If the number of pending rows reaches the commit size, all batches are
+	 * executed and committed.
+	 *
+	 * @param table The table.
+	 * @param record The record.
+	 * @throws SQLException
+	 */
+	public void insert(Table table, Record record) throws SQLException {
+		if (startTime < 0) {
+			startTime = System.nanoTime();
+		}
+		addBatch(getBatch(table, record), record.getPersistentValues());
+	}
+
+	/**
+	 * Adds a list of records to the batch of the table.
+	 *
+	 * @param table The table.
+	 * @param records The list of records.
+	 * @throws SQLException
+	 */
+	public void insert(Table table, List<Record> records) throws SQLException {
+		for (Record record : records) {
+			insert(table, record);
+		}
+	}
+
+	/**
+	 * Adds the update by primary key of the modified values of the record to the batch of the table. Records with the
+	 * same set of modified fields share the prepared statement.
+	 *
+	 * @param table The table.
+	 * @param record The record.
+	 * @throws SQLException
+	 */
+	public void update(Table table, Record record) throws SQLException {
+		if (startTime < 0) {
+			startTime = System.nanoTime();
+		}
+		Update update = dbEngine.getDBEngineAdapter().getStatementUpdate(table, record);
+		addBatch(getBatch(update), update.getValues());
+	}
+
+	/**
+	 * Adds the updates of a list of records to the batch of the table.
+	 *
+	 * @param table The table.
+	 * @param records The list of records.
+	 * @throws SQLException
+	 */
+	public void update(Table table, List<Record> records) throws SQLException {
+		for (Record record : records) {
+			update(table, record);
+		}
+	}
+
+	/**
+	 * Executes all pending batches and commits the transaction. On error the transaction is rolled back and the
+	 * pending rows are discarded.
+	 *
+	 * @throws SQLException
+	 */
+	public void flush() throws SQLException {
+		if (pendingRows == 0) {
+			return;
+		}
+		try {
+			int inserted = 0;
+			int updated = 0;
+			for (Batch batch : batches.values()) {
+				if (batch.pending > 0) {
+					batch.ps.executeBatch();
+					if (batch.update) {
+						updated += batch.pending;
+					} else {
+						inserted += batch.pending;
+					}
+					batch.pending = 0;
+				}
+			}
+			cn.commit();
+			insertedRows += inserted;
+			updatedRows += updated;
+		} catch (SQLException exc) {
+			for (Batch batch : batches.values()) {
+				batch.ps.clearBatch();
+				batch.pending = 0;
+			}
+			cn.rollback();
+			throw exc;
+		} finally {
+			pendingRows = 0;
+			endTime = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Flushes pending rows, closes the cached statements and releases the connection.
+	 *
+	 * @throws SQLException
+	 */
+	@Override
+	public void close() throws SQLException {
+		if (closed) {
+			return;
+		}
+		try {
+			flush();
+		} finally {
+			closed = true;
+			for (Batch batch : batches.values()) {
+				if (!batch.ps.isClosed()) {
+					batch.ps.close();
+				}
+			}
+			batches.clear();
+			if (cn != null && !cn.isClosed()) {
+				cn.close();
+			}
+			cn = null;
+		}
+	}
+}
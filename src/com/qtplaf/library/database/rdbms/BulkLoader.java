@@ -0,0 +1,499 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtplaf.library.database.rdbms;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.qtplaf.library.database.Record;
+import com.qtplaf.library.database.Table;
+import com.qtplaf.library.database.View;
+
+/**
+ * Bulk loader that inserts records in a table using a fixed pool of workers fed by a bounded queue. Adding a record
+ * blocks while the queue is full, each worker holds one connection and inserts in JDBC batches, and <tt>flush</tt> and
+ * <tt>close</tt> wait until every queued record has been written or has failed.
+ * <p>
+ * A worker that dies on an unexpected error counts the records it held as failed, and when no worker is left the
+ * records still queued are counted as failed too, so that waits always end. The first such error is rethrown by
+ * <tt>add</tt>, <tt>flush</tt> and <tt>close</tt>.
+ *
+ * @author Miquel Sas
+ */
+public class BulkLoader implements AutoCloseable {
+
+	/** Logger instance. */
+	private static final Logger logger = LogManager.getLogger();
+
+	/**
+	 * Marker record that signals a worker to end.
+	 */
+	private static final Record END = new Record();
+
+	/**
+	 * Worker that takes records from the queue and inserts them in batches through its own batch insertor.
+	 */
+	class Worker implements Runnable {
+
+		/** The batch insertor, holding the connection of this worker. */
+		private BatchInsertor insertor;
+		/** Records added to the insertor and not yet committed. */
+		private List<Record> pending = new ArrayList<>();
+
+		Worker() {
+			insertor = dbEngine.getBatchInsertor();
+			insertor.setCommitSize(Integer.MAX_VALUE);
+		}
+
+		@Override
+		public void run() {
+			Record current = null;
+			try {
+				insertor.open();
+				while (true) {
+					Record record = queue.take();
+					if (record == END) {
+						break;
+					}
+					current = record;
+					Record tableRecord = (view != null ? view.getMasterTableRecord(record) : record);
+					try {
+						insertor.insert(table, tableRecord);
+						pending.add(tableRecord);
+					} catch (SQLException exc) {
+						logger.catching(exc);
+						current = null;
+						failed.incrementAndGet();
+						signal();
+						continue;
+					}
+					current = null;
+					if (pending.size() >= batchSize || queue.isEmpty()) {
+						commit();
+					}
+				}
+			} catch (Throwable exc) {
+				logger.catching(exc);
+				failure.compareAndSet(null, exc);
+			} finally {
+				try {
+					commit();
+				} catch (Throwable exc) {
+					logger.catching(exc);
+					failure.compareAndSet(null, exc);
+					failed.addAndGet(pending.size());
+					pending.clear();
+				}
+				if (current != null) {
+					failed.incrementAndGet();
+				}
+				try {
+					insertor.close();
+				} catch (Throwable exc) {
+					logger.catching(exc);
+				}
+				workerEnded();
+			}
+		}
+
+		/**
+		 * Executes and commits the pending batch. If the batch fails, the pending records are inserted one by one so
+		 * that only the offending records are counted as failed.
+		 */
+		private void commit() {
+			if (pending.isEmpty()) {
+				return;
+			}
+			try {
+				insertor.flush();
+				written.addAndGet(pending.size());
+			} catch (SQLException batchExc) {
+				logger.catching(batchExc);
+				for (Record record : pending) {
+					try {
+						dbEngine.executeInsert(table, record);
+						written.incrementAndGet();
+					} catch (SQLException exc) {
+						logger.catching(exc);
+						failed.incrementAndGet();
+					}
+				}
+			}
+			pending.clear();
+			signal();
+		}
+
+		/**
+		 * Signal threads waiting for pending records.
+		 */
+		private void signal() {
+			synchronized (lock) {
+				lock.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * The database engine.
+	 */
+	private DBEngine dbEngine;
+	/**
+	 * The destination table.
+	 */
+	private Table table;
+	/**
+	 * Optional view used to move the records to master table records.
+	 */
+	private View view;
+	/**
+	 * The number of workers.
+	 */
+	private int workerCount = 4;
+	/**
+	 * The capacity of the queue.
+	 */
+	private int queueCapacity = 10000;
+	/**
+	 * The number of records per batch and commit.
+	 */
+	private int batchSize = 500;
+	/**
+	 * The bounded queue of records.
+	 */
+	private BlockingQueue<Record> queue;
+	/**
+	 * The worker threads.
+	 */
+	private List<Thread> threads;
+	/**
+	 * Number of records queued.
+	 */
+	private AtomicLong queued = new AtomicLong();
+	/**
+	 * Number of records written.
+	 */
+	private AtomicLong written = new AtomicLong();
+	/**
+	 * Number of records that failed.
+	 */
+	private AtomicLong failed = new AtomicLong();
+	/**
+	 * Lock used to wait for pending records.
+	 */
+	private Object lock = new Object();
+	/**
+	 * Number of workers still running, guarded by the lock.
+	 */
+	private int aliveWorkers = 0;
+	/**
+	 * The first unexpected error that ended a worker.
+	 */
+	private AtomicReference<Throwable> failure = new AtomicReference<>();
+	/**
+	 * A boolean that indicates whether the loader is closed.
+	 */
+	private volatile boolean closed = false;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param dbEngine The database engine.
+	 * @param table The destination table.
+	 */
+	public BulkLoader(DBEngine dbEngine, Table table) {
+		super();
+		this.dbEngine = dbEngine;
+		this.table = table;
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param persistor The database persistor of the view, which master table is the destination.
+	 */
+	public BulkLoader(DBPersistor persistor) {
+		super();
+		this.dbEngine = persistor.getDBEngine();
+		this.view = persistor.getView();
+		this.table = view.getMasterTable();
+	}
+
+	/**
+	 * Sets the number of workers. Must be called before adding the first record.
+	 *
+	 * @param workerCount The number of workers.
+	 */
+	public void setWorkerCount(int workerCount) {
+		checkNotStarted();
+		this.workerCount = workerCount;
+	}
+
+	/**
+	 * Sets the capacity of the queue. Must be called before adding the first record.
+	 *
+	 * @param queueCapacity The capacity of the queue.
+	 */
+	public void setQueueCapacity(int queueCapacity) {
+		checkNotStarted();
+		this.queueCapacity = queueCapacity;
+	}
+
+	/**
+	 * Sets the number of records per batch and commit. Must be called before adding the first record.
+	 *
+	 * @param batchSize The batch size.
+	 */
+	public void setBatchSize(int batchSize) {
+		checkNotStarted();
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Returns the number of records queued.
+	 *
+	 * @return The number of records queued.
+	 */
+	public long getQueuedCount() {
+		return queued.get();
+	}
+
+	/**
+	 * Returns the number of records written.
+	 *
+	 * @return The number of records written.
+	 */
+	public long getWrittenCount() {
+		return written.get();
+	}
+
+	/**
+	 * Returns the number of records that failed to be written.
+	 *
+	 * @return The number of records failed.
+	 */
+	public long getFailedCount() {
+		return failed.get();
+	}
+
+	/**
+	 * Returns the number of records currently waiting in the queue.
+	 *
+	 * @return The queue size.
+	 */
+	public int getQueueSize() {
+		return (queue == null ? 0 : queue.size());
+	}
+
+	/**
+	 * Check that workers have not been started.
+	 */
+	private void checkNotStarted() {
+		if (threads != null) {
+			throw new IllegalStateException("Bulk loader already started");
+		}
+	}
+
+	/**
+	 * Start the workers if not already started.
+	 */
+	private synchronized void start() {
+		if (threads != null) {
+			return;
+		}
+		queue = new ArrayBlockingQueue<>(queueCapacity);
+		threads = new ArrayList<>();
+		synchronized (lock) {
+			aliveWorkers = workerCount;
+		}
+		for (int i = 0; i < workerCount; i++) {
+			Thread thread = new Thread(new Worker(), "Bulk loader " + table.getName() + " " + i);
+			threads.add(thread);
+			thread.start();
+		}
+	}
+
+	/**
+	 * Called by a worker when it ends, normally or not. When the last worker ends, the records left in the queue will
+	 * never be taken and are counted as failed.
+	 */
+	private void workerEnded() {
+		synchronized (lock) {
+			aliveWorkers--;
+			if (aliveWorkers == 0) {
+				drainQueue();
+			}
+			lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Removes the records left in the queue counting them as failed. Must be called holding the lock.
+	 */
+	private void drainQueue() {
+		List<Record> records = new ArrayList<>();
+		queue.drainTo(records);
+		for (Record record : records) {
+			if (record != END) {
+				failed.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Check whether any worker is running.
+	 *
+	 * @return A boolean.
+	 */
+	private boolean isAlive() {
+		synchronized (lock) {
+			return aliveWorkers > 0;
+		}
+	}
+
+	/**
+	 * Rethrows the first unexpected error that ended a worker, if any.
+	 *
+	 * @throws SQLException
+	 */
+	private void checkFailure() throws SQLException {
+		Throwable exc = failure.get();
+		if (exc == null) {
+			return;
+		}
+		if (exc instanceof SQLException) {
+			throw (SQLException) exc;
+		}
+		throw new SQLException("Bulk loader worker failed", exc);
+	}
+
+	/**
+	 * Add a record to be inserted, blocking while the queue is full.
+	 *
+	 * @param record The record.
+	 * @throws InterruptedException
+	 * @throws SQLException If no worker is left to insert the record.
+	 */
+	public void add(Record record) throws InterruptedException, SQLException {
+		if (closed) {
+			throw new IllegalStateException("Bulk loader is closed");
+		}
+		start();
+		queued.incrementAndGet();
+		while (!queue.offer(record, 100, TimeUnit.MILLISECONDS)) {
+			if (!isAlive()) {
+				failed.incrementAndGet();
+				checkFailure();
+				throw new SQLException("Bulk loader has no running workers");
+			}
+		}
+		if (!isAlive()) {
+			synchronized (lock) {
+				drainQueue();
+			}
+			checkFailure();
+		}
+	}
+
+	/**
+	 * Add a list of records to be inserted, blocking while the queue is full.
+	 *
+	 * @param records The list of records.
+	 * @throws InterruptedException
+	 * @throws SQLException If no worker is left to insert the records.
+	 */
+	public void add(List<Record> records) throws InterruptedException, SQLException {
+		for (Record record : records) {
+			add(record);
+		}
+	}
+
+	/**
+	 * Waits until all the records queued so far have been written or have failed, and rethrows the first unexpected
+	 * error that ended a worker.
+	 *
+	 * @throws InterruptedException
+	 * @throws SQLException
+	 */
+	public void flush() throws InterruptedException, SQLException {
+		synchronized (lock) {
+			while (written.get() + failed.get() < queued.get()) {
+				if (aliveWorkers == 0) {
+					drainQueue();
+					break;
+				}
+				lock.wait();
+			}
+		}
+		checkFailure();
+	}
+
+	/**
+	 * Flushes all queued records, stops the workers and releases their connections. If interrupted, the workers are
+	 * interrupted, the interrupt flag is restored and the interruption is rethrown wrapped.
+	 *
+	 * @throws SQLException
+	 */
+	@Override
+	public void close() throws SQLException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		if (threads == null) {
+			return;
+		}
+		try {
+			flush();
+		} catch (InterruptedException exc) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while closing the bulk loader", exc);
+		} finally {
+			stopWorkers();
+		}
+	}
+
+	/**
+	 * Sends the end marker to the workers and waits for them to end. Workers that can not receive the marker, or all
+	 * of them if the current thread is interrupted, are interrupted instead.
+	 */
+	private void stopWorkers() {
+		for (Thread thread : threads) {
+			if (!queue.offer(END)) {
+				thread.interrupt();
+			}
+		}
+		for (Thread thread : threads) {
+			if (Thread.currentThread().isInterrupted()) {
+				thread.interrupt();
+				continue;
+			}
+			try {
+				thread.join();
+			} catch (InterruptedException exc) {
+				Thread.currentThread().interrupt();
+				thread.interrupt();
+			}
+		}
+	}
+}
@@ -0,0 +1,1083 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtplaf.library.database.rdbms;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+/**
+ * An engine agnostic pool of JDBC connections, built on <tt>DriverManager</tt>, that is the data source of the engine
+ * adapters.
+ * <p>
+ * The pool keeps between a minimum and a maximum number of physical connections. Idle connections are reused last in
+ * first out, validated before being lent if they have been idle longer than the validation interval, and evicted down
+ * to the minimum size when idle longer than the idle timeout. Eviction is checked on each borrow and release. When all
+ * connections are in use, requests wait up to the maximum wait time.
+ * <p>
+ * Each physical connection caches its prepared statements keyed by SQL text (and result set type and concurrency). A
+ * statement closed by the caller is returned to the cache of the connection, and a statement prepared while the
+ * cached one is in use is a new one. A statement taken from the cache has its fetch size, fetch direction, maximum
+ * rows, maximum field size and query timeout restored to the values it had when prepared. Closing a lent connection
+ * closes the statements left open on it and returns it to the pool, rolling back any pending work.
+ * <p>
+ * Metrics (active and idle connections, waits and statement cache hits) are available to size the pool.
+ * 
+ * @author Miquel Sas
+ */
+public class ConnectionPool implements DataSource {
+
+	/** Minimum number of statements registered on a handle above which closed ones are removed. */
+	private static final int PRUNE_SIZE = 32;
+
+	/**
+	 * A prepared statement of the cache with the settings it had when prepared.
+	 */
+	static class CachedStatement {
+		/** The prepared statement. */
+		private PreparedStatement ps;
+		/** Initial fetch direction. */
+		private int fetchDirection;
+		/** Initial fetch size. */
+		private int fetchSize;
+		/** Initial maximum rows. */
+		private int maxRows;
+		/** Initial maximum field size. */
+		private int maxFieldSize;
+		/** Initial query timeout. */
+		private int queryTimeout;
+
+		CachedStatement(PreparedStatement ps) throws SQLException {
+			this.ps = ps;
+			fetchDirection = ps.getFetchDirection();
+			fetchSize = ps.getFetchSize();
+			maxRows = ps.getMaxRows();
+			maxFieldSize = ps.getMaxFieldSize();
+			queryTimeout = ps.getQueryTimeout();
+		}
+
+		/**
+		 * Restores the settings a previous borrower may have changed.
+		 * 
+		 * @throws SQLException
+		 */
+		void reset() throws SQLException {
+			ps.setFetchDirection(fetchDirection);
+			ps.setFetchSize(fetchSize);
+			ps.setMaxRows(maxRows);
+			ps.setMaxFieldSize(maxFieldSize);
+			ps.setQueryTimeout(queryTimeout);
+		}
+	}
+
+	/**
+	 * A physical connection with its statement cache.
+	 */
+	class PooledConnection {
+		/** The physical connection. */
+		private Connection cn;
+		/** Cache of prepared statements keyed by SQL, in access order. */
+		private LinkedHashMap<String, CachedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+		/** Last time the connection was released or created. */
+		private long lastUsed = System.currentTimeMillis();
+
+		PooledConnection(Connection cn) {
+			this.cn = cn;
+		}
+
+		/**
+		 * Returns a prepared statement, either from the cache or a new one.
+		 * 
+		 * @param owner The handler of the connection handle that prepares the statement.
+		 * @param handle The connection handle that prepares the statement.
+		 * @param key The cache key.
+		 * @param args The prepare statement arguments.
+		 * @return The prepared statement.
+		 * @throws SQLException
+		 */
+		PreparedStatement prepareStatement(ConnectionHandler owner, Connection handle, String key, Object[] args)
+			throws SQLException {
+			CachedStatement cs = null;
+			synchronized (this) {
+				cs = statements.remove(key);
+			}
+			if (cs != null) {
+				try {
+					cs.reset();
+					countStatementHit();
+				} catch (SQLException exc) {
+					close(cs.ps);
+					cs = null;
+				}
+			}
+			if (cs == null) {
+				countStatementMiss();
+				PreparedStatement ps;
+				if (args.length == 1) {
+					ps = cn.prepareStatement((String) args[0]);
+				} else {
+					ps = cn.prepareStatement((String) args[0], (Integer) args[1], (Integer) args[2]);
+				}
+				try {
+					cs = new CachedStatement(ps);
+				} catch (SQLException exc) {
+					close(ps);
+					throw exc;
+				}
+			}
+			StatementHandler handler = new StatementHandler(this, owner, handle, key, cs);
+			return (PreparedStatement) Proxy.newProxyInstance(
+				ConnectionPool.class.getClassLoader(),
+				new Class<?>[] { PreparedStatement.class },
+				handler);
+		}
+
+		/**
+		 * Returns the statement to the cache, or closes it if the cache is full or there is already one for the key.
+		 * 
+		 * @param key The cache key.
+		 * @param cs The cached statement.
+		 */
+		void releaseStatement(String key, CachedStatement cs) {
+			PreparedStatement ps = cs.ps;
+			boolean cached = false;
+			try {
+				if (statementCacheSize > 0 && !ps.isClosed()) {
+					ResultSet rs = ps.getResultSet();
+					if (rs != null) {
+						rs.close();
+					}
+					ps.clearParameters();
+					ps.clearBatch();
+					synchronized (this) {
+						if (!statements.containsKey(key)) {
+							statements.put(key, cs);
+							cached = true;
+							if (statements.size() > statementCacheSize) {
+								Iterator<CachedStatement> i = statements.values().iterator();
+								CachedStatement eldest = i.next();
+								i.remove();
+								close(eldest.ps);
+							}
+						}
+					}
+				}
+			} catch (SQLException exc) {
+				cached = false;
+			}
+			if (!cached) {
+				close(ps);
+			}
+		}
+
+		/**
+		 * Closes the cached statements and the physical connection.
+		 */
+		void destroy() {
+			List<CachedStatement> list;
+			synchronized (this) {
+				list = new ArrayList<>(statements.values());
+				statements.clear();
+			}
+			for (CachedStatement cs : list) {
+				close(cs.ps);
+			}
+			try {
+				cn.close();
+			} catch (SQLException ignore) {}
+		}
+
+		/**
+		 * Returns a new handle, a proxy of the connection, to lend.
+		 * 
+		 * @return The connection handle.
+		 */
+		Connection newHandle() {
+			return (Connection) Proxy.newProxyInstance(
+				ConnectionPool.class.getClassLoader(),
+				new Class<?>[] { Connection.class },
+				new ConnectionHandler(this));
+		}
+	}
+
+	/**
+	 * Invocation handler of a lent connection. Closing closes the statements left open and returns the connection to
+	 * the pool, and prepared statements go through the statement cache.
+	 */
+	class ConnectionHandler implements InvocationHandler {
+		/** The pooled connection. */
+		private PooledConnection pc;
+		/** A boolean that indicates whether the handle has been closed. */
+		private boolean closed = false;
+		/** Statements created on the handle and not known to be closed. */
+		private Set<Statement> openStatements = Collections.newSetFromMap(new IdentityHashMap<>());
+		/** Number of statements above which closed ones are removed before registering another. */
+		private int pruneSize = PRUNE_SIZE;
+
+		ConnectionHandler(PooledConnection pc) {
+			this.pc = pc;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if (name.equals("close")) {
+				if (!closed) {
+					closed = true;
+					closeStatements();
+					release(pc);
+				}
+				return null;
+			}
+			if (name.equals("isClosed")) {
+				return closed;
+			}
+			if (name.equals("equals")) {
+				return proxy == args[0];
+			}
+			if (name.equals("hashCode")) {
+				return System.identityHashCode(proxy);
+			}
+			if (name.equals("toString")) {
+				return "Pooled " + pc.cn.toString();
+			}
+			if (closed) {
+				throw new SQLException("Connection is closed");
+			}
+			if (name.equals("prepareStatement") && isCacheable(method)) {
+				String key = (String) args[0];
+				if (args.length == 3) {
+					key = args[1] + ":" + args[2] + ":" + key;
+				}
+				return register(pc.prepareStatement(this, (Connection) proxy, key, args));
+			}
+			Object result = invokeTarget(pc.cn, method, args);
+			if (result instanceof Statement) {
+				register((Statement) result);
+			}
+			return result;
+		}
+
+		/**
+		 * Registers a statement created on the handle, removing first the statements already closed by the caller if
+		 * there are many.
+		 * 
+		 * @param statement The statement.
+		 * @return The statement.
+		 */
+		private <T extends Statement> T register(T statement) {
+			synchronized (openStatements) {
+				if (openStatements.size() >= pruneSize) {
+					openStatements.removeIf(st -> isClosed(st));
+					pruneSize = Math.max(PRUNE_SIZE, openStatements.size() * 2);
+				}
+				openStatements.add(statement);
+			}
+			return statement;
+		}
+
+		/**
+		 * Unregisters a statement closed by the caller.
+		 * 
+		 * @param statement The statement.
+		 */
+		private void unregister(Statement statement) {
+			synchronized (openStatements) {
+				openStatements.remove(statement);
+			}
+		}
+
+		/**
+		 * Closes the statements left open on the handle, cached prepared statements go back to the cache.
+		 */
+		private void closeStatements() {
+			List<Statement> list;
+			synchronized (openStatements) {
+				list = new ArrayList<>(openStatements);
+				openStatements.clear();
+			}
+			for (Statement statement : list) {
+				close(statement);
+			}
+		}
+
+		/**
+		 * Check whether the prepare statement method can use the cache, that is, it has only the SQL argument or the
+		 * SQL, result set type and concurrency arguments.
+		 * 
+		 * @param method The method.
+		 * @return A boolean.
+		 */
+		private boolean isCacheable(Method method) {
+			Class<?>[] types = method.getParameterTypes();
+			if (types.length == 1) {
+				return true;
+			}
+			return types.length == 3 && types[1] == int.class && types[2] == int.class;
+		}
+	}
+
+	/**
+	 * Invocation handler of a lent prepared statement. Closing returns the statement to the cache.
+	 */
+	class StatementHandler implements InvocationHandler {
+		/** The pooled connection. */
+		private PooledConnection pc;
+		/** The handler of the connection handle that prepared the statement. */
+		private ConnectionHandler owner;
+		/** The connection handle that prepared the statement. */
+		private Connection handle;
+		/** The cache key. */
+		private String key;
+		/** The cached statement. */
+		private CachedStatement cs;
+		/** The prepared statement. */
+		private PreparedStatement ps;
+		/** A boolean that indicates whether the statement has been closed. */
+		private boolean closed = false;
+
+		StatementHandler(
+			PooledConnection pc,
+			ConnectionHandler owner,
+			Connection handle,
+			String key,
+			CachedStatement cs) {
+			this.pc = pc;
+			this.owner = owner;
+			this.handle = handle;
+			this.key = key;
+			this.cs = cs;
+			this.ps = cs.ps;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if (name.equals("close")) {
+				if (!closed) {
+					closed = true;
+					owner.unregister((Statement) proxy);
+					pc.releaseStatement(key, cs);
+				}
+				return null;
+			}
+			if (name.equals("isClosed")) {
+				return closed || ps.isClosed();
+			}
+			if (name.equals("getConnection")) {
+				return handle;
+			}
+			if (name.equals("equals")) {
+				return proxy == args[0];
+			}
+			if (name.equals("hashCode")) {
+				return System.identityHashCode(proxy);
+			}
+			if (closed) {
+				throw new SQLException("Statement is closed");
+			}
+			return invokeTarget(ps, method, args);
+		}
+	}
+
+	/**
+	 * Invokes the method on the target, unwrapping the exception thrown.
+	 * 
+	 * @param target The target.
+	 * @param method The method.
+	 * @param args The arguments.
+	 * @return The result.
+	 * @throws Throwable
+	 */
+	private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException exc) {
+			throw exc.getCause();
+		}
+	}
+
+	/**
+	 * Closes the statement quietly.
+	 * 
+	 * @param statement The statement.
+	 */
+	private static void close(Statement statement) {
+		try {
+			statement.close();
+		} catch (SQLException ignore) {}
+	}
+
+	/**
+	 * Check quietly whether the statement is closed.
+	 * 
+	 * @param statement The statement.
+	 * @return A boolean, true if it is closed or the check fails.
+	 */
+	private static boolean isClosed(Statement statement) {
+		try {
+			return statement.isClosed();
+		} catch (SQLException exc) {
+			return true;
+		}
+	}
+
+	/** The driver class name, can be null if the driver registers itself. */
+	private String driverClassName;
+	/** The JDBC URL. */
+	private String url;
+	/** The user. */
+	private String user;
+	/** The password. */
+	private String password;
+	/** A boolean that indicates whether the driver has been loaded. */
+	private boolean driverLoaded = false;
+
+	/** Minimum number of connections kept open. */
+	private int minSize = 1;
+	/** Maximum number of connections. */
+	private int maxSize = 10;
+	/** Maximum time in milliseconds to wait for a connection. */
+	private long maxWait = 30000;
+	/** Time in milliseconds after which an idle connection above the minimum is closed. */
+	private long idleTimeout = 300000;
+	/** Time in milliseconds after which an idle connection is validated before being lent. */
+	private long validationInterval = 30000;
+	/** Timeout in seconds of the validation. */
+	private int validationTimeout = 5;
+	/** Maximum number of cached statements per connection, zero disables the cache. */
+	private int statementCacheSize = 50;
+
+	/** Idle connections, the last released at the end. */
+	private Deque<PooledConnection> idle = new ArrayDeque<>();
+	/** Total number of connections, idle, lent and being created. */
+	private int total = 0;
+	/** Number of lent connections. */
+	private int active = 0;
+	/** A boolean that indicates whether the pool is closed. */
+	private boolean closed = false;
+
+	/** Number of connections created. */
+	private long createdCount = 0;
+	/** Number of connections lent. */
+	private long borrowCount = 0;
+	/** Number of borrows that had to wait. */
+	private long waitCount = 0;
+	/** Total wait time in nanoseconds. */
+	private long waitTime = 0;
+	/** Maximum wait time in nanoseconds. */
+	private long maxWaitTime = 0;
+	/** Number of connections that failed validation. */
+	private long validationFailures = 0;
+	/** Number of connections closed by idle eviction. */
+	private long evictedCount = 0;
+	/** Number of statements served from the cache. */
+	private long statementHits = 0;
+	/** Number of statements prepared. */
+	private long statementMisses = 0;
+
+	/** Log writer. */
+	private PrintWriter logWriter;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param driverClassName The driver class name, can be null if the driver registers itself.
+	 * @param url The JDBC URL.
+	 * @param user The user.
+	 * @param password The password.
+	 */
+	public ConnectionPool(String driverClassName, String url, String user, String password) {
+		super();
+		this.driverClassName = driverClassName;
+		this.url = url;
+		this.user = user;
+		this.password = password;
+	}
+
+	/**
+	 * Returns the JDBC URL.
+	 * 
+	 * @return The URL.
+	 */
+	public String getURL() {
+		return url;
+	}
+
+	/**
+	 * Returns the minimum number of connections kept open.
+	 * 
+	 * @return The minimum size.
+	 */
+	public int getMinSize() {
+		return minSize;
+	}
+
+	/**
+	 * Sets the minimum number of connections kept open.
+	 * 
+	 * @param minSize The minimum size.
+	 */
+	public void setMinSize(int minSize) {
+		if (minSize < 0) {
+			throw new IllegalArgumentException("Minimum size must be zero or greater");
+		}
+		this.minSize = minSize;
+	}
+
+	/**
+	 * Returns the maximum number of connections.
+	 * 
+	 * @return The maximum size.
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Sets the maximum number of connections.
+	 * 
+	 * @param maxSize The maximum size.
+	 */
+	public void setMaxSize(int maxSize) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("Maximum size must be greater than zero");
+		}
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Returns the maximum time in milliseconds to wait for a connection.
+	 * 
+	 * @return The maximum wait.
+	 */
+	public long getMaxWait() {
+		return maxWait;
+	}
+
+	/**
+	 * Sets the maximum time in milliseconds to wait for a connection.
+	 * 
+	 * @param maxWait The maximum wait.
+	 */
+	public void setMaxWait(long maxWait) {
+		this.maxWait = maxWait;
+	}
+
+	/**
+	 * Returns the time in milliseconds after which an idle connection above the minimum is closed.
+	 * 
+	 * @return The idle timeout.
+	 */
+	public long getIdleTimeout() {
+		return idleTimeout;
+	}
+
+	/**
+	 * Sets the time in milliseconds after which an idle connection above the minimum is closed.
+	 * 
+	 * @param idleTimeout The idle timeout.
+	 */
+	public void setIdleTimeout(long idleTimeout) {
+		this.idleTimeout = idleTimeout;
+	}
+
+	/**
+	 * Returns the time in milliseconds after which an idle connection is validated before being lent.
+	 * 
+	 * @return The validation interval.
+	 */
+	public long getValidationInterval() {
+		return validationInterval;
+	}
+
+	/**
+	 * Sets the time in milliseconds after which an idle connection is validated before being lent. Zero validates
+	 * always.
+	 * 
+	 * @param validationInterval The validation interval.
+	 */
+	public void setValidationInterval(long validationInterval) {
+		this.validationInterval = validationInterval;
+	}
+
+	/**
+	 * Returns the timeout in seconds of the validation.
+	 * 
+	 * @return The validation timeout.
+	 */
+	public int getValidationTimeout() {
+		return validationTimeout;
+	}
+
+	/**
+	 * Sets the timeout in seconds of the validation.
+	 * 
+	 * @param validationTimeout The validation timeout.
+	 */
+	public void setValidationTimeout(int validationTimeout) {
+		this.validationTimeout = validationTimeout;
+	}
+
+	/**
+	 * Returns the maximum number of cached statements per connection.
+	 * 
+	 * @return The statement cache size.
+	 */
+	public int getStatementCacheSize() {
+		return statementCacheSize;
+	}
+
+	/**
+	 * Sets the maximum number of cached statements per connection, zero disables the cache.
+	 * 
+	 * @param statementCacheSize The statement cache size.
+	 */
+	public void setStatementCacheSize(int statementCacheSize) {
+		this.statementCacheSize = statementCacheSize;
+	}
+
+	/**
+	 * Returns the number of lent connections.
+	 * 
+	 * @return The number of active connections.
+	 */
+	public synchronized int getActiveConnections() {
+		return active;
+	}
+
+	/**
+	 * Returns the number of idle connections.
+	 * 
+	 * @return The number of idle connections.
+	 */
+	public synchronized int getIdleConnections() {
+		return idle.size();
+	}
+
+	/**
+	 * Returns the total number of open connections.
+	 * 
+	 * @return The total number of connections.
+	 */
+	public synchronized int getTotalConnections() {
+		return total;
+	}
+
+	/**
+	 * Returns the number of connections created.
+	 * 
+	 * @return The number of connections created.
+	 */
+	public synchronized long getCreatedCount() {
+		return createdCount;
+	}
+
+	/**
+	 * Returns the number of connections lent.
+	 * 
+	 * @return The number of borrows.
+	 */
+	public synchronized long getBorrowCount() {
+		return borrowCount;
+	}
+
+	/**
+	 * Returns the number of borrows that had to wait for a connection.
+	 * 
+	 * @return The number of waits.
+	 */
+	public synchronized long getWaitCount() {
+		return waitCount;
+	}
+
+	/**
+	 * Returns the total time in milliseconds waited for connections.
+	 * 
+	 * @return The total wait time.
+	 */
+	public synchronized long getWaitTime() {
+		return waitTime / 1000000;
+	}
+
+	/**
+	 * Returns the maximum time in milliseconds waited for a connection.
+	 * 
+	 * @return The maximum wait time.
+	 */
+	public synchronized long getMaxWaitTime() {
+		return maxWaitTime / 1000000;
+	}
+
+	/**
+	 * Returns the number of connections that failed validation.
+	 * 
+	 * @return The number of validation failures.
+	 */
+	public synchronized long getValidationFailures() {
+		return validationFailures;
+	}
+
+	/**
+	 * Returns the number of connections closed by idle eviction.
+	 * 
+	 * @return The number of evicted connections.
+	 */
+	public synchronized long getEvictedCount() {
+		return evictedCount;
+	}
+
+	/**
+	 * Returns the number of statements served from the cache.
+	 * 
+	 * @return The number of statement cache hits.
+	 */
+	public synchronized long getStatementHits() {
+		return statementHits;
+	}
+
+	/**
+	 * Returns the number of statements prepared because they were not in the cache.
+	 * 
+	 * @return The number of statement cache misses.
+	 */
+	public synchronized long getStatementMisses() {
+		return statementMisses;
+	}
+
+	/**
+	 * Count a statement cache hit.
+	 */
+	private synchronized void countStatementHit() {
+		statementHits++;
+	}
+
+	/**
+	 * Count a statement cache miss.
+	 */
+	private synchronized void countStatementMiss() {
+		statementMisses++;
+	}
+
+	/**
+	 * Creates a new physical connection.
+	 * 
+	 * @return The connection.
+	 * @throws SQLException
+	 */
+	private Connection createConnection() throws SQLException {
+		if (!driverLoaded && driverClassName != null) {
+			try {
+				Class.forName(driverClassName);
+			} catch (ClassNotFoundException exc) {
+				throw new SQLException("Driver not found: " + driverClassName, exc);
+			}
+			driverLoaded = true;
+		}
+		if (user == null) {
+			return DriverManager.getConnection(url);
+		}
+		return DriverManager.getConnection(url, user, password);
+	}
+
+	/**
+	 * Check whether the idle connection is valid to be lent.
+	 * 
+	 * @param pc The pooled connection.
+	 * @return A boolean.
+	 */
+	private boolean validate(PooledConnection pc) {
+		try {
+			if (pc.cn.isClosed()) {
+				return false;
+			}
+			if (System.currentTimeMillis() - pc.lastUsed < validationInterval) {
+				return true;
+			}
+			return pc.cn.isValid(validationTimeout);
+		} catch (SQLException exc) {
+			return false;
+		}
+	}
+
+	/**
+	 * Returns a connection from the pool, creating it if there is none idle and the maximum size has not been
+	 * reached, or waiting for one to be released otherwise. Closing the connection returns it to the pool.
+	 * 
+	 * @return The connection.
+	 * @throws SQLException If the pool is closed, the wait times out or the connection can not be created.
+	 */
+	@Override
+	public Connection getConnection() throws SQLException {
+		long start = System.nanoTime();
+		long deadline = start + TimeUnit.MILLISECONDS.toNanos(maxWait);
+		boolean waited = false;
+		while (true) {
+			PooledConnection pc = null;
+			boolean create = false;
+			synchronized (this) {
+				if (closed) {
+					throw new SQLException("Connection pool is closed");
+				}
+				pc = idle.pollLast();
+				if (pc == null) {
+					if (total < maxSize) {
+						total++;
+						create = true;
+					} else {
+						long remaining = deadline - System.nanoTime();
+						if (remaining <= 0) {
+							registerWait(start);
+							throw new SQLException("Timeout waiting for a connection, pool size " + maxSize);
+						}
+						waited = true;
+						try {
+							TimeUnit.NANOSECONDS.timedWait(this, remaining);
+						} catch (InterruptedException exc) {
+							Thread.currentThread().interrupt();
+							throw new SQLException("Interrupted waiting for a connection", exc);
+						}
+						continue;
+					}
+				}
+			}
+
+			// Create or validate outside the lock.
+			if (create) {
+				try {
+					pc = new PooledConnection(createConnection());
+				} catch (SQLException exc) {
+					synchronized (this) {
+						total--;
+						notifyAll();
+					}
+					throw exc;
+				}
+			} else if (!validate(pc)) {
+				pc.destroy();
+				synchronized (this) {
+					total--;
+					validationFailures++;
+					notifyAll();
+				}
+				continue;
+			}
+
+			synchronized (this) {
+				if (create) {
+					createdCount++;
+				}
+				active++;
+				borrowCount++;
+				if (waited) {
+					registerWait(start);
+				}
+			}
+			evictIdle();
+			return pc.newHandle();
+		}
+	}
+
+	/**
+	 * Register a wait.
+	 * 
+	 * @param start The start nano time.
+	 */
+	private void registerWait(long start) {
+		long time = System.nanoTime() - start;
+		waitCount++;
+		waitTime += time;
+		maxWaitTime = Math.max(maxWaitTime, time);
+	}
+
+	/**
+	 * Returns the connection to the pool, rolling back pending work. Broken connections are closed.
+	 * 
+	 * @param pc The pooled connection.
+	 */
+	private void release(PooledConnection pc) {
+		boolean valid = true;
+		try {
+			if (pc.cn.isClosed()) {
+				valid = false;
+			} else if (!pc.cn.getAutoCommit()) {
+				pc.cn.rollback();
+			}
+		} catch (SQLException exc) {
+			valid = false;
+		}
+		synchronized (this) {
+			active--;
+			if (valid && !closed) {
+				pc.lastUsed = System.currentTimeMillis();
+				idle.addLast(pc);
+			} else {
+				total--;
+				valid = false;
+			}
+			notifyAll();
+		}
+		if (!valid) {
+			pc.destroy();
+		}
+		evictIdle();
+	}
+
+	/**
+	 * Closes the idle connections that have been idle longer than the idle timeout, keeping the minimum size.
+	 */
+	public void evictIdle() {
+		List<PooledConnection> evicted = new ArrayList<>();
+		synchronized (this) {
+			long now = System.currentTimeMillis();
+			while (total > minSize && !idle.isEmpty() && now - idle.peekFirst().lastUsed > idleTimeout) {
+				evicted.add(idle.pollFirst());
+				total--;
+				evictedCount++;
+			}
+		}
+		for (PooledConnection pc : evicted) {
+			pc.destroy();
+		}
+	}
+
+	/**
+	 * Closes the pool and its idle connections. Lent connections are closed when returned.
+	 */
+	public void close() {
+		List<PooledConnection> list;
+		synchronized (this) {
+			closed = true;
+			list = new ArrayList<>(idle);
+			total -= idle.size();
+			idle.clear();
+			notifyAll();
+		}
+		for (PooledConnection pc : list) {
+			pc.destroy();
+		}
+	}
+
+	/**
+	 * Returns the metrics of the pool as a map of name-value.
+	 * 
+	 * @return The map of metrics.
+	 */
+	public synchronized Map<String, Long> getMetrics() {
+		Map<String, Long> metrics = new LinkedHashMap<>();
+		metrics.put("active", (long) active);
+		metrics.put("idle", (long) idle.size());
+		metrics.put("total", (long) total);
+		metrics.put("created", createdCount);
+		metrics.put("borrows", borrowCount);
+		metrics.put("waits", waitCount);
+		metrics.put("wait-time", waitTime / 1000000);
+		metrics.put("max-wait-time", maxWaitTime / 1000000);
+		metrics.put("validation-failures", validationFailures);
+		metrics.put("evicted", evictedCount);
+		metrics.put("statement-hits", statementHits);
+		metrics.put("statement-misses", statementMisses);
+		return metrics;
+	}
+
+	/**
+	 * Not supported, the pool connects with its own user and password.
+	 */
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		throw new SQLFeatureNotSupportedException("Connection pool user and password are fixed");
+	}
+
+	/**
+	 * Returns the log writer.
+	 */
+	@Override
+	public PrintWriter getLogWriter() throws SQLException {
+		return logWriter;
+	}
+
+	/**
+	 * Sets the log writer.
+	 */
+	@Override
+	public void setLogWriter(PrintWriter out) throws SQLException {
+		this.logWriter = out;
+	}
+
+	/**
+	 * Sets the login timeout of the driver manager.
+	 */
+	@Override
+	public void setLoginTimeout(int seconds) throws SQLException {
+		DriverManager.setLoginTimeout(seconds);
+	}
+
+	/**
+	 * Returns the login timeout of the driver manager.
+	 */
+	@Override
+	public int getLoginTimeout() throws SQLException {
+		return DriverManager.getLoginTimeout();
+	}
+
+	/**
+	 * Not supported.
+	 */
+	@Override
+	public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	/**
+	 * Unwrap to this pool.
+	 */
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		if (iface.isInstance(this)) {
+			return iface.cast(this);
+		}
+		throw new SQLException("Not a wrapper for " + iface.getName());
+	}
+
+	/**
+	 * Check whether this pool is an instance of the interface.
+	 */
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException {
+		return iface.isInstance(this);
+	}
+}
@@ -91,7 +91,7 @@ public class Cursor {
 		this.cn = cn;
 		this.forwardOnly = forwardOnly;
 		List<Value> values = select.getValues();
-		String sql = select.toSQL();
+		String sql = dbEngine.getDBEngineAdapter().getSQL(select);
 		if (forwardOnly) {
 			ps = cn.prepareStatement(sql);
 		} else {
@@ -61,6 +61,10 @@ public class DBEngine {
 	 * Data source.
 	 */
 	private DataSource dataSource;
+	/**
+	 * A boolean that indicates whether the database has been initialized by the adapter.
+	 */
+	private volatile boolean initialized = false;
 
 	/**
 	 * Creates a <i>DBEngine</i> assigning the database adapter and the connection information.
@@ -86,6 +90,19 @@ public class DBEngine {
 		return dataSource;
 	}
 
+	/**
+	 * Returns the connection pool if the data source is the built-in pool, to access its metrics.
+	 * 
+	 * @return The connection pool or null.
+	 */
+	public ConnectionPool getConnectionPool() {
+		DataSource source = getDataSource();
+		if (source instanceof ConnectionPool) {
+			return (ConnectionPool) source;
+		}
+		return null;
+	}
+
 	/**
 	 * Returns the database adapter.
 	 *
@@ -104,9 +121,33 @@ public class DBEngine {
 	public Connection getConnection() throws SQLException {
 		Connection cn = getDataSource().getConnection();
 		cn.setAutoCommit(false);
+		if (!initialized) {
+			initialize(cn);
+		}
 		return cn;
 	}
 
+	/**
+	 * Initializes the database through the adapter with the first connection acquired. On error the connection is
+	 * closed.
+	 * 
+	 * @param cn The connection.
+	 * @throws SQLException
+	 */
+	private synchronized void initialize(Connection cn) throws SQLException {
+		if (initialized) {
+			return;
+		}
+		try {
+			getDBEngineAdapter().initializeDatabase(cn);
+			cn.commit();
+			initialized = true;
+		} catch (SQLException exc) {
+			cn.close();
+			throw exc;
+		}
+	}
+
 	/**
 	 * Execute a statement, not a Select.
 	 *
@@ -137,7 +178,7 @@ public class DBEngine {
 			if (closeConnection) {
 				cn = getConnection();
 			}
-			String sql = statement.toSQL();
+			String sql = getDBEngineAdapter().getSQL(statement);
 			ps = cn.prepareStatement(sql);
 			List<Value> values = statement.getValues();
 			for (int i = 0; i < values.size(); i++) {
@@ -806,6 +847,35 @@ public class DBEngine {
 		return executeStatement(getDBEngineAdapter().getStatementInsert(table, record), cn);
 	}
 
+	/**
+	 * Returns a new batch insert session that holds its own connection. The session must be closed.
+	 *
+	 * @return The batch insertor.
+	 */
+	public BatchInsertor getBatchInsertor() {
+		return new BatchInsertor(this);
+	}
+
+	/**
+	 * Executes a batch insert of the list of records, committing every <tt>commitSize</tt> rows.
+	 *
+	 * @param table The table.
+	 * @param records The list of records to insert.
+	 * @param commitSize The number of rows per commit.
+	 * @return The number of rows inserted.
+	 * @throws SQLException
+	 */
+	public int executeInsert(Table table, List<Record> records, int commitSize) throws SQLException {
+		BatchInsertor insertor = getBatchInsertor();
+		try {
+			insertor.setCommitSize(commitSize);
+			insertor.insert(table, records);
+		} finally {
+			insertor.close();
+		}
+		return (int) insertor.getInsertedRows();
+	}
+
 	/**
 	 * Executes the update statement.
 	 *
@@ -854,6 +924,26 @@ public class DBEngine {
 		return executeStatement(getDBEngineAdapter().getStatementUpdate(table, record), cn);
 	}
 
+	/**
+	 * Executes a batch update by primary key of the list of records, committing every <tt>commitSize</tt> rows.
+	 *
+	 * @param table The table.
+	 * @param records The list of records to update.
+	 * @param commitSize The number of rows per commit.
+	 * @return The number of rows updated.
+	 * @throws SQLException
+	 */
+	public int executeUpdate(Table table, List<Record> records, int commitSize) throws SQLException {
+		BatchInsertor insertor = getBatchInsertor();
+		try {
+			insertor.setCommitSize(commitSize);
+			insertor.update(table, records);
+		} finally {
+			insertor.close();
+		}
+		return (int) insertor.getUpdatedRows();
+	}
+
 	/**
 	 * Execute a massive update on table, with a filter for a map of field-values.
 	 * 
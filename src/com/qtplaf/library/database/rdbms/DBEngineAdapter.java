@@ -13,6 +13,7 @@
  */
 package com.qtplaf.library.database.rdbms;
 
+import java.sql.Connection;
 import java.sql.Driver;
 import java.sql.DriverManager;
 import java.sql.SQLException;
@@ -47,6 +48,7 @@ import com.qtplaf.library.database.rdbms.sql.DropSchema;
 import com.qtplaf.library.database.rdbms.sql.DropTable;
 import com.qtplaf.library.database.rdbms.sql.Insert;
 import com.qtplaf.library.database.rdbms.sql.Select;
+import com.qtplaf.library.database.rdbms.sql.Statement;
 import com.qtplaf.library.database.rdbms.sql.Update;
 
 /**
@@ -135,12 +137,22 @@ public abstract class DBEngineAdapter {
 	public abstract boolean isExplicitRelation();
 
 	/**
-	 * Returns a appropriate data source.
+	 * Returns the JDBC URL to connect to the database.
+	 * 
+	 * @param info The data source info.
+	 * @return The JDBC URL.
+	 */
+	public abstract String getURL(DataSourceInfo info);
+
+	/**
+	 * Returns a appropriate data source, by default a connection pool on the JDBC URL of the adapter.
 	 * 
 	 * @param info The data source info.
 	 * @return The data source.
 	 */
-	public abstract DataSource getDataSource(DataSourceInfo info);
+	public DataSource getDataSource(DataSourceInfo info) {
+		return new ConnectionPool(getDriverClassName(), getURL(info), info.getUser(), info.getPassword());
+	}
 
 	/**
 	 * Check if the underlying database accepts implicit relations.
@@ -151,6 +163,17 @@ public abstract class DBEngineAdapter {
 		return !isExplicitRelation();
 	}
 
+	/**
+	 * Check if tables qualified with the schema and without alias must be given their name as correlation name in
+	 * <code>FROM</code>, <code>UPDATE</code> and <code>DELETE</code> clauses, for the database to resolve columns
+	 * qualified only with the table name. By default false.
+	 *
+	 * @return A boolean.
+	 */
+	public boolean isCorrelationNameRequired() {
+		return false;
+	}
+
 	/**
 	 * Get the driver class name.
 	 * <p>
@@ -190,6 +213,27 @@ public abstract class DBEngineAdapter {
 		DriverManager.registerDriver(driver);
 	}
 
+	/**
+	 * Initializes the database the first time a connection is acquired by the engine, for instance to register
+	 * functions not built in the database. By default does nothing.
+	 *
+	 * @param cn The connection.
+	 * @throws SQLException
+	 */
+	public void initializeDatabase(Connection cn) throws SQLException {
+	}
+
+	/**
+	 * Returns the SQL to execute a statement. By default the SQL of the statement, this method is aimed to be
+	 * overwritten if the database requires changes to the standard SQL, like quoting reserved identifiers.
+	 *
+	 * @param statement The statement.
+	 * @return The SQL to execute.
+	 */
+	public String getSQL(Statement statement) {
+		return statement.toSQL();
+	}
+
 	/**
 	 * Returns the suffix part of a field definition, that is standard, with DEFAULT values and NOT NULL.
 	 *
@@ -15,6 +15,7 @@
 package com.qtplaf.library.database.rdbms;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 
 import com.qtplaf.library.database.Criteria;
@@ -49,6 +50,10 @@ public class DBPersistor implements Persistor {
 	 * The underlying <code>View</code>.
 	 */
 	private View view;
+	/**
+	 * The number of rows per commit in batch inserts.
+	 */
+	private int commitSize = 1000;
 
 	/**
 	 * Constructor.
@@ -77,6 +82,33 @@ public class DBPersistor implements Persistor {
 	}
 
 
+	/**
+	 * Returns the underlying database engine.
+	 * 
+	 * @return The database engine.
+	 */
+	public DBEngine getDBEngine() {
+		return dbEngine;
+	}
+
+	/**
+	 * Returns the number of rows per commit in batch inserts.
+	 * 
+	 * @return The commit size.
+	 */
+	public int getCommitSize() {
+		return commitSize;
+	}
+
+	/**
+	 * Sets the number of rows per commit in batch inserts.
+	 * 
+	 * @param commitSize The commit size.
+	 */
+	public void setCommitSize(int commitSize) {
+		this.commitSize = commitSize;
+	}
+
 	/**
 	 * Returns a suitable DDL.
 	 * 
@@ -277,6 +309,26 @@ public class DBPersistor implements Persistor {
 		}
 	}
 
+	/**
+	 * Insert a list of records in batches, using one connection and one prepared statement.
+	 * 
+	 * @param records The list of records to insert.
+	 * @return The number of inserted records.
+	 * @throws PersistorException
+	 */
+	public int insert(List<Record> records) throws PersistorException {
+		try {
+			Table table = view.getMasterTable();
+			List<Record> masterRecords = new ArrayList<>(records.size());
+			for (Record record : records) {
+				masterRecords.add(view.getMasterTableRecord(record));
+			}
+			return dbEngine.executeInsert(table, masterRecords, commitSize);
+		} catch (SQLException exc) {
+			throw new PersistorException(exc.getMessage(), exc);
+		}
+	}
+
 	/**
 	 * Returns a record iterator to scan the records that agree with the criteria.
 	 * 
@@ -475,6 +527,26 @@ public class DBPersistor implements Persistor {
 		}
 	}
 
+	/**
+	 * Update a list of records by primary key in batches, using one connection.
+	 * 
+	 * @param records The list of records to update.
+	 * @return The number of updated records.
+	 * @throws PersistorException
+	 */
+	public int update(List<Record> records) throws PersistorException {
+		try {
+			Table table = view.getMasterTable();
+			List<Record> masterRecords = new ArrayList<>(records.size());
+			for (Record record : records) {
+				masterRecords.add(view.getMasterTableRecord(record));
+			}
+			return dbEngine.executeUpdate(table, masterRecords, commitSize);
+		} catch (SQLException exc) {
+			throw new PersistorException(exc.getMessage(), exc);
+		}
+	}
+
 	/**
 	 * Update a set of fields with given values for the firlter criteria. The map of values can be keyed either by
 	 * index, alias or field.
@@ -13,16 +13,21 @@
  */
 package com.qtplaf.library.database.rdbms.adapters;
 
+import java.sql.Connection;
 import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Time;
 import java.sql.Timestamp;
-
-import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 
 import com.qtplaf.library.database.Field;
 import com.qtplaf.library.database.Types;
 import com.qtplaf.library.database.rdbms.DBEngineAdapter;
 import com.qtplaf.library.database.rdbms.DataSourceInfo;
+import com.qtplaf.library.database.rdbms.sql.Statement;
 import com.qtplaf.library.util.FormatUtils;
 
 /**
@@ -32,6 +37,13 @@ import com.qtplaf.library.util.FormatUtils;
  */
 public class DerbyAdapter extends DBEngineAdapter {
 
+	/**
+	 * Derby reserved words that other databases accept as column names, like the <i>open</i> and <i>close</i> of
+	 * prices, and that the statements never use as keywords. They are quoted in upper case when used as identifiers,
+	 * that is the name Derby gives to the unquoted identifier.
+	 */
+	private static final Set<String> reservedNames = new HashSet<>(Arrays.asList("OPEN", "CLOSE"));
+
 	/**
 	 * Default constructor.
 	 */
@@ -40,13 +52,90 @@ public class DerbyAdapter extends DBEngineAdapter {
 	}
 
 	/**
-	 * Returns a appropriate data source.
+	 * Returns the JDBC URL to connect to the database.
 	 * 
 	 * @param info The data source info.
-	 * @return The data source.
+	 * @return The JDBC URL.
+	 */
+	@Override
+	public String getURL(DataSourceInfo info) {
+		return "jdbc:derby:" + info.getDatabase() + ";create=true";
+	}
+
+	/**
+	 * Registers the <code>STDDEV</code> aggregate, not built in Derby, in the default schema of the connection if it
+	 * is not already registered.
+	 * 
+	 * @param cn The connection.
+	 * @throws SQLException
+	 */
+	@Override
+	public void initializeDatabase(Connection cn) throws SQLException {
+		StringBuilder b = new StringBuilder();
+		b.append("SELECT A.ALIAS FROM SYS.SYSALIASES A, SYS.SYSSCHEMAS S ");
+		b.append("WHERE A.SCHEMAID = S.SCHEMAID ");
+		b.append("AND A.ALIASTYPE = 'G' ");
+		b.append("AND A.ALIAS = 'STDDEV' ");
+		b.append("AND S.SCHEMANAME = CURRENT SCHEMA");
+		try (java.sql.Statement st = cn.createStatement()) {
+			boolean exists;
+			try (ResultSet rs = st.executeQuery(b.toString())) {
+				exists = rs.next();
+			}
+			if (!exists) {
+				String className = DerbyStdDev.class.getName();
+				st.executeUpdate("CREATE DERBY AGGREGATE STDDEV FOR DOUBLE EXTERNAL NAME '" + className + "'");
+			}
+		}
+	}
+
+	/**
+	 * Returns the SQL to execute a statement, with reserved names used as identifiers quoted.
+	 * 
+	 * @param statement The statement.
+	 * @return The SQL to execute.
 	 */
-	public DataSource getDataSource(DataSourceInfo info) {
-		return null;
+	@Override
+	public String getSQL(Statement statement) {
+		return quoteReservedNames(statement.toSQL());
+	}
+
+	/**
+	 * Quotes the reserved names used as identifiers in the SQL, skipping string literals and quoted identifiers.
+	 * 
+	 * @param sql The SQL.
+	 * @return The SQL with the reserved names quoted.
+	 */
+	private String quoteReservedNames(String sql) {
+		StringBuilder b = new StringBuilder(sql.length() + 16);
+		int length = sql.length();
+		int i = 0;
+		while (i < length) {
+			char c = sql.charAt(i);
+			int end = i + 1;
+			if (c == '\'' || c == '"') {
+				end = sql.indexOf(c, i + 1);
+				end = (end < 0 ? length : end + 1);
+				b.append(sql, i, end);
+			} else if (Character.isLetterOrDigit(c) || c == '_') {
+				while (end < length && (Character.isLetterOrDigit(sql.charAt(end)) || sql.charAt(end) == '_')) {
+					end++;
+				}
+				String word = sql.substring(i, end);
+				String name = word.toUpperCase();
+				if (reservedNames.contains(name)) {
+					b.append('"');
+					b.append(name);
+					b.append('"');
+				} else {
+					b.append(word);
+				}
+			} else {
+				b.append(c);
+			}
+			i = end;
+		}
+		return b.toString();
 	}
 
 	/**
@@ -135,6 +224,17 @@ public class DerbyAdapter extends DBEngineAdapter {
 		return b.toString();
 	}
 
+	/**
+	 * Check if tables qualified with the schema and without alias must be given their name as correlation name. Derby
+	 * does not resolve columns qualified only with the table name otherwise.
+	 *
+	 * @return A boolean.
+	 */
+	@Override
+	public boolean isCorrelationNameRequired() {
+		return true;
+	}
+
 	/**
 	 * Check if the underlying database accepts explicit relations.
 	 *
@@ -16,6 +16,8 @@
  */
 package com.qtplaf.library.database.rdbms.adapters;
 
+import com.qtplaf.library.database.rdbms.DataSourceInfo;
+
 /**
  *
  * @author Miquel Sas
@@ -28,4 +30,15 @@ public class DerbyAdapterClient extends DerbyAdapter {
 		super();
 		setDriverClassName("org.apache.derby.jdbc.ClientDriver");
 	}
+
+	/**
+	 * Returns the JDBC URL to connect to the network server database.
+	 * 
+	 * @param info The data source info.
+	 * @return The JDBC URL.
+	 */
+	@Override
+	public String getURL(DataSourceInfo info) {
+		return "jdbc:derby://" + info.getServerName() + ":" + info.getPortNumber() + "/" + info.getDatabase();
+	}
 }
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.qtplaf.library.database.rdbms.adapters;
+
+import org.apache.derby.agg.Aggregator;
+
+/**
+ * Derby user defined aggregate <code>STDDEV</code>, the sample standard deviation like the built in function of
+ * PostgreSQL, null with less than two values. Values are accumulated with Welford's method and partial aggregates
+ * merged with Chan's formula. With the network server, this class must be in the class path of the server.
+ *
+ * @author Miquel Sas
+ */
+public class DerbyStdDev implements Aggregator<Double, Double, DerbyStdDev> {
+
+	/**
+	 * Serial version UID.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Number of values.
+	 */
+	private long count;
+	/**
+	 * Running mean.
+	 */
+	private double mean;
+	/**
+	 * Running sum of squared differences from the mean.
+	 */
+	private double sumSquares;
+
+	/**
+	 * Default constructor.
+	 */
+	public DerbyStdDev() {
+		super();
+	}
+
+	/**
+	 * Initialize the aggregate.
+	 */
+	@Override
+	public void init() {
+		count = 0;
+		mean = 0;
+		sumSquares = 0;
+	}
+
+	/**
+	 * Accumulate a value.
+	 *
+	 * @param value The value.
+	 */
+	@Override
+	public void accumulate(Double value) {
+		if (value == null) {
+			return;
+		}
+		count++;
+		double delta = value - mean;
+		mean += delta / count;
+		sumSquares += delta * (value - mean);
+	}
+
+	/**
+	 * Merge a partial aggregate.
+	 *
+	 * @param other The other aggregate.
+	 */
+	@Override
+	public void merge(DerbyStdDev other) {
+		if (other.count == 0) {
+			return;
+		}
+		long total = count + other.count;
+		double delta = other.mean - mean;
+		sumSquares += other.sumSquares + delta * delta * count * other.count / total;
+		mean += delta * other.count / total;
+		count = total;
+	}
+
+	/**
+	 * Returns the sample standard deviation.
+	 *
+	 * @return The standard deviation or null with less than two values.
+	 */
+	@Override
+	public Double terminate() {
+		if (count < 2) {
+			return null;
+		}
+		return Math.sqrt(sumSquares / (count - 1));
+	}
+}
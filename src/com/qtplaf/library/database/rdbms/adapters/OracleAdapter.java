@@ -17,8 +17,6 @@ import java.sql.Date;
 import java.sql.Time;
 import java.sql.Timestamp;
 
-import javax.sql.DataSource;
-
 import com.qtplaf.library.database.Field;
 import com.qtplaf.library.database.Types;
 import com.qtplaf.library.database.rdbms.DBEngineAdapter;
@@ -45,13 +43,14 @@ public class OracleAdapter extends DBEngineAdapter {
 	}
 
 	/**
-	 * Returns a appropriate data source.
+	 * Returns the JDBC URL to connect to the database.
 	 * 
 	 * @param info The data source info.
-	 * @return The data source.
+	 * @return The JDBC URL.
 	 */
-	public DataSource getDataSource(DataSourceInfo info) {
-		return null;
+	@Override
+	public String getURL(DataSourceInfo info) {
+		return "jdbc:oracle:thin:@" + info.getServerName() + ":" + info.getPortNumber() + ":" + info.getDatabase();
 	}
 
 	/**
@@ -18,10 +18,6 @@ import java.sql.Date;
 import java.sql.Time;
 import java.sql.Timestamp;
 
-import javax.sql.DataSource;
-
-import org.postgresql.jdbc3.Jdbc3PoolingDataSource;
-
 import com.qtplaf.library.database.Field;
 import com.qtplaf.library.database.Types;
 import com.qtplaf.library.database.rdbms.DBEngineAdapter;
@@ -44,21 +40,14 @@ public class PostgreSQLAdapter extends DBEngineAdapter {
 	}
 
 	/**
-	 * Returns a appropriate data source.
+	 * Returns the JDBC URL to connect to the database.
 	 * 
 	 * @param info The data source info.
-	 * @return The data source.
+	 * @return The JDBC URL.
 	 */
-	public DataSource getDataSource(DataSourceInfo info) {
-		Jdbc3PoolingDataSource source = new Jdbc3PoolingDataSource();
-		source.setDataSourceName(info.getDataSourceName());
-		source.setServerName(info.getServerName());
-		source.setPortNumber(info.getPortNumber());
-		source.setDatabaseName(info.getDatabase());
-		source.setUser(info.getUser());
-		source.setPassword(info.getPassword());
-		source.setMaxConnections(10);
-		return source;
+	@Override
+	public String getURL(DataSourceInfo info) {
+		return "jdbc:postgresql://" + info.getServerName() + ":" + info.getPortNumber() + "/" + info.getDatabase();
 	}
 
 	/**
@@ -129,6 +129,7 @@ public class Delete extends Statement {
 		StringBuilder b = new StringBuilder(256);
 		b.append("DELETE FROM ");
 		b.append(getTable().getNameSchema());
+		appendCorrelationName(b, getTable());
 		if (getFilter() != null && !getFilter().isEmpty()) {
 			b.append(" WHERE ");
 			b.append(getFilter().toString());
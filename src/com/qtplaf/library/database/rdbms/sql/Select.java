@@ -270,7 +270,12 @@ public class Select extends Statement {
 			if (i > 0) {
 				b.append(", ");
 			}
-			b.append(tables.get(i).getNameFrom());
+			Table table = tables.get(i);
+			String nameFrom = table.getNameFrom();
+			b.append(nameFrom);
+			if (nameFrom.equals(table.getNameSchema())) {
+				appendCorrelationName(b, table);
+			}
 		}
 		return b.toString();
 	}
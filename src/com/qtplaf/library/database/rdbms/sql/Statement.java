@@ -19,6 +19,7 @@ package com.qtplaf.library.database.rdbms.sql;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.qtplaf.library.database.Table;
 import com.qtplaf.library.database.Value;
 import com.qtplaf.library.database.rdbms.DBEngineAdapter;
 
@@ -89,6 +90,23 @@ public abstract class Statement {
 		return dbEngineAdapter;
 	}
 
+	/**
+	 * Appends the table name qualified with the schema to use in <code>FROM</code>, <code>UPDATE</code> and
+	 * <code>DELETE</code> clauses, with the table name as correlation name when the database adapter requires it.
+	 *
+	 * @param b The string builder.
+	 * @param table The table.
+	 */
+	protected void appendCorrelationName(StringBuilder b, Table table) {
+		if (dbEngineAdapter == null || !dbEngineAdapter.isCorrelationNameRequired()) {
+			return;
+		}
+		if (table.getSchema() != null && table.getName() != null) {
+			b.append(" ");
+			b.append(table.getName());
+		}
+	}
+
 	/**
 	 * Returns this query as a string, eventually with parameters. A default database is used if necessary.
 	 *
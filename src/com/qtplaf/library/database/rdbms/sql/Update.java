@@ -224,6 +224,7 @@ public class Update extends Statement {
 		StringBuilder b = new StringBuilder(256);
 		b.append("UPDATE ");
 		b.append(table.getNameSchema());
+		appendCorrelationName(b, table);
 		b.append(" SET ");
 
 		Object[] objects = assignmentMap.keySet().toArray();
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.qtplaf.library.math;
+
+/**
+ * Backward scanner of a series of highs and lows, to retrieve at an index the maximum high and the minimum low of the
+ * next <tt>period</tt> values, for any number of periods.
+ * <p>
+ * The scanner moves from the end of the series to the start. At each index it keeps two monotonic stacks, the indexes
+ * after the current one whose high (low) is greater (less) than all the highs (lows) between, that is, the successive
+ * maximums (minimums) of the forward windows. Each index is pushed and popped once, so moving over the whole series is
+ * linear in its length, and the extremum of a forward window of any period is found by binary search in the stack,
+ * without scanning the window.
+ * 
+ * @author Miquel Sas
+ */
+public class ForwardExtremum {
+
+	/** The highs. */
+	private double[] highs;
+	/** The lows. */
+	private double[] lows;
+	/** Stack of indexes with increasing highs from the top, decreasing indexes from the bottom. */
+	private int[] stackMax;
+	/** Stack of indexes with decreasing lows from the top, decreasing indexes from the bottom. */
+	private int[] stackMin;
+	/** Size of the maximum stack. */
+	private int sizeMax;
+	/** Size of the minimum stack. */
+	private int sizeMin;
+	/** The current index, the length of the series before moving. */
+	private int index;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param highs The highs.
+	 * @param lows The lows, with the same length as the highs.
+	 */
+	public ForwardExtremum(double[] highs, double[] lows) {
+		super();
+		if (highs.length != lows.length) {
+			throw new IllegalArgumentException("Highs and lows must have the same length");
+		}
+		this.highs = highs;
+		this.lows = lows;
+		this.stackMax = new int[highs.length];
+		this.stackMin = new int[lows.length];
+		this.index = highs.length;
+	}
+
+	/**
+	 * Returns the current index.
+	 * 
+	 * @return The current index.
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	/**
+	 * Move backward to the index, that must be less than or equal to the current index.
+	 * 
+	 * @param index The index.
+	 */
+	public void moveTo(int index) {
+		if (index < 0 || index > this.index) {
+			throw new IllegalArgumentException("Index must be between 0 and the current index");
+		}
+		while (this.index > index) {
+			// Push the index that enters the forward windows.
+			int push = this.index;
+			this.index--;
+			if (push == highs.length) {
+				continue;
+			}
+			while (sizeMax > 0 && highs[stackMax[sizeMax - 1]] <= highs[push]) {
+				sizeMax--;
+			}
+			stackMax[sizeMax++] = push;
+			while (sizeMin > 0 && lows[stackMin[sizeMin - 1]] >= lows[push]) {
+				sizeMin--;
+			}
+			stackMin[sizeMin++] = push;
+		}
+	}
+
+	/**
+	 * Returns the maximum high of the <tt>period</tt> values after the current index. The window must be within the
+	 * series.
+	 * 
+	 * @param period The period.
+	 * @return The maximum high.
+	 */
+	public double getMaximum(int period) {
+		return highs[stackMax[search(stackMax, sizeMax, period)]];
+	}
+
+	/**
+	 * Returns the minimum low of the <tt>period</tt> values after the current index. The window must be within the
+	 * series.
+	 * 
+	 * @param period The period.
+	 * @return The minimum low.
+	 */
+	public double getMinimum(int period) {
+		return lows[stackMin[search(stackMin, sizeMin, period)]];
+	}
+
+	/**
+	 * Returns the position in the stack of the extremum of the forward window, the lowest position whose index is
+	 * within the window.
+	 * 
+	 * @param stack The stack.
+	 * @param size The size of the stack.
+	 * @param period The period.
+	 * @return The position.
+	 */
+	private int search(int[] stack, int size, int period) {
+		if (period < 1 || index + period >= highs.length) {
+			throw new IllegalArgumentException("The forward window must be within the series");
+		}
+		// Only the top period positions of the stack can be within the window.
+		int last = index + period;
+		int low = Math.max(0, size - period);
+		int high = size - 1;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (stack[middle] <= last) {
+				high = middle;
+			} else {
+				low = middle + 1;
+			}
+		}
+		return low;
+	}
+}
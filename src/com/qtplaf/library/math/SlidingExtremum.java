@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.qtplaf.library.math;
+
+/**
+ * Streaming detector of local minimums and maximums over a centered window of <tt>period</tt> values before and after.
+ * Values are added sequentially, and after each add the value at the center index, <tt>period</tt> values behind the
+ * last one added, can be checked. A center value is a minimum (maximum) when no other value in the window is less
+ * (greater) than it, ties included.
+ * <p>
+ * The minimum and maximum of the window are tracked with monotonic deques, so each add is amortized constant time
+ * regardless of the period.
+ * 
+ * @author Miquel Sas
+ */
+public class SlidingExtremum {
+
+	/** The period, number of values to check before and after. */
+	private int period;
+	/** The window size, <tt>2 * period + 1</tt>. */
+	private int window;
+	/** Ring of the last window values, by index modulus window. */
+	private double[] values;
+	/** Ring deque of indexes with increasing values, the front is the index of the minimum. */
+	private int[] dequeMin;
+	/** Ring deque of indexes with decreasing values, the front is the index of the maximum. */
+	private int[] dequeMax;
+	/** Front and size of the minimum deque. */
+	private int frontMin, sizeMin;
+	/** Front and size of the maximum deque. */
+	private int frontMax, sizeMax;
+	/** Index of the last value added, -1 if none. */
+	private int index = -1;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param period The period, number of values to check before and after.
+	 */
+	public SlidingExtremum(int period) {
+		super();
+		if (period < 1) {
+			throw new IllegalArgumentException("Period must be greater than zero");
+		}
+		this.period = period;
+		this.window = (2 * period) + 1;
+		this.values = new double[window];
+		this.dequeMin = new int[window];
+		this.dequeMax = new int[window];
+	}
+
+	/**
+	 * Returns the period.
+	 * 
+	 * @return The period.
+	 */
+	public int getPeriod() {
+		return period;
+	}
+
+	/**
+	 * Clears the detector to start a new sequence of values.
+	 */
+	public void reset() {
+		index = -1;
+		frontMin = sizeMin = 0;
+		frontMax = sizeMax = 0;
+	}
+
+	/**
+	 * Adds the next value of the sequence.
+	 * 
+	 * @param value The value.
+	 */
+	public void add(double value) {
+		index++;
+		values[index % window] = value;
+
+		// Drop indexes that exit the window.
+		int first = index - window + 1;
+		if (sizeMin > 0 && dequeMin[frontMin] < first) {
+			frontMin = (frontMin + 1) % window;
+			sizeMin--;
+		}
+		if (sizeMax > 0 && dequeMax[frontMax] < first) {
+			frontMax = (frontMax + 1) % window;
+			sizeMax--;
+		}
+
+		// Drop from the back the indexes that can no longer be the minimum or maximum.
+		while (sizeMin > 0 && getValue(dequeMin[(frontMin + sizeMin - 1) % window]) >= value) {
+			sizeMin--;
+		}
+		dequeMin[(frontMin + sizeMin) % window] = index;
+		sizeMin++;
+		while (sizeMax > 0 && getValue(dequeMax[(frontMax + sizeMax - 1) % window]) <= value) {
+			sizeMax--;
+		}
+		dequeMax[(frontMax + sizeMax) % window] = index;
+		sizeMax++;
+	}
+
+	/**
+	 * Returns the value at the index, that must be within the current window.
+	 * 
+	 * @param index The index.
+	 * @return The value.
+	 */
+	private double getValue(int index) {
+		return values[index % window];
+	}
+
+	/**
+	 * Returns the center index, <tt>period</tt> values behind the last one added, or -1 if there are not yet enough
+	 * values before it.
+	 * 
+	 * @return The center index or -1.
+	 */
+	public int getCenterIndex() {
+		int center = index - period;
+		if (center < period) {
+			return -1;
+		}
+		return center;
+	}
+
+	/**
+	 * Returns the value at the center index. Valid only if the center index is not -1.
+	 * 
+	 * @return The center value.
+	 */
+	public double getCenterValue() {
+		return getValue(index - period);
+	}
+
+	/**
+	 * Returns a boolean indicating whether the value at the center index is a minimum of the window.
+	 * 
+	 * @return A boolean.
+	 */
+	public boolean isMinimum() {
+		if (getCenterIndex() < 0) {
+			return false;
+		}
+		return getCenterValue() <= getValue(dequeMin[frontMin]);
+	}
+
+	/**
+	 * Returns a boolean indicating whether the value at the center index is a maximum of the window.
+	 * 
+	 * @return A boolean.
+	 */
+	public boolean isMaximum() {
+		if (getCenterIndex() < 0) {
+			return false;
+		}
+		return getCenterValue() >= getValue(dequeMax[frontMax]);
+	}
+}
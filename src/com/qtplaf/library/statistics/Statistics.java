@@ -22,6 +22,7 @@ import javax.swing.Action;
 import com.qtplaf.library.app.Session;
 import com.qtplaf.library.database.Table;
 import com.qtplaf.library.task.Task;
+import com.qtplaf.library.task.TaskRunnerThreads;
 
 /**
  * Statistics descriptor.
@@ -174,6 +175,16 @@ public abstract class Statistics {
 	 */
 	public abstract List<Task> getTasks();
 
+	/**
+	 * Adds the tasks to calculate the results to a pool of tasks, by default each task depending on the previous one.
+	 * Statistics with tasks that do not depend on each other should override it to add them as a graph.
+	 * 
+	 * @param pool The pool of tasks.
+	 */
+	public void addTasks(TaskRunnerThreads pool) {
+		pool.addTasksSequential(getTasks());
+	}
+
 	/**
 	 * Returns the list of actions associated with the statistics. Actions are expected to be suitably configurated to
 	 * be selected for instance from a popup menu.
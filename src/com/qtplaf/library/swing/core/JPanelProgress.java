@@ -146,6 +146,7 @@ public class JPanelProgress extends JPanel {
 			// Task is paused, request resume.
 			if (monitoringTask.isPaused()) {
 				resumeRequested = true;
+				monitoringTask.signal();
 				return;
 			}
 		}
@@ -180,6 +181,7 @@ public class JPanelProgress extends JPanel {
 			// Task is not cancelled, request it.
 			if (!monitoringTask.isCancelled()) {
 				cancelRequested = true;
+				monitoringTask.signal();
 				return;
 			}
 		}
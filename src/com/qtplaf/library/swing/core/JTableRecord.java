@@ -360,7 +360,9 @@ public class JTableRecord extends JTable {
 		TableModelRecord model = getTableModelRecord();
 		Value value = null;
 		try {
-			value = model.getRecord(row).getValue(column);
+			if (model.isLoaded(row)) {
+				value = model.getRecord(row).getValue(column);
+			}
 		} catch (Exception exc) {
 		}
 		if (value != null) {
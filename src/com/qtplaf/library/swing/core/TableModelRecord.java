@@ -224,6 +224,17 @@ public class TableModelRecord extends AbstractTableModel {
 		return recordSet.get(row);
 	}
 
+	/**
+	 * Check whether the record at the given row is loaded and can be retrieved without reading it. Always true for
+	 * this model, that reads from the record set.
+	 * 
+	 * @param row The row.
+	 * @return A boolean.
+	 */
+	public boolean isLoaded(int row) {
+		return true;
+	}
+
 	/**
 	 * Returns the field index given the fieldIndex index.
 	 * 
@@ -0,0 +1,346 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.qtplaf.library.swing.core;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.qtplaf.library.app.Session;
+import com.qtplaf.library.database.Order;
+import com.qtplaf.library.database.Record;
+import com.qtplaf.library.database.RecordSet;
+import com.qtplaf.library.util.map.IntCache;
+import com.qtplaf.library.util.map.IntCachePolicy;
+
+/**
+ * A table model for large record sets that read from a persistor, like a <tt>DataRecordSet</tt> or a
+ * <tt>PageRecordSet</tt>, that never reads on the event dispatch thread.
+ * <p>
+ * The row count and the rows are read in a background thread, rows in blocks through the <tt>getPage</tt> method of
+ * the record set, that reads them in one pass of a cursor. Until a row is loaded, its cells show an empty placeholder,
+ * and when a block is loaded the rows are notified as updated. Loaded rows are kept in a LRU cache bounded in number
+ * of rows, so that memory stays flat whatever the number of rows scrolled, and when scrolling fast only the most
+ * recently requested blocks are read.
+ * <p>
+ * The model is read only and can not be sorted. The <tt>getRecord</tt> method still returns any record, reading it
+ * in the calling thread if it is not loaded.
+ * 
+ * @author Miquel Sas
+ */
+public class TableModelRecordVirtual extends TableModelRecord {
+
+	/** Logger instance to log exceptions. */
+	private static final Logger logger = LogManager.getLogger();
+
+	/**
+	 * The number of rows read per block, default is 100.
+	 */
+	private int blockSize = 100;
+	/**
+	 * The maximum number of blocks waiting to be read, older requests are discarded.
+	 */
+	private int maxPendingBlocks = 8;
+	/**
+	 * The cache of loaded rows, by row index, default is 5000 rows.
+	 */
+	private IntCache<Record> rows = new IntCache<>(5000, IntCachePolicy.lru());
+	/**
+	 * The requested blocks, the most recent last.
+	 */
+	private Deque<Integer> requests = new ArrayDeque<>();
+	/**
+	 * The set of requested blocks not yet loaded.
+	 */
+	private Set<Integer> pendingBlocks = new HashSet<>();
+	/**
+	 * The record set read in background, assigned with the generation.
+	 */
+	private RecordSet source;
+	/**
+	 * The row count, zero until counted.
+	 */
+	private int rowCount = 0;
+	/**
+	 * The generation of the record set, to discard rows read from a previous record set.
+	 */
+	private int generation = 0;
+	/**
+	 * The executor that reads in background, with a single thread that ends when idle.
+	 */
+	private ThreadPoolExecutor executor;
+
+	/**
+	 * Constructor assigning the master record.
+	 * 
+	 * @param session The working session.
+	 * @param masterRecord The master record.
+	 */
+	public TableModelRecordVirtual(Session session, Record masterRecord) {
+		super(session, masterRecord);
+		executor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+			Thread thread = new Thread(runnable, "Table model reader");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Set the number of rows read per block, default is 100.
+	 * 
+	 * @param blockSize The block size.
+	 */
+	public void setBlockSize(int blockSize) {
+		if (blockSize < 1) {
+			throw new IllegalArgumentException("Block size must be greater than zero");
+		}
+		this.blockSize = blockSize;
+	}
+
+	/**
+	 * Set the maximum number of loaded rows to cache, default is 5000. It should be greater than the visible rows.
+	 * 
+	 * @param cacheSize The number of rows to cache.
+	 */
+	public void setCacheSize(int cacheSize) {
+		if (cacheSize < blockSize) {
+			throw new IllegalArgumentException("Cache size must be at least the block size");
+		}
+		rows.setCacheSize(cacheSize);
+	}
+
+	/**
+	 * Set the record set, clearing the loaded rows and counting the rows in background.
+	 * 
+	 * @param recordSet The record set.
+	 */
+	@Override
+	public void setRecordSet(RecordSet recordSet) {
+		synchronized (requests) {
+			generation++;
+			source = recordSet;
+			requests.clear();
+			pendingBlocks.clear();
+		}
+		rows.clear();
+		rowCount = 0;
+		super.setRecordSet(recordSet);
+		int countGeneration = generation;
+		executor.execute(() -> count(recordSet, countGeneration));
+	}
+
+	/**
+	 * Count the rows of the record set in the background thread, and notify the count in the event dispatch thread.
+	 * 
+	 * @param recordSet The record set.
+	 * @param countGeneration The generation of the record set.
+	 */
+	private void count(RecordSet recordSet, int countGeneration) {
+		try {
+			int count;
+			synchronized (recordSet) {
+				count = recordSet.size();
+			}
+			SwingUtils.invokeLater(() -> {
+				if (countGeneration == generation) {
+					rowCount = count;
+					fireTableDataChanged();
+				}
+			});
+		} catch (Exception exc) {
+			logger.catching(exc);
+		}
+	}
+
+	/**
+	 * Returns the number of rows, zero until counted.
+	 * 
+	 * @return The number of rows.
+	 */
+	@Override
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * Check whether the record at the given row is loaded.
+	 * 
+	 * @param row The row.
+	 * @return A boolean.
+	 */
+	@Override
+	public boolean isLoaded(int row) {
+		return rows.containsKey(row);
+	}
+
+	/**
+	 * Returns the record at the given row, reading it in the calling thread if it is not loaded.
+	 * 
+	 * @param row The row.
+	 * @return The record.
+	 */
+	@Override
+	public Record getRecord(int row) {
+		Record record = rows.get(row);
+		if (record == null) {
+			if (row < 0 || row >= getRowCount()) {
+				throw new IllegalArgumentException("Invalid row index " + row);
+			}
+			RecordSet recordSet = getRecordSet();
+			synchronized (recordSet) {
+				record = recordSet.get(row);
+			}
+			rows.put(row, record);
+		}
+		return record;
+	}
+
+	/**
+	 * Returns the value at the given row and column, or an empty placeholder requesting the block of the row if it is
+	 * not loaded.
+	 * 
+	 * @param rowIndex The row index.
+	 * @param columnIndex The column index.
+	 * @return The value or the placeholder.
+	 */
+	@Override
+	public Object getValueAt(int rowIndex, int columnIndex) {
+		if (!isLoaded(rowIndex)) {
+			request(rowIndex / blockSize);
+			return "";
+		}
+		return super.getValueAt(rowIndex, columnIndex);
+	}
+
+	/**
+	 * Request a block to be read in background, discarding the oldest request if there are too many pending.
+	 * 
+	 * @param block The block.
+	 */
+	private void request(int block) {
+		synchronized (requests) {
+			if (pendingBlocks.contains(block)) {
+				return;
+			}
+			pendingBlocks.add(block);
+			requests.addLast(block);
+			if (requests.size() > maxPendingBlocks) {
+				pendingBlocks.remove(requests.removeFirst());
+			}
+		}
+		executor.execute(() -> readNext());
+	}
+
+	/**
+	 * Read the most recently requested block in the background thread, and load it in the event dispatch thread.
+	 */
+	private void readNext() {
+		int block;
+		int readGeneration;
+		RecordSet recordSet;
+		synchronized (requests) {
+			if (requests.isEmpty()) {
+				return;
+			}
+			block = requests.removeLast();
+			readGeneration = generation;
+			recordSet = source;
+		}
+		try {
+			List<Record> records;
+			synchronized (recordSet) {
+				records = recordSet.getPage(block * blockSize, blockSize);
+			}
+			SwingUtils.invokeLater(() -> load(block, readGeneration, records));
+		} catch (Exception exc) {
+			synchronized (requests) {
+				pendingBlocks.remove(block);
+			}
+			logger.catching(exc);
+		}
+	}
+
+	/**
+	 * Load the rows of a block read and notify them as updated.
+	 * 
+	 * @param block The block.
+	 * @param readGeneration The generation of the record set read.
+	 * @param records The records of the block.
+	 */
+	private void load(int block, int readGeneration, List<Record> records) {
+		synchronized (requests) {
+			if (readGeneration != generation) {
+				return;
+			}
+			pendingBlocks.remove(block);
+		}
+		int firstRow = block * blockSize;
+		int lastRow = Math.min(getRowCount(), firstRow + records.size()) - 1;
+		for (int row = firstRow; row <= lastRow; row++) {
+			rows.put(row, records.get(row - firstRow));
+		}
+		if (lastRow >= firstRow) {
+			fireTableRowsUpdated(firstRow, lastRow);
+		}
+	}
+
+	/**
+	 * Not supported, the model is read only.
+	 */
+	@Override
+	public void insertRecord(int row, Record record) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Not supported, the model is read only.
+	 */
+	@Override
+	public void deleteRecord(int row) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Not supported, the model is read only.
+	 */
+	@Override
+	public void updateRecord(int row, Record record) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Not supported.
+	 */
+	@Override
+	public void sort(Order order) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Not supported.
+	 */
+	@Override
+	public void sort() {
+		throw new UnsupportedOperationException();
+	}
+}
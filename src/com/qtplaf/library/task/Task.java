@@ -224,4 +224,24 @@ public interface Task extends Runnable {
 	 * @return The list of optional additional labels.
 	 */
 	List<String> getAdditionalLabels();
+
+	/**
+	 * Wakes up the task if it is waiting for a resume while paused. Listeners should call it after requesting a resume
+	 * or cancel, the task would otherwise ask them again after a short timeout.
+	 */
+	void signal();
+
+	/**
+	 * Returns the CPU time in millis consumed by the task, up to now if it is processing.
+	 * 
+	 * @return The CPU time in millis.
+	 */
+	long getCpuTime();
+
+	/**
+	 * Returns the wall clock time in millis elapsed processing the task, up to now if it is processing.
+	 * 
+	 * @return The wall clock time in millis.
+	 */
+	long getWallTime();
 }
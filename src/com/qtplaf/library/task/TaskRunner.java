@@ -14,9 +14,14 @@
 
 package com.qtplaf.library.task;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.qtplaf.library.app.Session;
 
@@ -38,11 +43,19 @@ import com.qtplaf.library.app.Session;
  * <li><code>if (checkPause()) continue;</code></li>
  * </ul>
  * because updating the internal <code>cancelled</code> and <code>paused</code> is not permited.
+ * <p>
+ * While paused, <code>checkPause()</code> blocks the task on a condition until a listener signals it or a short
+ * timeout elapses, and then asks listeners again for resume or cancel, so paused tasks do not consume CPU.
  * 
  * @author Miquel Sas
  */
 public abstract class TaskRunner implements Task {
 
+	/**
+	 * Maximum time in millis to wait for a signal before asking listeners again.
+	 */
+	private static final long SIGNAL_TIMEOUT = 100;
+
 	/**
 	 * The name of the task.
 	 */
@@ -122,6 +135,40 @@ public abstract class TaskRunner implements Task {
 	 */
 	private List<String> additionalLabels = new ArrayList<>();
 
+	/**
+	 * Lock to wait for a signal.
+	 */
+	private final ReentrantLock signalLock = new ReentrantLock();
+	/**
+	 * Condition to wait for a signal.
+	 */
+	private final Condition signalCondition = signalLock.newCondition();
+	/**
+	 * A boolean that indicates that the task has been signalled and not yet awaken.
+	 */
+	private boolean signalled = false;
+
+	/**
+	 * The identifier of the thread executing the task.
+	 */
+	private long threadId = -1;
+	/**
+	 * Wall clock time in nanos at the start of processing.
+	 */
+	private long wallTimeStart = 0;
+	/**
+	 * CPU time of the executing thread in nanos at the start of processing.
+	 */
+	private long cpuTimeStart = 0;
+	/**
+	 * Wall clock time in nanos of the last processing.
+	 */
+	private long wallTime = 0;
+	/**
+	 * CPU time in nanos of the last processing.
+	 */
+	private long cpuTime = 0;
+
 	/**
 	 * The working session.
 	 */
@@ -428,6 +475,11 @@ public abstract class TaskRunner implements Task {
 			// Processing started.
 			processing = true;
 
+			// Start times.
+			threadId = Thread.currentThread().getId();
+			wallTimeStart = System.nanoTime();
+			cpuTimeStart = getThreadCpuTime(threadId);
+
 			// If there is a monitor available, add the task.
 			if (getMonitor() != null) {
 				getMonitor().add(this);
@@ -443,6 +495,8 @@ public abstract class TaskRunner implements Task {
 		}
 		// Processing/terminated flags.
 		synchronized (this) {
+			wallTime = System.nanoTime() - wallTimeStart;
+			cpuTime = getThreadCpuTime(threadId) - cpuTimeStart;
 			processing = false;
 			if (cancelling) {
 				cancelled = true;
@@ -500,17 +554,88 @@ public abstract class TaskRunner implements Task {
 				}
 				return false;
 			} else {
+				awaitSignal();
 				if (resumeRequested()) {
 					notifyResumed();
 					return false;
 				}
-				Thread.yield();
 				return true;
 			}
 		}
 		return false;
 	}
 
+	/**
+	 * Wait until the task is signalled or the signal timeout elapses.
+	 */
+	protected void awaitSignal() {
+		signalLock.lock();
+		try {
+			if (!signalled) {
+				signalCondition.await(SIGNAL_TIMEOUT, TimeUnit.MILLISECONDS);
+			}
+			signalled = false;
+		} catch (InterruptedException exc) {
+			Thread.currentThread().interrupt();
+		} finally {
+			signalLock.unlock();
+		}
+	}
+
+	/**
+	 * Wakes up the task if it is waiting for a resume while paused.
+	 */
+	@Override
+	public void signal() {
+		signalLock.lock();
+		try {
+			signalled = true;
+			signalCondition.signalAll();
+		} finally {
+			signalLock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the CPU time in millis consumed by the task, up to now if it is processing.
+	 * 
+	 * @return The CPU time in millis.
+	 */
+	@Override
+	public synchronized long getCpuTime() {
+		if (processing) {
+			return TimeUnit.NANOSECONDS.toMillis(getThreadCpuTime(threadId) - cpuTimeStart);
+		}
+		return TimeUnit.NANOSECONDS.toMillis(cpuTime);
+	}
+
+	/**
+	 * Returns the wall clock time in millis elapsed processing the task, up to now if it is processing.
+	 * 
+	 * @return The wall clock time in millis.
+	 */
+	@Override
+	public synchronized long getWallTime() {
+		if (processing) {
+			return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - wallTimeStart);
+		}
+		return TimeUnit.NANOSECONDS.toMillis(wallTime);
+	}
+
+	/**
+	 * Returns the CPU time in nanos of a thread, or zero if not supported.
+	 * 
+	 * @param threadId The thread identifier.
+	 * @return The CPU time in nanos.
+	 */
+	private static long getThreadCpuTime(long threadId) {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (!bean.isThreadCpuTimeSupported() || !bean.isThreadCpuTimeEnabled()) {
+			return 0;
+		}
+		return Math.max(bean.getThreadCpuTime(threadId), 0);
+	}
+
 	/**
 	 * Ask listeners if cancel has been requested.
 	 * 
@@ -87,6 +87,7 @@ public class TaskRunnerList extends TaskRunner {
 					notifyPaused();
 				}
 			}
+			signal();
 		}
 
 		/**
@@ -114,6 +115,7 @@ public class TaskRunnerList extends TaskRunner {
 					notifyResumed();
 				}
 			}
+			signal();
 		}
 
 		/**
@@ -137,6 +139,7 @@ public class TaskRunnerList extends TaskRunner {
 			synchronized (this) {
 				notifyStepEnd();
 			}
+			signal();
 		}
 
 		/**
@@ -263,7 +266,7 @@ public class TaskRunnerList extends TaskRunner {
 				if (executingTasks.getLast().isTerminated()) {
 					break;
 				}
-				Thread.yield();
+				awaitSignal();
 				continue;
 			}
 
@@ -289,7 +292,8 @@ public class TaskRunnerList extends TaskRunner {
 				}
 			}
 
-			Thread.yield();
+			// Wait for the executing task to notify.
+			awaitSignal();
 		}
 
 	}
@@ -325,6 +329,9 @@ public class TaskRunnerList extends TaskRunner {
 			synchronized (this) {
 				cancelRequesting = true;
 			}
+			if (!executingTasks.isEmpty()) {
+				executingTasks.getLast().signal();
+			}
 			return cancelRequesting;
 		}
 		return cancelRequesting;
@@ -349,7 +356,6 @@ public class TaskRunnerList extends TaskRunner {
 						||
 						executingTasks.getLast().isTerminated()) {
 						notifyPaused();
-						Thread.yield();
 						return true;
 					}
 					// Forward the request, will notify paused when all executing tasks are paused.
@@ -357,6 +363,7 @@ public class TaskRunnerList extends TaskRunner {
 						resumeRequesting = false;
 						pauseRequesting = true;
 					}
+					awaitSignal();
 					return true;
 				}
 				return false;
@@ -366,7 +373,6 @@ public class TaskRunnerList extends TaskRunner {
 						||
 						!executingTasks.getLast().isPaused()) {
 						notifyResumed();
-						Thread.yield();
 						return true;
 					}
 					// Forward the request, will notify resumed when all executing tasks are not paused.
@@ -374,9 +380,10 @@ public class TaskRunnerList extends TaskRunner {
 						resumeRequesting = true;
 						pauseRequesting = false;
 					}
+					executingTasks.getLast().signal();
 					return false;
 				}
-				Thread.yield();
+				awaitSignal();
 				return true;
 			}
 		}
@@ -15,13 +15,20 @@
 package com.qtplaf.library.task;
 
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Comparator;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import com.qtplaf.library.app.Session;
 import com.qtplaf.library.util.StringUtils;
-import com.qtplaf.library.util.list.ListUtils;
 
 /**
  * A task made of multiple tasks that are executed in concurrent threads. The tasks to be executed must correctly manage
@@ -35,27 +42,20 @@ import com.qtplaf.library.util.list.ListUtils;
  * changes as tasks are being started and notify their number of steps.</li>
  * <li>No task is indeterminate and all support <code>countSteps()</code>. An initital count is made on every task.</li>
  * </ol>
+ * Tasks are executed by a pool of worker threads, by default as many as available processors. A task can be added with
+ * the tasks it depends on, that must have been added before, so tasks form a directed acyclic graph. A task is started
+ * when all its dependencies have terminated, and it is not executed if any of them fails or is cancelled. Among the
+ * tasks ready to start, the one with the longest path of steps to the end of the graph is started first.
+ * <p>
+ * The pool does not poll: it waits to be signalled by the executing tasks when they terminate, pause or resume, and
+ * signals them when forwarding resume and cancel requests. The CPU time of the pool is the CPU time of its tasks.
  * 
  * @author Miquel Sas
  */
 public class TaskRunnerThreads extends TaskRunner {
 
-	/**
-	 * The comparator to sort processes by currentStep count ascending.
-	 */
-	class TaskComparator implements Comparator<Task> {
-		public int compare(Task task0, Task task1) {
-			long steps0 = task0.getSteps();
-			long steps1 = task1.getSteps();
-			if (steps0 < steps1) {
-				return -1;
-			} else if (steps0 > steps1) {
-				return 1;
-			} else {
-				return 0;
-			}
-		}
-	}
+	/** Logger instance. */
+	private static final Logger logger = LogManager.getLogger();
 
 	/**
 	 * The task listener that interacts with the task monitored.
@@ -113,6 +113,7 @@ public class TaskRunnerThreads extends TaskRunner {
 			if (allExecutingTasksArePaused()) {
 				notifyPaused();
 			}
+			signal();
 		}
 
 		/**
@@ -137,6 +138,7 @@ public class TaskRunnerThreads extends TaskRunner {
 			if (allExecutingTasksAreNotPaused()) {
 				notifyResumed();
 			}
+			signal();
 		}
 
 		/**
@@ -161,6 +163,10 @@ public class TaskRunnerThreads extends TaskRunner {
 			if (isNotifyTasks()) {
 				notifyStepEnd(task);
 			}
+			if (logger.isDebugEnabled()) {
+				logger.debug(task + ": wall time " + task.getWallTime() + " ms, cpu time " + task.getCpuTime() + " ms");
+			}
+			signal();
 		}
 
 		/**
@@ -219,10 +225,16 @@ public class TaskRunnerThreads extends TaskRunner {
 
 	/** The list of tasks to be executed. */
 	private List<Task> tasks = new ArrayList<>();
+	/** The tasks each task depends on, tasks are identified by reference because their names may change. */
+	private Map<Task, List<Task>> dependencies = new IdentityHashMap<>();
 	/** List of executing tasks. */
-	private List<Task> executingTasks = new ArrayList<>();
+	private List<Task> executingTasks = new CopyOnWriteArrayList<>();
+	/** The set of tasks that have finished executing in the pool. */
+	private Set<Task> finishedTasks = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+	/** The set of tasks not executed because a dependency did not terminate successfully. */
+	private Set<Task> skippedTasks = Collections.newSetFromMap(new IdentityHashMap<>());
 	/** The number of maximum concurrent tasks. */
-	private int maximumConcurrentTasks = 10;
+	private int maximumConcurrentTasks = Runtime.getRuntime().availableProcessors();
 	/** Unique task listener. */
 	private final TaskAdapter listener = new TaskAdapter();
 	/** Operation boolean indicating that cancel is being requested to executing tasks. */
@@ -258,11 +270,66 @@ public class TaskRunnerThreads extends TaskRunner {
 	 * @param task The task to be added.
 	 */
 	public void addTask(Task task) {
+		addTask(task, new Task[0]);
+	}
+
+	/**
+	 * Add a task to the list of tasks to be executed, that will start when the dependencies have terminated. The tasks
+	 * must be added before any execution is started, and the dependencies before the task.
+	 * 
+	 * @param task The task to be added.
+	 * @param dependencies The tasks that must terminate before the task starts.
+	 */
+	public void addTask(Task task, Task... dependencies) {
 		if (isProcessing()) {
 			throw new IllegalStateException("Can not add tasks when processing.");
 		}
+		if (contains(tasks, task)) {
+			throw new IllegalArgumentException("Task " + task + " already added.");
+		}
+		List<Task> taskDependencies = new ArrayList<>();
+		for (Task dependency : dependencies) {
+			if (!contains(tasks, dependency)) {
+				throw new IllegalArgumentException("Dependency " + dependency + " must be added before the task.");
+			}
+			taskDependencies.add(dependency);
+		}
 		task.addListener(listener);
 		tasks.add(task);
+		this.dependencies.put(task, taskDependencies);
+	}
+
+	/**
+	 * Check whether the list contains the task, by reference.
+	 * 
+	 * @param list The list of tasks.
+	 * @param task The task.
+	 * @return A boolean.
+	 */
+	private static boolean contains(List<Task> list, Task task) {
+		for (Task element : list) {
+			if (element == task) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Add a list of tasks to be executed sequentially, each task depending on the previous one.
+	 * 
+	 * @param tasks The list of tasks.
+	 */
+	public void addTasksSequential(List<Task> tasks) {
+		Task previous = null;
+		for (Task task : tasks) {
+			if (previous == null) {
+				addTask(task);
+			} else {
+				addTask(task, previous);
+			}
+			previous = task;
+		}
 	}
 
 	/**
@@ -334,6 +401,13 @@ public class TaskRunnerThreads extends TaskRunner {
 					return notifyStrategy;
 				}
 			}
+			// Any has dependencies, steps can not be counted before dependencies terminate -> StepsUnknown
+			for (Task task : tasks) {
+				if (!dependencies.get(task).isEmpty()) {
+					notifyStrategy = NotifyStrategy.StepsUnknown;
+					return notifyStrategy;
+				}
+			}
 			notifyStrategy = NotifyStrategy.StepsKnown;
 		}
 		return notifyStrategy;
@@ -437,7 +511,6 @@ public class TaskRunnerThreads extends TaskRunner {
 				break;
 			}
 			if (checkPause()) {
-				Thread.yield();
 				continue;
 			}
 			step += 1;
@@ -480,6 +553,8 @@ public class TaskRunnerThreads extends TaskRunner {
 		
 		// Reset control member in case of re-execute.
 		executingTasks.clear();
+		finishedTasks.clear();
+		skippedTasks.clear();
 		cancelRequesting = false;
 		pauseRequesting = false;
 		resumeRequesting = false;
@@ -522,7 +597,7 @@ public class TaskRunnerThreads extends TaskRunner {
 		// Notify the total number of steps.
 		notifyStepCount(tasksToExecute.size());
 		// Lauch execution.
-		executeList(tasksToExecute);
+		executeGraph(tasksToExecute);
 	}
 
 	/**
@@ -534,7 +609,7 @@ public class TaskRunnerThreads extends TaskRunner {
 		// Fill the list of tasks to be executed.
 		List<Task> tasksToExecute = new ArrayList<>(tasks);
 		// The total number of steps is unknown at this point, just lauch execution.
-		executeList(tasksToExecute);
+		executeGraph(tasksToExecute);
 	}
 
 	/**
@@ -545,58 +620,158 @@ public class TaskRunnerThreads extends TaskRunner {
 	private void executeNotifyStrategyStepsKnown() throws Exception {
 		// Do count steps.
 		processStepCount();
-		// Once counted, sort tasks.
-		Task[] taskArray = tasks.toArray(new Task[tasks.size()]);
-		Arrays.sort(taskArray, new TaskComparator());
-		// Fill the list of tasks to be executed.
-		List<Task> tasksToExecute = new ArrayList<>();
-		for (Task task : taskArray) {
-			tasksToExecute.add(task);
+		// Fill the list of tasks to be executed, priorities will use the steps counted.
+		List<Task> tasksToExecute = new ArrayList<>(tasks);
+		// Lauch execution.
+		executeGraph(tasksToExecute);
+	}
+
+	/**
+	 * Returns the priority of each task, the number of steps of the longest path from the task to the end of the
+	 * graph. Dependencies are added before the tasks that depend on them, so priorities are calculated in inverse
+	 * order. Indeterminate tasks or tasks that have not counted steps count as one step.
+	 * 
+	 * @return The map of priorities.
+	 */
+	private Map<Task, Long> getPriorities() {
+		Map<Task, Long> priorities = new IdentityHashMap<>();
+		for (int i = tasks.size() - 1; i >= 0; i--) {
+			Task task = tasks.get(i);
+			long priority = Math.max(task.getSteps(), 1);
+			for (int j = i + 1; j < tasks.size(); j++) {
+				Task dependent = tasks.get(j);
+				if (contains(dependencies.get(dependent), task)) {
+					priority = Math.max(priority, Math.max(task.getSteps(), 1) + priorities.get(dependent));
+				}
+			}
+			priorities.put(task, priority);
 		}
-		// The total number of steps is unknown at this point, just lauch execution.
-		executeList(tasksToExecute);
+		return priorities;
 	}
 
 	/**
-	 * Remove the tasks terminated from the list of executing tasks.
+	 * Remove the tasks finished from the list of executing tasks.
 	 */
-	private void removeTerminated() {
-		List<Task> toRemove = new ArrayList<>();
+	private void removeFinished() {
 		for (Task task : executingTasks) {
-			if (task.isTerminated()) {
-				toRemove.add(task);
+			if (finishedTasks.contains(task)) {
+				executingTasks.removeIf(executingTask -> executingTask == task);
+			}
+		}
+	}
+
+	/**
+	 * Remove from the tasks to execute those that can not be executed because a dependency failed, was cancelled or
+	 * was skipped, registering an exception.
+	 * 
+	 * @param tasksToExecute The list of tasks to execute.
+	 */
+	private void removeNotExecutable(List<Task> tasksToExecute) {
+		boolean removed = true;
+		while (removed) {
+			removed = false;
+			for (int i = 0; i < tasksToExecute.size(); i++) {
+				Task task = tasksToExecute.get(i);
+				for (Task dependency : dependencies.get(task)) {
+					boolean failed = dependency.isException() || dependency.isCancelled();
+					if (skippedTasks.contains(dependency) || (finishedTasks.contains(dependency) && failed)) {
+						tasksToExecute.remove(i--);
+						addException(new Exception("Task " + task + " not executed, dependency " + dependency
+							+ " did not terminate successfully."));
+						skippedTasks.add(task);
+						removed = true;
+						break;
+					}
+				}
 			}
 		}
-		executingTasks.removeAll(toRemove);
 	}
 
 	/**
-	 * Add task pending to execute to the list of executing tasks and start them.
+	 * Check whether all the dependencies of a task have finished.
 	 * 
-	 * @param tasksToExecute The list of task to execute.
+	 * @param task The task.
+	 * @return A boolean.
 	 */
-	private void addPendingTasksToExecute(List<Task> tasksToExecute) {
-		while (!tasksToExecute.isEmpty() && executingTasks.size() < getMaximumConcurrentTasks()) {
-			Task task = ListUtils.removeLast(tasksToExecute);
+	private boolean isReady(Task task) {
+		for (Task dependency : dependencies.get(task)) {
+			if (!finishedTasks.contains(dependency)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Start ready tasks, by priority, up to the maximum number of concurrent tasks.
+	 * 
+	 * @param executor The executor.
+	 * @param tasksToExecute The list of tasks to execute.
+	 * @param priorities The priorities.
+	 */
+	private void startReadyTasks(ExecutorService executor, List<Task> tasksToExecute, Map<Task, Long> priorities) {
+		while (executingTasks.size() < getMaximumConcurrentTasks()) {
+			Task next = null;
+			for (Task task : tasksToExecute) {
+				if (isReady(task) && (next == null || priorities.get(task) > priorities.get(next))) {
+					next = task;
+				}
+			}
+			if (next == null) {
+				break;
+			}
+			Task task = next;
+			tasksToExecute.removeIf(taskToExecute -> taskToExecute == task);
 			executingTasks.add(task);
-			new Thread(task, task.toString()).start();
+			executor.execute(() -> {
+				Thread.currentThread().setName(task.toString());
+				try {
+					task.run();
+				} finally {
+					finishedTasks.add(task);
+					signal();
+				}
+			});
 		}
 	}
 
 	/**
-	 * Execute the list of tasks adding them at the pool in the inverse list order.
+	 * Execute the graph of tasks in the pool.
 	 * 
 	 * @param tasksToExecute The list of tasks to execute.
 	 * @throws Exception If any executing tasks throws it.
 	 */
-	private void executeList(List<Task> tasksToExecute) throws Exception {
+	private void executeGraph(List<Task> tasksToExecute) throws Exception {
+
+		Map<Task, Long> priorities = getPriorities();
+		ExecutorService executor = Executors.newFixedThreadPool(getMaximumConcurrentTasks());
+		try {
+			executeGraph(executor, tasksToExecute, priorities);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Execute the graph of tasks in the pool.
+	 * 
+	 * @param executor The executor.
+	 * @param tasksToExecute The list of tasks to execute.
+	 * @param priorities The priorities.
+	 * @throws Exception If any executing tasks throws it.
+	 */
+	private void executeGraph(
+		ExecutorService executor,
+		List<Task> tasksToExecute,
+		Map<Task, Long> priorities) throws Exception {
 
 		// Process them. To avoid repetitive questions to tasks, previously check if cancel and pause are supported.
 		boolean continueProcessing = true;
 		while (true) {
 
-			// Remove already terminated tasks from the executing list.
-			removeTerminated();
+			// Remove already finished tasks from the executing list, and tasks whose dependencies failed.
+			removeFinished();
+			removeNotExecutable(tasksToExecute);
 
 			// Manage cancel request.
 			if (checkCancel()) {
@@ -618,7 +793,7 @@ public class TaskRunnerThreads extends TaskRunner {
 
 			// Add tasks to execute if continue processing applies.
 			if (continueProcessing && !pauseRequesting) {
-				addPendingTasksToExecute(tasksToExecute);
+				startReadyTasks(executor, tasksToExecute, priorities);
 			}
 
 			// If all tasks have terminated, exit
@@ -626,8 +801,8 @@ public class TaskRunnerThreads extends TaskRunner {
 				break;
 			}
 
-			// Yield
-			Thread.yield();
+			// Wait for executing tasks to notify.
+			awaitSignal();
 		}
 	}
 
@@ -645,6 +820,7 @@ public class TaskRunnerThreads extends TaskRunner {
 			synchronized (this) {
 				cancelRequesting = true;
 			}
+			signalExecutingTasks();
 			return true;
 		}
 		return false;
@@ -665,7 +841,6 @@ public class TaskRunnerThreads extends TaskRunner {
 				if (pauseRequested()) {
 					if (executingTasks.isEmpty()) {
 						notifyPaused();
-						Thread.yield();
 						return true;
 					}
 					// Forward the request, will notify paused when all executing tasks are paused.
@@ -673,6 +848,7 @@ public class TaskRunnerThreads extends TaskRunner {
 						resumeRequesting = false;
 						pauseRequesting = true;
 					}
+					awaitSignal();
 					return true;
 				}
 				return false;
@@ -680,7 +856,6 @@ public class TaskRunnerThreads extends TaskRunner {
 				if (resumeRequested()) {
 					if (executingTasks.isEmpty()) {
 						notifyResumed();
-						Thread.yield();
 						return true;
 					}
 					// Forward the request, will notify resumed when all executing tasks are not paused.
@@ -688,15 +863,39 @@ public class TaskRunnerThreads extends TaskRunner {
 						resumeRequesting = true;
 						pauseRequesting = false;
 					}
+					signalExecutingTasks();
 					return false;
 				}
-				Thread.yield();
+				awaitSignal();
 				return true;
 			}
 		}
 		return false;
 	}
 
+	/**
+	 * Signal executing tasks, to wake them up if waiting for a resume.
+	 */
+	private void signalExecutingTasks() {
+		for (Task task : executingTasks) {
+			task.signal();
+		}
+	}
+
+	/**
+	 * Returns the CPU time in millis consumed by the tasks of the pool.
+	 * 
+	 * @return The CPU time in millis.
+	 */
+	@Override
+	public long getCpuTime() {
+		long cpuTime = super.getCpuTime();
+		for (Task task : tasks) {
+			cpuTime += task.getCpuTime();
+		}
+		return cpuTime;
+	}
+
 	/**
 	 * Returns a boolean indicating if all current executing tasks are paused.
 	 */
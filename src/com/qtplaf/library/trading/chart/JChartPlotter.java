@@ -22,6 +22,7 @@ import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.Toolkit;
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.swing.JPanel;
@@ -201,12 +202,24 @@ public class JChartPlotter extends JPanel {
 		List<DataList> fromClip = plotData.getDataListsIndicatorToPlotClip();
 		List<DataList> fromScratch = plotData.getDataListsIndicatorToPlotFromScratch();
 
+		// With many data items per pixel, plotters that support decimation plot the buckets of the level of detail
+		// pyramid, and only the data lists with other plotters are plotted by index.
+		int level = plotData.getPlotterContext().getDecimationLevel();
+		if (level > 0) {
+			plotChartDataDecimated(g2, nonIndicator, level, startIndex, endIndex);
+			plotChartDataDecimated(g2, fromClip, level, startIndex, endIndex);
+			plotChartDataDecimated(g2, fromScratch, level, startIndex, endIndex);
+			nonIndicator = getDataListsToPlotByIndex(nonIndicator);
+			fromClip = getDataListsToPlotByIndex(fromClip);
+			fromScratch = getDataListsToPlotByIndex(fromScratch);
+		}
+
 		// Do plot.
 		if (!nonIndicator.isEmpty()) {
 			for (int index = startIndex; index <= endIndex; index++) {
 				for (DataList dataList : nonIndicator) {
 					if (dataList.isPlot()) {
-						plotChartData(g2, dataList, index);
+						plotChartData(g2, dataList, index, level);
 					}
 				}
 			}
@@ -215,7 +228,7 @@ public class JChartPlotter extends JPanel {
 			for (int index = startIndex; index <= endIndex; index++) {
 				for (DataList dataList : fromClip) {
 					if (dataList.isPlot()) {
-						plotChartData(g2, dataList, index);
+						plotChartData(g2, dataList, index, level);
 					}
 				}
 			}
@@ -224,7 +237,7 @@ public class JChartPlotter extends JPanel {
 			for (DataList dataList : fromScratch) {
 				for (int index = startIndex; index < endIndex; index++) {
 					if (dataList.isPlot()) {
-						plotChartData(g2, dataList, index);
+						plotChartData(g2, dataList, index, level);
 					}
 				}
 			}
@@ -246,13 +259,62 @@ public class JChartPlotter extends JPanel {
 		}
 	}
 
+	/**
+	 * Plot the data lists with the data plotters that support decimation.
+	 * 
+	 * @param g2 The graphics object.
+	 * @param dataLists The data lists.
+	 * @param level The pyramid level.
+	 * @param startIndex The start index.
+	 * @param endIndex The end index.
+	 */
+	private void plotChartDataDecimated(
+		Graphics2D g2,
+		List<DataList> dataLists,
+		int level,
+		int startIndex,
+		int endIndex) {
+		for (DataList dataList : dataLists) {
+			if (!dataList.isPlot()) {
+				continue;
+			}
+			List<DataPlotter> dataPlotters = dataList.getDataPlotters();
+			for (DataPlotter dataPlotter : dataPlotters) {
+				if (dataPlotter.isPlot() && dataPlotter.isDecimationSupported()) {
+					dataPlotter.plotDecimated(g2, dataList, level, startIndex, endIndex);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the data lists that have data plotters that do not support decimation and must be plotted by index.
+	 * 
+	 * @param dataLists The data lists.
+	 * @return The data lists to plot by index.
+	 */
+	private List<DataList> getDataListsToPlotByIndex(List<DataList> dataLists) {
+		List<DataList> byIndex = new ArrayList<>();
+		for (DataList dataList : dataLists) {
+			List<DataPlotter> dataPlotters = dataList.getDataPlotters();
+			for (DataPlotter dataPlotter : dataPlotters) {
+				if (dataPlotter.isPlot() && !dataPlotter.isDecimationSupported()) {
+					byIndex.add(dataList);
+					break;
+				}
+			}
+		}
+		return byIndex;
+	}
+
 	/**
 	 * Plot an index of a data list.
 	 * 
 	 * @param g2 The graphics object.
 	 * @param index The index to plot.
+	 * @param level The decimation level, plotters that support decimation are skipped if greater than zero.
 	 */
-	private void plotChartData(Graphics2D g2, DataList dataList, int index) {
+	private void plotChartData(Graphics2D g2, DataList dataList, int index, int level) {
 
 		// Data size.
 		int size = dataList.size();
@@ -270,6 +332,9 @@ public class JChartPlotter extends JPanel {
 		// Do plot.
 		List<DataPlotter> dataPlotters = dataList.getDataPlotters();
 		for (DataPlotter dataPlotter : dataPlotters) {
+			if (level > 0 && dataPlotter.isDecimationSupported()) {
+				continue;
+			}
 			if (dataPlotter.isPlot()) {
 				dataPlotter.plotDataIndex(g2, dataList, index);
 			}
@@ -23,6 +23,7 @@ import com.qtplaf.library.trading.chart.parameters.ChartPlotParameters;
 import com.qtplaf.library.trading.chart.parameters.HorizontalAxisPlotParameters;
 import com.qtplaf.library.trading.chart.parameters.VerticalAxisPlotParameters;
 import com.qtplaf.library.trading.data.PlotData;
+import com.qtplaf.library.trading.data.PlotPyramid;
 import com.qtplaf.library.trading.data.PlotScale;
 import com.qtplaf.library.util.NumberUtils;
 
@@ -61,6 +62,10 @@ public class PlotterContext {
 	 * The calculated data item (candlestick or bar) width.
 	 */
 	private int dataItemWidth;
+	/**
+	 * The calculated number of data items per pixel.
+	 */
+	private double dataItemsPerPixel;
 
 	/**
 	 * Constructor assinging the context values.
@@ -88,6 +93,7 @@ public class PlotterContext {
 		if (availablewidthPerDataItem < 1) {
 			availablewidthPerDataItem = 1;
 		}
+		dataItemsPerPixel = (chartWidth > 0 ? periods / chartWidth : 0);
 
 		// Calculate the plot width of a bar. As a general rule, it can be 75% of the available width per bar, as anodd
 		// number, and if the result is less than 2, plot just a vertical line of 1 pixel width.
@@ -231,6 +237,25 @@ public class PlotterContext {
 		return dataItemWidth;
 	}
 
+	/**
+	 * Returns the number of data items per pixel.
+	 * 
+	 * @return The number of data items per pixel.
+	 */
+	public double getDataItemsPerPixel() {
+		return dataItemsPerPixel;
+	}
+
+	/**
+	 * Returns the level of detail to plot with data plotters that support decimation, zero to plot every data item, or
+	 * the level of the pyramid whose buckets group the data items that fall in a pixel column.
+	 * 
+	 * @return The decimation level.
+	 */
+	public int getDecimationLevel() {
+		return PlotPyramid.getLevel(dataItemsPerPixel);
+	}
+
 	/**
 	 * Returns the data value given the y coordinate in the plot area. The returned value is greater than or equal to
 	 * <i>PlotData.minimumValue</i> and less equal than <i>PlotData.maximumValue</i>.
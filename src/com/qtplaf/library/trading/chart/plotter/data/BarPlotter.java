@@ -98,4 +98,28 @@ public class BarPlotter extends DataPlotter {
 		// Draw the bar.
 		bar.draw(g2, getContext());
 	}
+
+	/**
+	 * Bars support decimation.
+	 * 
+	 * @return A boolean.
+	 */
+	@Override
+	public boolean isDecimationSupported() {
+		return true;
+	}
+
+	/**
+	 * Plot the range aggregated in buckets, as vertical lines from the high to the low of each bucket.
+	 * 
+	 * @param g2 The graphics object.
+	 * @param dataList The data list to plot.
+	 * @param level The pyramid level, greater than zero.
+	 * @param startIndex The start index, included.
+	 * @param endIndex The end index, included.
+	 */
+	@Override
+	public void plotDecimated(Graphics2D g2, DataList dataList, int level, int startIndex, int endIndex) {
+		plotDecimatedRanges(g2, dataList, level, startIndex, endIndex, null, getParameters().getStroke());
+	}
 }
@@ -19,10 +19,14 @@ import java.awt.Graphics2D;
 import java.awt.Stroke;
 import java.awt.geom.GeneralPath;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.qtplaf.library.trading.chart.drawings.Line;
+import com.qtplaf.library.trading.chart.plotter.PlotterContext;
 import com.qtplaf.library.trading.data.DataList;
+import com.qtplaf.library.trading.data.PlotPyramid;
 
 /**
  * Line plotter for data list items.
@@ -241,6 +245,51 @@ public class BufferedLinePlotter extends DataPlotter {
 		bufferLine(line);
 	}
 
+	/**
+	 * Lines support decimation.
+	 * 
+	 * @return A boolean.
+	 */
+	@Override
+	public boolean isDecimationSupported() {
+		return true;
+	}
+
+	/**
+	 * Plot the range aggregated in buckets as a min/max envelope: a vertical line from the maximum to the minimum of
+	 * each bucket, joined to the previous bucket from its last value to the first value of the bucket.
+	 * 
+	 * @param g2 The graphics object.
+	 * @param dataList The data list to plot.
+	 * @param level The pyramid level, greater than zero.
+	 * @param startIndex The start index, included.
+	 * @param endIndex The end index, included.
+	 */
+	@Override
+	public void plotDecimated(Graphics2D g2, DataList dataList, int level, int startIndex, int endIndex) {
+		PlotterContext context = getContext();
+		PlotPyramid pyramid = getPyramid(dataList, new int[] { getIndex() });
+		List<PlotPyramid.Bucket> buckets = pyramid.getBuckets(level, startIndex, endIndex);
+		Map<Color, GeneralPath> paths = new LinkedHashMap<>();
+		PlotPyramid.Bucket previous = null;
+		int previousX = 0;
+		for (PlotPyramid.Bucket bucket : buckets) {
+			int index = bucket.getIndex();
+			boolean bullish = (previous == null ? bucket.isBullish() : bucket.getLast() >= previous.getLast());
+			GeneralPath path = getPath(paths, getColor(dataList.isOdd(index), bullish));
+			int x = context.getCoordinateX(index);
+			if (previous != null) {
+				path.moveTo(previousX, context.getCoordinateY(previous.getLast()));
+				path.lineTo(x, context.getCoordinateY(bucket.getFirst()));
+			}
+			path.moveTo(x, context.getCoordinateY(bucket.getMaximum()));
+			path.lineTo(x, context.getCoordinateY(bucket.getMinimum()));
+			previous = bucket;
+			previousX = x;
+		}
+		drawPaths(g2, paths, getStroke());
+	}
+
 	/**
 	 * Termination method to end the plot and clear or close resources.
 	 * <p>
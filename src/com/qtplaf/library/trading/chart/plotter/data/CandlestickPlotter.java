@@ -110,4 +110,30 @@ public class CandlestickPlotter extends DataPlotter {
 		candlestick.draw(g2, getContext());
 	}
 
+	/**
+	 * Candlesticks support decimation.
+	 * 
+	 * @return A boolean.
+	 */
+	@Override
+	public boolean isDecimationSupported() {
+		return true;
+	}
+
+	/**
+	 * Plot the range aggregated in buckets, as one pixel wide candlesticks from the high to the low of each bucket.
+	 * 
+	 * @param g2 The graphics object.
+	 * @param dataList The data list to plot.
+	 * @param level The pyramid level, greater than zero.
+	 * @param startIndex The start index, included.
+	 * @param endIndex The end index, included.
+	 */
+	@Override
+	public void plotDecimated(Graphics2D g2, DataList dataList, int level, int startIndex, int endIndex) {
+		CandlestickPlotParameters parameters = getParameters();
+		Color color = (parameters.isPaintBorder() ? parameters.getBorderColor() : null);
+		plotDecimatedRanges(g2, dataList, level, startIndex, endIndex, color, parameters.getStroke());
+	}
+
 }
@@ -15,10 +15,18 @@ package com.qtplaf.library.trading.chart.plotter.data;
 
 import java.awt.Color;
 import java.awt.Graphics2D;
+import java.awt.Stroke;
+import java.awt.geom.GeneralPath;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import com.qtplaf.library.trading.chart.plotter.Plotter;
+import com.qtplaf.library.trading.chart.plotter.PlotterContext;
 import com.qtplaf.library.trading.data.Data;
 import com.qtplaf.library.trading.data.DataList;
+import com.qtplaf.library.trading.data.PlotPyramid;
 import com.qtplaf.library.trading.data.info.DataInfo;
 import com.qtplaf.library.trading.data.info.OutputInfo;
 import com.qtplaf.library.util.StringUtils;
@@ -62,6 +70,11 @@ public abstract class DataPlotter extends Plotter {
 	 */
 	private boolean plot = true;
 
+	/**
+	 * The level of detail pyramid, built lazily by plotters that support decimation.
+	 */
+	private PlotPyramid pyramid;
+
 	/**
 	 * Constructor.
 	 */
@@ -145,6 +158,139 @@ public abstract class DataPlotter extends Plotter {
 	 */
 	public abstract void plotDataIndex(Graphics2D g2, DataList dataList, int index);
 
+	/**
+	 * Check whether the plotter supports plotting decimated data, aggregated in buckets of the level of detail
+	 * pyramid. Overwrite if the plotter implements <tt>plotDecimated</tt>.
+	 * 
+	 * @return A boolean.
+	 */
+	public boolean isDecimationSupported() {
+		return false;
+	}
+
+	/**
+	 * Plot the range of data aggregated in the buckets of a level of the pyramid, drawing a number of buckets
+	 * proportional to the plot width. Overwrite if decimation is supported.
+	 * 
+	 * @param g2 The graphics object.
+	 * @param dataList The data list to plot.
+	 * @param level The pyramid level, greater than zero.
+	 * @param startIndex The start index, included.
+	 * @param endIndex The end index, included.
+	 */
+	public void plotDecimated(Graphics2D g2, DataList dataList, int level, int startIndex, int endIndex) {
+	}
+
+	/**
+	 * Returns the level of detail pyramid of the data list values, creating it if the data list or the indexes changed.
+	 * 
+	 * @param dataList The data list.
+	 * @param indexes The indexes of the values within the data.
+	 * @return The pyramid.
+	 */
+	protected PlotPyramid getPyramid(DataList dataList, int[] indexes) {
+		if (pyramid == null || pyramid.getDataList() != dataList || !Arrays.equals(pyramid.getIndexes(), indexes)) {
+			pyramid = new PlotPyramid(dataList, indexes);
+		}
+		return pyramid;
+	}
+
+	/**
+	 * Clear the level of detail pyramid, because data has been set or removed.
+	 */
+	public void clearPyramid() {
+		if (pyramid != null) {
+			pyramid.clear();
+		}
+	}
+
+	/**
+	 * Plot the buckets of a level as vertical lines from the maximum to the minimum, the way candlesticks and bars are
+	 * plotted when their width is one pixel.
+	 * 
+	 * @param g2 The graphics object.
+	 * @param dataList The data list to plot.
+	 * @param level The pyramid level.
+	 * @param startIndex The start index, included.
+	 * @param endIndex The end index, included.
+	 * @param color The color to apply or null to apply the bullish/bearish odd/even colors.
+	 * @param stroke The stroke.
+	 */
+	protected void plotDecimatedRanges(
+		Graphics2D g2,
+		DataList dataList,
+		int level,
+		int startIndex,
+		int endIndex,
+		Color color,
+		Stroke stroke) {
+
+		PlotterContext context = getContext();
+		List<PlotPyramid.Bucket> buckets = getPyramid(dataList, getIndexes()).getBuckets(level, startIndex, endIndex);
+		Map<Color, GeneralPath> paths = new LinkedHashMap<>();
+		for (PlotPyramid.Bucket bucket : buckets) {
+			int index = bucket.getIndex();
+			Color bucketColor = color;
+			if (bucketColor == null) {
+				bucketColor = getColor(dataList.isOdd(index), bucket.isBullish());
+			}
+			int x = context.getDrawingCenterCoordinateX(context.getCoordinateX(index));
+			GeneralPath path = getPath(paths, bucketColor);
+			path.moveTo(x, context.getCoordinateY(bucket.getMaximum()));
+			path.lineTo(x, context.getCoordinateY(bucket.getMinimum()));
+		}
+		drawPaths(g2, paths, stroke);
+	}
+
+	/**
+	 * Returns the bullish/bearish odd/even color.
+	 * 
+	 * @param odd A boolean that indicates if the period is odd.
+	 * @param bullish A boolean that indicates if bullish.
+	 * @return The color.
+	 */
+	protected Color getColor(boolean odd, boolean bullish) {
+		if (odd) {
+			return (bullish ? getColorBullishOdd() : getColorBearishOdd());
+		}
+		return (bullish ? getColorBullishEven() : getColorBearishEven());
+	}
+
+	/**
+	 * Draw a map of paths by color with the stroke, restoring the color and stroke of the graphics object.
+	 * 
+	 * @param g2 The graphics object.
+	 * @param paths The paths by color.
+	 * @param stroke The stroke.
+	 */
+	protected void drawPaths(Graphics2D g2, Map<Color, GeneralPath> paths, Stroke stroke) {
+		Color saveColor = g2.getColor();
+		Stroke saveStroke = g2.getStroke();
+		g2.setStroke(stroke);
+		for (Map.Entry<Color, GeneralPath> entry : paths.entrySet()) {
+			g2.setColor(entry.getKey());
+			g2.draw(entry.getValue());
+		}
+		g2.setColor(saveColor);
+		g2.setStroke(saveStroke);
+	}
+
+	/**
+	 * Returns the path of a color, creating it if not exists.
+	 * 
+	 * @param paths The paths by color.
+	 * @param color The color.
+	 * @return The path.
+	 */
+	protected GeneralPath getPath(Map<Color, GeneralPath> paths, Color color) {
+		GeneralPath path = paths.get(color);
+		if (path == null) {
+			path = new GeneralPath(GeneralPath.WIND_EVEN_ODD);
+			paths.put(color, path);
+		}
+		return path;
+	}
+
 	/**
 	 * Termination method to end the plot and clear or close resources. Overwrite if necessary.
 	 * 
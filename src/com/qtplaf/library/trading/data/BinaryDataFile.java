@@ -0,0 +1,303 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtplaf.library.trading.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import com.qtplaf.library.database.PersistorException;
+import com.qtplaf.library.database.Record;
+import com.qtplaf.library.database.RecordIterator;
+
+/**
+ * An append-only binary file of fixed-width data elements. The file starts with a header (magic, version and number of
+ * values per element) followed by the elements, each one a <tt>long</tt> time and the <tt>double</tt> values, in big
+ * endian order. Being fixed-width, the element at a given index is at a known position, and a trailing partial element
+ * left by an interrupted write is discarded when the file is reopened.
+ * 
+ * @author Miquel Sas
+ */
+public class BinaryDataFile implements AutoCloseable {
+
+	/** Magic number that identifies the file format. */
+	public static final int MAGIC = 0x51545044;
+	/** Format version. */
+	public static final int VERSION = 1;
+	/** Size of the header in bytes. */
+	public static final int HEADER_SIZE = 16;
+
+	/** Number of elements buffered before writing to the channel. */
+	private static final int BUFFER_ELEMENTS = 4096;
+
+	/**
+	 * Returns the size in bytes of an element with the given number of values.
+	 * 
+	 * @param valueCount The number of values.
+	 * @return The element size.
+	 */
+	public static int getElementSize(int valueCount) {
+		return 8 + (8 * valueCount);
+	}
+
+	/**
+	 * Reads and validates the header of the file, returning the number of values per element.
+	 * 
+	 * @param channel The file channel.
+	 * @return The number of values per element.
+	 * @throws IOException
+	 */
+	static int readHeader(FileChannel channel) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		channel.read(header, 0);
+		header.flip();
+		if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+			throw new IOException("Not a binary data file");
+		}
+		int version = header.getInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported binary data file version: " + version);
+		}
+		return header.getInt();
+	}
+
+	/**
+	 * Exports all the data of the data persistor to the file, scanning it once in index order. An existing file is
+	 * overwritten.
+	 * 
+	 * @param dataPersistor The source data persistor.
+	 * @param file The destination file.
+	 * @return The number of elements exported.
+	 * @throws PersistorException
+	 * @throws IOException
+	 */
+	public static long export(DataPersistor dataPersistor, File file) throws PersistorException, IOException {
+		if (file.exists() && !file.delete()) {
+			throw new IOException("Unable to delete " + file);
+		}
+		int valueCount = dataPersistor.getDataSize();
+		int[] recordIndexes = new int[valueCount];
+		for (int i = 0; i < valueCount; i++) {
+			recordIndexes[i] = dataPersistor.getRecordIndex(i);
+		}
+		try (BinaryDataFile dataFile = new BinaryDataFile(file, valueCount)) {
+			RecordIterator iter = dataPersistor.iterator(null, dataPersistor.getIndexOrder(true));
+			try {
+				while (iter.hasNext()) {
+					Record record = iter.next();
+					dataFile.checkBuffer();
+					dataFile.buffer.putLong(record.getValue(1).getLong());
+					for (int i = 0; i < valueCount; i++) {
+						dataFile.buffer.putDouble(record.getValue(recordIndexes[i]).getDouble());
+					}
+					dataFile.size++;
+				}
+			} finally {
+				iter.close();
+			}
+			return dataFile.size();
+		}
+	}
+
+	/** The file. */
+	private File file;
+	/** The file channel. */
+	private FileChannel channel;
+	/** Number of values per element. */
+	private int valueCount;
+	/** Size in bytes of an element. */
+	private int elementSize;
+	/** Number of elements, including the buffered ones. */
+	private long size;
+	/** Write buffer. */
+	private ByteBuffer buffer;
+
+	/**
+	 * Opens or creates the file to append elements. If the file exists, its number of values must match.
+	 * 
+	 * @param file The file.
+	 * @param valueCount The number of values per element, for instance <tt>Data.DataPriceSize</tt> for OHLCV.
+	 * @throws IOException
+	 */
+	@SuppressWarnings("resource")
+	public BinaryDataFile(File file, int valueCount) throws IOException {
+		super();
+		this.file = file;
+		this.valueCount = valueCount;
+		this.elementSize = getElementSize(valueCount);
+		this.channel = new RandomAccessFile(file, "rw").getChannel();
+		try {
+			if (channel.size() == 0) {
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+				header.putInt(MAGIC);
+				header.putInt(VERSION);
+				header.putInt(valueCount);
+				header.putInt(0);
+				header.flip();
+				channel.write(header, 0);
+			} else {
+				int fileValueCount = readHeader(channel);
+				if (fileValueCount != valueCount) {
+					throw new IOException("File " + file + " has " + fileValueCount + " values per element");
+				}
+			}
+			this.size = (channel.size() - HEADER_SIZE) / elementSize;
+			channel.truncate(HEADER_SIZE + (size * elementSize));
+		} catch (IOException exc) {
+			channel.close();
+			throw exc;
+		}
+		this.buffer = ByteBuffer.allocateDirect(elementSize * BUFFER_ELEMENTS);
+	}
+
+	/**
+	 * Returns the file.
+	 * 
+	 * @return The file.
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Returns the number of values per element.
+	 * 
+	 * @return The number of values.
+	 */
+	public int getValueCount() {
+		return valueCount;
+	}
+
+	/**
+	 * Returns the number of elements, including those not yet flushed.
+	 * 
+	 * @return The number of elements.
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * Returns the time of the last element or -1 if the file is empty.
+	 * 
+	 * @return The time of the last element.
+	 * @throws IOException
+	 */
+	public long getLastTime() throws IOException {
+		if (size == 0) {
+			return -1;
+		}
+		flush();
+		return readTime(size - 1);
+	}
+
+	/**
+	 * Reads the time of the element at the given index from the channel.
+	 * 
+	 * @param index The index.
+	 * @return The time.
+	 * @throws IOException
+	 */
+	private long readTime(long index) throws IOException {
+		ByteBuffer time = ByteBuffer.allocate(8);
+		channel.read(time, HEADER_SIZE + (index * elementSize));
+		time.flip();
+		return time.getLong();
+	}
+
+	/**
+	 * Flush the buffer if there is no room for another element.
+	 * 
+	 * @throws IOException
+	 */
+	private void checkBuffer() throws IOException {
+		if (buffer.remaining() < elementSize) {
+			flush();
+		}
+	}
+
+	/**
+	 * Appends a data element. The number of values of the data must be at least the number of values of the file.
+	 * 
+	 * @param data The data element.
+	 * @throws IOException
+	 */
+	public void append(Data data) throws IOException {
+		checkBuffer();
+		buffer.putLong(data.getTime());
+		for (int i = 0; i < valueCount; i++) {
+			buffer.putDouble(data.getValue(i));
+		}
+		size++;
+	}
+
+	/**
+	 * Removes the elements with a time greater than the argument time. The time sequence is assumed ascending.
+	 * 
+	 * @param time The time.
+	 * @throws IOException
+	 */
+	public void truncateAfter(long time) throws IOException {
+		flush();
+		long low = 0;
+		long high = size;
+		while (low < high) {
+			long middle = (low + high) >>> 1;
+			if (readTime(middle) <= time) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		channel.truncate(HEADER_SIZE + (low * elementSize));
+		size = low;
+	}
+
+	/**
+	 * Writes the buffered elements to the file.
+	 * 
+	 * @throws IOException
+	 */
+	public void flush() throws IOException {
+		if (buffer.position() == 0) {
+			return;
+		}
+		buffer.flip();
+		long position = channel.size();
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Flushes the buffered elements and closes the file.
+	 * 
+	 * @throws IOException
+	 */
+	@Override
+	public void close() throws IOException {
+		if (!channel.isOpen()) {
+			return;
+		}
+		try {
+			flush();
+		} finally {
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtplaf.library.trading.data;
+
+import java.util.Arrays;
+
+import com.qtplaf.library.app.Session;
+import com.qtplaf.library.database.Persistor;
+import com.qtplaf.library.database.PersistorException;
+import com.qtplaf.library.database.Record;
+import com.qtplaf.library.database.RecordIterator;
+import com.qtplaf.library.trading.data.info.DataInfo;
+
+/**
+ * An in-memory data list that stores the data in primitive columns, a <tt>long[]</tt> for the time and a
+ * <tt>double[]</tt> per value. Time and values are accessed through <tt>getTime(index)</tt> and
+ * <tt>getValue(index, valueIndex)</tt> without building a <tt>Data</tt> element, while <tt>get(index)</tt> builds it
+ * for compatibility.
+ * 
+ * @author Miquel Sas
+ */
+public class ColumnarDataList extends DataList {
+
+	/**
+	 * Default initial capacity.
+	 */
+	private static final int DEFAULT_CAPACITY = 1024;
+
+	/**
+	 * The time column.
+	 */
+	private long[] times;
+	/**
+	 * The value columns, one per value index.
+	 */
+	private double[][] values;
+	/**
+	 * The number of elements.
+	 */
+	private int size = 0;
+
+	/**
+	 * Constructor of an empty list.
+	 * 
+	 * @param session The working session.
+	 * @param dataInfo The data info.
+	 * @param columns The number of values per data element.
+	 */
+	public ColumnarDataList(Session session, DataInfo dataInfo, int columns) {
+		this(session, dataInfo, columns, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructor of an empty list with an initial capacity.
+	 * 
+	 * @param session The working session.
+	 * @param dataInfo The data info.
+	 * @param columns The number of values per data element.
+	 * @param capacity The initial capacity.
+	 */
+	public ColumnarDataList(Session session, DataInfo dataInfo, int columns, int capacity) {
+		super(session, dataInfo);
+		capacity = Math.max(capacity, 1);
+		times = new long[capacity];
+		values = new double[columns][capacity];
+	}
+
+	/**
+	 * Constructor that loads in bulk all the data of a persistor that conforms to the data persistor contract.
+	 * 
+	 * @param session The working session.
+	 * @param dataInfo The data info.
+	 * @param persistor The persistor.
+	 * @throws PersistorException
+	 */
+	public ColumnarDataList(Session session, DataInfo dataInfo, Persistor persistor) throws PersistorException {
+		this(session, dataInfo, new DataPersistor(persistor));
+	}
+
+	/**
+	 * Constructor that loads in bulk all the data of the data persistor.
+	 * 
+	 * @param session The working session.
+	 * @param dataInfo The data info.
+	 * @param dataPersistor The data persistor.
+	 * @throws PersistorException
+	 */
+	public ColumnarDataList(Session session, DataInfo dataInfo, DataPersistor dataPersistor)
+		throws PersistorException {
+		this(session, dataInfo, dataPersistor.getDataSize(), dataPersistor.size().intValue());
+		load(dataPersistor);
+	}
+
+	/**
+	 * Appends all the data of the data persistor, scanning it once in index order.
+	 * 
+	 * @param dataPersistor The data persistor.
+	 * @throws PersistorException
+	 */
+	public void load(DataPersistor dataPersistor) throws PersistorException {
+		int columns = values.length;
+		int[] recordIndexes = new int[columns];
+		for (int i = 0; i < columns; i++) {
+			recordIndexes[i] = dataPersistor.getRecordIndex(i);
+		}
+		RecordIterator iter = dataPersistor.iterator(null, dataPersistor.getIndexOrder(true));
+		try {
+			while (iter.hasNext()) {
+				Record record = iter.next();
+				ensureCapacity(size + 1);
+				times[size] = record.getValue(1).getLong();
+				for (int i = 0; i < columns; i++) {
+					values[i][size] = record.getValue(recordIndexes[i]).getDouble();
+				}
+				size++;
+			}
+		} finally {
+			iter.close();
+		}
+	}
+
+	/**
+	 * Ensure that the columns can hold the argument number of elements.
+	 * 
+	 * @param capacity The required capacity.
+	 */
+	private void ensureCapacity(int capacity) {
+		if (capacity <= times.length) {
+			return;
+		}
+		int newCapacity = Math.max(capacity, times.length + (times.length >> 1));
+		times = Arrays.copyOf(times, newCapacity);
+		for (int i = 0; i < values.length; i++) {
+			values[i] = Arrays.copyOf(values[i], newCapacity);
+		}
+	}
+
+	/**
+	 * Check the index.
+	 * 
+	 * @param index The index.
+	 */
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+	}
+
+	/**
+	 * Returns the number of values per data element.
+	 * 
+	 * @return The number of values.
+	 */
+	public int getColumnCount() {
+		return values.length;
+	}
+
+	/**
+	 * Returns the number of elements in this list.
+	 *
+	 * @return The number of elements in this list.
+	 */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns <tt>true</tt> if this list contains no elements.
+	 *
+	 * @return <tt>true</tt> if this list contains no elements.
+	 */
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Add the data element to this list.
+	 * 
+	 * @param data The data element.
+	 */
+	@Override
+	public void add(Data data) {
+		ensureCapacity(size + 1);
+		times[size] = data.getTime();
+		for (int i = 0; i < values.length; i++) {
+			values[i][size] = data.getValue(i);
+		}
+		size++;
+		notifyChange(new DataListEvent(this, data, size - 1, DataListEvent.Operation.Add));
+	}
+
+	/**
+	 * Returns the data element at the given index, building it from the columns.
+	 * 
+	 * @param index The index.
+	 * @return The data element at the given index.
+	 */
+	@Override
+	public Data get(int index) {
+		checkIndex(index);
+		Data data = new Data(values.length);
+		data.setTime(times[index]);
+		for (int i = 0; i < values.length; i++) {
+			data.setValue(i, values[i][index]);
+		}
+		return data;
+	}
+
+	/**
+	 * Returns the time of the data element at the given index.
+	 * 
+	 * @param index The index.
+	 * @return The time.
+	 */
+	@Override
+	public long getTime(int index) {
+		checkIndex(index);
+		return times[index];
+	}
+
+	/**
+	 * Returns the value at value index of the data element at the given index.
+	 * 
+	 * @param index The index of the data element.
+	 * @param valueIndex The index of the value within the data.
+	 * @return The value.
+	 */
+	@Override
+	public double getValue(int index, int valueIndex) {
+		checkIndex(index);
+		return values[valueIndex][index];
+	}
+
+	/**
+	 * Remove and return the data at the given index, shifting subsequent elements.
+	 * 
+	 * @param index The index.
+	 * @return The removed data.
+	 */
+	@Override
+	public Data remove(int index) {
+		Data data = get(index);
+		int moved = size - index - 1;
+		if (moved > 0) {
+			System.arraycopy(times, index + 1, times, index, moved);
+			for (int i = 0; i < values.length; i++) {
+				System.arraycopy(values[i], index + 1, values[i], index, moved);
+			}
+		}
+		size--;
+		notifyChange(new DataListEvent(this, data, index, DataListEvent.Operation.Remove));
+		return data;
+	}
+
+	/**
+	 * Removes all the elements and releases the columns.
+	 */
+	public void clear() {
+		times = new long[0];
+		values = new double[values.length][0];
+		size = 0;
+		notifyChange(new DataListEvent(this, null, -1, DataListEvent.Operation.Clear));
+	}
+}
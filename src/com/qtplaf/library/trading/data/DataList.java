@@ -18,6 +18,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import com.qtplaf.library.app.Session;
+import com.qtplaf.library.math.SlidingExtremum;
 import com.qtplaf.library.trading.chart.plotter.PlotterContext;
 import com.qtplaf.library.trading.chart.plotter.data.BarPlotter;
 import com.qtplaf.library.trading.chart.plotter.data.CandlestickPlotter;
@@ -279,6 +280,29 @@ public abstract class DataList {
 	 */
 	public abstract Data remove(int index);
 
+	/**
+	 * Returns the time of the data element at the given index. Subclasses that store data in columns should override
+	 * this method to avoid building the data element.
+	 * 
+	 * @param index The index.
+	 * @return The time.
+	 */
+	public long getTime(int index) {
+		return get(index).getTime();
+	}
+
+	/**
+	 * Returns the value at value index of the data element at the given index. Subclasses that store data in columns
+	 * should override this method to avoid building the data element.
+	 * 
+	 * @param index The index of the data element.
+	 * @param valueIndex The index of the value within the data.
+	 * @return The value.
+	 */
+	public double getValue(int index, int valueIndex) {
+		return get(index).getValue(valueIndex);
+	}
+
 	/**
 	 * Returns the type of plot.
 	 * 
@@ -441,6 +465,51 @@ public abstract class DataList {
 		return isMinimumMaximum(dataIndex, valueIndex, period, true);
 	}
 
+	/**
+	 * Returns the list of data indexes where the value at value index is a maximum for the argument period, with the
+	 * same semantics as <code>isMaximum</code>, scanning the list once.
+	 * 
+	 * @param valueIndex The index of the value within the data.
+	 * @param period The period, number of data elements to check before and after.
+	 * @return The list of data indexes.
+	 */
+	public List<Integer> getMaximums(int valueIndex, int period) {
+		return getMinimumsMaximums(valueIndex, period, false);
+	}
+
+	/**
+	 * Returns the list of data indexes where the value at value index is a minimum for the argument period, with the
+	 * same semantics as <code>isMinimum</code>, scanning the list once.
+	 * 
+	 * @param valueIndex The index of the value within the data.
+	 * @param period The period, number of data elements to check before and after.
+	 * @return The list of data indexes.
+	 */
+	public List<Integer> getMinimums(int valueIndex, int period) {
+		return getMinimumsMaximums(valueIndex, period, true);
+	}
+
+	/**
+	 * Returns the list of data indexes where the value at value index is a minimum/maximum for the argument period.
+	 * 
+	 * @param valueIndex The index of the value within the data.
+	 * @param period The period, number of data elements to check before and after.
+	 * @param minimum A boolean that indicates whether to ckeck minimum or maximum.
+	 * @return The list of data indexes.
+	 */
+	private List<Integer> getMinimumsMaximums(int valueIndex, int period, boolean minimum) {
+		List<Integer> indexes = new ArrayList<>();
+		SlidingExtremum extremum = new SlidingExtremum(period);
+		int size = size();
+		for (int i = 0; i < size; i++) {
+			extremum.add(getValue(i, valueIndex));
+			if (minimum ? extremum.isMinimum() : extremum.isMaximum()) {
+				indexes.add(extremum.getCenterIndex());
+			}
+		}
+		return indexes;
+	}
+
 	/**
 	 * Returns a boolean indicating whether the value at value index, of the data at data index, is a minimum/maximum
 	 * for the argument period.
@@ -458,15 +527,15 @@ public abstract class DataList {
 		if (dataIndex > size() - 1 - period) {
 			return false;
 		}
-		double value = get(dataIndex).getValue(valueIndex);
+		double value = getValue(dataIndex, valueIndex);
 		int startBackward = Math.max(0, dataIndex - period);
 		for (int i = dataIndex - 1; i >= startBackward; i--) {
 			if (minimum) {
-				if (get(i).getValue(valueIndex) < value) {
+				if (getValue(i, valueIndex) < value) {
 					return false;
 				}
 			} else {
-				if (get(i).getValue(valueIndex) > value) {
+				if (getValue(i, valueIndex) > value) {
 					return false;
 				}
 			}
@@ -474,11 +543,11 @@ public abstract class DataList {
 		int endForward = Math.min(dataIndex + period, size() - 1);
 		for (int i = dataIndex + 1; i <= endForward; i++) {
 			if (minimum) {
-				if (get(i).getValue(valueIndex) < value) {
+				if (getValue(i, valueIndex) < value) {
 					return false;
 				}
 			} else {
-				if (get(i).getValue(valueIndex) > value) {
+				if (getValue(i, valueIndex) > value) {
 					return false;
 				}
 			}
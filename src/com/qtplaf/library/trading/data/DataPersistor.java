@@ -616,6 +616,33 @@ public class DataPersistor implements Persistor {
 		return persistor.insert(record);
 	}
 
+	/**
+	 * Insert a list of records in batches. Automatically sets the indexes and increases the last index. If the insert
+	 * fails, some batches may have been committed, so the last index is read again from the table on the next insert.
+	 * 
+	 * @param records The list of records to insert.
+	 * @return The number of inserted records.
+	 * @throws PersistorException
+	 */
+	public int insert(List<Record> records) throws PersistorException {
+		Long last = getLastIndex();
+		for (Record record : records) {
+			record.setValue(0, ++last);
+		}
+		int count;
+		try {
+			count = persistor.insert(records);
+		} catch (PersistorException exc) {
+			lastIndex = Long.valueOf(-1);
+			throw exc;
+		} catch (RuntimeException exc) {
+			lastIndex = Long.valueOf(-1);
+			throw exc;
+		}
+		lastIndex = last;
+		return count;
+	}
+
 	/**
 	 * Returns a record iterator to scan the records that agree with the criteria.
 	 * 
@@ -780,6 +807,17 @@ public class DataPersistor implements Persistor {
 		return persistor.update(record);
 	}
 
+	/**
+	 * Update a list of records by primary key in batches.
+	 * 
+	 * @param records The list of records to update.
+	 * @return The number of updated records.
+	 * @throws PersistorException
+	 */
+	public int update(List<Record> records) throws PersistorException {
+		return persistor.update(records);
+	}
+
 	/**
 	 * Update a set of fields with given values for the firlter criteria. The map of values can be keyed either by
 	 * index, alias or field.
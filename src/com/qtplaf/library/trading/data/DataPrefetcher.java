@@ -0,0 +1,400 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtplaf.library.trading.data;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.qtplaf.library.database.Condition;
+import com.qtplaf.library.database.Criteria;
+import com.qtplaf.library.database.PersistorException;
+import com.qtplaf.library.database.Record;
+import com.qtplaf.library.database.RecordIterator;
+import com.qtplaf.library.database.RecordSet;
+import com.qtplaf.library.database.Value;
+
+/**
+ * Read-ahead loader of pages of a data persistor. A background worker scans the persistor in the direction of access
+ * over one long-lived iterator, and keeps up to <i>depth</i> pages ready ahead of the consumer. Pages are aligned
+ * blocks of <i>pageSize</i> indexes. When the consumer jumps outside the range being read or changes direction, the
+ * worker is restarted at the requested page.
+ * 
+ * @author Miquel Sas
+ */
+public class DataPrefetcher {
+
+	/** Logger instance. */
+	private static final Logger logger = LogManager.getLogger();
+
+	/**
+	 * Worker that reads pages in one direction and publishes them.
+	 */
+	class Worker implements Runnable {
+
+		/** Direction of the scan. */
+		private boolean forward;
+		/** Next page to publish. */
+		private int page;
+		/** Cancel flag. */
+		private volatile boolean cancelled = false;
+		/** Finished flag, end of data, error or cancelled. */
+		private boolean finished = false;
+
+		Worker(int page, boolean forward) {
+			this.page = page;
+			this.forward = forward;
+		}
+
+		@Override
+		public void run() {
+			RecordIterator iter = null;
+			try {
+				Criteria criteria = new Criteria();
+				if (forward) {
+					Value start = new Value(Long.valueOf((long) page * pageSize));
+					criteria.add(Condition.fieldGE(dataPersistor.getField(0), start));
+				} else {
+					Value start = new Value(Long.valueOf(((long) page + 1) * pageSize - 1));
+					criteria.add(Condition.fieldLE(dataPersistor.getField(0), start));
+				}
+				iter = dataPersistor.iterator(criteria, dataPersistor.getIndexOrder(forward));
+				RecordSet recordSet = null;
+				int recordSetPage = -1;
+				while (!cancelled && iter.hasNext()) {
+					Record record = iter.next();
+					int recordPage = getPage(dataPersistor.getIndex(record).intValue());
+					if (recordPage != recordSetPage) {
+						if (recordSet != null && !publish(recordSetPage, recordSet)) {
+							break;
+						}
+						if (!publishEmpty(recordPage, record)) {
+							break;
+						}
+						recordSet = new RecordSet(record.getFieldList());
+						recordSetPage = recordPage;
+					}
+					recordSet.add(record);
+				}
+				if (recordSet != null && !cancelled) {
+					publish(recordSetPage, recordSet);
+				}
+			} catch (PersistorException exc) {
+				logger.catching(exc);
+			} catch (InterruptedException exc) {
+				logger.catching(exc);
+			} catch (RuntimeException exc) {
+				// The consumer falls back to a synchronous read.
+				logger.catching(exc);
+			} finally {
+				if (iter != null) {
+					try {
+						iter.close();
+					} catch (PersistorException exc) {
+						logger.catching(exc);
+					}
+				}
+				synchronized (lock) {
+					finished = true;
+					lock.notifyAll();
+				}
+			}
+		}
+
+		/**
+		 * Publish a page, waiting while there are <i>depth</i> pages ready.
+		 * 
+		 * @param recordSetPage The page number.
+		 * @param recordSet The records.
+		 * @return A boolean indicating whether the worker should continue.
+		 * @throws InterruptedException
+		 */
+		private boolean publish(int recordSetPage, RecordSet recordSet) throws InterruptedException {
+			synchronized (lock) {
+				while (!cancelled && ready.size() >= depth) {
+					lock.wait();
+				}
+				if (cancelled) {
+					return false;
+				}
+				ready.put(recordSetPage, recordSet);
+				page = recordSetPage + (forward ? 1 : -1);
+				pagesLoaded++;
+				lock.notifyAll();
+				return true;
+			}
+		}
+
+		/**
+		 * Publish empty pages, gaps in the indexes, from the next page to publish up to the page of the record read.
+		 * 
+		 * @param recordPage The page of the record read.
+		 * @param record The record read, that gives the field list.
+		 * @return A boolean indicating whether the worker should continue.
+		 * @throws InterruptedException
+		 */
+		private boolean publishEmpty(int recordPage, Record record) throws InterruptedException {
+			while (forward ? page < recordPage : page > recordPage) {
+				if (!publish(page, new RecordSet(record.getFieldList()))) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Check whether the worker will publish the page without a restart.
+		 * 
+		 * @param requested The requested page.
+		 * @param direction The direction of access.
+		 * @return A boolean.
+		 */
+		private boolean covers(int requested, boolean direction) {
+			if (finished || forward != direction) {
+				return false;
+			}
+			if (forward) {
+				return requested >= page && requested < page + depth;
+			}
+			return requested <= page && requested > page - depth;
+		}
+	}
+
+	/** The data persistor. */
+	private DataPersistor dataPersistor;
+	/** The page size. */
+	private int pageSize;
+	/** The number of pages to keep ready ahead. */
+	private int depth;
+	/** Pages ready, by page number. */
+	private Map<Integer, RecordSet> ready = new HashMap<>();
+	/** The current worker. */
+	private Worker worker;
+	/** Lock to synchronize with the worker. */
+	private Object lock = new Object();
+
+	/** Number of pages served without waiting. */
+	private long hits;
+	/** Number of pages the consumer had to wait for. */
+	private long stalls;
+	/** Total nano time the consumer waited. */
+	private long stallTime;
+	/** Number of worker restarts. */
+	private long restarts;
+	/** Number of pages loaded by workers. */
+	private long pagesLoaded;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param dataPersistor The data persistor.
+	 * @param pageSize The page size.
+	 * @param depth The number of pages to keep ready ahead.
+	 */
+	public DataPrefetcher(DataPersistor dataPersistor, int pageSize, int depth) {
+		super();
+		if (pageSize <= 0 || depth <= 0) {
+			throw new IllegalArgumentException("Page size and depth must be greater than zero");
+		}
+		this.dataPersistor = dataPersistor;
+		this.pageSize = pageSize;
+		this.depth = depth;
+	}
+
+	/**
+	 * Returns the page number of an index.
+	 * 
+	 * @param index The index.
+	 * @return The page number.
+	 */
+	private int getPage(int index) {
+		return index / pageSize;
+	}
+
+	/**
+	 * Returns the page that contains the index, waiting for the worker if necessary and starting it if the page is not
+	 * in the range being read in the direction of access. A page without records, a gap in the indexes, is returned
+	 * empty.
+	 * 
+	 * @param index The index.
+	 * @param forward The direction of access.
+	 * @return The page or null if it could not be read or is beyond the end of data.
+	 */
+	public RecordSet getPage(int index, boolean forward) {
+		int requested = getPage(index);
+		synchronized (lock) {
+			discardPassed(requested, forward);
+			RecordSet recordSet = ready.remove(requested);
+			if (recordSet != null) {
+				hits++;
+				lock.notifyAll();
+				return recordSet;
+			}
+			long start = System.nanoTime();
+			boolean waited = false;
+			try {
+				while (true) {
+					if (worker == null || !worker.covers(requested, forward)) {
+						if (worker != null && worker.finished && worker.forward == forward) {
+							// The worker reached the end of data in the direction of access.
+							if (forward ? requested >= worker.page : requested <= worker.page) {
+								return null;
+							}
+						}
+						restart(requested, forward);
+					}
+					waited = true;
+					lock.wait();
+					recordSet = ready.remove(requested);
+					if (recordSet != null) {
+						lock.notifyAll();
+						return recordSet;
+					}
+				}
+			} catch (InterruptedException exc) {
+				logger.catching(exc);
+				return null;
+			} finally {
+				if (waited) {
+					stalls++;
+					stallTime += (System.nanoTime() - start);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Discard pages ready that the consumer has passed in the direction of access. Must be called holding the lock.
+	 * 
+	 * @param requested The requested page.
+	 * @param forward The direction.
+	 */
+	private void discardPassed(int requested, boolean forward) {
+		Iterator<Integer> iter = ready.keySet().iterator();
+		while (iter.hasNext()) {
+			int page = iter.next();
+			if (forward ? page < requested : page > requested) {
+				iter.remove();
+			}
+		}
+	}
+
+	/**
+	 * Cancel the current worker and start a new one at the requested page. Must be called holding the lock.
+	 * 
+	 * @param requested The requested page.
+	 * @param forward The direction.
+	 */
+	private void restart(int requested, boolean forward) {
+		if (worker != null) {
+			worker.cancelled = true;
+			restarts++;
+		}
+		ready.clear();
+		worker = new Worker(requested, forward);
+		Thread thread = new Thread(worker, "Data prefetcher");
+		thread.setDaemon(true);
+		thread.start();
+		lock.notifyAll();
+	}
+
+	/**
+	 * Stop the worker and discard the pages ready, waiting until the worker has closed its iterator and so released
+	 * its cursor and connection.
+	 */
+	public void stop() {
+		synchronized (lock) {
+			Worker stopped = worker;
+			if (worker != null) {
+				worker.cancelled = true;
+				worker = null;
+			}
+			ready.clear();
+			lock.notifyAll();
+			while (stopped != null && !stopped.finished) {
+				try {
+					lock.wait();
+				} catch (InterruptedException exc) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of pages served without waiting.
+	 * 
+	 * @return The number of hits.
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of pages the consumer had to wait for.
+	 * 
+	 * @return The number of stalls.
+	 */
+	public long getStalls() {
+		return stalls;
+	}
+
+	/**
+	 * Returns the total time in milliseconds the consumer waited for pages.
+	 * 
+	 * @return The stall time in milliseconds.
+	 */
+	public long getStallTime() {
+		return stallTime / 1000000;
+	}
+
+	/**
+	 * Returns the number of times the worker was restarted because of a jump or a change of direction.
+	 * 
+	 * @return The number of restarts.
+	 */
+	public long getRestarts() {
+		return restarts;
+	}
+
+	/**
+	 * Returns the number of pages loaded by workers.
+	 * 
+	 * @return The number of pages loaded.
+	 */
+	public long getPagesLoaded() {
+		return pagesLoaded;
+	}
+
+	/**
+	 * Returns a string representation with the metrics.
+	 * 
+	 * @return A string representation.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder b = new StringBuilder();
+		b.append("hits=" + hits);
+		b.append(", stalls=" + stalls);
+		b.append(", stallTime=" + getStallTime() + "ms");
+		b.append(", restarts=" + restarts);
+		b.append(", pagesLoaded=" + pagesLoaded);
+		return b.toString();
+	}
+}
@@ -14,7 +14,9 @@
 
 package com.qtplaf.library.trading.data;
 
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.List;
 
 import com.qtplaf.library.database.Order;
 import com.qtplaf.library.database.Record;
@@ -53,6 +55,22 @@ public class DataRecordSet extends RecordSet {
 		return persistor.getRecord(Long.valueOf(index));
 	}
 
+	/**
+	 * Returns the list of records from the index, at most the page size, read in one pass.
+	 * 
+	 * @param index The index of the first record.
+	 * @param pageSize The page size.
+	 * @return The list of records.
+	 */
+	@Override
+	public List<Record> getPage(int index, int pageSize) {
+		List<Record> page = new ArrayList<>();
+		for (Record record : persistor.getPage(Long.valueOf(index), pageSize)) {
+			page.add(record);
+		}
+		return page;
+	}
+
 	/**
 	 * Returns this record set size.
 	 *
@@ -63,6 +63,29 @@ public class DelegateDataList extends DataList {
 		return dataList.get(index);
 	}
 
+	/**
+	 * Returns the time of the data element at the given index.
+	 * 
+	 * @param index The index.
+	 * @return The time.
+	 */
+	@Override
+	public long getTime(int index) {
+		return dataList.getTime(index);
+	}
+
+	/**
+	 * Returns the value at value index of the data element at the given index.
+	 * 
+	 * @param index The index of the data element.
+	 * @param valueIndex The index of the value within the data.
+	 * @return The value.
+	 */
+	@Override
+	public double getValue(int index, int valueIndex) {
+		return dataList.getValue(index, valueIndex);
+	}
+
 	/**
 	 * Returns <tt>true</tt> if this list contains no elements.
 	 *
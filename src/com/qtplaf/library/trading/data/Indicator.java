@@ -148,6 +148,17 @@ public abstract class Indicator {
 	 */
 	public abstract Data calculate(int index, List<IndicatorSource> indicatorSources, DataList indicatorData);
 
+	/**
+	 * Returns a new stream that calculates this indicator bar by bar in a forward pass, or null if the indicator does
+	 * not support streaming. Called after <i>start</i>, and the stream must produce the same values as
+	 * <i>calculate</i>.
+	 * 
+	 * @return The indicator stream or null.
+	 */
+	public IndicatorStream createStream() {
+		return null;
+	}
+
 	/**
 	 * Check if this indicator is equal to the argument object.
 	 * 
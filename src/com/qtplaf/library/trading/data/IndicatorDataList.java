@@ -18,11 +18,17 @@ import java.util.List;
 
 import com.qtplaf.library.app.Session;
 import com.qtplaf.library.util.list.ListUtils;
-import com.qtplaf.library.util.map.CacheMap;
+import com.qtplaf.library.util.map.IntCache;
+import com.qtplaf.library.util.map.IntCachePolicy;
 
 /**
  * A data list that retrieves its data from an indicator, thus calculating the data each time it is retrieved through
  * the <tt>get</tt> method.
+ * <p>
+ * If the indicator supports streaming, data not yet cached and requested in ascending index order is calculated
+ * through the indicator stream with a constant amount of work per index. A chain of indicator data lists is calculated
+ * in one forward pass requesting each index of the lists in the order of precedence, the sources before the lists
+ * that use them, as <tt>getIndicatorDataListsToCalculate</tt> returns them.
  * 
  * @author Miquel Sas
  */
@@ -39,7 +45,15 @@ public class IndicatorDataList extends DataList {
 	/**
 	 * A data list to cache this indicator calculated data.
 	 */
-	private CacheMap<Integer, Data> map = new CacheMap<>();
+	private IntCache<Data> map = new IntCache<>();
+	/**
+	 * The indicator stream or null if the indicator does not support streaming.
+	 */
+	private IndicatorStream stream;
+	/**
+	 * The last index calculated through the stream, or -1.
+	 */
+	private int streamIndex = -1;
 
 	/**
 	 * Constructor.
@@ -57,6 +71,7 @@ public class IndicatorDataList extends DataList {
 		this.indicator = indicator;
 		this.indicatorSources = indicatorSources;
 		this.indicator.start(indicatorSources);
+		this.stream = indicator.createStream();
 	}
 
 	/**
@@ -77,6 +92,33 @@ public class IndicatorDataList extends DataList {
 		map.setCacheSize(cacheSize);
 	}
 
+	/**
+	 * Returns the cache eviction policy.
+	 * 
+	 * @return The policy.
+	 */
+	public IntCachePolicy getCachePolicy() {
+		return map.getPolicy();
+	}
+
+	/**
+	 * Sets the cache eviction policy, clearing the cache.
+	 * 
+	 * @param policy The policy.
+	 */
+	public void setCachePolicy(IntCachePolicy policy) {
+		map.setPolicy(policy);
+	}
+
+	/**
+	 * Returns the cache, to access its statistics.
+	 * 
+	 * @return The cache.
+	 */
+	public IntCache<Data> getCache() {
+		return map;
+	}
+
 	/**
 	 * Check whether this indicator data list is equal to the argument object.
 	 * 
@@ -147,7 +189,8 @@ public class IndicatorDataList extends DataList {
 	}
 
 	/**
-	 * Returns the data element at the given index.
+	 * Returns the data element at the given index, from the cache if already calculated, through the stream if it is
+	 * the next index of the stream or the first one, otherwise calculating it with the indicator.
 	 * 
 	 * @param index The index.
 	 * @return The data element at the given index.
@@ -158,6 +201,14 @@ public class IndicatorDataList extends DataList {
 		if (data != null) {
 			return data;
 		}
+		if (stream != null) {
+			if (index == 0) {
+				resetStream();
+			}
+			if (index == streamIndex + 1) {
+				return calculateStream(index);
+			}
+		}
 		return calculate(index);
 	}
 
@@ -174,12 +225,52 @@ public class IndicatorDataList extends DataList {
 	}
 
 	/**
-	 * Remove the calculated data index.
+	 * Calculate and store data at the given index through the stream, that must be at the previous index.
+	 * 
+	 * @param index The index.
+	 * @return The calculated data.
+	 */
+	private Data calculateStream(int index) {
+		int numIndexes = 0;
+		for (IndicatorSource source : indicatorSources) {
+			numIndexes += source.getIndexes().size();
+		}
+		Data input = new Data(numIndexes);
+		int valueIndex = 0;
+		for (IndicatorSource source : indicatorSources) {
+			DataList dataList = source.getDataList();
+			for (Integer dataIndex : source.getIndexes()) {
+				input.setValue(valueIndex++, dataList.getValue(index, dataIndex));
+			}
+		}
+		input.setTime(indicatorSources.get(0).getDataList().getTime(index));
+		Data data = stream.onBar(input);
+		streamIndex = index;
+		map.put(index, data);
+		return data;
+	}
+
+	/**
+	 * Reset the stream, if any, so that the next forward pass starts at index zero.
+	 */
+	public void resetStream() {
+		if (stream != null) {
+			stream.reset();
+			streamIndex = -1;
+		}
+	}
+
+	/**
+	 * Remove the calculated data index. Since the source data at that index may have changed, the stream is reset if it
+	 * has already passed the index.
 	 * 
 	 * @param index The index to remove.
 	 * @return The removed data.
 	 */
 	public Data remove(int index) {
+		if (index <= streamIndex) {
+			resetStream();
+		}
 		return map.remove(index);
 	}
 
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtplaf.library.trading.data;
+
+/**
+ * An indicator calculated bar by bar in a forward pass, keeping the state required to produce the next output with a
+ * constant amount of work. Each call to <tt>onBar</tt> receives the source values of the next bar, one per index of
+ * the indicator sources, and returns the output data with the same time.
+ * 
+ * @author Miquel Sas
+ */
+public abstract class IndicatorStream {
+
+	/**
+	 * Number of bars processed since the last reset.
+	 */
+	private int count = 0;
+
+	/**
+	 * Constructor.
+	 */
+	public IndicatorStream() {
+		super();
+	}
+
+	/**
+	 * Returns the number of bars processed since the last reset.
+	 * 
+	 * @return The number of bars.
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Process the next bar and return the output data.
+	 * 
+	 * @param input The source values of the bar.
+	 * @return The output data.
+	 */
+	public Data onBar(Data input) {
+		double[] output = calculate(input.getData());
+		count++;
+		Data data = new Data();
+		data.setData(output);
+		data.setTime(input.getTime());
+		return data;
+	}
+
+	/**
+	 * Reset the stream to start again from the first bar.
+	 */
+	public void reset() {
+		count = 0;
+		clear();
+	}
+
+	/**
+	 * Calculates the output values for the next bar. The number of bars already processed is available through
+	 * <tt>getCount</tt>.
+	 * 
+	 * @param values The source values.
+	 * @return The output values.
+	 */
+	protected abstract double[] calculate(double[] values);
+
+	/**
+	 * Clear the internal state.
+	 */
+	protected abstract void clear();
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtplaf.library.trading.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+import com.qtplaf.library.app.Session;
+import com.qtplaf.library.trading.data.info.DataInfo;
+
+/**
+ * A read-only data list over a <tt>BinaryDataFile</tt>, mapped in memory. Access by index is a direct read at a
+ * computed position, and data is paged in by the operating system, so opening a large file costs almost no heap.
+ * Elements appended to the file after the list is opened are not visible until <tt>refresh</tt> is called.
+ * 
+ * @author Miquel Sas
+ */
+public class MappedDataList extends DataList {
+
+	/** Maximum number of bytes mapped per segment. */
+	private static final int SEGMENT_BYTES = 1 << 30;
+
+	/** The file. */
+	private File file;
+	/** Number of values per element. */
+	private int valueCount;
+	/** Size in bytes of an element. */
+	private int elementSize;
+	/** Number of elements per mapped segment. */
+	private int segmentElements;
+	/** The mapped segments. */
+	private MappedByteBuffer[] segments;
+	/** Number of elements. */
+	private int size;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param session The working session.
+	 * @param dataInfo The data info.
+	 * @param file The binary data file.
+	 * @throws IOException
+	 */
+	public MappedDataList(Session session, DataInfo dataInfo, File file) throws IOException {
+		super(session, dataInfo);
+		this.file = file;
+		refresh();
+	}
+
+	/**
+	 * Maps the file again, making visible the elements appended since the last mapping.
+	 * 
+	 * @throws IOException
+	 */
+	public void refresh() throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+			valueCount = BinaryDataFile.readHeader(channel);
+			elementSize = BinaryDataFile.getElementSize(valueCount);
+			segmentElements = SEGMENT_BYTES / elementSize;
+			long elements = (channel.size() - BinaryDataFile.HEADER_SIZE) / elementSize;
+			if (elements > Integer.MAX_VALUE) {
+				throw new IOException("File " + file + " has too many elements: " + elements);
+			}
+			int count = (int) elements;
+			int segmentCount = (count + segmentElements - 1) / segmentElements;
+			MappedByteBuffer[] mapped = new MappedByteBuffer[segmentCount];
+			for (int i = 0; i < segmentCount; i++) {
+				long position = BinaryDataFile.HEADER_SIZE + ((long) i * segmentElements * elementSize);
+				long length = (long) Math.min(segmentElements, count - (i * segmentElements)) * elementSize;
+				mapped[i] = channel.map(MapMode.READ_ONLY, position, length);
+			}
+			segments = mapped;
+			size = count;
+		}
+	}
+
+	/**
+	 * Returns the file.
+	 * 
+	 * @return The file.
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Returns the number of values per element.
+	 * 
+	 * @return The number of values.
+	 */
+	public int getValueCount() {
+		return valueCount;
+	}
+
+	/**
+	 * Returns the position of the element within its segment, checking the index.
+	 * 
+	 * @param index The index.
+	 * @return The position.
+	 */
+	private int getPosition(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		return (index % segmentElements) * elementSize;
+	}
+
+	/**
+	 * Returns the segment of the element.
+	 * 
+	 * @param index The index.
+	 * @return The segment.
+	 */
+	private MappedByteBuffer getSegment(int index) {
+		return segments[index / segmentElements];
+	}
+
+	/**
+	 * Returns the number of elements in this list.
+	 *
+	 * @return The number of elements in this list.
+	 */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns <tt>true</tt> if this list contains no elements.
+	 *
+	 * @return <tt>true</tt> if this list contains no elements.
+	 */
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Not supported, the list is read-only.
+	 * 
+	 * @param data The data element.
+	 */
+	@Override
+	public void add(Data data) {
+		throw new UnsupportedOperationException("Mapped data list is read-only");
+	}
+
+	/**
+	 * Returns the data element at the given index, built from the mapped values.
+	 * 
+	 * @param index The index.
+	 * @return The data element at the given index.
+	 */
+	@Override
+	public Data get(int index) {
+		int position = getPosition(index);
+		MappedByteBuffer segment = getSegment(index);
+		Data data = new Data(valueCount);
+		data.setTime(segment.getLong(position));
+		for (int i = 0; i < valueCount; i++) {
+			data.setValue(i, segment.getDouble(position + 8 + (8 * i)));
+		}
+		return data;
+	}
+
+	/**
+	 * Returns the time of the data element at the given index.
+	 * 
+	 * @param index The index.
+	 * @return The time.
+	 */
+	@Override
+	public long getTime(int index) {
+		int position = getPosition(index);
+		return getSegment(index).getLong(position);
+	}
+
+	/**
+	 * Returns the value at value index of the data element at the given index.
+	 * 
+	 * @param index The index of the data element.
+	 * @param valueIndex The index of the value within the data.
+	 * @return The value.
+	 */
+	@Override
+	public double getValue(int index, int valueIndex) {
+		if (valueIndex < 0 || valueIndex >= valueCount) {
+			throw new IndexOutOfBoundsException("Value index: " + valueIndex + ", Values: " + valueCount);
+		}
+		int position = getPosition(index);
+		return getSegment(index).getDouble(position + 8 + (8 * valueIndex));
+	}
+
+	/**
+	 * Not supported, the list is read-only.
+	 * 
+	 * @param index The index.
+	 * @return Nothing.
+	 */
+	@Override
+	public Data remove(int index) {
+		throw new UnsupportedOperationException("Mapped data list is read-only");
+	}
+}
@@ -226,6 +226,16 @@ public class Period implements Comparable<Period> {
 		return false;
 	}
 
+	/**
+	 * Returns the hash code, consistent with equals.
+	 * 
+	 * @return The hash code.
+	 */
+	@Override
+	public int hashCode() {
+		return (31 * getUnit().ordinal()) + getSize();
+	}
+
 	/**
 	 * Returns a string representation of this period.
 	 * 
@@ -19,7 +19,8 @@ import com.qtplaf.library.database.Persistor;
 import com.qtplaf.library.database.Record;
 import com.qtplaf.library.database.RecordSet;
 import com.qtplaf.library.trading.data.info.DataInfo;
-import com.qtplaf.library.util.map.CacheMap;
+import com.qtplaf.library.util.map.IntCache;
+import com.qtplaf.library.util.map.IntCachePolicy;
 
 /**
  * A data list that retrieves its data from persistor. The contract for a persistor of data lists is that fields must be
@@ -44,11 +45,23 @@ public class PersistorDataList extends DataList {
 	/**
 	 * A map to cache retrieved records by relative index.
 	 */
-	private CacheMap<Integer, Record> map = new CacheMap<>();
+	private IntCache<Record> map = new IntCache<>();
 	/**
 	 * The page size to read chunks.
 	 */
 	private int pageSize = 100;
+	/**
+	 * The number of pages to read ahead in background, zero for no read-ahead.
+	 */
+	private int prefetchDepth = 0;
+	/**
+	 * The prefetcher, when read-ahead is enabled.
+	 */
+	private DataPrefetcher prefetcher;
+	/**
+	 * The last index accessed, to detect the direction of access.
+	 */
+	private int lastIndex = -1;
 
 	/**
 	 * Constructor.
@@ -118,6 +131,33 @@ public class PersistorDataList extends DataList {
 		map.setCacheSize(cacheSize);
 	}
 
+	/**
+	 * Returns the cache eviction policy.
+	 * 
+	 * @return The policy.
+	 */
+	public IntCachePolicy getCachePolicy() {
+		return map.getPolicy();
+	}
+
+	/**
+	 * Sets the cache eviction policy, clearing the cache.
+	 * 
+	 * @param policy The policy.
+	 */
+	public void setCachePolicy(IntCachePolicy policy) {
+		map.setPolicy(policy);
+	}
+
+	/**
+	 * Returns the cache, to access its statistics.
+	 * 
+	 * @return The cache.
+	 */
+	public IntCache<Record> getCache() {
+		return map;
+	}
+
 	/**
 	 * Retuns the page size used to read chunks.
 	 * 
@@ -134,6 +174,50 @@ public class PersistorDataList extends DataList {
 	 */
 	public void setPageSize(int pageSize) {
 		this.pageSize = pageSize;
+		setPrefetchDepth(prefetchDepth);
+	}
+
+	/**
+	 * Returns the number of pages read ahead in background.
+	 * 
+	 * @return The prefetch depth.
+	 */
+	public int getPrefetchDepth() {
+		return prefetchDepth;
+	}
+
+	/**
+	 * Sets the number of pages to read ahead in background, in the direction of access. Zero disables read-ahead and
+	 * releases the background reader.
+	 * 
+	 * @param prefetchDepth The prefetch depth.
+	 */
+	public void setPrefetchDepth(int prefetchDepth) {
+		if (prefetcher != null) {
+			prefetcher.stop();
+			prefetcher = null;
+		}
+		this.prefetchDepth = prefetchDepth;
+		if (prefetchDepth > 0) {
+			prefetcher = new DataPrefetcher(dataPersistor, pageSize, prefetchDepth);
+		}
+	}
+
+	/**
+	 * Closes the list, stopping the background reader if any so that its cursor and connection are released. Read-ahead
+	 * is disabled, and the list can still be read synchronously or read-ahead enabled again.
+	 */
+	public void close() {
+		setPrefetchDepth(0);
+	}
+
+	/**
+	 * Returns the prefetcher, to access its metrics, or null if read-ahead is not enabled.
+	 * 
+	 * @return The prefetcher.
+	 */
+	public DataPrefetcher getPrefetcher() {
+		return prefetcher;
 	}
 
 	/**
@@ -178,6 +262,29 @@ public class PersistorDataList extends DataList {
 		return getData(getRecord(index));
 	}
 
+	/**
+	 * Returns the time of the data element at the given index, read directly from the record.
+	 * 
+	 * @param index The index.
+	 * @return The time.
+	 */
+	@Override
+	public long getTime(int index) {
+		return getRecord(index).getValue(1).getLong();
+	}
+
+	/**
+	 * Returns the value at value index of the data element at the given index, read directly from the record.
+	 * 
+	 * @param index The index of the data element.
+	 * @param valueIndex The index of the value within the data.
+	 * @return The value.
+	 */
+	@Override
+	public double getValue(int index, int valueIndex) {
+		return getRecord(index).getValue(dataPersistor.getRecordIndex(valueIndex)).getDouble();
+	}
+
 	/**
 	 * Returns the data given its record.
 	 * 
@@ -196,11 +303,31 @@ public class PersistorDataList extends DataList {
 	 */
 	public Record getRecord(int index) {
 
+		boolean forward = (index >= lastIndex);
+		lastIndex = index;
+
 		Record record = getRecordFromCache(index);
 		if (record != null) {
 			return record;
 		}
 
+		if (prefetcher != null) {
+			RecordSet recordSet = prefetcher.getPage(index, forward);
+			if (recordSet != null) {
+				for (int i = 0; i < recordSet.size(); i++) {
+					Record rc = recordSet.get(i);
+					int rcIndex = dataPersistor.getIndex(rc).intValue();
+					addRecordToCache(rcIndex, rc);
+					if (rcIndex == index) {
+						record = rc;
+					}
+				}
+				if (record != null) {
+					return record;
+				}
+			}
+		}
+
 		RecordSet recordSet = dataPersistor.getPage(Long.valueOf(index), getPageSize());
 		record = recordSet.get(0);
 		for (int i = 0; i < recordSet.size(); i++) {
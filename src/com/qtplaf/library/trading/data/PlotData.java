@@ -36,6 +36,8 @@ public class PlotData implements Iterable<DataList>, DataListListener {
 
 	/** A list of data lists. */
 	private List<DataList> dataLists = new ArrayList<>();
+	/** The list of plot indexes, one per data list, to calculate the minimum and maximum values of a frame. */
+	private List<PlotIndex> plotIndexes = new ArrayList<>();
 	/** List of drawings. */
 	private List<Drawing> drawings = new ArrayList<>();
 
@@ -43,6 +45,10 @@ public class PlotData implements Iterable<DataList>, DataListListener {
 	private int startIndex = Integer.MIN_VALUE;
 	/** The end index to plot, can greater than the max index. */
 	private int endIndex = Integer.MIN_VALUE;
+	/** The start index for which indicators were last ensured calculated. */
+	private int indicatorsStartIndex = Integer.MIN_VALUE;
+	/** A boolean that indicates that data changed and indicators before the start index must be recalculated. */
+	private boolean indicatorsInvalidated = false;
 	/** The maximum value to plot (retrieving dataBag from start index to end index). */
 	private double maximumValue = Double.MIN_VALUE;
 	/** The minimum value to plot (retrieving dataBag from start index to end index). */
@@ -167,6 +173,8 @@ public class PlotData implements Iterable<DataList>, DataListListener {
 			mergeDataLists();
 		}
 		boolean added = dataLists.add(dataList);
+		plotIndexes.add(new PlotIndex(dataList));
+		indicatorsStartIndex = Integer.MIN_VALUE;
 		dataList.addListener(this);
 		setStartAndEndIndexes();
 		return added;
@@ -265,6 +273,8 @@ public class PlotData implements Iterable<DataList>, DataListListener {
 	 */
 	public void clear() {
 		dataLists.clear();
+		plotIndexes.clear();
+		indicatorsStartIndex = Integer.MIN_VALUE;
 		setStartAndEndIndexes();
 	}
 
@@ -305,6 +315,8 @@ public class PlotData implements Iterable<DataList>, DataListListener {
 	 */
 	public DataList remove(int index) {
 		setStartAndEndIndexes();
+		plotIndexes.remove(index);
+		indicatorsStartIndex = Integer.MIN_VALUE;
 		return dataLists.remove(index);
 	}
 
@@ -499,14 +511,21 @@ public class PlotData implements Iterable<DataList>, DataListListener {
 	}
 
 	/**
-	 * Ensure that indicators are calculated from look backward up to the start index minus one.
-	 * 
-	 * @param plotData The plot data.
-	 * @param startIndex The index to ensure calculation of indicators.
+	 * Ensure that indicators are calculated from look backward up to the start index minus one. Nothing is done while
+	 * the start index does not change, and only indexes not already calculated are calculated, in ascending order,
+	 * unless data changed since the last call, in which case they are removed and calculated again.
 	 */
 	private void ensureIndicatorsCalculated() {
+		// Same start index and no data changes, no need to do nothing.
+		if (startIndex == indicatorsStartIndex && !indicatorsInvalidated) {
+			return;
+		}
+		boolean invalidated = indicatorsInvalidated;
+		indicatorsStartIndex = startIndex;
+		indicatorsInvalidated = false;
+
 		// Index 0, no need to do nothing.
-		if (startIndex == 0) {
+		if (startIndex <= 0) {
 			return;
 		}
 
@@ -523,23 +542,27 @@ public class PlotData implements Iterable<DataList>, DataListListener {
 			lookBackward = Math.max(lookBackward, indicator.getIndicatorInfo().getLookBackward());
 		}
 
-		// Remove calculated from start to end, and calculate again.
+		// If data changed remove calculated from start to end, and calculate those not calculated.
 		int start = Math.max(0, startIndex - lookBackward + 1);
 		int end = startIndex - 1;
-		for (IndicatorDataList indicatorDataList : indicatorDataLists) {
-			for (int index = start; index <= end; index++) {
-				indicatorDataList.remove(index);
+		if (invalidated) {
+			for (IndicatorDataList indicatorDataList : indicatorDataLists) {
+				for (int index = start; index <= end; index++) {
+					indicatorDataList.remove(index);
+				}
 			}
 		}
 		for (IndicatorDataList indicatorDataList : indicatorDataLists) {
 			for (int index = start; index <= end; index++) {
-				indicatorDataList.calculate(index);
+				indicatorDataList.get(index);
 			}
 		}
 	}
 
 	/**
-	 * Calculates plot frame based on start and end index: minimum and maximum values, start end end time.
+	 * Calculates plot frame based on start and end index: minimum and maximum values, start end end time. Minimum and
+	 * maximum values are retrieved from the plot index of each data list, that scans only the partial blocks at the
+	 * edges of the range.
 	 */
 	public void calculateFrame() {
 
@@ -552,35 +575,16 @@ public class PlotData implements Iterable<DataList>, DataListListener {
 		ensureIndicatorsCalculated();
 
 		int dataSize = get(0).size();
-		double maxValue = Double.MIN_VALUE;
-		double minValue = Double.MAX_VALUE;
-		for (int i = startIndex; i < endIndex; i++) {
-			if (i < 0 || i >= dataSize) {
-				continue;
-			}
-			for (DataList dataList : dataLists) {
-				Data data = dataList.get(i);
-				if (data == null || !data.isValid()) {
-					continue;
-				}
-				List<DataPlotter> dataPlotters = dataList.getDataPlotters();
-				for (DataPlotter dataPlotter : dataPlotters) {
-					double[] values = dataPlotter.getValues(data);
-					for (double value : values) {
-						if (value > maxValue) {
-							maxValue = value;
-						}
-						if (value < minValue) {
-							minValue = value;
-						}
-					}
-				}
-			}
+		int start = Math.max(0, startIndex);
+		int end = Math.min(endIndex - 1, dataSize - 1);
+		double[] minMax = new double[] { Double.MAX_VALUE, Double.MIN_VALUE };
+		for (PlotIndex plotIndex : plotIndexes) {
+			plotIndex.calculate(start, end, minMax);
 		}
 
 		// Assign calculated min and max values.
-		minimumValue = minValue;
-		maximumValue = maxValue;
+		minimumValue = minMax[0];
+		maximumValue = minMax[1];
 	}
 
 	/**
@@ -828,6 +832,57 @@ public class PlotData implements Iterable<DataList>, DataListListener {
 	 * @param e The data list event.
 	 */
 	public void dataListChanged(DataListEvent e) {
+		PlotIndex plotIndex = getPlotIndex(e.getDataList());
+		if (plotIndex == null) {
+			return;
+		}
+		switch (e.getOperation()) {
+		case Add:
+			// New blocks are added to the index on the next calculation.
+			break;
+		case Clear:
+			plotIndex.clear();
+			clearPyramids(e.getDataList());
+			indicatorsInvalidated = true;
+			break;
+		case Remove:
+			plotIndex.invalidateFrom(e.getIndex());
+			clearPyramids(e.getDataList());
+			indicatorsInvalidated = true;
+			break;
+		case Set:
+			plotIndex.invalidate(e.getIndex());
+			clearPyramids(e.getDataList());
+			indicatorsInvalidated = true;
+			break;
+		}
+	}
+
+	/**
+	 * Clear the level of detail pyramids of the data plotters of the data list.
+	 * 
+	 * @param dataList The data list.
+	 */
+	private void clearPyramids(DataList dataList) {
+		List<DataPlotter> dataPlotters = dataList.getDataPlotters();
+		for (DataPlotter dataPlotter : dataPlotters) {
+			dataPlotter.clearPyramid();
+		}
+	}
+
+	/**
+	 * Returns the plot index of the data list, or null if the data list is not in this plot data.
+	 * 
+	 * @param dataList The data list.
+	 * @return The plot index or null.
+	 */
+	private PlotIndex getPlotIndex(DataList dataList) {
+		for (PlotIndex plotIndex : plotIndexes) {
+			if (plotIndex.getDataList() == dataList) {
+				return plotIndex;
+			}
+		}
+		return null;
 	}
 
 	/**
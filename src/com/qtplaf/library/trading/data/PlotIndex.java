@@ -0,0 +1,331 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.qtplaf.library.trading.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import com.qtplaf.library.trading.chart.plotter.data.DataPlotter;
+
+/**
+ * A range minimum and maximum index of the values plotted by the data plotters of a data list, used to calculate the
+ * vertical scale of a plot frame.
+ * <p>
+ * Data indexes are grouped in blocks, and a segment tree keeps the minimum and maximum of each block, so the minimum
+ * and maximum of a range are retrieved scanning at most the partial blocks at the edges and querying the tree for the
+ * complete blocks in between. Blocks are calculated lazily the first time a range that contains them is requested, and
+ * the block that contains the last data index, that can still be updated by a feed, is never cached but always scanned.
+ * <p>
+ * When data is appended the new blocks are added to the tree as pending, and data set or removed invalidates the
+ * affected blocks, so the index is maintained incrementally.
+ * 
+ * @author Miquel Sas
+ */
+public class PlotIndex {
+
+	/** The number of data indexes per block. */
+	private static final int BLOCK_SIZE = 64;
+
+	/** The data list. */
+	private DataList dataList;
+	/** The data plotters when the index was last calculated, to reset it if they change. */
+	private List<DataPlotter> plotters = new ArrayList<>();
+	/** Copies of the indexes of the data plotters when the index was last calculated. */
+	private List<int[]> plotterIndexes = new ArrayList<>();
+	/** The number of cached blocks, those that do not contain the last data index. */
+	private int blocks;
+	/** The number of leaves of the tree, a power of two. */
+	private int capacity;
+	/** The tree of minimums, the root at index 1 and the leaves from index capacity. */
+	private double[] treeMin;
+	/** The tree of maximums. */
+	private double[] treeMax;
+	/** The blocks pending to calculate. */
+	private BitSet pending = new BitSet();
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param dataList The data list.
+	 */
+	public PlotIndex(DataList dataList) {
+		super();
+		this.dataList = dataList;
+		clear();
+	}
+
+	/**
+	 * Returns the data list.
+	 * 
+	 * @return The data list.
+	 */
+	public DataList getDataList() {
+		return dataList;
+	}
+
+	/**
+	 * Clear the index.
+	 */
+	public synchronized void clear() {
+		blocks = 0;
+		capacity = 1;
+		treeMin = new double[] { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY };
+		treeMax = new double[] { Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY };
+		pending.clear();
+	}
+
+	/**
+	 * Invalidate the block that contains the data index, because the data at that index has been set.
+	 * 
+	 * @param index The data index.
+	 */
+	public synchronized void invalidate(int index) {
+		int block = index / BLOCK_SIZE;
+		if (index >= 0 && block < blocks) {
+			pending.set(block);
+		}
+	}
+
+	/**
+	 * Invalidate the blocks from the one that contains the data index, because the data at that index has been
+	 * removed and subsequent data shifted.
+	 * 
+	 * @param index The data index.
+	 */
+	public synchronized void invalidateFrom(int index) {
+		int block = Math.max(0, index) / BLOCK_SIZE;
+		if (block < blocks) {
+			pending.set(block, blocks);
+		}
+	}
+
+	/**
+	 * Update the minimum and maximum values with those of the range of data indexes.
+	 * 
+	 * @param startIndex The start index, included.
+	 * @param endIndex The end index, included.
+	 * @param minMax An array of two elements, the minimum and the maximum to update.
+	 */
+	public synchronized void calculate(int startIndex, int endIndex, double[] minMax) {
+		int dataSize = dataList.size();
+		int start = Math.max(0, startIndex);
+		int end = Math.min(endIndex, dataSize - 1);
+		if (start > end) {
+			return;
+		}
+		ensureBlocks(dataSize);
+		query(start, end, minMax);
+		savePlotters();
+	}
+
+	/**
+	 * Update the minimum and maximum values with those of the range of data indexes, that must be within the data.
+	 * 
+	 * @param start The start index, included.
+	 * @param end The end index, included.
+	 * @param minMax An array of two elements, the minimum and the maximum to update.
+	 */
+	private void query(int start, int end, double[] minMax) {
+		int fromBlock = start / BLOCK_SIZE;
+		int toBlock = end / BLOCK_SIZE;
+
+		// Partial first block.
+		if (start % BLOCK_SIZE != 0 || fromBlock >= blocks) {
+			int blockEnd = Math.min(end, (fromBlock + 1) * BLOCK_SIZE - 1);
+			scan(start, blockEnd, minMax);
+			if (fromBlock == toBlock) {
+				return;
+			}
+			fromBlock++;
+		}
+		// Partial or not cached last block.
+		if (end % BLOCK_SIZE != BLOCK_SIZE - 1 || toBlock >= blocks) {
+			scan(toBlock * BLOCK_SIZE, end, minMax);
+			toBlock--;
+		}
+		if (fromBlock > toBlock) {
+			return;
+		}
+
+		// Calculate pending blocks in the range, ascending.
+		int block = pending.nextSetBit(fromBlock);
+		while (block >= 0 && block <= toBlock) {
+			calculateBlock(block);
+			block = pending.nextSetBit(block + 1);
+		}
+
+		// Query the tree.
+		int left = fromBlock + capacity;
+		int right = toBlock + capacity + 1;
+		double min = minMax[0];
+		double max = minMax[1];
+		while (left < right) {
+			if ((left & 1) == 1) {
+				if (treeMin[left] < min) {
+					min = treeMin[left];
+				}
+				if (treeMax[left] > max) {
+					max = treeMax[left];
+				}
+				left++;
+			}
+			if ((right & 1) == 1) {
+				right--;
+				if (treeMin[right] < min) {
+					min = treeMin[right];
+				}
+				if (treeMax[right] > max) {
+					max = treeMax[right];
+				}
+			}
+			left >>= 1;
+			right >>= 1;
+		}
+		minMax[0] = min;
+		minMax[1] = max;
+	}
+
+	/**
+	 * Check whether the data plotters of the data list, or the indexes they plot, changed since the index was last
+	 * calculated.
+	 * 
+	 * @return A boolean.
+	 */
+	private boolean isPlottersChanged() {
+		List<DataPlotter> dataPlotters = dataList.getDataPlotters();
+		if (dataPlotters.size() != plotters.size()) {
+			return true;
+		}
+		for (int i = 0; i < dataPlotters.size(); i++) {
+			DataPlotter dataPlotter = dataPlotters.get(i);
+			if (dataPlotter != plotters.get(i) || !Arrays.equals(dataPlotter.getIndexes(), plotterIndexes.get(i))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Save the data plotters and copies of their indexes, once calculated, since the default indexes are set the first
+	 * time a data plotter scans data.
+	 */
+	private void savePlotters() {
+		List<DataPlotter> dataPlotters = dataList.getDataPlotters();
+		plotters.clear();
+		plotterIndexes.clear();
+		for (DataPlotter dataPlotter : dataPlotters) {
+			int[] indexes = dataPlotter.getIndexes();
+			plotters.add(dataPlotter);
+			plotterIndexes.add(indexes == null ? null : Arrays.copyOf(indexes, indexes.length));
+		}
+	}
+
+	/**
+	 * Ensure that the cached blocks cover the data size, resetting the index if the data list shrinked or its data
+	 * plotters or their indexes changed.
+	 * 
+	 * @param dataSize The data size.
+	 */
+	private void ensureBlocks(int dataSize) {
+		int newBlocks = (dataSize - 1) / BLOCK_SIZE;
+		if (newBlocks < blocks || isPlottersChanged()) {
+			clear();
+		}
+		if (newBlocks == blocks) {
+			return;
+		}
+		if (newBlocks > capacity) {
+			int newCapacity = capacity;
+			while (newCapacity < newBlocks) {
+				newCapacity <<= 1;
+			}
+			double[] newMin = new double[newCapacity * 2];
+			double[] newMax = new double[newCapacity * 2];
+			Arrays.fill(newMin, Double.POSITIVE_INFINITY);
+			Arrays.fill(newMax, Double.NEGATIVE_INFINITY);
+			System.arraycopy(treeMin, capacity, newMin, newCapacity, blocks);
+			System.arraycopy(treeMax, capacity, newMax, newCapacity, blocks);
+			capacity = newCapacity;
+			treeMin = newMin;
+			treeMax = newMax;
+			for (int node = capacity - 1; node >= 1; node--) {
+				update(node);
+			}
+		}
+		pending.set(blocks, newBlocks);
+		blocks = newBlocks;
+	}
+
+	/**
+	 * Calculate a block and update the tree up to the root.
+	 * 
+	 * @param block The block.
+	 */
+	private void calculateBlock(int block) {
+		double[] minMax = new double[] { Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY };
+		scan(block * BLOCK_SIZE, (block + 1) * BLOCK_SIZE - 1, minMax);
+		int node = block + capacity;
+		treeMin[node] = minMax[0];
+		treeMax[node] = minMax[1];
+		for (node >>= 1; node >= 1; node >>= 1) {
+			update(node);
+		}
+		pending.clear(block);
+	}
+
+	/**
+	 * Update an internal node from its children.
+	 * 
+	 * @param node The node.
+	 */
+	private void update(int node) {
+		treeMin[node] = Math.min(treeMin[2 * node], treeMin[2 * node + 1]);
+		treeMax[node] = Math.max(treeMax[2 * node], treeMax[2 * node + 1]);
+	}
+
+	/**
+	 * Scan the values plotted in a range of data indexes, skipping not valid data.
+	 * 
+	 * @param startIndex The start index, included.
+	 * @param endIndex The end index, included.
+	 * @param minMax An array of two elements, the minimum and the maximum to update.
+	 */
+	private void scan(int startIndex, int endIndex, double[] minMax) {
+		List<DataPlotter> dataPlotters = dataList.getDataPlotters();
+		double min = minMax[0];
+		double max = minMax[1];
+		for (int i = startIndex; i <= endIndex; i++) {
+			Data data = dataList.get(i);
+			if (data == null || !data.isValid()) {
+				continue;
+			}
+			for (int p = 0; p < dataPlotters.size(); p++) {
+				int[] indexes = dataPlotters.get(p).getIndexes(data);
+				for (int j = 0; j < indexes.length; j++) {
+					double value = data.getValue(indexes[j]);
+					if (value > max) {
+						max = value;
+					}
+					if (value < min) {
+						min = value;
+					}
+				}
+			}
+		}
+		minMax[0] = min;
+		minMax[1] = max;
+	}
+}
@@ -0,0 +1,393 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.qtplaf.library.trading.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A level of detail pyramid of the values of a data list used by a data plotter, that aggregates data in buckets of a
+ * power of two number of bars, to plot a number of buckets proportional to the plot width instead of one drawing per
+ * bar when many bars fall in the same pixel column.
+ * <p>
+ * Each bucket keeps the first value of the first valid data (the open for OHLC indexes), the last value of the last
+ * valid data (the close), and the maximum and minimum of all the values (the high and the low), so it is a per bucket
+ * OHLC for candlesticks and bars and a min/max envelope for lines.
+ * <p>
+ * Like the blocks of the <tt>PlotIndex</tt>, buckets are calculated lazily the first time a range that contains them
+ * is requested, from the nearest lower level already created, or from the data, and appended data adds pending
+ * buckets to the levels. The bucket that contains the last data index is never cached but aggregated from the data
+ * each time.
+ * 
+ * @author Miquel Sas
+ */
+public class PlotPyramid {
+
+	/**
+	 * A bucket of aggregated data.
+	 */
+	public static class Bucket {
+		/** The first data index of the bucket. */
+		private int index;
+		/** The first value. */
+		private double first;
+		/** The last value. */
+		private double last;
+		/** The minimum value. */
+		private double minimum;
+		/** The maximum value. */
+		private double maximum;
+
+		/**
+		 * Returns the first data index of the bucket.
+		 * 
+		 * @return The index.
+		 */
+		public int getIndex() {
+			return index;
+		}
+
+		/**
+		 * Returns the first value, the open.
+		 * 
+		 * @return The first value.
+		 */
+		public double getFirst() {
+			return first;
+		}
+
+		/**
+		 * Returns the last value, the close.
+		 * 
+		 * @return The last value.
+		 */
+		public double getLast() {
+			return last;
+		}
+
+		/**
+		 * Returns the minimum value, the low.
+		 * 
+		 * @return The minimum value.
+		 */
+		public double getMinimum() {
+			return minimum;
+		}
+
+		/**
+		 * Returns the maximum value, the high.
+		 * 
+		 * @return The maximum value.
+		 */
+		public double getMaximum() {
+			return maximum;
+		}
+
+		/**
+		 * Check whether the bucket is bullish, the last value greater than or equal to the first.
+		 * 
+		 * @return A boolean.
+		 */
+		public boolean isBullish() {
+			return last >= first;
+		}
+	}
+
+	/**
+	 * A level of the pyramid, the cached buckets of a given size. Empty buckets, those without valid data, have a NaN
+	 * first value.
+	 */
+	private static class Level {
+		/** The number of cached buckets, calculated or pending. */
+		private int size;
+		/** The buckets pending to calculate. */
+		private BitSet pending = new BitSet();
+		/** First values. */
+		private double[] first = new double[0];
+		/** Last values. */
+		private double[] last = new double[0];
+		/** Minimum values. */
+		private double[] minimum = new double[0];
+		/** Maximum values. */
+		private double[] maximum = new double[0];
+
+		/**
+		 * Ensure the capacity of the level.
+		 * 
+		 * @param capacity The capacity.
+		 */
+		private void ensureCapacity(int capacity) {
+			if (capacity > first.length) {
+				int length = Math.max(capacity, first.length * 2);
+				first = Arrays.copyOf(first, length);
+				last = Arrays.copyOf(last, length);
+				minimum = Arrays.copyOf(minimum, length);
+				maximum = Arrays.copyOf(maximum, length);
+			}
+		}
+	}
+
+	/** The maximum level, buckets of 2^30 bars. */
+	private static final int MAX_LEVEL = 30;
+
+	/** The data list. */
+	private DataList dataList;
+	/** The indexes of the values within the data. */
+	private int[] indexes;
+	/** The levels, the level k with buckets of 2^k bars, level 0 being the data. */
+	private Level[] levels = new Level[MAX_LEVEL + 1];
+	/** The data size when the levels were last extended, to detect a shrinked list. */
+	private int dataSize;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param dataList The data list.
+	 * @param indexes The indexes of the values within the data, the first index is the first value, the last index
+	 *        the last value.
+	 */
+	public PlotPyramid(DataList dataList, int[] indexes) {
+		super();
+		this.dataList = dataList;
+		this.indexes = indexes;
+	}
+
+	/**
+	 * Returns the data list.
+	 * 
+	 * @return The data list.
+	 */
+	public DataList getDataList() {
+		return dataList;
+	}
+
+	/**
+	 * Returns the indexes of the values within the data.
+	 * 
+	 * @return The indexes.
+	 */
+	public int[] getIndexes() {
+		return indexes;
+	}
+
+	/**
+	 * Clear all the levels, because data has been set or removed.
+	 */
+	public synchronized void clear() {
+		Arrays.fill(levels, null);
+		dataSize = 0;
+	}
+
+	/**
+	 * Returns the level whose bucket size is the greatest power of two less than or equal to the number of bars per
+	 * pixel, or zero if there is less than two bars per pixel.
+	 * 
+	 * @param barsPerPixel The number of bars per pixel.
+	 * @return The level.
+	 */
+	public static int getLevel(double barsPerPixel) {
+		int level = 0;
+		while (level < MAX_LEVEL && (1 << (level + 1)) <= barsPerPixel) {
+			level++;
+		}
+		return level;
+	}
+
+	/**
+	 * Returns the non empty buckets of the level that intersect the range of data indexes.
+	 * 
+	 * @param level The level, greater than zero.
+	 * @param startIndex The start index, included.
+	 * @param endIndex The end index, included.
+	 * @return The list of buckets.
+	 */
+	public synchronized List<Bucket> getBuckets(int level, int startIndex, int endIndex) {
+		List<Bucket> buckets = new ArrayList<>();
+		int size = dataList.size();
+		int start = Math.max(0, startIndex);
+		int end = Math.min(endIndex, size - 1);
+		if (start > end) {
+			return buckets;
+		}
+		if (size < dataSize) {
+			clear();
+		}
+		dataSize = size;
+
+		int bucketSize = 1 << level;
+		int fromBucket = start >> level;
+		int toBucket = end >> level;
+		Level cached = extendLevel(level, size);
+		calculate(level, fromBucket, Math.min(toBucket, cached.size - 1));
+		for (int b = fromBucket; b <= toBucket; b++) {
+			Bucket bucket = new Bucket();
+			bucket.index = b * bucketSize;
+			if (b < cached.size) {
+				bucket.first = cached.first[b];
+				bucket.last = cached.last[b];
+				bucket.minimum = cached.minimum[b];
+				bucket.maximum = cached.maximum[b];
+			} else {
+				aggregate(bucket, bucket.index, Math.min(size - 1, bucket.index + bucketSize - 1));
+			}
+			if (!Double.isNaN(bucket.first)) {
+				buckets.add(bucket);
+			}
+		}
+		return buckets;
+	}
+
+	/**
+	 * Returns the level extended to cache all the complete buckets that do not contain the last data index, the new
+	 * buckets pending to calculate.
+	 * 
+	 * @param level The level.
+	 * @param size The data size.
+	 * @return The level.
+	 */
+	private Level extendLevel(int level, int size) {
+		if (levels[level] == null) {
+			levels[level] = new Level();
+		}
+		Level cached = levels[level];
+		int count = (size - 1) >> level;
+		if (cached.size < count) {
+			cached.ensureCapacity(count);
+			cached.pending.set(cached.size, count);
+			cached.size = count;
+		}
+		return cached;
+	}
+
+	/**
+	 * Calculate the pending buckets of a range of cached buckets of the level, combining the buckets of the nearest
+	 * lower level already created, calculated first if pending, or aggregating the data if there is no lower level.
+	 * 
+	 * @param level The level.
+	 * @param fromBucket The first bucket, included.
+	 * @param toBucket The last bucket, included.
+	 */
+	private void calculate(int level, int fromBucket, int toBucket) {
+		Level cached = levels[level];
+		int b = cached.pending.nextSetBit(fromBucket);
+		if (b < 0 || b > toBucket) {
+			return;
+		}
+
+		// The nearest lower level to build from, zero if the data.
+		int lower = level - 1;
+		while (lower > 0 && levels[lower] == null) {
+			lower--;
+		}
+		Level source = (lower > 0 ? extendLevel(lower, dataSize) : null);
+		int ratio = 1 << (level - lower);
+		Bucket bucket = new Bucket();
+		while (b >= 0 && b <= toBucket) {
+			if (source != null) {
+				calculate(lower, b * ratio, b * ratio + ratio - 1);
+				combine(bucket, source, b * ratio, ratio);
+			} else {
+				aggregate(bucket, b * ratio, b * ratio + ratio - 1);
+			}
+			set(cached, b, bucket);
+			cached.pending.clear(b);
+			b = cached.pending.nextSetBit(b + 1);
+		}
+	}
+
+	/**
+	 * Set the bucket values in the level.
+	 * 
+	 * @param level The level.
+	 * @param b The bucket index.
+	 * @param bucket The bucket.
+	 */
+	private void set(Level level, int b, Bucket bucket) {
+		level.first[b] = bucket.first;
+		level.last[b] = bucket.last;
+		level.minimum[b] = bucket.minimum;
+		level.maximum[b] = bucket.maximum;
+	}
+
+	/**
+	 * Combine a number of buckets of a lower level.
+	 * 
+	 * @param bucket The bucket to combine into.
+	 * @param source The source level.
+	 * @param from The first bucket of the source level.
+	 * @param count The number of buckets.
+	 */
+	private void combine(Bucket bucket, Level source, int from, int count) {
+		reset(bucket);
+		for (int b = from; b < from + count; b++) {
+			if (Double.isNaN(source.first[b])) {
+				continue;
+			}
+			if (Double.isNaN(bucket.first)) {
+				bucket.first = source.first[b];
+			}
+			bucket.last = source.last[b];
+			if (source.minimum[b] < bucket.minimum) {
+				bucket.minimum = source.minimum[b];
+			}
+			if (source.maximum[b] > bucket.maximum) {
+				bucket.maximum = source.maximum[b];
+			}
+		}
+	}
+
+	/**
+	 * Aggregate a range of valid data.
+	 * 
+	 * @param bucket The bucket to aggregate into.
+	 * @param startIndex The start index, included.
+	 * @param endIndex The end index, included.
+	 */
+	private void aggregate(Bucket bucket, int startIndex, int endIndex) {
+		reset(bucket);
+		for (int i = startIndex; i <= endIndex; i++) {
+			Data data = dataList.get(i);
+			if (data == null || !data.isValid()) {
+				continue;
+			}
+			if (Double.isNaN(bucket.first)) {
+				bucket.first = data.getValue(indexes[0]);
+			}
+			bucket.last = data.getValue(indexes[indexes.length - 1]);
+			for (int j = 0; j < indexes.length; j++) {
+				double value = data.getValue(indexes[j]);
+				if (value < bucket.minimum) {
+					bucket.minimum = value;
+				}
+				if (value > bucket.maximum) {
+					bucket.maximum = value;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reset the bucket to empty.
+	 * 
+	 * @param bucket The bucket.
+	 */
+	private void reset(Bucket bucket) {
+		bucket.first = Double.NaN;
+		bucket.last = Double.NaN;
+		bucket.minimum = Double.POSITIVE_INFINITY;
+		bucket.maximum = Double.NEGATIVE_INFINITY;
+	}
+}
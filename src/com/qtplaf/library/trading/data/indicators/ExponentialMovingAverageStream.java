@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtplaf.library.trading.data.indicators;
+
+import java.util.Arrays;
+
+import com.qtplaf.library.trading.data.IndicatorStream;
+
+/**
+ * Streaming exponential moving average. While less than <i>period</i> bars have been processed, the average is the
+ * simple average of the available bars, then it is calculated recursively from the previous average.
+ * 
+ * @author Miquel Sas
+ */
+public class ExponentialMovingAverageStream extends IndicatorStream {
+
+	/** Number of indexes. */
+	private int numIndexes;
+	/** The period. */
+	private int period;
+	/** Smoothing factor. */
+	private double alpha;
+	/** Sums per index, used while less than period bars have been processed. */
+	private double[] sums;
+	/** Last averages. */
+	private double[] averages;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param numIndexes The number of indexes.
+	 * @param period The period.
+	 */
+	public ExponentialMovingAverageStream(int numIndexes, int period) {
+		super();
+		this.numIndexes = numIndexes;
+		this.period = period;
+		this.alpha = Double.valueOf(2) / Double.valueOf(period + 1);
+		this.sums = new double[numIndexes];
+		this.averages = new double[numIndexes];
+	}
+
+	/**
+	 * Calculates the output values for the next bar.
+	 * 
+	 * @param values The source values.
+	 * @return The output values.
+	 */
+	@Override
+	protected double[] calculate(double[] values) {
+		int count = getCount();
+		for (int i = 0; i < numIndexes; i++) {
+			if (count < period) {
+				sums[i] += values[i];
+				averages[i] = sums[i] / (count + 1);
+			} else {
+				averages[i] = values[i] * alpha + (1 - alpha) * averages[i];
+			}
+		}
+		return Arrays.copyOf(averages, numIndexes);
+	}
+
+	/**
+	 * Clear the internal state.
+	 */
+	@Override
+	protected void clear() {
+		Arrays.fill(sums, 0);
+		Arrays.fill(averages, 0);
+	}
+}
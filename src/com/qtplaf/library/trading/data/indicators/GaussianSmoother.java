@@ -103,7 +103,7 @@ public class GaussianSmoother extends PeriodIndicator {
 				int endIndex = index;
 				int x = 0;
 				for (int i = startIndex; i <= endIndex; i++) {
-					double y = dataList.get(i).getValue(dataIndex);
+					double y = dataList.getValue(i, dataIndex);
 					obs.add(x, y);
 					x++;
 				}
@@ -122,7 +122,7 @@ public class GaussianSmoother extends PeriodIndicator {
 
 		Data data = new Data();
 		data.setData(values);
-		data.setTime(indicatorSources.get(0).getDataList().get(index).getTime());
+		data.setTime(indicatorSources.get(0).getDataList().getTime(index));
 		return data;
 	}
 }
@@ -158,8 +158,8 @@ public class MeanSquaredTranslation extends PeriodIndicator {
 		int arrayIndex = 0;
 		int startIndex = index - period + 1;
 		for (int i = startIndex; i <= index; i++) {
-			output[arrayIndex] = outputData.get(i).getValue(outputIndex);
-			input[arrayIndex] = inputData.get(i).getValue(inputIndex);
+			output[arrayIndex] = outputData.getValue(i, outputIndex);
+			input[arrayIndex] = inputData.getValue(i, inputIndex);
 			arrayIndex++;
 		}
 		double[] meanSquaredValues = Calculator.meanSquaredMinimum(output, input, 0.01, 0.00000000001, 1000000);
@@ -78,9 +78,9 @@ public abstract class PeriodIndicator extends Indicator {
 				if (lastData != null) {
 					lastAverage = lastData.getValue(averageIndex);
 				} else {
-					lastAverage = dataList.get(index).getValue(dataIndex);
+					lastAverage = dataList.getValue(index, dataIndex);
 				}
-				double nextValue = dataList.get(index).getValue(dataIndex);
+				double nextValue = dataList.getValue(index, dataIndex);
 				double average = nextValue * alpha + (1 - alpha) * lastAverage;
 				averages[averageIndex] += average;
 				averageIndex++;
@@ -89,7 +89,7 @@ public abstract class PeriodIndicator extends Indicator {
 		
 		Data data = new Data();
 		data.setData(averages);
-		data.setTime(indicatorSources.get(0).getDataList().get(index).getTime());
+		data.setTime(indicatorSources.get(0).getDataList().getTime(index));
 		return data;
 	}
 
@@ -154,7 +154,7 @@ public abstract class PeriodIndicator extends Indicator {
 						DataList dataList = source.getDataList();
 						List<Integer> indexes = source.getIndexes();
 						for (Integer dataIndex : indexes) {
-							delAvgs[averageIndex] = dataList.get(deleteIndex).getValue(dataIndex) / divisor;
+							delAvgs[averageIndex] = dataList.getValue(deleteIndex, dataIndex) / divisor;
 							averageIndex++;
 						}
 					}
@@ -163,7 +163,7 @@ public abstract class PeriodIndicator extends Indicator {
 					Arrays.fill(currAvgs, 0);
 					int currentIndex = index - 1;
 					for (int i = 0; i < numIndexes; i++) {
-						currAvgs[i] = indicatorDataList.get(currentIndex).getValue(i);
+						currAvgs[i] = indicatorDataList.getValue(currentIndex, i);
 					}
 					
 					double[] addAvgs = new double[numIndexes];
@@ -173,7 +173,7 @@ public abstract class PeriodIndicator extends Indicator {
 						DataList dataList = source.getDataList();
 						List<Integer> indexes = source.getIndexes();
 						for (Integer dataIndex : indexes) {
-							addAvgs[averageIndex] = dataList.get(index).getValue(dataIndex) / divisor;
+							addAvgs[averageIndex] = dataList.getValue(index, dataIndex) / divisor;
 							averageIndex++;
 						}
 					}
@@ -181,7 +181,7 @@ public abstract class PeriodIndicator extends Indicator {
 					double[] averages = Calculator.add(addAvgs, Calculator.subtract(currAvgs, delAvgs));
 					Data data = new Data();
 					data.setData(averages);
-					data.setTime(indicatorSources.get(0).getDataList().get(index).getTime());
+					data.setTime(indicatorSources.get(0).getDataList().getTime(index));
 					return data;				
 				}
 			}
@@ -195,7 +195,7 @@ public abstract class PeriodIndicator extends Indicator {
 				DataList dataList = source.getDataList();
 				List<Integer> indexes = source.getIndexes();
 				for (Integer dataIndex : indexes) {
-					averages[averageIndex] += dataList.get(i).getValue(dataIndex);
+					averages[averageIndex] += dataList.getValue(i, dataIndex);
 					averageIndex++;
 				}
 			}
@@ -209,7 +209,7 @@ public abstract class PeriodIndicator extends Indicator {
 		}
 		Data data = new Data();
 		data.setData(averages);
-		data.setTime(indicatorSources.get(0).getDataList().get(index).getTime());
+		data.setTime(indicatorSources.get(0).getDataList().getTime(index));
 		return data;
 	}
 
@@ -249,7 +249,7 @@ public abstract class PeriodIndicator extends Indicator {
 				DataList dataList = source.getDataList();
 				List<Integer> indexes = source.getIndexes();
 				for (Integer dataIndex : indexes) {
-					averages[averageIndex] += (dataList.get(i).getValue(dataIndex) * weight);
+					averages[averageIndex] += (dataList.getValue(i, dataIndex) * weight);
 					weights[averageIndex] += weight;
 					averageIndex++;
 				}
@@ -261,7 +261,7 @@ public abstract class PeriodIndicator extends Indicator {
 		}
 		Data data = new Data();
 		data.setData(averages);
-		data.setTime(indicatorSources.get(0).getDataList().get(index).getTime());
+		data.setTime(indicatorSources.get(0).getDataList().getTime(index));
 		return data;
 	}
 
@@ -283,6 +283,15 @@ public abstract class PeriodIndicator extends Indicator {
 		super(session);
 	}
 
+	/**
+	 * Returns the current value of the period parameter.
+	 * 
+	 * @return The period.
+	 */
+	protected int getPeriod() {
+		return getIndicatorInfo().getParameter(ParamPeriodName).getValue().getInteger();
+	}
+
 	/**
 	 * Returns a suitable period parameter.
 	 * 
@@ -385,13 +394,13 @@ public abstract class PeriodIndicator extends Indicator {
 			DataList dataList = source.getDataList();
 			List<Integer> indexes = source.getIndexes();
 			for (Integer dataIndex : indexes) {
-				values[valueIndex] += dataList.get(index).getValue(dataIndex);
+				values[valueIndex] += dataList.getValue(index, dataIndex);
 				valueIndex++;
 			}
 		}
 		Data data = new Data();
 		data.setData(values);
-		data.setTime(indicatorSources.get(0).getDataList().get(index).getTime());
+		data.setTime(indicatorSources.get(0).getDataList().getTime(index));
 		return data;
 	}
 }
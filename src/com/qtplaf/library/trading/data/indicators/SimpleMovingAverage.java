@@ -19,6 +19,7 @@ import com.qtplaf.library.app.Session;
 import com.qtplaf.library.trading.data.Data;
 import com.qtplaf.library.trading.data.DataList;
 import com.qtplaf.library.trading.data.IndicatorSource;
+import com.qtplaf.library.trading.data.IndicatorStream;
 import com.qtplaf.library.trading.data.info.IndicatorInfo;
 
 /**
@@ -92,4 +93,14 @@ public class SimpleMovingAverage extends PeriodIndicator {
 		}
 		return getSMA(this, index, indicatorSources, indicatorData, isOptimize());
 	}
+
+	/**
+	 * Returns a new stream that calculates this indicator bar by bar in a forward pass.
+	 * 
+	 * @return The indicator stream.
+	 */
+	@Override
+	public IndicatorStream createStream() {
+		return new SimpleMovingAverageStream(getNumIndexes(), getPeriod());
+	}
 }
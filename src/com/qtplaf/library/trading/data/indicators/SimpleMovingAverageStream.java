@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtplaf.library.trading.data.indicators;
+
+import java.util.Arrays;
+
+import com.qtplaf.library.trading.data.IndicatorStream;
+
+/**
+ * Streaming simple moving average, that keeps a running sum and a ring buffer of the last <i>period</i> values. While
+ * less than <i>period</i> bars have been processed, the average is that of the available bars.
+ * 
+ * @author Miquel Sas
+ */
+public class SimpleMovingAverageStream extends IndicatorStream {
+
+	/** Number of indexes. */
+	private int numIndexes;
+	/** The period. */
+	private int period;
+	/** Ring buffer of values, <i>numIndexes</i> values per bar. */
+	private double[] ring;
+	/** Running sums per index. */
+	private double[] sums;
+	/** Position in the ring of the next bar. */
+	private int position = 0;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param numIndexes The number of indexes.
+	 * @param period The period.
+	 */
+	public SimpleMovingAverageStream(int numIndexes, int period) {
+		super();
+		this.numIndexes = numIndexes;
+		this.period = period;
+		this.ring = new double[numIndexes * period];
+		this.sums = new double[numIndexes];
+	}
+
+	/**
+	 * Calculates the output values for the next bar.
+	 * 
+	 * @param values The source values.
+	 * @return The output values.
+	 */
+	@Override
+	protected double[] calculate(double[] values) {
+		boolean full = (getCount() >= period);
+		int offset = position * numIndexes;
+		for (int i = 0; i < numIndexes; i++) {
+			if (full) {
+				sums[i] -= ring[offset + i];
+			}
+			ring[offset + i] = values[i];
+			sums[i] += values[i];
+		}
+		position = (position + 1) % period;
+		int divisor = Math.min(getCount() + 1, period);
+		if (position == 0) {
+			// Recalculate sums once per period to avoid the accumulated rounding error.
+			Arrays.fill(sums, 0);
+			for (int p = 0; p < period; p++) {
+				for (int i = 0; i < numIndexes; i++) {
+					sums[i] += ring[(p * numIndexes) + i];
+				}
+			}
+		}
+		double[] averages = new double[numIndexes];
+		for (int i = 0; i < numIndexes; i++) {
+			averages[i] = sums[i] / divisor;
+		}
+		return averages;
+	}
+
+	/**
+	 * Clear the internal state.
+	 */
+	@Override
+	protected void clear() {
+		Arrays.fill(ring, 0);
+		Arrays.fill(sums, 0);
+		position = 0;
+	}
+}
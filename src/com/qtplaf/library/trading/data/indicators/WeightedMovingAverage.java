@@ -19,6 +19,7 @@ import com.qtplaf.library.app.Session;
 import com.qtplaf.library.trading.data.Data;
 import com.qtplaf.library.trading.data.DataList;
 import com.qtplaf.library.trading.data.IndicatorSource;
+import com.qtplaf.library.trading.data.IndicatorStream;
 import com.qtplaf.library.trading.data.info.IndicatorInfo;
 
 /**
@@ -69,4 +70,14 @@ public class WeightedMovingAverage extends PeriodIndicator {
 		}
 		return getWMA(this, index, indicatorSources, indicatorData);
 	}
+
+	/**
+	 * Returns a new stream that calculates this indicator bar by bar in a forward pass.
+	 * 
+	 * @return The indicator stream.
+	 */
+	@Override
+	public IndicatorStream createStream() {
+		return new WeightedMovingAverageStream(getNumIndexes(), getPeriod());
+	}
 }
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtplaf.library.trading.data.indicators;
+
+import java.util.Arrays;
+
+import com.qtplaf.library.trading.data.IndicatorStream;
+
+/**
+ * Streaming weighted moving average, with weights from 1 for the oldest bar to <i>period</i> for the newest. Keeps a
+ * ring buffer of the last <i>period</i> values, the plain sums and the weighted sums, so that each bar is added and the
+ * oldest removed without iterating the period.
+ * 
+ * @author Miquel Sas
+ */
+public class WeightedMovingAverageStream extends IndicatorStream {
+
+	/** Number of indexes. */
+	private int numIndexes;
+	/** The period. */
+	private int period;
+	/** Ring buffer of values, <i>numIndexes</i> values per bar. */
+	private double[] ring;
+	/** Plain sums per index. */
+	private double[] sums;
+	/** Weighted sums per index. */
+	private double[] weightedSums;
+	/** Position in the ring of the next bar. */
+	private int position = 0;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param numIndexes The number of indexes.
+	 * @param period The period.
+	 */
+	public WeightedMovingAverageStream(int numIndexes, int period) {
+		super();
+		this.numIndexes = numIndexes;
+		this.period = period;
+		this.ring = new double[numIndexes * period];
+		this.sums = new double[numIndexes];
+		this.weightedSums = new double[numIndexes];
+	}
+
+	/**
+	 * Calculates the output values for the next bar.
+	 * 
+	 * @param values The source values.
+	 * @return The output values.
+	 */
+	@Override
+	protected double[] calculate(double[] values) {
+		boolean full = (getCount() >= period);
+		int bars = Math.min(getCount() + 1, period);
+		int offset = position * numIndexes;
+		for (int i = 0; i < numIndexes; i++) {
+			if (full) {
+				// All weights decrease by one, the oldest goes out and the new value enters with the period weight.
+				weightedSums[i] = weightedSums[i] - sums[i] + (period * values[i]);
+				sums[i] = sums[i] - ring[offset + i] + values[i];
+			} else {
+				weightedSums[i] += bars * values[i];
+				sums[i] += values[i];
+			}
+			ring[offset + i] = values[i];
+		}
+		position = (position + 1) % period;
+		if (position == 0) {
+			// Recalculate sums once per period to avoid the accumulated rounding error. The oldest bar is at position.
+			Arrays.fill(sums, 0);
+			Arrays.fill(weightedSums, 0);
+			for (int p = 0; p < period; p++) {
+				for (int i = 0; i < numIndexes; i++) {
+					double value = ring[(p * numIndexes) + i];
+					sums[i] += value;
+					weightedSums[i] += (p + 1) * value;
+				}
+			}
+		}
+		double divisor = (bars * (bars + 1)) / 2.0;
+		double[] averages = new double[numIndexes];
+		for (int i = 0; i < numIndexes; i++) {
+			averages[i] = weightedSums[i] / divisor;
+		}
+		return averages;
+	}
+
+	/**
+	 * Clear the internal state.
+	 */
+	@Override
+	protected void clear() {
+		Arrays.fill(ring, 0);
+		Arrays.fill(sums, 0);
+		Arrays.fill(weightedSums, 0);
+		position = 0;
+	}
+}
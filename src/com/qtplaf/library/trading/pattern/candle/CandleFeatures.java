@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.qtplaf.library.trading.pattern.candle;
+
+import com.qtplaf.library.trading.data.Data;
+import com.qtplaf.library.trading.data.DataList;
+
+/**
+ * The per bar candle features of a range of a data list, calculated once into primitive arrays so that candle
+ * patterns check them without retrieving the data and deriving the same factors for every pattern. Features are
+ * accessed by the data list index, that must be in the range.
+ * 
+ * @author Miquel Sas
+ */
+public class CandleFeatures {
+
+	/** The first index of the range. */
+	private int startIndex;
+	/** The last index of the range. */
+	private int endIndex;
+	/** Bullish flags. */
+	private boolean[] bullish;
+	/** Range factors. */
+	private double[] rangeFactor;
+	/** Body factors. */
+	private double[] bodyFactor;
+	/** Body center factors. */
+	private double[] bodyCenterFactor;
+	/** Lower shadow factors. */
+	private double[] shadowLowerFactor;
+	/** Upper shadow factors. */
+	private double[] shadowUpperFactor;
+
+	/**
+	 * Constructor, calculating the features of the range with the factors of the candle pattern, that depend on its
+	 * range average and standard deviation.
+	 * 
+	 * @param pattern The candle pattern that calculates the factors.
+	 * @param dataList The data list.
+	 * @param startIndex The first index, included.
+	 * @param endIndex The last index, included.
+	 */
+	public CandleFeatures(CandlePattern pattern, DataList dataList, int startIndex, int endIndex) {
+		super();
+		this.startIndex = startIndex;
+		this.endIndex = endIndex;
+		int size = Math.max(0, endIndex - startIndex + 1);
+		bullish = new boolean[size];
+		rangeFactor = new double[size];
+		bodyFactor = new double[size];
+		bodyCenterFactor = new double[size];
+		shadowLowerFactor = new double[size];
+		shadowUpperFactor = new double[size];
+		for (int i = 0; i < size; i++) {
+			Data data = dataList.get(startIndex + i);
+			bullish[i] = pattern.isBullish(data);
+			rangeFactor[i] = pattern.getRangeFactor(data);
+			bodyFactor[i] = pattern.getBodyFactor(data);
+			bodyCenterFactor[i] = pattern.getBodyCenterFactor(data);
+			shadowLowerFactor[i] = pattern.getShadowLowerFactor(data);
+			shadowUpperFactor[i] = pattern.getShadowUpperFactor(data);
+		}
+	}
+
+	/**
+	 * Returns the first index of the range.
+	 * 
+	 * @return The first index.
+	 */
+	public int getStartIndex() {
+		return startIndex;
+	}
+
+	/**
+	 * Returns the last index of the range.
+	 * 
+	 * @return The last index.
+	 */
+	public int getEndIndex() {
+		return endIndex;
+	}
+
+	/**
+	 * Check bullish.
+	 * 
+	 * @param index The data list index.
+	 * @return A boolean.
+	 */
+	public boolean isBullish(int index) {
+		return bullish[index - startIndex];
+	}
+
+	/**
+	 * Check bearish.
+	 * 
+	 * @param index The data list index.
+	 * @return A boolean.
+	 */
+	public boolean isBearish(int index) {
+		return !bullish[index - startIndex];
+	}
+
+	/**
+	 * Returns the range factor.
+	 * 
+	 * @param index The data list index.
+	 * @return The range factor.
+	 */
+	public double getRangeFactor(int index) {
+		return rangeFactor[index - startIndex];
+	}
+
+	/**
+	 * Returns the body factor.
+	 * 
+	 * @param index The data list index.
+	 * @return The body factor.
+	 */
+	public double getBodyFactor(int index) {
+		return bodyFactor[index - startIndex];
+	}
+
+	/**
+	 * Returns the body center factor.
+	 * 
+	 * @param index The data list index.
+	 * @return The body center factor.
+	 */
+	public double getBodyCenterFactor(int index) {
+		return bodyCenterFactor[index - startIndex];
+	}
+
+	/**
+	 * Returns the lower shadow factor.
+	 * 
+	 * @param index The data list index.
+	 * @return The lower shadow factor.
+	 */
+	public double getShadowLowerFactor(int index) {
+		return shadowLowerFactor[index - startIndex];
+	}
+
+	/**
+	 * Returns the upper shadow factor.
+	 * 
+	 * @param index The data list index.
+	 * @return The upper shadow factor.
+	 */
+	public double getShadowUpperFactor(int index) {
+		return shadowUpperFactor[index - startIndex];
+	}
+}
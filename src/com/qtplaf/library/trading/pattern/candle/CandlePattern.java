@@ -36,6 +36,10 @@ import com.qtplaf.library.util.list.ListUtils;
  * The fuzzy control to determine sizes and positions is configured pretty simple, big, medium, smal and top, middle,
  * bottom. For further detail about the position within a segment, the segment factor can be used again through the
  * control.
+ * <p>
+ * Patterns check the per bar features of a <tt>CandleFeatures</tt>. The check at a single index of a data list
+ * calculates the features of the look backward window, while the <tt>CandleScanner</tt> calculates them once for a
+ * whole range and checks all the patterns.
  *
  * @author Miquel Sas
  */
@@ -105,11 +109,22 @@ public abstract class CandlePattern extends Pattern {
 			addSegment(segments, Size.MediumBig, 0.75, 1);
 			addSegment(segments, Size.Big, 0.90, 1);
 			addSegment(segments, Size.VeryBig, 1.00, 1);
-			control = new Control(segments);
+			Control control = new Control(segments);
+			resolveLabels(control);
+			this.control = control;
 		}
 		return control;
 	}
 
+	/**
+	 * Resolve the segment indexes of the labels that the pattern checks, called once when the control is built, so that
+	 * checks use the overloads by segment index and do not look up labels. By default does nothing.
+	 * 
+	 * @param control The fuzzy control.
+	 */
+	protected void resolveLabels(Control control) {
+	}
+
 	/**
 	 * Convenience method to build the list of segments.
 	 * 
@@ -162,6 +177,30 @@ public abstract class CandlePattern extends Pattern {
 		this.rangeStdDev = rangeStdDev;
 	}
 
+	/**
+	 * Check if the pattern can be identified at the current data and index, calculating the features of the look
+	 * backward window.
+	 * 
+	 * @param dataList The data list.
+	 * @param index The current index.
+	 * @return A boolean indicating that the pattern has been identified.
+	 */
+	@Override
+	public boolean isPattern(DataList dataList, int index) {
+		int startIndex = Math.max(0, index - Math.max(0, getLookBackward()));
+		return isPattern(new CandleFeatures(this, dataList, startIndex, index), index);
+	}
+
+	/**
+	 * Check if the pattern can be identified at the index, given the candle features of a range that contains the
+	 * index and the look backward bars.
+	 * 
+	 * @param features The candle features.
+	 * @param index The current index.
+	 * @return A boolean indicating that the pattern has been identified.
+	 */
+	public abstract boolean isPattern(CandleFeatures features, int index);
+
 	/**
 	 * Convenience method to check a pattern from anothe pattern.
 	 * 
@@ -0,0 +1,286 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.qtplaf.library.trading.pattern.candle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.qtplaf.library.trading.data.DataList;
+import com.qtplaf.library.trading.pattern.candle.patterns.BigBearish;
+import com.qtplaf.library.trading.pattern.candle.patterns.BigBullish;
+import com.qtplaf.library.trading.pattern.candle.patterns.BigDoji;
+import com.qtplaf.library.trading.pattern.candle.patterns.BigPiercingBullish;
+import com.qtplaf.library.trading.pattern.candle.patterns.BigShadowLower;
+import com.qtplaf.library.trading.pattern.candle.patterns.BigShadowUpper;
+import com.qtplaf.library.trading.pattern.candle.patterns.BigSpinning;
+import com.qtplaf.library.trading.pattern.candle.patterns.MediumDoji;
+import com.qtplaf.library.trading.pattern.candle.patterns.MediumSpinning;
+import com.qtplaf.library.trading.pattern.candle.patterns.SmallDoji;
+import com.qtplaf.library.trading.pattern.candle.patterns.SmallSpinning;
+import com.qtplaf.library.trading.pattern.candle.patterns.VeryBigBearish;
+import com.qtplaf.library.trading.pattern.candle.patterns.VeryBigBullish;
+
+/**
+ * Scans a range of a data list for a set of candle patterns in one pass. The candle features of the range are
+ * calculated once, reading each data element only once, and all the patterns are checked on them, optionally splitting
+ * the range in sub-ranges checked in parallel. Matches are returned in index order and, within an index, in the order
+ * of the patterns, the same order of checking the patterns one by one at each index.
+ * <p>
+ * All the patterns share the range average and standard deviation of the scanner, because the features are calculated
+ * once for all of them.
+ * 
+ * @author Miquel Sas
+ */
+public class CandleScanner {
+
+	/**
+	 * A pattern identified at an index.
+	 */
+	public static class Match {
+		/** The index. */
+		private int index;
+		/** The pattern. */
+		private CandlePattern pattern;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param index The index.
+		 * @param pattern The pattern.
+		 */
+		public Match(int index, CandlePattern pattern) {
+			super();
+			this.index = index;
+			this.pattern = pattern;
+		}
+
+		/**
+		 * Returns the index.
+		 * 
+		 * @return The index.
+		 */
+		public int getIndex() {
+			return index;
+		}
+
+		/**
+		 * Returns the pattern.
+		 * 
+		 * @return The pattern.
+		 */
+		public CandlePattern getPattern() {
+			return pattern;
+		}
+	}
+
+	/**
+	 * Returns a list with an instance of all the candle patterns.
+	 * 
+	 * @return The list of patterns.
+	 */
+	public static List<CandlePattern> getAllPatterns() {
+		List<CandlePattern> patterns = new ArrayList<>();
+		patterns.add(new VeryBigBearish());
+		patterns.add(new VeryBigBullish());
+		patterns.add(new BigBearish());
+		patterns.add(new BigBullish());
+		patterns.add(new SmallSpinning());
+		patterns.add(new MediumSpinning());
+		patterns.add(new BigSpinning());
+		patterns.add(new SmallDoji());
+		patterns.add(new MediumDoji());
+		patterns.add(new BigDoji());
+		patterns.add(new BigShadowLower());
+		patterns.add(new BigShadowUpper());
+		patterns.add(new BigPiercingBullish());
+		return patterns;
+	}
+
+	/** The list of patterns. */
+	private List<CandlePattern> patterns = new ArrayList<>();
+	/** The maximum look backward of the patterns. */
+	private int lookBackward;
+	/** The number of sub-ranges checked in parallel. */
+	private int parallelism = 1;
+	/** Executor of sub-ranges, created when necessary. */
+	private ExecutorService executor;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param patterns The list of patterns to scan.
+	 */
+	public CandleScanner(List<CandlePattern> patterns) {
+		super();
+		if (patterns.isEmpty()) {
+			throw new IllegalArgumentException("At least one pattern is required");
+		}
+		this.patterns.addAll(patterns);
+		for (CandlePattern pattern : patterns) {
+			lookBackward = Math.max(lookBackward, pattern.getLookBackward());
+		}
+	}
+
+	/**
+	 * Returns the list of patterns.
+	 * 
+	 * @return The list of patterns.
+	 */
+	public List<CandlePattern> getPatterns() {
+		return patterns;
+	}
+
+	/**
+	 * Returns the maximum look backward of the patterns.
+	 * 
+	 * @return The look backward.
+	 */
+	public int getLookBackward() {
+		return lookBackward;
+	}
+
+	/**
+	 * Set the range average and standard deviation to all the patterns.
+	 * 
+	 * @param rangeAverage The range average.
+	 * @param rangeStdDev The range standard deviation.
+	 */
+	public void setRange(double rangeAverage, double rangeStdDev) {
+		for (CandlePattern pattern : patterns) {
+			pattern.setRangeAverage(rangeAverage);
+			pattern.setRangeStdDev(rangeStdDev);
+		}
+	}
+
+	/**
+	 * Set the number of sub-ranges checked in parallel.
+	 * 
+	 * @param parallelism The parallelism, one to check in the calling thread.
+	 */
+	public void setParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be at least 1");
+		}
+		if (parallelism != this.parallelism && executor != null) {
+			executor.shutdown();
+			executor = null;
+		}
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Returns the candle features of a range and the look backward bars before it.
+	 * 
+	 * @param dataList The data list.
+	 * @param startIndex The first index, included.
+	 * @param endIndex The last index, included.
+	 * @return The features.
+	 */
+	public CandleFeatures getFeatures(DataList dataList, int startIndex, int endIndex) {
+		int start = Math.max(0, startIndex - lookBackward);
+		return new CandleFeatures(patterns.get(0), dataList, start, endIndex);
+	}
+
+	/**
+	 * Scan a range of the data list.
+	 * 
+	 * @param dataList The data list.
+	 * @param startIndex The first index, included.
+	 * @param endIndex The last index, included.
+	 * @return The list of matches.
+	 */
+	public List<Match> scan(DataList dataList, int startIndex, int endIndex) {
+		return scan(getFeatures(dataList, startIndex, endIndex), startIndex, endIndex);
+	}
+
+	/**
+	 * Scan a range given the candle features, that must include the look backward bars before the range.
+	 * 
+	 * @param features The candle features.
+	 * @param startIndex The first index, included.
+	 * @param endIndex The last index, included.
+	 * @return The list of matches.
+	 */
+	public List<Match> scan(CandleFeatures features, int startIndex, int endIndex) {
+		// Ensure the lazy fuzzy controls are built before checking in parallel.
+		for (CandlePattern pattern : patterns) {
+			pattern.getControl();
+		}
+		int size = endIndex - startIndex + 1;
+		if (parallelism == 1 || size < parallelism * 2) {
+			return check(features, startIndex, endIndex);
+		}
+		List<Callable<List<Match>>> callables = new ArrayList<>();
+		int chunk = (size + parallelism - 1) / parallelism;
+		for (int start = startIndex; start <= endIndex; start += chunk) {
+			int from = start;
+			int to = Math.min(endIndex, start + chunk - 1);
+			callables.add(() -> check(features, from, to));
+		}
+		List<Match> matches = new ArrayList<>();
+		try {
+			for (Future<List<Match>> future : getExecutor().invokeAll(callables)) {
+				matches.addAll(future.get());
+			}
+		} catch (InterruptedException exc) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(exc);
+		} catch (ExecutionException exc) {
+			throw new IllegalStateException(exc.getCause());
+		}
+		return matches;
+	}
+
+	/**
+	 * Check all the patterns in a range.
+	 * 
+	 * @param features The candle features.
+	 * @param startIndex The first index, included.
+	 * @param endIndex The last index, included.
+	 * @return The list of matches.
+	 */
+	private List<Match> check(CandleFeatures features, int startIndex, int endIndex) {
+		List<Match> matches = new ArrayList<>();
+		for (int index = startIndex; index <= endIndex; index++) {
+			for (int i = 0; i < patterns.size(); i++) {
+				CandlePattern pattern = patterns.get(i);
+				if (pattern.isPattern(features, index)) {
+					matches.add(new Match(index, pattern));
+				}
+			}
+		}
+		return matches;
+	}
+
+	/**
+	 * Returns the executor of sub-ranges, creating it if necessary.
+	 * 
+	 * @return The executor.
+	 */
+	private ExecutorService getExecutor() {
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+				Thread thread = new Thread(runnable, "Candle scanner");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		return executor;
+	}
+}
@@ -15,8 +15,8 @@
 package com.qtplaf.library.trading.pattern.candle.patterns;
 
 import com.qtplaf.library.ai.fuzzy.Control;
-import com.qtplaf.library.trading.data.Data;
-import com.qtplaf.library.trading.data.DataList;
+import com.qtplaf.library.ai.fuzzy.Segment;
+import com.qtplaf.library.trading.pattern.candle.CandleFeatures;
 import com.qtplaf.library.trading.pattern.candle.CandlePattern;
 
 /**
@@ -26,6 +26,23 @@ import com.qtplaf.library.trading.pattern.candle.CandlePattern;
  */
 public class BigDoji extends CandlePattern {
 
+	/**
+	 * Segment index of the minimum range size, medium big.
+	 */
+	private int rangeMinimum;
+	/**
+	 * Segment index of the maximum body size, very small.
+	 */
+	private int bodyMaximum;
+	/**
+	 * The very small size segment.
+	 */
+	private Segment segmentVerySmall;
+	/**
+	 * Segment indexes of the body center positions, middle down, middle and middle up.
+	 */
+	private int[] centerPositions;
+
 	/**
 	 * Constructor.
 	 */
@@ -37,24 +54,39 @@ public class BigDoji extends CandlePattern {
 		setLookBackward(1);
 	}
 
+	/**
+	 * Resolve the segment indexes of the labels checked.
+	 * 
+	 * @param control The fuzzy control.
+	 */
+	@Override
+	protected void resolveLabels(Control control) {
+		rangeMinimum = control.getIndex(Size.MediumBig);
+		bodyMaximum = control.getIndex(Size.VerySmall);
+		segmentVerySmall = control.getSegment(Size.VerySmall);
+		centerPositions = new int[] {
+			control.getIndex(Position.MiddleDown),
+			control.getIndex(Position.Middle),
+			control.getIndex(Position.MiddleUp) };
+	}
+
 	/**
 	 * Check if the pattern can be identified at the current data and index.
 	 * 
-	 * @param dataList The data list.
+	 * @param features The candle features.
 	 * @param index The current index.
 	 * @return A boolean indicating that the pattern has been identified.
 	 */
 	@Override
-	public boolean isPattern(DataList dataList, int index) {
-		Data data = dataList.get(index);
+	public boolean isPattern(CandleFeatures features, int index) {
 		Control control = getControl();
-		double rangeFactor = getRangeFactor(data);
-		double bodyFactor = getBodyFactor(data);
-		double bodyCenter = getBodyCenterFactor(data);
-		if (control.checkGE(rangeFactor, Size.MediumBig)) {
-			if (control.checkLE(bodyFactor, Size.VerySmall)) {
-				if (control.getSegment(Size.VerySmall).getFactor(bodyFactor) >= 0.5) {
-					if (control.checkIn(bodyCenter, Position.MiddleDown, Position.Middle, Position.MiddleUp)) {
+		double rangeFactor = features.getRangeFactor(index);
+		double bodyFactor = features.getBodyFactor(index);
+		double bodyCenter = features.getBodyCenterFactor(index);
+		if (control.checkGE(rangeFactor, rangeMinimum)) {
+			if (control.checkLE(bodyFactor, bodyMaximum)) {
+				if (segmentVerySmall.getFactor(bodyFactor) >= 0.5) {
+					if (control.checkIn(bodyCenter, centerPositions)) {
 						return true;
 					}
 				}
@@ -15,8 +15,7 @@
 package com.qtplaf.library.trading.pattern.candle.patterns;
 
 import com.qtplaf.library.ai.fuzzy.Control;
-import com.qtplaf.library.trading.data.Data;
-import com.qtplaf.library.trading.data.DataList;
+import com.qtplaf.library.trading.pattern.candle.CandleFeatures;
 import com.qtplaf.library.trading.pattern.candle.CandlePattern;
 
 /**
@@ -40,12 +39,12 @@ public class BigPiercingBullish extends CandlePattern {
 	/**
 	 * Check if the pattern can be identified at the current data and index.
 	 * 
-	 * @param dataList The data list.
+	 * @param features The candle features.
 	 * @param index The current index.
 	 * @return A boolean indicating that the pattern has been identified.
 	 */
 	@Override
-	public boolean isPattern(DataList dataList, int index) {
+	public boolean isPattern(CandleFeatures features, int index) {
 
 		// Index 0 no sense.
 		if (index == 0) {
@@ -55,21 +54,17 @@ public class BigPiercingBullish extends CandlePattern {
 		// Fuzzy control.
 		Control control = getControl();
 		
-		// Previous and current candles
-		Data dataPrev = dataList.get(index - 1);
-		Data dataCurr = dataList.get(index);
-		
 		// Previous bearish and current bullish.
-		if (!isBearish(dataPrev) || !isBullish(dataCurr)) {
+		if (!features.isBearish(index - 1) || !features.isBullish(index)) {
 			return false;
 		}
 		
 		// Check sizes GE 0.5 max range
-		double rangeFactorPrev = getRangeFactor(dataPrev);
+		double rangeFactorPrev = features.getRangeFactor(index - 1);
 		if (control.getFactor(rangeFactorPrev) < 0.5) {
 			return false;
 		}
-		double rangeFactorCurr = getRangeFactor(dataCurr);
+		double rangeFactorCurr = features.getRangeFactor(index);
 		if (control.getFactor(rangeFactorCurr) < 0.5) {
 			return false;
 		}
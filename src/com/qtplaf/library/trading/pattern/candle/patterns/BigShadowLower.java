@@ -15,8 +15,7 @@
 package com.qtplaf.library.trading.pattern.candle.patterns;
 
 import com.qtplaf.library.ai.fuzzy.Control;
-import com.qtplaf.library.trading.data.Data;
-import com.qtplaf.library.trading.data.DataList;
+import com.qtplaf.library.trading.pattern.candle.CandleFeatures;
 import com.qtplaf.library.trading.pattern.candle.CandlePattern;
 
 /**
@@ -26,6 +25,15 @@ import com.qtplaf.library.trading.pattern.candle.CandlePattern;
  */
 public class BigShadowLower extends CandlePattern {
 
+	/**
+	 * Segment index of the maximum body size, medium small.
+	 */
+	private int bodyMaximum;
+	/**
+	 * Segment index of the minimum body center position, middle up.
+	 */
+	private int centerMinimum;
+
 	/**
 	 * Constructor.
 	 */
@@ -37,23 +45,33 @@ public class BigShadowLower extends CandlePattern {
 		setLookBackward(1);
 	}
 
+	/**
+	 * Resolve the segment indexes of the labels checked.
+	 * 
+	 * @param control The fuzzy control.
+	 */
+	@Override
+	protected void resolveLabels(Control control) {
+		bodyMaximum = control.getIndex(Size.MediumSmall);
+		centerMinimum = control.getIndex(Position.MiddleUp);
+	}
+
 	/**
 	 * Check if the pattern can be identified at the current data and index.
 	 * 
-	 * @param dataList The data list.
+	 * @param features The candle features.
 	 * @param index The current index.
 	 * @return A boolean indicating that the pattern has been identified.
 	 */
 	@Override
-	public boolean isPattern(DataList dataList, int index) {
-		Data data = dataList.get(index);
+	public boolean isPattern(CandleFeatures features, int index) {
 		Control control = getControl();
-		double rangeFactor = getRangeFactor(data);
-		double bodyFactor = getBodyFactor(data);
-		double bodyCenter = getBodyCenterFactor(data);
+		double rangeFactor = features.getRangeFactor(index);
+		double bodyFactor = features.getBodyFactor(index);
+		double bodyCenter = features.getBodyCenterFactor(index);
 		if (control.getFactor(rangeFactor) >= 0.5) {
-			if (control.checkLE(bodyFactor, Size.MediumSmall)) {
-				if (control.checkGE(bodyCenter, Position.MiddleUp)) {
+			if (control.checkLE(bodyFactor, bodyMaximum)) {
+				if (control.checkGE(bodyCenter, centerMinimum)) {
 					return true;
 				}
 			}
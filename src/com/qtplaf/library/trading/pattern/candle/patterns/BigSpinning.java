@@ -15,8 +15,8 @@
 package com.qtplaf.library.trading.pattern.candle.patterns;
 
 import com.qtplaf.library.ai.fuzzy.Control;
-import com.qtplaf.library.trading.data.Data;
-import com.qtplaf.library.trading.data.DataList;
+import com.qtplaf.library.ai.fuzzy.Segment;
+import com.qtplaf.library.trading.pattern.candle.CandleFeatures;
 import com.qtplaf.library.trading.pattern.candle.CandlePattern;
 
 /**
@@ -26,6 +26,27 @@ import com.qtplaf.library.trading.pattern.candle.CandlePattern;
  */
 public class BigSpinning extends CandlePattern {
 
+	/**
+	 * Segment index of the range size, big.
+	 */
+	private int rangeSize;
+	/**
+	 * Segment indexes of the body sizes, small and very small.
+	 */
+	private int[] bodySizes;
+	/**
+	 * The small size segment.
+	 */
+	private Segment segmentSmall;
+	/**
+	 * The very small size segment.
+	 */
+	private Segment segmentVerySmall;
+	/**
+	 * Segment index of the body center position, middle.
+	 */
+	private int centerPosition;
+
 	/**
 	 * Constructor.
 	 */
@@ -37,25 +58,38 @@ public class BigSpinning extends CandlePattern {
 		setLookBackward(1);
 	}
 
+	/**
+	 * Resolve the segment indexes of the labels checked.
+	 * 
+	 * @param control The fuzzy control.
+	 */
+	@Override
+	protected void resolveLabels(Control control) {
+		rangeSize = control.getIndex(Size.Big);
+		bodySizes = new int[] { control.getIndex(Size.Small), control.getIndex(Size.VerySmall) };
+		segmentSmall = control.getSegment(Size.Small);
+		segmentVerySmall = control.getSegment(Size.VerySmall);
+		centerPosition = control.getIndex(Position.Middle);
+	}
+
 	/**
 	 * Check if the pattern can be identified at the current data and index.
 	 * 
-	 * @param dataList The data list.
+	 * @param features The candle features.
 	 * @param index The current index.
 	 * @return A boolean indicating that the pattern has been identified.
 	 */
 	@Override
-	public boolean isPattern(DataList dataList, int index) {
-		Data data = dataList.get(index);
+	public boolean isPattern(CandleFeatures features, int index) {
 		Control control = getControl();
-		double rangeFactor = getRangeFactor(data);
-		double bodyFactor = getBodyFactor(data);
-		double bodyCenter = getBodyCenterFactor(data);
-		if (control.checkEQ(rangeFactor, Size.Big)) {
-			if (control.checkIn(bodyFactor, Size.Small, Size.VerySmall)) {
-				if (control.getSegment(Size.Small).getFactor(bodyFactor) >= 0.5) {
-					if (control.getSegment(Size.VerySmall).getFactor(bodyFactor) <= 0.5) {
-						if (control.checkEQ(bodyCenter, Position.Middle)) {
+		double rangeFactor = features.getRangeFactor(index);
+		double bodyFactor = features.getBodyFactor(index);
+		double bodyCenter = features.getBodyCenterFactor(index);
+		if (control.checkEQ(rangeFactor, rangeSize)) {
+			if (control.checkIn(bodyFactor, bodySizes)) {
+				if (segmentSmall.getFactor(bodyFactor) >= 0.5) {
+					if (segmentVerySmall.getFactor(bodyFactor) <= 0.5) {
+						if (control.checkEQ(bodyCenter, centerPosition)) {
 							return true;
 						}
 					}
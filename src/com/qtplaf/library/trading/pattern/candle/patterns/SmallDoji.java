@@ -15,8 +15,7 @@
 package com.qtplaf.library.trading.pattern.candle.patterns;
 
 import com.qtplaf.library.ai.fuzzy.Control;
-import com.qtplaf.library.trading.data.Data;
-import com.qtplaf.library.trading.data.DataList;
+import com.qtplaf.library.trading.pattern.candle.CandleFeatures;
 import com.qtplaf.library.trading.pattern.candle.CandlePattern;
 
 /**
@@ -26,6 +25,19 @@ import com.qtplaf.library.trading.pattern.candle.CandlePattern;
  */
 public class SmallDoji extends CandlePattern {
 
+	/**
+	 * Segment index of the maximum range size, very small.
+	 */
+	private int rangeMaximum;
+	/**
+	 * Segment index of the maximum body size, small.
+	 */
+	private int bodyMaximum;
+	/**
+	 * Segment indexes of the body center positions, middle down, middle and middle up.
+	 */
+	private int[] centerPositions;
+
 	/**
 	 * Constructor.
 	 */
@@ -37,23 +49,37 @@ public class SmallDoji extends CandlePattern {
 		setLookBackward(1);
 	}
 
+	/**
+	 * Resolve the segment indexes of the labels checked.
+	 * 
+	 * @param control The fuzzy control.
+	 */
+	@Override
+	protected void resolveLabels(Control control) {
+		rangeMaximum = control.getIndex(Size.VerySmall);
+		bodyMaximum = control.getIndex(Size.Small);
+		centerPositions = new int[] {
+			control.getIndex(Position.MiddleDown),
+			control.getIndex(Position.Middle),
+			control.getIndex(Position.MiddleUp) };
+	}
+
 	/**
 	 * Check if the pattern can be identified at the current data and index.
 	 * 
-	 * @param dataList The data list.
+	 * @param features The candle features.
 	 * @param index The current index.
 	 * @return A boolean indicating that the pattern has been identified.
 	 */
 	@Override
-	public boolean isPattern(DataList dataList, int index) {
-		Data data = dataList.get(index);
+	public boolean isPattern(CandleFeatures features, int index) {
 		Control control = getControl();
-		double rangeFactor = getRangeFactor(data);
-		double bodyFactor = getBodyFactor(data);
-		double bodyCenter = getBodyCenterFactor(data);
-		if (control.checkLE(rangeFactor, Size.VerySmall)) {
-			if (control.checkLE(bodyFactor, Size.Small)) {
-				if (control.checkIn(bodyCenter, Position.MiddleDown, Position.Middle, Position.MiddleUp)) {
+		double rangeFactor = features.getRangeFactor(index);
+		double bodyFactor = features.getBodyFactor(index);
+		double bodyCenter = features.getBodyCenterFactor(index);
+		if (control.checkLE(rangeFactor, rangeMaximum)) {
+			if (control.checkLE(bodyFactor, bodyMaximum)) {
+				if (control.checkIn(bodyCenter, centerPositions)) {
 					return true;
 				}
 			}
@@ -15,8 +15,7 @@
 package com.qtplaf.library.trading.pattern.candle.patterns;
 
 import com.qtplaf.library.ai.fuzzy.Control;
-import com.qtplaf.library.trading.data.Data;
-import com.qtplaf.library.trading.data.DataList;
+import com.qtplaf.library.trading.pattern.candle.CandleFeatures;
 import com.qtplaf.library.trading.pattern.candle.CandlePattern;
 
 /**
@@ -26,6 +25,19 @@ import com.qtplaf.library.trading.pattern.candle.CandlePattern;
  */
 public class SmallSpinning extends CandlePattern {
 
+	/**
+	 * Segment index of the maximum range size, very small.
+	 */
+	private int rangeMaximum;
+	/**
+	 * Segment index of the minimum body size, medium.
+	 */
+	private int bodyMinimum;
+	/**
+	 * Segment index of the body center position, middle.
+	 */
+	private int centerPosition;
+
 	/**
 	 * Constructor.
 	 */
@@ -37,23 +49,34 @@ public class SmallSpinning extends CandlePattern {
 		setLookBackward(1);
 	}
 
+	/**
+	 * Resolve the segment indexes of the labels checked.
+	 * 
+	 * @param control The fuzzy control.
+	 */
+	@Override
+	protected void resolveLabels(Control control) {
+		rangeMaximum = control.getIndex(Size.VerySmall);
+		bodyMinimum = control.getIndex(Size.Medium);
+		centerPosition = control.getIndex(Position.Middle);
+	}
+
 	/**
 	 * Check if the pattern can be identified at the current data and index.
 	 * 
-	 * @param dataList The data list.
+	 * @param features The candle features.
 	 * @param index The current index.
 	 * @return A boolean indicating that the pattern has been identified.
 	 */
 	@Override
-	public boolean isPattern(DataList dataList, int index) {
-		Data data = dataList.get(index);
+	public boolean isPattern(CandleFeatures features, int index) {
 		Control control = getControl();
-		double rangeFactor = getRangeFactor(data);
-		double bodyFactor = getBodyFactor(data);
-		double bodyCenter = getBodyCenterFactor(data);
-		if (control.checkLE(rangeFactor, Size.VerySmall)) {
-			if (control.checkGE(bodyFactor, Size.Medium)) {
-				if (control.checkEQ(bodyCenter, Position.Middle)) {
+		double rangeFactor = features.getRangeFactor(index);
+		double bodyFactor = features.getBodyFactor(index);
+		double bodyCenter = features.getBodyCenterFactor(index);
+		if (control.checkLE(rangeFactor, rangeMaximum)) {
+			if (control.checkGE(bodyFactor, bodyMinimum)) {
+				if (control.checkEQ(bodyCenter, centerPosition)) {
 					return true;
 				}
 			}
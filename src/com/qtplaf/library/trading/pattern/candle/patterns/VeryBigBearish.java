@@ -15,8 +15,7 @@
 package com.qtplaf.library.trading.pattern.candle.patterns;
 
 import com.qtplaf.library.ai.fuzzy.Control;
-import com.qtplaf.library.trading.data.Data;
-import com.qtplaf.library.trading.data.DataList;
+import com.qtplaf.library.trading.pattern.candle.CandleFeatures;
 import com.qtplaf.library.trading.pattern.candle.CandlePattern;
 
 /**
@@ -26,6 +25,11 @@ import com.qtplaf.library.trading.pattern.candle.CandlePattern;
  */
 public class VeryBigBearish extends CandlePattern {
 
+	/**
+	 * Segment index of the range size, very big.
+	 */
+	private int rangeSize;
+
 	/**
 	 * Constructor.
 	 */
@@ -37,21 +41,30 @@ public class VeryBigBearish extends CandlePattern {
 		setLookBackward(1);
 	}
 
+	/**
+	 * Resolve the segment indexes of the labels checked.
+	 * 
+	 * @param control The fuzzy control.
+	 */
+	@Override
+	protected void resolveLabels(Control control) {
+		rangeSize = control.getIndex(Size.VeryBig);
+	}
+
 	/**
 	 * Check if the pattern can be identified at the current data and index.
 	 * 
-	 * @param dataList The data list.
+	 * @param features The candle features.
 	 * @param index The current index.
 	 * @return A boolean indicating that the pattern has been identified.
 	 */
 	@Override
-	public boolean isPattern(DataList dataList, int index) {
-		Data data = dataList.get(index);
+	public boolean isPattern(CandleFeatures features, int index) {
 		Control control = getControl();
-		double rangeFactor = getRangeFactor(data);
-		double bodyFactor = getBodyFactor(data);
-		if (isBearish(data)) {
-			if (control.checkIn(rangeFactor, Size.VeryBig)) {
+		double rangeFactor = features.getRangeFactor(index);
+		double bodyFactor = features.getBodyFactor(index);
+		if (features.isBearish(index)) {
+			if (control.checkEQ(rangeFactor, rangeSize)) {
 				if (control.getFactor(bodyFactor) >= 0.5) {
 					return true;
 				}
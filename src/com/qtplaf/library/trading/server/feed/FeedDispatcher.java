@@ -1,20 +1,27 @@
 /*
  * Copyright (C) 2015 Miquel Sas
- *
+ * 
  * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
  * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
  * version.
- *
+ * 
  * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
  * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
- *
+ * 
  * You should have received a copy of the GNU General Public License along with this program. If not, see
  * <http://www.gnu.org/licenses/>.
  */
 package com.qtplaf.library.trading.server.feed;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 import com.qtplaf.library.trading.data.Data;
 import com.qtplaf.library.trading.data.Instrument;
@@ -22,64 +29,122 @@ import com.qtplaf.library.trading.data.Period;
 import com.qtplaf.library.trading.data.Tick;
 import com.qtplaf.library.trading.server.OfferSide;
 import com.qtplaf.library.trading.server.ServerException;
+import com.qtplaf.library.util.list.RingBuffer;
 
 /**
  * A feed event dispatcher that runs in a separated thread and is aimed to dispatch feed events, like Data or tick
  * data, without blocking the input from the server, because listener implementation may delay significantly when
  * processing event.
+ * <p>
+ * Events are queued in lock-free multiple producers single consumer ring buffers, one per kind of event, and the
+ * dispatcher thread parks while there are no events instead of spinning. Listeners are reached through a routing
+ * index by instrument, period and offer side, rebuilt when listeners are added or removed, so each event is only
+ * delivered to its subscribers. If the subscriptions of a registered listener change, <i>refreshRouting()</i> must be
+ * called.
+ * <p>
+ * Optionally, current data and tick events can be conflated: while an event waits to be dispatched, newer events of
+ * the same instrument, period and offer side (current data) or of the same instrument (ticks) replace it, so slow
+ * listeners receive the latest state instead of a growing backlog. The conflation queue holds one entry per key and is
+ * bounded. Completed data events are never conflated. The lag of each listener, time from the oldest update replaced
+ * until delivery, and the number of updates conflated are tracked per listener.
  * 
  * @author Miquel Sas
  */
 public class FeedDispatcher implements Runnable {
 
 	/**
-	 * Input buffer for current Data data events.
+	 * Default capacity of each ring buffer.
+	 */
+	public static final int DEFAULT_CAPACITY = 65536;
+	/**
+	 * Maximum nanos to park the dispatcher thread while idle, so that stop is checked even if an unpark is missed.
+	 */
+	private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+	/**
+	 * Nanos a producer parks when the buffer is full, waiting for the dispatcher to make room.
+	 */
+	private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+	/**
+	 * Empty array of listeners.
 	 */
-	private List<DataEvent> inputCurrentDataEvents = new ArrayList<>();
+	private static final FeedListener[] NO_LISTENERS = new FeedListener[0];
+
 	/**
-	 * Input lock for current Data data events.
+	 * Ring buffer for current data events.
 	 */
-	private Object inputCurrentDataLock = new Object();
+	private RingBuffer<DataEvent> currentDataEvents;
 	/**
-	 * Input buffer for completed Data data events.
+	 * Ring buffer for completed data events.
 	 */
-	private List<DataEvent> inputDataEvents = new ArrayList<>();
+	private RingBuffer<DataEvent> dataEvents;
 	/**
-	 * Input lock for completed price data events.
+	 * Ring buffer for tick data events.
 	 */
-	private Object inputDataLock = new Object();
+	private RingBuffer<TickEvent> tickEvents;
 	/**
-	 * Input buffer for tick data events.
+	 * A boolean that indicates whether current data and tick events are conflated.
 	 */
-	private List<TickEvent> inputTickEvents = new ArrayList<>();
+	private volatile boolean conflation = false;
 	/**
-	 * Input lock for tick data events.
+	 * Latest pending current data event by instrument, period and offer side, when conflating.
 	 */
-	private Object inputTickLock = new Object();
+	private ConcurrentHashMap<DataKey, Conflated<DataEvent>> conflatedCurrentData = new ConcurrentHashMap<>();
 	/**
-	 * Output buffer for current price data events.
+	 * Keys of pending current data events in arrival order, when conflating.
 	 */
-	private List<DataEvent> outputCurrentDataEvents = new ArrayList<>();
+	private RingBuffer<DataKey> conflatedCurrentDataKeys;
 	/**
-	 * Output buffer for completed price data events.
+	 * Latest pending tick event by instrument id, when conflating.
 	 */
-	private List<DataEvent> outputDataEvents = new ArrayList<>();
+	private ConcurrentHashMap<String, Conflated<TickEvent>> conflatedTicks = new ConcurrentHashMap<>();
 	/**
-	 * Output buffer for tick data events.
+	 * Keys of pending tick events in arrival order, when conflating.
 	 */
-	private List<TickEvent> outputTickEvents = new ArrayList<>();
+	private RingBuffer<String> conflatedTickKeys;
 	/**
 	 * The list of listeners.
 	 */
 	private List<FeedListener> listeners = new ArrayList<>();
+	/**
+	 * Lag statistics by listener.
+	 */
+	private volatile Map<FeedListener, Lag> lags = new IdentityHashMap<>();
+	/**
+	 * Routing of tick events by instrument id.
+	 */
+	private volatile Map<String, FeedListener[]> tickRoutes = new HashMap<>();
+	/**
+	 * Routing of current data events by instrument id, period and offer side ordinal.
+	 */
+	private volatile Map<String, Map<Period, FeedListener[][]>> currentDataRoutes = new HashMap<>();
+	/**
+	 * Routing of completed data events by instrument id, period and offer side ordinal.
+	 */
+	private volatile Map<String, Map<Period, FeedListener[][]>> dataRoutes = new HashMap<>();
+	/**
+	 * The dispatcher thread, set when it starts running.
+	 */
+	private volatile Thread thread;
+	/**
+	 * A boolean that indicates that the dispatcher thread is parked or about to park.
+	 */
+	private volatile boolean parked = false;
+	/**
+	 * Number of events dispatched.
+	 */
+	private AtomicLong dispatchedEvents = new AtomicLong();
+	/**
+	 * Number of times a producer had to wait because a buffer was full.
+	 */
+	private AtomicLong fullWaits = new AtomicLong();
 	/**
 	 * A boolean that indicates that this running dispatcher has terminated.
 	 */
-	private boolean terminated = false;
+	private volatile boolean terminated = false;
 	/**
 	 * A boolean that indicates that this running dispatcher has been explicitly stopped.
 	 */
-	private boolean stop = false;
+	private volatile boolean stop = false;
 	/**
 	 * The exception when the dispatcher terminated due to an error.
 	 */
@@ -89,7 +154,39 @@ public class FeedDispatcher implements Runnable {
 	 * Constructor.
 	 */
 	public FeedDispatcher() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param capacity The capacity of each event buffer, rounded up to a power of two.
+	 */
+	public FeedDispatcher(int capacity) {
 		super();
+		currentDataEvents = new RingBuffer<>(capacity);
+		dataEvents = new RingBuffer<>(capacity);
+		tickEvents = new RingBuffer<>(capacity);
+		conflatedCurrentDataKeys = new RingBuffer<>(capacity);
+		conflatedTickKeys = new RingBuffer<>(capacity);
+	}
+
+	/**
+	 * Check whether current data and tick events are conflated.
+	 * 
+	 * @return A boolean.
+	 */
+	public boolean isConflation() {
+		return conflation;
+	}
+
+	/**
+	 * Set whether current data and tick events are conflated. Events already queued are dispatched anyway.
+	 * 
+	 * @param conflation A boolean.
+	 */
+	public void setConflation(boolean conflation) {
+		this.conflation = conflation;
 	}
 
 	/**
@@ -99,7 +196,7 @@ public class FeedDispatcher implements Runnable {
 	 * 
 	 * @param listener
 	 */
-	public void addFeedListener(FeedListener listener) {
+	public synchronized void addFeedListener(FeedListener listener) {
 		boolean subscriptions = false;
 		if (!listener.getCurrentDataSubscriptions().isEmpty()) {
 			subscriptions = true;
@@ -114,6 +211,7 @@ public class FeedDispatcher implements Runnable {
 			throw new IllegalArgumentException("A feed listener must have feed subscriptions.");
 		}
 		listeners.add(listener);
+		refreshRouting();
 	}
 
 	/**
@@ -122,8 +220,112 @@ public class FeedDispatcher implements Runnable {
 	 * 
 	 * @param listener
 	 */
-	public void removeFeedListener(FeedListener listener) {
+	public synchronized void removeFeedListener(FeedListener listener) {
 		listeners.remove(listener);
+		refreshRouting();
+	}
+
+	/**
+	 * Rebuilds the routing index from the subscriptions of the registered listeners. A listener is routed once per
+	 * accepting subscription, in the order listeners were added, as it has always been notified.
+	 */
+	public synchronized void refreshRouting() {
+
+		// Ticks by instrument.
+		Map<String, List<FeedListener>> ticks = new HashMap<>();
+		for (FeedListener listener : listeners) {
+			for (TickSubscription subscription : listener.getTickSubscriptions()) {
+				String key = subscription.getInstrument().getId();
+				List<FeedListener> list = ticks.get(key);
+				if (list == null) {
+					list = new ArrayList<>();
+					ticks.put(key, list);
+				}
+				list.add(listener);
+			}
+		}
+		Map<String, FeedListener[]> tickMap = new HashMap<>();
+		for (Map.Entry<String, List<FeedListener>> entry : ticks.entrySet()) {
+			tickMap.put(entry.getKey(), entry.getValue().toArray(NO_LISTENERS));
+		}
+
+		// Lags, keeping the statistics of listeners already registered.
+		Map<FeedListener, Lag> lagMap = new IdentityHashMap<>();
+		for (FeedListener listener : listeners) {
+			Lag lag = lags.get(listener);
+			lagMap.put(listener, (lag != null ? lag : new Lag()));
+		}
+
+		// Publish the new routes.
+		lags = lagMap;
+		tickRoutes = tickMap;
+		currentDataRoutes = getDataRoutes(true);
+		dataRoutes = getDataRoutes(false);
+	}
+
+	/**
+	 * Returns the data routes, by instrument id, period and offer side ordinal.
+	 * 
+	 * @param current A boolean that indicates whether to route current or completed data.
+	 * @return The routes.
+	 */
+	private Map<String, Map<Period, FeedListener[][]>> getDataRoutes(boolean current) {
+		int sides = OfferSide.values().length;
+		Map<String, Map<Period, List<List<FeedListener>>>> lists = new HashMap<>();
+		for (FeedListener listener : listeners) {
+			List<DataSubscription> subscriptions =
+				(current ? listener.getCurrentDataSubscriptions() : listener.getDataSubscriptions());
+			for (DataSubscription subscription : subscriptions) {
+				String instrumentId = subscription.getInstrument().getId();
+				Period period = subscription.getPeriod();
+				Map<Period, List<List<FeedListener>>> byPeriod = lists.get(instrumentId);
+				if (byPeriod == null) {
+					byPeriod = new HashMap<>();
+					lists.put(instrumentId, byPeriod);
+				}
+				List<List<FeedListener>> bySide = byPeriod.get(period);
+				if (bySide == null) {
+					bySide = new ArrayList<>();
+					for (int i = 0; i < sides; i++) {
+						bySide.add(new ArrayList<>());
+					}
+					byPeriod.put(period, bySide);
+				}
+				bySide.get(subscription.getOfferSide().ordinal()).add(listener);
+			}
+		}
+		Map<String, Map<Period, FeedListener[][]>> routes = new HashMap<>();
+		for (Map.Entry<String, Map<Period, List<List<FeedListener>>>> entryInstrument : lists.entrySet()) {
+			Map<Period, FeedListener[][]> byPeriod = new HashMap<>();
+			for (Map.Entry<Period, List<List<FeedListener>>> entryPeriod : entryInstrument.getValue().entrySet()) {
+				FeedListener[][] bySide = new FeedListener[sides][];
+				for (int i = 0; i < sides; i++) {
+					bySide[i] = entryPeriod.getValue().get(i).toArray(NO_LISTENERS);
+				}
+				byPeriod.put(entryPeriod.getKey(), bySide);
+			}
+			routes.put(entryInstrument.getKey(), byPeriod);
+		}
+		return routes;
+	}
+
+	/**
+	 * Returns the routed listeners of a data event.
+	 * 
+	 * @param routes The routes.
+	 * @param event The data event.
+	 * @return The listeners.
+	 */
+	private FeedListener[] getListeners(Map<String, Map<Period, FeedListener[][]>> routes, DataEvent event) {
+		Map<Period, FeedListener[][]> byPeriod = routes.get(event.getInstrument().getId());
+		if (byPeriod == null) {
+			return NO_LISTENERS;
+		}
+		FeedListener[][] bySide = byPeriod.get(event.getPeriod());
+		if (bySide == null) {
+			return NO_LISTENERS;
+		}
+		return bySide[event.getOfferSide().ordinal()];
 	}
 
 	/**
@@ -135,8 +337,11 @@ public class FeedDispatcher implements Runnable {
 	 * @param data The price data.
 	 */
 	public void addCurrentData(Instrument instrument, Period period, OfferSide offerSide, Data data) {
-		synchronized (inputCurrentDataLock) {
-			inputCurrentDataEvents.add(new DataEvent(this, instrument, period, offerSide, data));
+		DataEvent event = new DataEvent(this, instrument, period, offerSide, data);
+		if (conflation) {
+			conflate(conflatedCurrentData, conflatedCurrentDataKeys, new DataKey(event), event);
+		} else {
+			publish(currentDataEvents, event);
 		}
 	}
 
@@ -149,9 +354,7 @@ public class FeedDispatcher implements Runnable {
 	 * @param data The price data.
 	 */
 	public void addData(Instrument instrument, Period period, OfferSide offerSide, Data data) {
-		synchronized (inputDataLock) {
-			inputDataEvents.add(new DataEvent(this, instrument, period, offerSide, data));
-		}
+		publish(dataEvents, new DataEvent(this, instrument, period, offerSide, data));
 	}
 
 	/**
@@ -161,96 +364,201 @@ public class FeedDispatcher implements Runnable {
 	 * @param tick The tick data.
 	 */
 	public void addTick(Instrument instrument, Tick tick) {
-		synchronized (inputTickLock) {
-			inputTickEvents.add(new TickEvent(this, instrument, tick));
+		TickEvent event = new TickEvent(this, instrument, tick);
+		if (conflation) {
+			conflate(conflatedTicks, conflatedTickKeys, instrument.getId(), event);
+		} else {
+			publish(tickEvents, event);
 		}
 	}
 
 	/**
-	 * Move events from input to output and dispatch them.
+	 * Conflate the event: replace the pending event of the key if any, or else register it as pending and queue the
+	 * key.
+	 * 
+	 * @param pending The map of pending events.
+	 * @param keys The queue of keys.
+	 * @param key The key.
+	 * @param event The event.
 	 */
-	private void dispatchEvents() {
+	private <K, E> void conflate(ConcurrentHashMap<K, Conflated<E>> pending, RingBuffer<K> keys, K key, E event) {
+		Conflated<E> conflated = new Conflated<>(event, System.nanoTime());
+		if (pending.merge(key, conflated, Conflated::replace) == conflated) {
+			publish(keys, key);
+		}
+	}
 
-		// Move tick data from input to output.
-		synchronized (inputTickLock) {
-			while (!inputTickEvents.isEmpty()) {
-				outputTickEvents.add(inputTickEvents.remove(0));
+	/**
+	 * Publish the event to the buffer and wake up the dispatcher if parked. If the buffer is full, the producer waits
+	 * for the dispatcher to make room, unless the dispatcher has stopped, in which case the event is discarded.
+	 * 
+	 * @param buffer The buffer.
+	 * @param event The event.
+	 */
+	private <E> void publish(RingBuffer<E> buffer, E event) {
+		while (!buffer.offer(event)) {
+			if (stop || terminated) {
+				return;
 			}
+			fullWaits.incrementAndGet();
+			unpark();
+			LockSupport.parkNanos(FULL_PARK_NANOS);
+		}
+		if (parked) {
+			unpark();
 		}
+	}
 
-		// Move current data from input to output.
-		synchronized (inputCurrentDataLock) {
-			while (!inputCurrentDataEvents.isEmpty()) {
-				outputCurrentDataEvents.add(inputCurrentDataEvents.remove(0));
-			}
+	/**
+	 * Unpark the dispatcher thread.
+	 */
+	private void unpark() {
+		Thread thread = this.thread;
+		if (thread != null) {
+			LockSupport.unpark(thread);
 		}
+	}
+
+	/**
+	 * Dispatch the events queued, first ticks, then current data and then completed data.
+	 * 
+	 * @return The number of events dispatched.
+	 */
+	private int dispatchEvents() {
 
-		// Move completed data from input to output.
-		synchronized (inputDataLock) {
-			while (!inputDataEvents.isEmpty()) {
-				outputDataEvents.add(inputDataEvents.remove(0));
+		int count = 0;
+
+		// Notify tick data.
+		Map<String, FeedListener[]> tickRoutes = this.tickRoutes;
+		TickEvent tickEvent;
+		while ((tickEvent = tickEvents.poll()) != null) {
+			FeedListener[] listeners = tickRoutes.get(tickEvent.getInstrument().getId());
+			if (listeners != null) {
+				for (FeedListener listener : listeners) {
+					listener.onTick(tickEvent);
+				}
 			}
+			count++;
 		}
-
-		// Notify tick data and clear the buffer.
-		while (!outputTickEvents.isEmpty()) {
-			TickEvent event = outputTickEvents.remove(0);
-			Instrument instrument = event.getInstrument();
-			for (FeedListener listener : listeners) {
-				List<TickSubscription> subscriptions = listener.getTickSubscriptions();
-				for (TickSubscription subscription : subscriptions) {
-					if (subscription.acceptsTick(instrument)) {
-						listener.onTick(event);
-					}
+		String tickKey;
+		while ((tickKey = conflatedTickKeys.poll()) != null) {
+			Conflated<TickEvent> conflated = conflatedTicks.remove(tickKey);
+			FeedListener[] listeners = tickRoutes.get(tickKey);
+			if (conflated != null && listeners != null) {
+				for (FeedListener listener : listeners) {
+					listener.onTick(conflated.event);
+					updateLag(listener, conflated, System.nanoTime());
 				}
 			}
+			count++;
 		}
 
-		// Notify current data and clear the buffer.
-		while (!outputCurrentDataEvents.isEmpty()) {
-			DataEvent event = outputCurrentDataEvents.remove(0);
-			for (FeedListener listener : listeners) {
-				List<DataSubscription> subscriptions = listener.getCurrentDataSubscriptions();
-				for (DataSubscription subscription : subscriptions) {
-					Instrument instrument = event.getInstrument();
-					Period period = event.getPeriod();
-					OfferSide offerSide = event.getOfferSide();
-					if (subscription.acceptsData(instrument, period, offerSide)) {
-						listener.onCurrentData(event);
-					}
+		// Notify current data.
+		Map<String, Map<Period, FeedListener[][]>> currentDataRoutes = this.currentDataRoutes;
+		DataEvent dataEvent;
+		while ((dataEvent = currentDataEvents.poll()) != null) {
+			for (FeedListener listener : getListeners(currentDataRoutes, dataEvent)) {
+				listener.onCurrentData(dataEvent);
+			}
+			count++;
+		}
+		DataKey dataKey;
+		while ((dataKey = conflatedCurrentDataKeys.poll()) != null) {
+			Conflated<DataEvent> conflated = conflatedCurrentData.remove(dataKey);
+			if (conflated != null) {
+				for (FeedListener listener : getListeners(currentDataRoutes, conflated.event)) {
+					listener.onCurrentData(conflated.event);
+					updateLag(listener, conflated, System.nanoTime());
 				}
 			}
+			count++;
 		}
 
-		// Notify completed data and clear the buffer.
-		while (!outputDataEvents.isEmpty()) {
-			DataEvent event = outputDataEvents.remove(0);
-			for (FeedListener listener : listeners) {
-				List<DataSubscription> subscriptions = listener.getDataSubscriptions();
-				for (DataSubscription subscription : subscriptions) {
-					Instrument instrument = event.getInstrument();
-					Period period = event.getPeriod();
-					OfferSide offerSide = event.getOfferSide();
-					if (subscription.acceptsData(instrument, period, offerSide)) {
-						listener.onData(event);
-					}
-				}
+		// Notify completed data.
+		Map<String, Map<Period, FeedListener[][]>> dataRoutes = this.dataRoutes;
+		while ((dataEvent = dataEvents.poll()) != null) {
+			for (FeedListener listener : getListeners(dataRoutes, dataEvent)) {
+				listener.onData(dataEvent);
 			}
+			count++;
+		}
+
+		if (count > 0) {
+			dispatchedEvents.addAndGet(count);
+		}
+		return count;
+	}
+
+	/**
+	 * Dispatch the events queued in the calling thread, for dispatchers that are not run in their own thread, like
+	 * replays that must deliver each step before producing the next one. Must not be called while the dispatcher is
+	 * running.
+	 * 
+	 * @return The number of events dispatched.
+	 */
+	public int dispatch() {
+		if (thread != null && !terminated) {
+			throw new IllegalStateException("The dispatcher is running in its own thread");
+		}
+		return dispatchEvents();
+	}
+
+	/**
+	 * Check whether all the buffers are empty.
+	 * 
+	 * @return A boolean.
+	 */
+	private boolean isEmpty() {
+		if (!tickEvents.isEmpty() || !currentDataEvents.isEmpty() || !dataEvents.isEmpty()) {
+			return false;
 		}
+		return conflatedTickKeys.isEmpty() && conflatedCurrentDataKeys.isEmpty();
+	}
+
+	/**
+	 * Update the lag of the listener after delivering a conflated event.
+	 * 
+	 * @param listener The listener.
+	 * @param conflated The conflated event delivered.
+	 * @param time The delivery time in nanos.
+	 */
+	private void updateLag(FeedListener listener, Conflated<?> conflated, long time) {
+		Lag lag = lags.get(listener);
+		if (lag == null) {
+			return;
+		}
+		long nanos = time - conflated.time;
+		lag.lag = nanos;
+		if (nanos > lag.maxLag) {
+			lag.maxLag = nanos;
+		}
+		lag.conflated += conflated.replaced;
+		lag.delivered++;
 	}
 
 	/**
 	 * Run the dispacher.
 	 */
 	public void run() {
+		thread = Thread.currentThread();
 		// Loop.
 		try {
 			while (!terminated && !stop) {
-				dispatchEvents();
-				Thread.yield();
+				if (dispatchEvents() > 0) {
+					continue;
+				}
+				// Nothing to dispatch: announce the park and check again, so a producer that published before seeing
+				// the flag is not missed.
+				parked = true;
+				if (isEmpty() && !stop) {
+					LockSupport.parkNanos(this, MAX_PARK_NANOS);
+				}
+				parked = false;
 			}
 		} catch (Exception cause) {
-			exception = new ServerException(cause);
+			synchronized (this) {
+				exception = new ServerException(cause);
+			}
 		} finally {
 			terminated = true;
 		}
@@ -261,6 +569,7 @@ public class FeedDispatcher implements Runnable {
 	 */
 	synchronized public void stop() {
 		stop = true;
+		unpark();
 	}
 
 	/**
@@ -277,7 +586,7 @@ public class FeedDispatcher implements Runnable {
 	 * 
 	 * @return A boolean that indicates if the dispacher has terminated.
 	 */
-	synchronized public boolean isTerminated() {
+	public boolean isTerminated() {
 		return terminated;
 	}
 
@@ -286,7 +595,168 @@ public class FeedDispatcher implements Runnable {
 	 * 
 	 * @return A boolean that indicates if the dispatcher has been explicitly terminated, not by an exception.
 	 */
-	synchronized public boolean hasBeenStopped() {
+	public boolean hasBeenStopped() {
 		return stop;
 	}
+
+	/**
+	 * Returns the number of events dispatched.
+	 * 
+	 * @return The number of events dispatched.
+	 */
+	public long getDispatchedEvents() {
+		return dispatchedEvents.get();
+	}
+
+	/**
+	 * Returns the number of times a producer had to wait because a buffer was full.
+	 * 
+	 * @return The number of waits on full buffers.
+	 */
+	public long getFullWaits() {
+		return fullWaits.get();
+	}
+
+	/**
+	 * Returns the approximate number of events pending to dispatch.
+	 * 
+	 * @return The number of pending events.
+	 */
+	public int getPendingEvents() {
+		int pending = tickEvents.size() + currentDataEvents.size() + dataEvents.size();
+		pending += conflatedTickKeys.size() + conflatedCurrentDataKeys.size();
+		return pending;
+	}
+
+	/**
+	 * Returns the lag of the listener, in nanos, at the last conflated event delivered: the time elapsed since the
+	 * oldest update that the event replaced was added. Returns zero if the listener is not registered.
+	 * 
+	 * @param listener The listener.
+	 * @return The lag in nanos.
+	 */
+	public long getLag(FeedListener listener) {
+		Lag lag = lags.get(listener);
+		return (lag != null ? lag.lag : 0);
+	}
+
+	/**
+	 * Returns the maximum lag of the listener, in nanos.
+	 * 
+	 * @param listener The listener.
+	 * @return The maximum lag in nanos.
+	 */
+	public long getMaxLag(FeedListener listener) {
+		Lag lag = lags.get(listener);
+		return (lag != null ? lag.maxLag : 0);
+	}
+
+	/**
+	 * Returns the number of updates that the listener did not receive because they were replaced by a newer one.
+	 * 
+	 * @param listener The listener.
+	 * @return The number of updates conflated.
+	 */
+	public long getConflatedEvents(FeedListener listener) {
+		Lag lag = lags.get(listener);
+		return (lag != null ? lag.conflated : 0);
+	}
+
+	/**
+	 * Returns the number of conflated events delivered to the listener.
+	 * 
+	 * @param listener The listener.
+	 * @return The number of conflated events delivered.
+	 */
+	public long getConflatedDelivered(FeedListener listener) {
+		Lag lag = lags.get(listener);
+		return (lag != null ? lag.delivered : 0);
+	}
+
+	/**
+	 * Key of current data events to conflate: instrument, period and offer side.
+	 */
+	private static class DataKey {
+		/** Instrument id. */
+		private String instrumentId;
+		/** Period. */
+		private Period period;
+		/** Offer side. */
+		private OfferSide offerSide;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param event The data event.
+		 */
+		private DataKey(DataEvent event) {
+			this.instrumentId = event.getInstrument().getId();
+			this.period = event.getPeriod();
+			this.offerSide = event.getOfferSide();
+		}
+
+		@Override
+		public int hashCode() {
+			return (((instrumentId.hashCode() * 31) + period.hashCode()) * 31) + offerSide.ordinal();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof DataKey)) {
+				return false;
+			}
+			DataKey key = (DataKey) o;
+			return instrumentId.equals(key.instrumentId) && period.equals(key.period) && offerSide == key.offerSide;
+		}
+	}
+
+	/**
+	 * A pending conflated event, modified only within the lock of the map entry.
+	 */
+	private static class Conflated<E> {
+		/** The latest event. */
+		private E event;
+		/** The time, in nanos, of the oldest update pending. */
+		private long time;
+		/** The number of updates replaced. */
+		private int replaced;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param event The event.
+		 * @param time The time in nanos.
+		 */
+		private Conflated(E event, long time) {
+			this.event = event;
+			this.time = time;
+		}
+
+		/**
+		 * Replace the event of this pending conflated with the event of the newer one.
+		 * 
+		 * @param pending This pending conflated.
+		 * @param newer The newer conflated.
+		 * @return This pending conflated.
+		 */
+		private static <E> Conflated<E> replace(Conflated<E> pending, Conflated<E> newer) {
+			pending.event = newer.event;
+			pending.replaced++;
+			return pending;
+		}
+	}
+
+	/**
+	 * Lag statistics of a listener, written only by the dispatcher thread.
+	 */
+	private static class Lag {
+		/** Last lag in nanos. */
+		private volatile long lag;
+		/** Maximum lag in nanos. */
+		private volatile long maxLag;
+		/** Updates conflated. */
+		private volatile long conflated;
+		/** Conflated events delivered. */
+		private volatile long delivered;
+	}
 }
@@ -69,6 +69,18 @@ public class DkDataIterator implements DataIterator {
 	 * The last time loaded.
 	 */
 	private long lastTimeLoaded = -1;
+	/**
+	 * Maximum number of retries of a failed request.
+	 */
+	private int maxRetries = 6;
+	/**
+	 * Initial backoff delay in millis, doubled on each retry.
+	 */
+	private long initialBackoff = 250;
+	/**
+	 * Maximum backoff delay in millis.
+	 */
+	private long maxBackoff = 30000;
 
 	/**
 	 * Constructor assigning fields.
@@ -163,8 +175,10 @@ public class DkDataIterator implements DataIterator {
 			execBufferSize++;
 		}
 
-		// Load data.
-		List<Data> dataList = null;
+		// Load data, retrying with exponential backoff.
+		List<Data> dataList = new ArrayList<>();
+		long backoff = initialBackoff;
+		int retry = 0;
 		while (execBufferSize > 0) {
 			try {
 				dataList = historyManager.getDataList(
@@ -176,8 +190,17 @@ public class DkDataIterator implements DataIterator {
 					0,
 					execBufferSize);
 				break;
-			} catch (Exception exc) {
-				execBufferSize--;
+			} catch (ServerException exc) {
+				if (retry++ >= maxRetries) {
+					throw exc;
+				}
+				try {
+					Thread.sleep(backoff);
+				} catch (InterruptedException cause) {
+					Thread.currentThread().interrupt();
+					throw new ServerException("Interrupted retrying to load data", cause);
+				}
+				backoff = Math.min(backoff * 2, maxBackoff);
 			}
 		}
 
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtplaf.library.trading.server.servers.replay;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.qtplaf.library.trading.server.AccountType;
+import com.qtplaf.library.trading.server.ConnectionEvent;
+import com.qtplaf.library.trading.server.ConnectionListener;
+import com.qtplaf.library.trading.server.ConnectionManager;
+import com.qtplaf.library.trading.server.ServerException;
+
+/**
+ * Replay connection manager, connecting is only a state change since there is no remote server, and user and
+ * password are ignored.
+ * 
+ * @author Miquel Sas
+ */
+public class ReplayConnectionManager implements ConnectionManager {
+
+	/**
+	 * The replay server.
+	 */
+	private ReplayServer server;
+	/**
+	 * The connection listeners.
+	 */
+	private List<ConnectionListener> listeners = new CopyOnWriteArrayList<>();
+	/**
+	 * The connection type.
+	 */
+	private AccountType connectionType;
+	/**
+	 * A boolean that indicates whether the server is connected.
+	 */
+	private volatile boolean connected = false;
+
+	/**
+	 * Constructor assigning the reference server.
+	 * 
+	 * @param server The replay server.
+	 */
+	public ReplayConnectionManager(ReplayServer server) {
+		super();
+		this.server = server;
+	}
+
+	/**
+	 * Add a connection listener to receive connection events.
+	 * 
+	 * @param listener The connection listener.
+	 */
+	public void addListener(ConnectionListener listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Notify the listeners.
+	 * 
+	 * @param message The message.
+	 */
+	private void notifyListeners(String message) {
+		ConnectionEvent e = new ConnectionEvent(server, message);
+		for (ConnectionListener listener : listeners) {
+			listener.status(e);
+		}
+	}
+
+	/**
+	 * Connect to the server. User name and password are ignored.
+	 * 
+	 * @param username The user name.
+	 * @param password The password.
+	 * @param accountType The type of connection.
+	 * @throws ServerException
+	 */
+	public void connect(String username, String password, AccountType accountType) throws ServerException {
+		if (isConnected()) {
+			throw new ServerException("Replay server is already connected, please disconnect first.");
+		}
+		connectionType = accountType;
+		connected = true;
+		notifyListeners("Connected to " + server.getTitle());
+	}
+
+	/**
+	 * Disconnect from the server, stopping the replay if running.
+	 * 
+	 * @throws ServerException
+	 */
+	public void disconnect() throws ServerException {
+		server.stopReplay();
+		connected = false;
+		notifyListeners("Disconnected from " + server.getTitle());
+	}
+
+	/**
+	 * Returns the connection type.
+	 * 
+	 * @return The connection type.
+	 */
+	public AccountType getConnectionType() {
+		return connectionType;
+	}
+
+	/**
+	 * Returns a boolean indicating if the client is connected.
+	 * 
+	 * @return A boolean indicating if the client is connected.
+	 */
+	public boolean isConnected() {
+		return connected;
+	}
+
+	/**
+	 * Tries to reconnect.
+	 * 
+	 * @throws ServerException
+	 */
+	public void reconnect() throws ServerException {
+		connected = true;
+		notifyListeners("Reconnected to " + server.getTitle());
+	}
+}
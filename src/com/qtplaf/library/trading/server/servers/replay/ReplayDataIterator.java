@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtplaf.library.trading.server.servers.replay;
+
+import java.util.NoSuchElementException;
+
+import com.qtplaf.library.trading.data.Data;
+import com.qtplaf.library.trading.data.Filter;
+import com.qtplaf.library.trading.server.DataIterator;
+import com.qtplaf.library.trading.server.ServerException;
+
+/**
+ * Iterator over a range of bars of a replay source, applying a filter.
+ * 
+ * @author Miquel Sas
+ */
+public class ReplayDataIterator implements DataIterator {
+
+	/** The source. */
+	private ReplaySource source;
+	/** The filter. */
+	private Filter filter;
+	/** Index of the next bar to check. */
+	private int index;
+	/** Last index, inclusive. */
+	private int lastIndex;
+	/** The next bar accepted by the filter, if already read. */
+	private Data next;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param source The source.
+	 * @param filter The filter.
+	 * @param firstIndex The first index.
+	 * @param lastIndex The last index, inclusive.
+	 */
+	public ReplayDataIterator(ReplaySource source, Filter filter, int firstIndex, int lastIndex) {
+		super();
+		this.source = source;
+		this.filter = filter;
+		this.index = firstIndex;
+		this.lastIndex = lastIndex;
+	}
+
+	/**
+	 * Closes the iterator, nothing to release.
+	 * 
+	 * @throws ServerException
+	 */
+	public void close() throws ServerException {
+		index = lastIndex + 1;
+		next = null;
+	}
+
+	/**
+	 * Check whether there are more bars.
+	 * 
+	 * @return A boolean.
+	 * @throws ServerException
+	 */
+	public boolean hasNext() throws ServerException {
+		while (next == null && index <= lastIndex) {
+			Data data = source.get(index++);
+			if (Data.accept(data, filter)) {
+				next = data;
+			}
+		}
+		return next != null;
+	}
+
+	/**
+	 * Returns the next bar.
+	 * 
+	 * @return The next bar.
+	 * @throws ServerException
+	 */
+	public Data next() throws ServerException {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		Data data = next;
+		next = null;
+		return data;
+	}
+}
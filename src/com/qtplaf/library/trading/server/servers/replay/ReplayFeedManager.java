@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtplaf.library.trading.server.servers.replay;
+
+import com.qtplaf.library.trading.server.FeedManager;
+import com.qtplaf.library.trading.server.feed.FeedDispatcher;
+import com.qtplaf.library.trading.server.feed.FeedListener;
+
+/**
+ * Replay feed manager. The dispatcher is not run in its own thread, the replay dispatches each step in its thread
+ * before producing the next one, so that listeners see a deterministic sequence of events.
+ * 
+ * @author Miquel Sas
+ */
+public class ReplayFeedManager implements FeedManager {
+
+	/**
+	 * The feed dispatcher.
+	 */
+	private FeedDispatcher dispatcher = new FeedDispatcher();
+
+	/**
+	 * Constructor.
+	 */
+	public ReplayFeedManager() {
+		super();
+	}
+
+	/**
+	 * Returns the dispatcher.
+	 * 
+	 * @return The dispatcher.
+	 */
+	public FeedDispatcher getDispatcher() {
+		return dispatcher;
+	}
+
+	/**
+	 * Add a feed listener to receive notificatios for its subscriptions.
+	 * 
+	 * @param listener The feed listener to add.
+	 */
+	public void addFeedListener(FeedListener listener) {
+		dispatcher.addFeedListener(listener);
+	}
+
+	/**
+	 * Remove a feed listener.
+	 * 
+	 * @param listener The feed listener to remove.
+	 */
+	public void removeFeedListener(FeedListener listener) {
+		dispatcher.removeFeedListener(listener);
+	}
+}
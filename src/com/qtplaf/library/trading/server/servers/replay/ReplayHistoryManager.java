@@ -0,0 +1,388 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtplaf.library.trading.server.servers.replay;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.qtplaf.library.trading.data.Data;
+import com.qtplaf.library.trading.data.Filter;
+import com.qtplaf.library.trading.data.Instrument;
+import com.qtplaf.library.trading.data.Period;
+import com.qtplaf.library.trading.data.Tick;
+import com.qtplaf.library.trading.server.DataIterator;
+import com.qtplaf.library.trading.server.HistoryManager;
+import com.qtplaf.library.trading.server.OfferSide;
+import com.qtplaf.library.trading.server.Order;
+import com.qtplaf.library.trading.server.ServerException;
+
+/**
+ * Replay history manager over the replay sources. While a replay is running, only bars completed at the current step
+ * are visible, so strategies can not look ahead. Ticks are not stored, they are built from the close of the bars of
+ * the smallest period of the instrument, one per bar. As in the Dukascopy server, the default offer side is ask.
+ * 
+ * @author Miquel Sas
+ */
+public class ReplayHistoryManager implements HistoryManager {
+
+	/**
+	 * The replay server.
+	 */
+	private ReplayServer server;
+
+	/**
+	 * Constructor assigning the reference server.
+	 * 
+	 * @param server The replay server.
+	 */
+	public ReplayHistoryManager(ReplayServer server) {
+		super();
+		this.server = server;
+	}
+
+	/**
+	 * Returns the index of the last bar of the source visible at the current step.
+	 * 
+	 * @param source The source.
+	 * @return The last visible index or -1.
+	 */
+	private int getLastIndex(ReplaySource source) {
+		return source.indexOfCompleted(server.getVisibleTime());
+	}
+
+	/**
+	 * Returns the last tick.
+	 * 
+	 * @param instrument The instrument.
+	 * @return The last tick.
+	 * @throws ServerException
+	 */
+	public Tick getLastTick(Instrument instrument) throws ServerException {
+		ReplayMarket market = server.getMarket(instrument);
+		if (market != null) {
+			return market.getTick();
+		}
+		List<Tick> ticks = getTickData(instrument, 0, server.getVisibleTime());
+		return (ticks.isEmpty() ? null : ticks.get(ticks.size() - 1));
+	}
+
+	/**
+	 * Returns the ticks of the instrument between the times, built from the bars of the smallest period.
+	 * 
+	 * @param instrument The instrument.
+	 * @param from The start time.
+	 * @param to The end time.
+	 * @return The list of ticks.
+	 * @throws ServerException
+	 */
+	public List<Tick> getTickData(Instrument instrument, long from, long to) throws ServerException {
+		ReplaySource ask = server.getTickSource(instrument, OfferSide.Ask);
+		ReplaySource bid = server.getTickSource(instrument, OfferSide.Bid);
+		ReplaySource source = (ask != null ? ask : bid);
+		if (source == null) {
+			throw new ServerException("No replay data for " + instrument);
+		}
+		List<Tick> ticks = new ArrayList<>();
+		int first = source.indexOfCompleted(from - 1) + 1;
+		int last = Math.min(source.indexOfCompleted(to), getLastIndex(source));
+		for (int index = first; index <= last; index++) {
+			long time = source.getEndTime(index);
+			Data askData = (ask != null ? getBarEndingAt(ask, time) : null);
+			Data bidData = (bid != null ? getBarEndingAt(bid, time) : null);
+			if (askData == null && bidData == null) {
+				continue;
+			}
+			ticks.add(new ReplayMarket(time, askData, bidData).getTick());
+		}
+		return ticks;
+	}
+
+	/**
+	 * Returns the bar of the source that ends at the time, or null.
+	 * 
+	 * @param source The source.
+	 * @param time The end time.
+	 * @return The bar or null.
+	 */
+	private Data getBarEndingAt(ReplaySource source, long time) {
+		int index = source.indexOfCompleted(time);
+		if (index >= 0 && source.getEndTime(index) == time) {
+			return source.get(index);
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the ticks around a time.
+	 * 
+	 * @param instrument The instrument.
+	 * @param time The time.
+	 * @param oneSecondIntervalsBefore Number of seconds before.
+	 * @param oneSecondIntervalsAfter Number of seconds after.
+	 * @return The list of ticks.
+	 * @throws ServerException
+	 */
+	public List<Tick> getTickData(
+		Instrument instrument,
+		long time,
+		int oneSecondIntervalsBefore,
+		int oneSecondIntervalsAfter) throws ServerException {
+		long from = time - (oneSecondIntervalsBefore * 1000L);
+		long to = time + (oneSecondIntervalsAfter * 1000L);
+		return getTickData(instrument, from, to);
+	}
+
+	/**
+	 * Returns the start time of the first bar.
+	 * 
+	 * @param instrument The instrument.
+	 * @param period The period.
+	 * @return The time of the first bar.
+	 * @throws ServerException
+	 */
+	public long getTimeOfFirstData(Instrument instrument, Period period) throws ServerException {
+		ReplaySource source = server.getSource(instrument, period, OfferSide.Ask);
+		return (source.size() > 0 ? source.getTime(0) : 0);
+	}
+
+	/**
+	 * Returns the creation time of the first order of the instrument, or zero.
+	 * 
+	 * @param instrument The instrument.
+	 * @return The time of the first order.
+	 * @throws ServerException
+	 */
+	public long getTimeOfFirstOrder(Instrument instrument) throws ServerException {
+		return server.getReplayOrderManager().getTimeOfFirstOrder(instrument);
+	}
+
+	/**
+	 * Returns the time of the first tick, the end time of the first bar of the smallest period.
+	 * 
+	 * @param instrument The instrument.
+	 * @return The time of the first tick.
+	 * @throws ServerException
+	 */
+	public long getTimeOfFirstTick(Instrument instrument) throws ServerException {
+		ReplaySource source = server.getTickSource(instrument, OfferSide.Ask);
+		if (source == null) {
+			source = server.getTickSource(instrument, OfferSide.Bid);
+		}
+		if (source == null) {
+			throw new ServerException("No replay data for " + instrument);
+		}
+		return (source.size() > 0 ? source.getEndTime(0) : 0);
+	}
+
+	/**
+	 * Returns the last completed bar.
+	 * 
+	 * @param instrument The instrument.
+	 * @param period The period.
+	 * @return The bar or null.
+	 * @throws ServerException
+	 */
+	public Data getLastData(Instrument instrument, Period period) throws ServerException {
+		return getData(instrument, period, 0);
+	}
+
+	/**
+	 * Returns the completed bar at the shift, 0 the last one.
+	 * 
+	 * @param instrument The instrument.
+	 * @param period The period.
+	 * @param shift The shift.
+	 * @return The bar or null.
+	 * @throws ServerException
+	 */
+	public Data getData(Instrument instrument, Period period, int shift) throws ServerException {
+		return getData(instrument, period, OfferSide.Ask, shift);
+	}
+
+	/**
+	 * Returns the completed bar at the shift, 0 the last one.
+	 * 
+	 * @param instrument The instrument.
+	 * @param period The period.
+	 * @param offerSide The offer side.
+	 * @param shift The shift.
+	 * @return The bar or null.
+	 * @throws ServerException
+	 */
+	public Data getData(Instrument instrument, Period period, OfferSide offerSide, int shift)
+		throws ServerException {
+		ReplaySource source = server.getSource(instrument, period, offerSide);
+		int index = getLastIndex(source) - shift;
+		return (index >= 0 ? source.get(index) : null);
+	}
+
+	/**
+	 * Returns the list of bars that start between the times.
+	 * 
+	 * @param instrument The instrument.
+	 * @param period The period.
+	 * @param filter The filter.
+	 * @param from From time.
+	 * @param to To time.
+	 * @return The list of bars.
+	 * @throws ServerException
+	 */
+	public List<Data> getDataList(Instrument instrument, Period period, Filter filter, long from, long to)
+		throws ServerException {
+		return getDataList(instrument, period, OfferSide.Ask, filter, from, to);
+	}
+
+	/**
+	 * Returns the list of bars that start between the times.
+	 * 
+	 * @param instrument The instrument.
+	 * @param period The period.
+	 * @param offerSide The offer side.
+	 * @param filter The filter.
+	 * @param from From time.
+	 * @param to To time.
+	 * @return The list of bars.
+	 * @throws ServerException
+	 */
+	public List<Data> getDataList(
+		Instrument instrument,
+		Period period,
+		OfferSide offerSide,
+		Filter filter,
+		long from,
+		long to) throws ServerException {
+		return toList(getDataIterator(instrument, period, offerSide, filter, from, to));
+	}
+
+	/**
+	 * Returns the list of bars around the bar that contains the time.
+	 * 
+	 * @param instrument The instrument.
+	 * @param period The period.
+	 * @param filter The filter.
+	 * @param time The time.
+	 * @param periodsBefore Number of bars before.
+	 * @param periodsAfter Number of bars after.
+	 * @return The list of bars.
+	 * @throws ServerException
+	 */
+	public List<Data> getDataList(
+		Instrument instrument,
+		Period period,
+		Filter filter,
+		long time,
+		int periodsBefore,
+		int periodsAfter) throws ServerException {
+		return getDataList(instrument, period, OfferSide.Ask, filter, time, periodsBefore, periodsAfter);
+	}
+
+	/**
+	 * Returns the list of bars around the bar that contains the time.
+	 * 
+	 * @param instrument The instrument.
+	 * @param period The period.
+	 * @param offerSide The offer side.
+	 * @param filter The filter.
+	 * @param time The time.
+	 * @param periodsBefore Number of bars before.
+	 * @param periodsAfter Number of bars after.
+	 * @return The list of bars.
+	 * @throws ServerException
+	 */
+	public List<Data> getDataList(
+		Instrument instrument,
+		Period period,
+		OfferSide offerSide,
+		Filter filter,
+		long time,
+		int periodsBefore,
+		int periodsAfter) throws ServerException {
+		ReplaySource source = server.getSource(instrument, period, offerSide);
+		int index = source.indexOfStart(time);
+		int first = Math.max(0, index - periodsBefore);
+		int last = Math.min(index + periodsAfter, getLastIndex(source));
+		return toList(new ReplayDataIterator(source, filter, first, last));
+	}
+
+	/**
+	 * Returns an iterator over the bars that start between the times.
+	 * 
+	 * @param instrument The instrument.
+	 * @param period The period.
+	 * @param filter The filter.
+	 * @param from From time.
+	 * @param to To time.
+	 * @return The iterator.
+	 * @throws ServerException
+	 */
+	public DataIterator getDataIterator(Instrument instrument, Period period, Filter filter, long from, long to)
+		throws ServerException {
+		return getDataIterator(instrument, period, OfferSide.Ask, filter, from, to);
+	}
+
+	/**
+	 * Returns an iterator over the bars that start between the times.
+	 * 
+	 * @param instrument The instrument.
+	 * @param period The period.
+	 * @param offerSide The offer side.
+	 * @param filter The filter.
+	 * @param from From time.
+	 * @param to To time.
+	 * @return The iterator.
+	 * @throws ServerException
+	 */
+	public DataIterator getDataIterator(
+		Instrument instrument,
+		Period period,
+		OfferSide offerSide,
+		Filter filter,
+		long from,
+		long to) throws ServerException {
+		ReplaySource source = server.getSource(instrument, period, offerSide);
+		int first = source.indexOfStart(from - 1) + 1;
+		int last = Math.min(source.indexOfStart(to), getLastIndex(source));
+		return new ReplayDataIterator(source, filter, first, last);
+	}
+
+	/**
+	 * Returns the closed orders of the instrument with close time in the range.
+	 * 
+	 * @param instrument The instrument.
+	 * @param from From time.
+	 * @param to To time.
+	 * @return The list of orders.
+	 * @throws ServerException
+	 */
+	public List<Order> getOrders(Instrument instrument, long from, long to) throws ServerException {
+		return server.getReplayOrderManager().getClosedOrders(instrument, from, to);
+	}
+
+	/**
+	 * Reads the iterator into a list.
+	 * 
+	 * @param iterator The iterator.
+	 * @return The list.
+	 * @throws ServerException
+	 */
+	private List<Data> toList(DataIterator iterator) throws ServerException {
+		List<Data> list = new ArrayList<>();
+		while (iterator.hasNext()) {
+			list.add(iterator.next());
+		}
+		iterator.close();
+		return list;
+	}
+}
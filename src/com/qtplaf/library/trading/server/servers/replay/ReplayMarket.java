@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtplaf.library.trading.server.servers.replay;
+
+import com.qtplaf.library.trading.data.Data;
+import com.qtplaf.library.trading.data.Tick;
+import com.qtplaf.library.trading.server.OfferSide;
+
+/**
+ * The market of an instrument at a replay step: the ask and bid bars of the smallest period completed at the step.
+ * When only one offer side is stored, it is used for both sides, with no spread.
+ * 
+ * @author Miquel Sas
+ */
+public class ReplayMarket {
+
+	/** The step time, end time of the bars. */
+	private long time;
+	/** The ask bar. */
+	private Data ask;
+	/** The bid bar. */
+	private Data bid;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param time The step time.
+	 * @param ask The ask bar, can be null if bid is not.
+	 * @param bid The bid bar, can be null if ask is not.
+	 */
+	public ReplayMarket(long time, Data ask, Data bid) {
+		super();
+		this.time = time;
+		this.ask = (ask != null ? ask : bid);
+		this.bid = (bid != null ? bid : ask);
+	}
+
+	/**
+	 * Returns the step time.
+	 * 
+	 * @return The time.
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * Returns the bar of the offer side.
+	 * 
+	 * @param offerSide The offer side.
+	 * @return The bar.
+	 */
+	public Data getBar(OfferSide offerSide) {
+		return (offerSide == OfferSide.Ask ? ask : bid);
+	}
+
+	/**
+	 * Returns the open price of the offer side.
+	 * 
+	 * @param offerSide The offer side.
+	 * @return The open price.
+	 */
+	public double getOpen(OfferSide offerSide) {
+		return Data.getOpen(getBar(offerSide));
+	}
+
+	/**
+	 * Returns the high price of the offer side.
+	 * 
+	 * @param offerSide The offer side.
+	 * @return The high price.
+	 */
+	public double getHigh(OfferSide offerSide) {
+		return Data.getHigh(getBar(offerSide));
+	}
+
+	/**
+	 * Returns the low price of the offer side.
+	 * 
+	 * @param offerSide The offer side.
+	 * @return The low price.
+	 */
+	public double getLow(OfferSide offerSide) {
+		return Data.getLow(getBar(offerSide));
+	}
+
+	/**
+	 * Returns the close price of the offer side.
+	 * 
+	 * @param offerSide The offer side.
+	 * @return The close price.
+	 */
+	public double getClose(OfferSide offerSide) {
+		return Data.getClose(getBar(offerSide));
+	}
+
+	/**
+	 * Returns the spread at the open, ask minus bid.
+	 * 
+	 * @return The spread.
+	 */
+	public double getSpread() {
+		return getOpen(OfferSide.Ask) - getOpen(OfferSide.Bid);
+	}
+
+	/**
+	 * Returns the tick at the end of the step, with the close prices and volumes.
+	 * 
+	 * @return The tick.
+	 */
+	public Tick getTick() {
+		Tick tick = new Tick();
+		tick.setTime(time);
+		tick.addAsk(Data.getClose(ask), ask.getValue(Data.IndexVolume));
+		tick.addBid(Data.getClose(bid), bid.getValue(Data.IndexVolume));
+		return tick;
+	}
+}
@@ -0,0 +1,677 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtplaf.library.trading.server.servers.replay;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.qtplaf.library.trading.data.Instrument;
+import com.qtplaf.library.trading.server.OfferSide;
+import com.qtplaf.library.trading.server.Order;
+import com.qtplaf.library.trading.server.OrderCommand;
+import com.qtplaf.library.trading.server.OrderHistory;
+import com.qtplaf.library.trading.server.OrderState;
+import com.qtplaf.library.trading.server.ServerException;
+
+/**
+ * Replay implementation of the <i>Order</i> interface. Orders are filled and closed by the replay against the bars of
+ * each step:
+ * <ul>
+ * <li>Market orders fill at the open of the first step after submission, buys at ask and sells at bid.</li>
+ * <li>Limit and stop orders fill when the bar of the trigger side reaches the price, at the price or the open if the
+ * bar opens beyond it. Orders triggered by the opposite side are adjusted by the spread.</li>
+ * <li>Stop loss and take profit are checked against the bar range of the closing side, the stop loss first when both
+ * are reached within the same bar.</li>
+ * </ul>
+ * Slippage is not simulated, commissions are zero and profits are in the secondary currency of the instrument, also
+ * reported as USD.
+ * 
+ * @author Miquel Sas
+ */
+public class ReplayOrder implements Order {
+
+	/** The order manager. */
+	private ReplayOrderManager orderManager;
+	/** Identifier. */
+	private String id;
+	/** Label. */
+	private String label;
+	/** Instrument. */
+	private Instrument instrument;
+	/** Order command. */
+	private OrderCommand orderCommand;
+	/** Original amount. */
+	private double originalAmount;
+	/** Requested amount. */
+	private double requestedAmount;
+	/** Current amount, pending or open. */
+	private double amount;
+	/** Requested price for limit and stop orders. */
+	private double price;
+	/** Stop loss price, zero if none. */
+	private double stopLossPrice;
+	/** Take profit price, zero if none. */
+	private double takeProfitPrice;
+	/** Expiration time, zero if none. */
+	private long expirationTime;
+	/** Comment. */
+	private String comment;
+	/** State. */
+	private OrderState orderState;
+	/** Creation time. */
+	private long creationTime;
+	/** Fill time. */
+	private long fillTime;
+	/** Open price. */
+	private double openPrice;
+	/** Time of the last close. */
+	private long closeTime;
+	/** Price of the last close. */
+	private double closePrice;
+	/** Profit or loss realized by closes. */
+	private double realizedProfitLoss;
+	/** Fill history. */
+	private List<OrderHistory> fillHistory = new ArrayList<>();
+	/** Close history. */
+	private List<OrderHistory> closeHistory = new ArrayList<>();
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param orderManager The order manager.
+	 * @param id The identifier.
+	 * @param label The label.
+	 * @param instrument The instrument.
+	 * @param orderCommand The order command.
+	 * @param amount The amount.
+	 * @param price The price, for limit and stop orders.
+	 * @param stopLossPrice The stop loss price or zero.
+	 * @param takeProfitPrice The take profit price or zero.
+	 * @param expirationTime The expiration time or zero.
+	 * @param comment The comment.
+	 * @param creationTime The creation time.
+	 */
+	public ReplayOrder(
+		ReplayOrderManager orderManager,
+		String id,
+		String label,
+		Instrument instrument,
+		OrderCommand orderCommand,
+		double amount,
+		double price,
+		double stopLossPrice,
+		double takeProfitPrice,
+		long expirationTime,
+		String comment,
+		long creationTime) {
+		super();
+		this.orderManager = orderManager;
+		this.id = id;
+		this.label = label;
+		this.instrument = instrument;
+		this.orderCommand = orderCommand;
+		this.originalAmount = amount;
+		this.requestedAmount = amount;
+		this.amount = amount;
+		this.price = price;
+		this.stopLossPrice = stopLossPrice;
+		this.takeProfitPrice = takeProfitPrice;
+		this.expirationTime = expirationTime;
+		this.comment = comment;
+		this.creationTime = creationTime;
+		this.orderState = OrderState.Opened;
+	}
+
+	/**
+	 * Check whether the command is a market order.
+	 * 
+	 * @return A boolean.
+	 */
+	private boolean isMarket() {
+		switch (orderCommand) {
+		case Buy:
+		case BuyMarket:
+		case Sell:
+		case SellMarket:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Returns the side that closes the position: bid for long positions and ask for short ones.
+	 * 
+	 * @return The close side.
+	 */
+	private OfferSide getCloseSide() {
+		return (isLong() ? OfferSide.Bid : OfferSide.Ask);
+	}
+
+	/**
+	 * Returns the side that opens the position: ask for long positions and bid for short ones.
+	 * 
+	 * @return The open side.
+	 */
+	private OfferSide getOpenSide() {
+		return (isLong() ? OfferSide.Ask : OfferSide.Bid);
+	}
+
+	/**
+	 * Returns the side that triggers a limit or stop order.
+	 * 
+	 * @return The trigger side.
+	 */
+	private OfferSide getTriggerSide() {
+		switch (orderCommand) {
+		case BuyLimitBid:
+		case BuyStopBid:
+		case SellLimitBid:
+		case SellStopBid:
+		case PlaceAsk:
+			return OfferSide.Bid;
+		default:
+			return OfferSide.Ask;
+		}
+	}
+
+	/**
+	 * Check whether the command is a stop order, triggered when the price is crossed in the direction of the order.
+	 * 
+	 * @return A boolean.
+	 */
+	private boolean isStop() {
+		switch (orderCommand) {
+		case BuyStopAsk:
+		case BuyStopBid:
+		case SellStopAsk:
+		case SellStopBid:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Process the order at a replay step: expire, fill, and check stop loss and take profit.
+	 * 
+	 * @param market The market of the step.
+	 */
+	void process(ReplayMarket market) {
+		if (orderState == OrderState.Opened) {
+			if (expirationTime > 0 && market.getTime() > expirationTime) {
+				orderState = OrderState.Cancelled;
+				closeTime = market.getTime();
+				return;
+			}
+			processFill(market);
+		}
+		if (orderState == OrderState.Filled) {
+			processExit(market);
+		}
+	}
+
+	/**
+	 * Fill the order if the market reaches the conditions.
+	 * 
+	 * @param market The market.
+	 */
+	private void processFill(ReplayMarket market) {
+		if (isMarket()) {
+			fill(market.getOpen(getOpenSide()), market.getTime());
+			return;
+		}
+		OfferSide side = getTriggerSide();
+		double open = market.getOpen(side);
+		double trigger;
+		boolean triggered;
+		if (isLong() == isStop()) {
+			// Buy stop or sell limit: triggered when the price rises to the level.
+			triggered = market.getHigh(side) >= price;
+			trigger = Math.max(price, open);
+		} else {
+			// Buy limit or sell stop: triggered when the price falls to the level.
+			triggered = market.getLow(side) <= price;
+			trigger = Math.min(price, open);
+		}
+		if (!triggered) {
+			return;
+		}
+		// Execute on the open side.
+		if (side != getOpenSide()) {
+			trigger += (isLong() ? market.getSpread() : -market.getSpread());
+		}
+		fill(trigger, market.getTime());
+	}
+
+	/**
+	 * Fill the order.
+	 * 
+	 * @param price The fill price.
+	 * @param time The fill time.
+	 */
+	private void fill(double price, long time) {
+		openPrice = price;
+		fillTime = time;
+		orderState = OrderState.Filled;
+		fillHistory.add(new ReplayOrderHistory(amount, price, time));
+	}
+
+	/**
+	 * Close the position if the stop loss or the take profit are reached.
+	 * 
+	 * @param market The market.
+	 */
+	private void processExit(ReplayMarket market) {
+		OfferSide side = getCloseSide();
+		double open = market.getOpen(side);
+		double high = market.getHigh(side);
+		double low = market.getLow(side);
+		if (isLong()) {
+			if (stopLossPrice > 0 && low <= stopLossPrice) {
+				closeAmount(amount, Math.min(stopLossPrice, open), market.getTime());
+			} else if (takeProfitPrice > 0 && high >= takeProfitPrice) {
+				closeAmount(amount, Math.max(takeProfitPrice, open), market.getTime());
+			}
+		} else {
+			if (stopLossPrice > 0 && high >= stopLossPrice) {
+				closeAmount(amount, Math.max(stopLossPrice, open), market.getTime());
+			} else if (takeProfitPrice > 0 && low <= takeProfitPrice) {
+				closeAmount(amount, Math.min(takeProfitPrice, open), market.getTime());
+			}
+		}
+	}
+
+	/**
+	 * Close an amount of the position.
+	 * 
+	 * @param amount The amount.
+	 * @param price The close price.
+	 * @param time The close time.
+	 */
+	private void closeAmount(double amount, double price, long time) {
+		amount = Math.min(amount, this.amount);
+		realizedProfitLoss += getProfitLoss(price) * amount;
+		this.amount -= amount;
+		closePrice = price;
+		closeTime = time;
+		closeHistory.add(new ReplayOrderHistory(amount, price, time));
+		if (this.amount <= 0) {
+			this.amount = 0;
+			orderState = OrderState.Closed;
+		}
+	}
+
+	/**
+	 * Returns the profit or loss per unit closing at the price.
+	 * 
+	 * @param price The close price.
+	 * @return The profit or loss per unit.
+	 */
+	private double getProfitLoss(double price) {
+		return (isLong() ? price - openPrice : openPrice - price);
+	}
+
+	/**
+	 * Sends a request to fully close position by market price or cancel entry order.
+	 * 
+	 * @throws ServerException
+	 */
+	public void close() throws ServerException {
+		close(amount, 0, 0);
+	}
+
+	/**
+	 * Sends a request to close the position with specified amount, by market price and default slippage.
+	 * 
+	 * @param amount The requested amount to close.
+	 * @throws ServerException
+	 */
+	public void close(double amount) throws ServerException {
+		close(amount, 0, 0);
+	}
+
+	/**
+	 * Sends a request to close the position with specified amount and price, and default slippage.
+	 * 
+	 * @param amount The requested amount to close.
+	 * @param price The desired price.
+	 * @throws ServerException
+	 */
+	public void close(double amount, double price) throws ServerException {
+		close(amount, price, 0);
+	}
+
+	/**
+	 * Sends a request to close the position with specified, price and slippage. The position is closed at the close
+	 * of the current step, if the price is zero or the market is at or better than the price.
+	 * 
+	 * @param amount The requested amount to close.
+	 * @param price The desired price.
+	 * @param slippage The desired slippage, ignored.
+	 * @throws ServerException
+	 */
+	public void close(double amount, double price, double slippage) throws ServerException {
+		synchronized (orderManager) {
+			if (orderState == OrderState.Opened) {
+				orderState = OrderState.Cancelled;
+				closeTime = orderManager.getServer().getTime();
+				return;
+			}
+			if (orderState != OrderState.Filled) {
+				throw new ServerException("Order " + id + " is not filled");
+			}
+			ReplayMarket market = orderManager.getServer().getMarket(instrument);
+			if (market == null) {
+				throw new ServerException("No market for " + instrument);
+			}
+			double marketPrice = market.getClose(getCloseSide());
+			if (price > 0 && (isLong() ? marketPrice < price : marketPrice > price)) {
+				throw new ServerException("Price " + price + " not available, market is " + marketPrice);
+			}
+			closeAmount(amount, marketPrice, market.getTime());
+		}
+	}
+
+	/**
+	 * Returns amount of the order, pending or open.
+	 * 
+	 * @return The amount.
+	 */
+	public double getAmount() {
+		return amount;
+	}
+
+	/**
+	 * Returns the list of close history.
+	 * 
+	 * @return The list of close history.
+	 */
+	public List<OrderHistory> getCloseHistory() {
+		return Collections.unmodifiableList(closeHistory);
+	}
+
+	/**
+	 * Returns the close price or 0 if the order was not closed or partially closed.
+	 * 
+	 * @return The close price.
+	 */
+	public double getClosePrice() {
+		return closePrice;
+	}
+
+	/**
+	 * Returns the close time or 0 if the order was not closed.
+	 * 
+	 * @return The close time.
+	 */
+	public long getCloseTime() {
+		return closeTime;
+	}
+
+	/**
+	 * Returns the comment.
+	 * 
+	 * @return The comment.
+	 */
+	public String getComment() {
+		return comment;
+	}
+
+	/**
+	 * Returns the commission, always zero.
+	 * 
+	 * @return The commission.
+	 */
+	public double getCommission() {
+		return 0;
+	}
+
+	/**
+	 * Returns the commission in USD, always zero.
+	 * 
+	 * @return The commission in USD.
+	 */
+	public double getCommissionInUSD() {
+		return 0;
+	}
+
+	/**
+	 * Returns the creation time.
+	 * 
+	 * @return The creation time.
+	 */
+	public long getCreationTime() {
+		return creationTime;
+	}
+
+	/**
+	 * Returns the fill history.
+	 * 
+	 * @return The fill history.
+	 */
+	public List<OrderHistory> getFillHistory() {
+		return Collections.unmodifiableList(fillHistory);
+	}
+
+	/**
+	 * Returns the fill time or 0 if not filled.
+	 * 
+	 * @return The fill time.
+	 */
+	public long getFillTime() {
+		return fillTime;
+	}
+
+	/**
+	 * Returns the expiration time or 0 if none.
+	 * 
+	 * @return The expiration time.
+	 */
+	public long getExpirationTime() {
+		return expirationTime;
+	}
+
+	/**
+	 * Returns the identifier.
+	 * 
+	 * @return The identifier.
+	 */
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * Returns the instrument.
+	 * 
+	 * @return The instrument.
+	 */
+	public Instrument getInstrument() {
+		return instrument;
+	}
+
+	/**
+	 * Returns the label.
+	 * 
+	 * @return The label.
+	 */
+	public String getLabel() {
+		return label;
+	}
+
+	/**
+	 * Returns the open price or 0 if not filled.
+	 * 
+	 * @return The open price.
+	 */
+	public double getOpenPrice() {
+		return openPrice;
+	}
+
+	/**
+	 * Returns the order command.
+	 * 
+	 * @return The order command.
+	 */
+	public OrderCommand getOrderCommand() {
+		return orderCommand;
+	}
+
+	/**
+	 * Returns the order state.
+	 * 
+	 * @return The order state.
+	 */
+	public OrderState getOrderState() {
+		return orderState;
+	}
+
+	/**
+	 * Returns the original amount, set on submit.
+	 * 
+	 * @return The original amount.
+	 */
+	public double getOriginalAmount() {
+		return originalAmount;
+	}
+
+	/**
+	 * Returns the profit or loss, realized by closes plus the open amount valued at the current market.
+	 * 
+	 * @return The profit or loss.
+	 */
+	public double getProfitLoss() {
+		double profitLoss = realizedProfitLoss;
+		if (orderState == OrderState.Filled) {
+			ReplayMarket market = orderManager.getServer().getMarket(instrument);
+			if (market != null) {
+				profitLoss += getProfitLoss(market.getClose(getCloseSide())) * amount;
+			}
+		}
+		return profitLoss;
+	}
+
+	/**
+	 * Returns the profit or loss in pips, of the last close or of the current market if open.
+	 * 
+	 * @return The profit or loss in pips.
+	 */
+	public double getProfitLossInPips() {
+		if (fillTime == 0 || instrument.getPipValue() == 0) {
+			return 0;
+		}
+		double price = closePrice;
+		if (orderState == OrderState.Filled) {
+			ReplayMarket market = orderManager.getServer().getMarket(instrument);
+			if (market != null) {
+				price = market.getClose(getCloseSide());
+			}
+		}
+		return getProfitLoss(price) / instrument.getPipValue();
+	}
+
+	/**
+	 * Returns the profit or loss in USD, not converted.
+	 * 
+	 * @return The profit or loss.
+	 */
+	public double getProfitLossInUSD() {
+		return getProfitLoss();
+	}
+
+	/**
+	 * Returns the requested amount.
+	 * 
+	 * @return The requested amount.
+	 */
+	public double getRequestedAmount() {
+		return requestedAmount;
+	}
+
+	/**
+	 * Returns the stop loss price.
+	 * 
+	 * @return The stop loss price.
+	 */
+	public double getStopLossPrice() {
+		return stopLossPrice;
+	}
+
+	/**
+	 * Returns the side used to check the stop loss condition.
+	 * 
+	 * @return The stop loss side.
+	 */
+	public OfferSide getStopLossSide() {
+		return getCloseSide();
+	}
+
+	/**
+	 * Returns the take profit price.
+	 * 
+	 * @return The take profit price.
+	 */
+	public double getTakeProfitPrice() {
+		return takeProfitPrice;
+	}
+
+	/**
+	 * Returns the trailing step, always 0.
+	 * 
+	 * @return The trailing step.
+	 */
+	public double getTrailingStep() {
+		return 0;
+	}
+
+	/**
+	 * Check whether the order is closed or cancelled.
+	 * 
+	 * @return A boolean.
+	 */
+	public boolean isClosed() {
+		return orderState == OrderState.Closed || orderState == OrderState.Cancelled;
+	}
+
+	/**
+	 * Check whether the order is long.
+	 * 
+	 * @return A boolean.
+	 */
+	public boolean isLong() {
+		switch (orderCommand) {
+		case Buy:
+		case BuyMarket:
+		case BuyLimitAsk:
+		case BuyLimitBid:
+		case BuyStopAsk:
+		case BuyStopBid:
+		case PlaceBid:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Check whether the order is short.
+	 * 
+	 * @return A boolean.
+	 */
+	public boolean isShort() {
+		return !isLong();
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtplaf.library.trading.server.servers.replay;
+
+import com.qtplaf.library.trading.server.OrderHistory;
+
+/**
+ * Replay implementation of the <i>OrderHistory</i> interface, a fill or a close of an amount at a price and time.
+ * 
+ * @author Miquel Sas
+ */
+public class ReplayOrderHistory implements OrderHistory {
+
+	/**
+	 * The amount.
+	 */
+	private double amount;
+	/**
+	 * The price.
+	 */
+	private double price;
+	/**
+	 * The time.
+	 */
+	private long time;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param amount The amount.
+	 * @param price The price.
+	 * @param time The time.
+	 */
+	public ReplayOrderHistory(double amount, double price, long time) {
+		super();
+		this.amount = amount;
+		this.price = price;
+		this.time = time;
+	}
+
+	/**
+	 * Returns the amount filled or closed.
+	 * 
+	 * @return The amount.
+	 */
+	public double getAmount() {
+		return amount;
+	}
+
+	/**
+	 * Returns the fill or close price.
+	 * 
+	 * @return The price.
+	 */
+	public double getPrice() {
+		return price;
+	}
+
+	/**
+	 * Returns the time of the fill or close.
+	 * 
+	 * @return The time.
+	 */
+	public long getTime() {
+		return time;
+	}
+}
@@ -0,0 +1,414 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtplaf.library.trading.server.servers.replay;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.qtplaf.library.trading.data.Instrument;
+import com.qtplaf.library.trading.server.Order;
+import com.qtplaf.library.trading.server.OrderCommand;
+import com.qtplaf.library.trading.server.OrderManager;
+import com.qtplaf.library.trading.server.ServerException;
+
+/**
+ * Replay order manager. Orders submitted are processed by the replay from the next step on, see <i>ReplayOrder</i> for
+ * the fill rules.
+ * 
+ * @author Miquel Sas
+ */
+public class ReplayOrderManager implements OrderManager {
+
+	/**
+	 * The replay server.
+	 */
+	private ReplayServer server;
+	/**
+	 * All the orders submitted, in submit order.
+	 */
+	private List<ReplayOrder> orders = new ArrayList<>();
+	/**
+	 * The orders not closed or cancelled.
+	 */
+	private List<ReplayOrder> activeOrders = new ArrayList<>();
+	/**
+	 * Sequence to assign order identifiers.
+	 */
+	private long sequence = 0;
+
+	/**
+	 * Constructor assigning the reference server.
+	 * 
+	 * @param server The replay server.
+	 */
+	public ReplayOrderManager(ReplayServer server) {
+		super();
+		this.server = server;
+	}
+
+	/**
+	 * Returns the server.
+	 * 
+	 * @return The server.
+	 */
+	ReplayServer getServer() {
+		return server;
+	}
+
+	/**
+	 * Process the active orders of the instrument at a replay step.
+	 * 
+	 * @param instrument The instrument.
+	 * @param market The market of the step.
+	 */
+	synchronized void process(Instrument instrument, ReplayMarket market) {
+		for (int i = 0; i < activeOrders.size(); i++) {
+			ReplayOrder order = activeOrders.get(i);
+			if (!order.getInstrument().equals(instrument)) {
+				continue;
+			}
+			order.process(market);
+			if (order.isClosed()) {
+				activeOrders.remove(i--);
+			}
+		}
+	}
+
+	/**
+	 * Remove orders closed by the client from the active orders.
+	 */
+	synchronized void purge() {
+		for (int i = 0; i < activeOrders.size(); i++) {
+			if (activeOrders.get(i).isClosed()) {
+				activeOrders.remove(i--);
+			}
+		}
+	}
+
+	/**
+	 * Clear all orders, to start a new replay.
+	 */
+	synchronized void clear() {
+		orders.clear();
+		activeOrders.clear();
+		sequence = 0;
+	}
+
+	/**
+	 * Returns all the orders submitted, including closed and cancelled orders.
+	 * 
+	 * @return The list of orders.
+	 */
+	public synchronized List<Order> getOrderHistory() {
+		return new ArrayList<>(orders);
+	}
+
+	/**
+	 * Returns an order identified by the id.
+	 * 
+	 * @param id The identifier.
+	 * @return The order or null.
+	 * @throws ServerException
+	 */
+	public synchronized Order getOrderById(String id) throws ServerException {
+		for (ReplayOrder order : orders) {
+			if (order.getId().equals(id)) {
+				return order;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns an order identified by the label.
+	 * 
+	 * @param label The label.
+	 * @return The order or null.
+	 * @throws ServerException
+	 */
+	public synchronized Order getOrderByLabel(String label) throws ServerException {
+		for (ReplayOrder order : orders) {
+			if (order.getLabel().equals(label)) {
+				return order;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the list of active orders.
+	 * 
+	 * @return The list of active orders.
+	 * @throws ServerException
+	 */
+	public synchronized List<Order> getOrders() throws ServerException {
+		purge();
+		return new ArrayList<>(activeOrders);
+	}
+
+	/**
+	 * Returns the list of active orders for the instrument.
+	 * 
+	 * @param instrument The instrument.
+	 * @return The list of active orders for the instrument.
+	 * @throws ServerException
+	 */
+	public synchronized List<Order> getOrders(Instrument instrument) throws ServerException {
+		purge();
+		List<Order> list = new ArrayList<>();
+		for (ReplayOrder order : activeOrders) {
+			if (order.getInstrument().equals(instrument)) {
+				list.add(order);
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * Returns the closed orders of the instrument with the close time in the range.
+	 * 
+	 * @param instrument The instrument.
+	 * @param from From time.
+	 * @param to To time.
+	 * @return The list of orders.
+	 */
+	synchronized List<Order> getClosedOrders(Instrument instrument, long from, long to) {
+		List<Order> list = new ArrayList<>();
+		for (ReplayOrder order : orders) {
+			if (order.getInstrument().equals(instrument) && order.isClosed()) {
+				if (order.getCloseTime() >= from && order.getCloseTime() <= to) {
+					list.add(order);
+				}
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * Returns the creation time of the first order of the instrument, or zero.
+	 * 
+	 * @param instrument The instrument.
+	 * @return The time of the first order.
+	 */
+	synchronized long getTimeOfFirstOrder(Instrument instrument) {
+		for (ReplayOrder order : orders) {
+			if (order.getInstrument().equals(instrument)) {
+				return order.getCreationTime();
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Submits a market order.
+	 * 
+	 * @param label The order label.
+	 * @param instrument The instrument.
+	 * @param orderCommand The order command.
+	 * @param amount the amount.
+	 * @return The order if succefully created.
+	 * @throws ServerException
+	 */
+	public Order submitOrder(
+		String label,
+		Instrument instrument,
+		OrderCommand orderCommand,
+		double amount) throws ServerException {
+		return submitOrder(label, instrument, orderCommand, amount, 0, 0, 0, 0, 0, null);
+	}
+
+	/**
+	 * Submits an order.
+	 * 
+	 * @param label The order label.
+	 * @param instrument The instrument.
+	 * @param orderCommand The order command.
+	 * @param amount the amount.
+	 * @param price The required price.
+	 * @return The order if succefully created.
+	 * @throws ServerException
+	 */
+	public Order submitOrder(
+		String label,
+		Instrument instrument,
+		OrderCommand orderCommand,
+		double amount,
+		double price) throws ServerException {
+		return submitOrder(label, instrument, orderCommand, amount, price, 0, 0, 0, 0, null);
+	}
+
+	/**
+	 * Submits an order.
+	 * 
+	 * @param label The order label.
+	 * @param instrument The instrument.
+	 * @param orderCommand The order command.
+	 * @param amount the amount.
+	 * @param price The required price.
+	 * @param slippage The accepted slippage.
+	 * @return The order if succefully created.
+	 * @throws ServerException
+	 */
+	public Order submitOrder(
+		String label,
+		Instrument instrument,
+		OrderCommand orderCommand,
+		double amount,
+		double price,
+		double slippage) throws ServerException {
+		return submitOrder(label, instrument, orderCommand, amount, price, slippage, 0, 0, 0, null);
+	}
+
+	/**
+	 * Submits an order.
+	 * 
+	 * @param label The order label.
+	 * @param instrument The instrument.
+	 * @param orderCommand The order command.
+	 * @param amount the amount.
+	 * @param price The required price.
+	 * @param slippage The accepted slippage.
+	 * @param stopLossPrice The stop loss price.
+	 * @return The order if succefully created.
+	 * @throws ServerException
+	 */
+	public Order submitOrder(
+		String label,
+		Instrument instrument,
+		OrderCommand orderCommand,
+		double amount,
+		double price,
+		double slippage,
+		double stopLossPrice) throws ServerException {
+		return submitOrder(label, instrument, orderCommand, amount, price, slippage, stopLossPrice, 0, 0, null);
+	}
+
+	/**
+	 * Submits an order.
+	 * 
+	 * @param label The order label.
+	 * @param instrument The instrument.
+	 * @param orderCommand The order command.
+	 * @param amount the amount.
+	 * @param price The required price.
+	 * @param slippage The accepted slippage.
+	 * @param stopLossPrice The stop loss price.
+	 * @param takeProfitPrice The take profit price.
+	 * @return The order if succefully created.
+	 * @throws ServerException
+	 */
+	public Order submitOrder(
+		String label,
+		Instrument instrument,
+		OrderCommand orderCommand,
+		double amount,
+		double price,
+		double slippage,
+		double stopLossPrice,
+		double takeProfitPrice) throws ServerException {
+		return submitOrder(
+			label, instrument, orderCommand, amount, price, slippage, stopLossPrice, takeProfitPrice, 0, null);
+	}
+
+	/**
+	 * Submits an order.
+	 * 
+	 * @param label The order label.
+	 * @param instrument The instrument.
+	 * @param orderCommand The order command.
+	 * @param amount the amount.
+	 * @param price The required price.
+	 * @param slippage The accepted slippage.
+	 * @param stopLossPrice The stop loss price.
+	 * @param takeProfitPrice The take profit price.
+	 * @param expirationTime The expiration time, zero for no expiration.
+	 * @return The order if succefully created.
+	 * @throws ServerException
+	 */
+	public Order submitOrder(
+		String label,
+		Instrument instrument,
+		OrderCommand orderCommand,
+		double amount,
+		double price,
+		double slippage,
+		double stopLossPrice,
+		double takeProfitPrice,
+		long expirationTime) throws ServerException {
+		return submitOrder(
+			label,
+			instrument,
+			orderCommand,
+			amount,
+			price,
+			slippage,
+			stopLossPrice,
+			takeProfitPrice,
+			expirationTime,
+			null);
+	}
+
+	/**
+	 * Submits an order.
+	 * 
+	 * @param label The order label.
+	 * @param instrument The instrument.
+	 * @param orderCommand The order command.
+	 * @param amount the amount.
+	 * @param price The required price, for limit and stop orders.
+	 * @param slippage The accepted slippage, ignored.
+	 * @param stopLossPrice The stop loss price.
+	 * @param takeProfitPrice The take profit price.
+	 * @param expirationTime The expiration time, zero for no expiration.
+	 * @param comment An optional comment.
+	 * @return The order if succefully created.
+	 * @throws ServerException
+	 */
+	public synchronized Order submitOrder(
+		String label,
+		Instrument instrument,
+		OrderCommand orderCommand,
+		double amount,
+		double price,
+		double slippage,
+		double stopLossPrice,
+		double takeProfitPrice,
+		long expirationTime,
+		String comment) throws ServerException {
+
+		if (amount <= 0) {
+			throw new ServerException("Invalid amount " + amount);
+		}
+		if (!server.isAvailable(instrument)) {
+			throw new ServerException("Instrument " + instrument + " not available in the replay");
+		}
+		ReplayOrder order = new ReplayOrder(
+			this,
+			Long.toString(++sequence),
+			label,
+			instrument,
+			orderCommand,
+			amount,
+			price,
+			stopLossPrice,
+			takeProfitPrice,
+			expirationTime,
+			comment,
+			server.getTime());
+		orders.add(order);
+		activeOrders.add(order);
+		return order;
+	}
+}
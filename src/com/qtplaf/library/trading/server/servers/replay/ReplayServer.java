@@ -0,0 +1,485 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtplaf.library.trading.server.servers.replay;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+
+import com.qtplaf.library.trading.data.Data;
+import com.qtplaf.library.trading.data.DataList;
+import com.qtplaf.library.trading.data.Instrument;
+import com.qtplaf.library.trading.data.Period;
+import com.qtplaf.library.trading.server.AccountType;
+import com.qtplaf.library.trading.server.ConnectionManager;
+import com.qtplaf.library.trading.server.FeedManager;
+import com.qtplaf.library.trading.server.HistoryManager;
+import com.qtplaf.library.trading.server.OfferSide;
+import com.qtplaf.library.trading.server.OrderManager;
+import com.qtplaf.library.trading.server.ServerException;
+import com.qtplaf.library.trading.server.feed.FeedDispatcher;
+import com.qtplaf.library.trading.server.servers.AbstractServer;
+
+/**
+ * A server that replays prices stored locally, to run backtests without a connection. Sources are data lists of an
+ * instrument, period and offer side, normally a <tt>PersistorDataList</tt> over a prices table or a
+ * <tt>MappedDataList</tt> over a binary file.
+ * <p>
+ * The replay advances in steps, the end times of the bars in ascending order. At each step, for every instrument with
+ * bars of its smallest period ending at the step, the orders are processed against those bars and a tick with the
+ * close prices is published, then every bar ending at the step is published as current and completed data. The step
+ * is dispatched to the feed listeners in the replay thread before the next step is produced, so a replay runs as fast
+ * as listeners consume and is deterministic: orders submitted by listeners are processed from the next step on.
+ * Optionally the replay is paced at a speed-up factor over market time.
+ * 
+ * @author Miquel Sas
+ */
+public class ReplayServer extends AbstractServer {
+
+	/**
+	 * The sources of an instrument used to build the market, the smallest period for each offer side.
+	 */
+	private static class MarketSources {
+		/** The instrument. */
+		private Instrument instrument;
+		/** Ask source. */
+		private ReplaySource ask;
+		/** Bid source. */
+		private ReplaySource bid;
+		/** Ask bar of the current step. */
+		private Data askBar;
+		/** Bid bar of the current step. */
+		private Data bidBar;
+	}
+
+	/**
+	 * The replay sources.
+	 */
+	private List<ReplaySource> sources = new CopyOnWriteArrayList<>();
+	/**
+	 * The market by instrument id at the current step.
+	 */
+	private Map<String, ReplayMarket> markets = new ConcurrentHashMap<>();
+	/**
+	 * Connection manager.
+	 */
+	private ReplayConnectionManager connectionManager;
+	/**
+	 * History manager.
+	 */
+	private ReplayHistoryManager historyManager;
+	/**
+	 * Order manager.
+	 */
+	private ReplayOrderManager orderManager;
+	/**
+	 * Feed manager.
+	 */
+	private ReplayFeedManager feedManager;
+	/**
+	 * Speed-up factor over market time, zero to replay as fast as possible.
+	 */
+	private volatile double speed = 0;
+	/**
+	 * Current step time.
+	 */
+	private volatile long time = 0;
+	/**
+	 * A boolean that indicates whether a replay is running.
+	 */
+	private volatile boolean replaying = false;
+	/**
+	 * A boolean that indicates that the replay should stop.
+	 */
+	private volatile boolean stop = false;
+
+	/**
+	 * Constructor.
+	 */
+	public ReplayServer() {
+		super();
+		setName("Replay");
+		setId("rply");
+		setTitle("Local prices replay");
+		connectionManager = new ReplayConnectionManager(this);
+		historyManager = new ReplayHistoryManager(this);
+		orderManager = new ReplayOrderManager(this);
+		feedManager = new ReplayFeedManager();
+	}
+
+	/**
+	 * Adds a source to replay.
+	 * 
+	 * @param instrument The instrument.
+	 * @param period The period.
+	 * @param offerSide The offer side.
+	 * @param dataList The data list, in ascending time order.
+	 */
+	public void addSource(Instrument instrument, Period period, OfferSide offerSide, DataList dataList) {
+		if (replaying) {
+			throw new IllegalStateException("Can not add sources while replaying");
+		}
+		for (ReplaySource source : sources) {
+			if (source.accepts(instrument, period, offerSide)) {
+				throw new IllegalArgumentException(
+					"Duplicated source " + instrument + " " + period + " " + offerSide);
+			}
+		}
+		sources.add(new ReplaySource(instrument, period, offerSide, dataList));
+	}
+
+	/**
+	 * Returns the source. If the offer side is not stored, the source of the other side is returned.
+	 * 
+	 * @param instrument The instrument.
+	 * @param period The period.
+	 * @param offerSide The offer side.
+	 * @return The source.
+	 * @throws ServerException If there is no source of the instrument and period.
+	 */
+	public ReplaySource getSource(Instrument instrument, Period period, OfferSide offerSide) throws ServerException {
+		ReplaySource other = null;
+		for (ReplaySource source : sources) {
+			if (source.getInstrument().equals(instrument) && source.getPeriod().equals(period)) {
+				if (source.getOfferSide().equals(offerSide)) {
+					return source;
+				}
+				other = source;
+			}
+		}
+		if (other == null) {
+			throw new ServerException("No replay data for " + instrument + " " + period);
+		}
+		return other;
+	}
+
+	/**
+	 * Returns the source of the smallest period of the instrument and offer side, or null.
+	 * 
+	 * @param instrument The instrument.
+	 * @param offerSide The offer side.
+	 * @return The source or null.
+	 */
+	public ReplaySource getTickSource(Instrument instrument, OfferSide offerSide) {
+		ReplaySource tickSource = null;
+		for (ReplaySource source : sources) {
+			if (source.getInstrument().equals(instrument) && source.getOfferSide().equals(offerSide)) {
+				if (tickSource == null || source.getPeriod().compareTo(tickSource.getPeriod()) < 0) {
+					tickSource = source;
+				}
+			}
+		}
+		return tickSource;
+	}
+
+	/**
+	 * Check whether the instrument has sources.
+	 * 
+	 * @param instrument The instrument.
+	 * @return A boolean.
+	 */
+	public boolean isAvailable(Instrument instrument) {
+		for (ReplaySource source : sources) {
+			if (source.getInstrument().equals(instrument)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the market of the instrument at the current step, or null if the instrument has not been replayed.
+	 * 
+	 * @param instrument The instrument.
+	 * @return The market or null.
+	 */
+	public ReplayMarket getMarket(Instrument instrument) {
+		return markets.get(instrument.getId());
+	}
+
+	/**
+	 * Returns the current step time.
+	 * 
+	 * @return The time.
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * Returns the time up to which stored data is visible: the current step while replaying, all of it otherwise.
+	 * 
+	 * @return The visible time.
+	 */
+	public long getVisibleTime() {
+		return (replaying ? time : Long.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the speed-up factor over market time.
+	 * 
+	 * @return The speed.
+	 */
+	public double getSpeed() {
+		return speed;
+	}
+
+	/**
+	 * Sets the speed-up factor over market time, zero to replay as fast as listeners consume.
+	 * 
+	 * @param speed The speed.
+	 */
+	public void setSpeed(double speed) {
+		if (speed < 0) {
+			throw new IllegalArgumentException("Speed can not be negative");
+		}
+		this.speed = speed;
+	}
+
+	/**
+	 * Check whether a replay is running.
+	 * 
+	 * @return A boolean.
+	 */
+	public boolean isReplaying() {
+		return replaying;
+	}
+
+	/**
+	 * Request the running replay to stop after the current step.
+	 */
+	public void stopReplay() {
+		stop = true;
+	}
+
+	/**
+	 * Replays the bars that end after the start time and up to the end time, in the calling thread. Orders of a
+	 * previous replay are cleared.
+	 * 
+	 * @param from The start time, exclusive.
+	 * @param to The end time, inclusive.
+	 * @return The number of bars replayed.
+	 * @throws ServerException
+	 */
+	public long replay(long from, long to) throws ServerException {
+		synchronized (this) {
+			if (replaying) {
+				throw new ServerException("A replay is already running");
+			}
+			replaying = true;
+			stop = false;
+		}
+		try {
+			return doReplay(from, to);
+		} catch (Exception cause) {
+			throw new ServerException(cause);
+		} finally {
+			replaying = false;
+		}
+	}
+
+	/**
+	 * Do replay.
+	 * 
+	 * @param from The start time, exclusive.
+	 * @param to The end time, inclusive.
+	 * @return The number of bars replayed.
+	 */
+	private long doReplay(long from, long to) {
+
+		// Clear previous state and position the sources.
+		orderManager.clear();
+		markets.clear();
+		List<ReplaySource> sources = new ArrayList<>(this.sources);
+		for (ReplaySource source : sources) {
+			source.seek(from);
+		}
+
+		// Market sources by instrument.
+		Map<String, MarketSources> marketSourcesMap = new LinkedHashMap<>();
+		for (ReplaySource source : sources) {
+			String id = source.getInstrument().getId();
+			if (!marketSourcesMap.containsKey(id)) {
+				MarketSources marketSources = new MarketSources();
+				marketSources.instrument = source.getInstrument();
+				marketSources.ask = getTickSource(source.getInstrument(), OfferSide.Ask);
+				marketSources.bid = getTickSource(source.getInstrument(), OfferSide.Bid);
+				marketSourcesMap.put(id, marketSources);
+			}
+		}
+		List<MarketSources> marketSourcesList = new ArrayList<>(marketSourcesMap.values());
+
+		FeedDispatcher dispatcher = feedManager.getDispatcher();
+		List<ReplaySource> stepSources = new ArrayList<>();
+		List<Data> stepBars = new ArrayList<>();
+		long bars = 0;
+		long startNanos = System.nanoTime();
+		long startTime = -1;
+
+		while (!stop) {
+
+			// Next step, the minimum end time of the next bars.
+			long stepTime = Long.MAX_VALUE;
+			for (ReplaySource source : sources) {
+				stepTime = Math.min(stepTime, source.getNextEndTime());
+			}
+			if (stepTime == Long.MAX_VALUE || stepTime > to) {
+				break;
+			}
+			time = stepTime;
+
+			// Pace to the speed.
+			if (speed > 0) {
+				if (startTime < 0) {
+					startTime = stepTime;
+				}
+				long wait = startNanos + (long) ((stepTime - startTime) * 1000000.0 / speed) - System.nanoTime();
+				while (wait > 0 && !stop) {
+					LockSupport.parkNanos(wait);
+					wait = startNanos + (long) ((stepTime - startTime) * 1000000.0 / speed) - System.nanoTime();
+				}
+			}
+
+			// Bars that end at the step.
+			stepSources.clear();
+			stepBars.clear();
+			for (MarketSources marketSources : marketSourcesList) {
+				marketSources.askBar = null;
+				marketSources.bidBar = null;
+			}
+			for (ReplaySource source : sources) {
+				if (source.getNextEndTime() == stepTime) {
+					Data bar = source.next();
+					stepSources.add(source);
+					stepBars.add(bar);
+					MarketSources marketSources = marketSourcesMap.get(source.getInstrument().getId());
+					if (source == marketSources.ask) {
+						marketSources.askBar = bar;
+					}
+					if (source == marketSources.bid) {
+						marketSources.bidBar = bar;
+					}
+				}
+			}
+
+			// Markets: process orders and publish ticks.
+			for (MarketSources marketSources : marketSourcesList) {
+				if (marketSources.askBar == null && marketSources.bidBar == null) {
+					continue;
+				}
+				ReplayMarket market = new ReplayMarket(stepTime, marketSources.askBar, marketSources.bidBar);
+				markets.put(marketSources.instrument.getId(), market);
+				orderManager.process(marketSources.instrument, market);
+				dispatcher.addTick(marketSources.instrument, market.getTick());
+			}
+
+			// Bars as current and completed data.
+			for (int i = 0; i < stepSources.size(); i++) {
+				ReplaySource source = stepSources.get(i);
+				Data bar = stepBars.get(i);
+				dispatcher.addCurrentData(source.getInstrument(), source.getPeriod(), source.getOfferSide(), bar);
+				dispatcher.addData(source.getInstrument(), source.getPeriod(), source.getOfferSide(), bar);
+			}
+			bars += stepSources.size();
+
+			// Deliver the step.
+			dispatcher.dispatch();
+		}
+		return bars;
+	}
+
+	/**
+	 * Returns the URL, not applicable to a local replay.
+	 * 
+	 * @param accountType The account type.
+	 * @return The URL.
+	 */
+	public String getURL(AccountType accountType) {
+		return "replay://local";
+	}
+
+	/**
+	 * Returns the list of instruments with sources.
+	 * 
+	 * @return The list of instruments.
+	 */
+	public List<Instrument> getAvailableInstruments() {
+		List<Instrument> instruments = new ArrayList<>();
+		for (ReplaySource source : sources) {
+			if (!instruments.contains(source.getInstrument())) {
+				instruments.add(source.getInstrument());
+			}
+		}
+		return instruments;
+	}
+
+	/**
+	 * Returns the connection manager.
+	 * 
+	 * @return The connection manager.
+	 */
+	public ConnectionManager getConnectionManager() {
+		return connectionManager;
+	}
+
+	/**
+	 * Returns the order manager.
+	 * 
+	 * @return The order manager.
+	 */
+	public OrderManager getOrderManager() {
+		return orderManager;
+	}
+
+	/**
+	 * Returns the replay order manager.
+	 * 
+	 * @return The replay order manager.
+	 */
+	public ReplayOrderManager getReplayOrderManager() {
+		return orderManager;
+	}
+
+	/**
+	 * Returns the history manager.
+	 * 
+	 * @return The history manager.
+	 */
+	public HistoryManager getHistoryManager() {
+		return historyManager;
+	}
+
+	/**
+	 * Returns the feed manager.
+	 * 
+	 * @return The feed manager.
+	 */
+	public FeedManager getFeedManager() {
+		return feedManager;
+	}
+
+	/**
+	 * Returns the replay feed manager.
+	 * 
+	 * @return The replay feed manager.
+	 */
+	public ReplayFeedManager getReplayFeedManager() {
+		return feedManager;
+	}
+}
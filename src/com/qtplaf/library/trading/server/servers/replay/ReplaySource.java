@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtplaf.library.trading.server.servers.replay;
+
+import com.qtplaf.library.trading.data.Data;
+import com.qtplaf.library.trading.data.DataList;
+import com.qtplaf.library.trading.data.Instrument;
+import com.qtplaf.library.trading.data.Period;
+import com.qtplaf.library.trading.server.OfferSide;
+
+/**
+ * A source of stored prices to replay, an instrument, period and offer side backed by a data list, normally a
+ * <tt>PersistorDataList</tt> over a prices table or a <tt>MappedDataList</tt> over a binary file. Data is expected in
+ * ascending time order, the time of each bar being its start time, so a bar is completed at its time plus the period.
+ * 
+ * @author Miquel Sas
+ */
+public class ReplaySource {
+
+	/** The instrument. */
+	private Instrument instrument;
+	/** The period. */
+	private Period period;
+	/** The offer side. */
+	private OfferSide offerSide;
+	/** The data list. */
+	private DataList dataList;
+	/** The period in millis. */
+	private long periodTime;
+	/** Index of the next bar to replay. */
+	private int cursor;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param instrument The instrument.
+	 * @param period The period.
+	 * @param offerSide The offer side.
+	 * @param dataList The data list.
+	 */
+	public ReplaySource(Instrument instrument, Period period, OfferSide offerSide, DataList dataList) {
+		super();
+		this.instrument = instrument;
+		this.period = period;
+		this.offerSide = offerSide;
+		this.dataList = dataList;
+		this.periodTime = period.getTime();
+	}
+
+	/**
+	 * Returns the instrument.
+	 * 
+	 * @return The instrument.
+	 */
+	public Instrument getInstrument() {
+		return instrument;
+	}
+
+	/**
+	 * Returns the period.
+	 * 
+	 * @return The period.
+	 */
+	public Period getPeriod() {
+		return period;
+	}
+
+	/**
+	 * Returns the offer side.
+	 * 
+	 * @return The offer side.
+	 */
+	public OfferSide getOfferSide() {
+		return offerSide;
+	}
+
+	/**
+	 * Returns the data list.
+	 * 
+	 * @return The data list.
+	 */
+	public DataList getDataList() {
+		return dataList;
+	}
+
+	/**
+	 * Check whether this source is of the instrument, period and offer side.
+	 * 
+	 * @param instrument The instrument.
+	 * @param period The period.
+	 * @param offerSide The offer side.
+	 * @return A boolean.
+	 */
+	public boolean accepts(Instrument instrument, Period period, OfferSide offerSide) {
+		return this.instrument.equals(instrument) && this.period.equals(period) && this.offerSide.equals(offerSide);
+	}
+
+	/**
+	 * Returns the number of bars.
+	 * 
+	 * @return The number of bars.
+	 */
+	public int size() {
+		return dataList.size();
+	}
+
+	/**
+	 * Returns the bar at the index.
+	 * 
+	 * @param index The index.
+	 * @return The bar.
+	 */
+	public Data get(int index) {
+		return dataList.get(index);
+	}
+
+	/**
+	 * Returns the start time of the bar at the index.
+	 * 
+	 * @param index The index.
+	 * @return The start time.
+	 */
+	public long getTime(int index) {
+		return dataList.getTime(index);
+	}
+
+	/**
+	 * Returns the time the bar at the index is completed.
+	 * 
+	 * @param index The index.
+	 * @return The end time.
+	 */
+	public long getEndTime(int index) {
+		return dataList.getTime(index) + periodTime;
+	}
+
+	/**
+	 * Returns the index of the last bar that starts at or before the time, or -1 if none.
+	 * 
+	 * @param time The time.
+	 * @return The index or -1.
+	 */
+	public int indexOfStart(long time) {
+		int low = 0;
+		int high = dataList.size() - 1;
+		int index = -1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			if (dataList.getTime(middle) <= time) {
+				index = middle;
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the index of the last bar completed at or before the time, or -1 if none.
+	 * 
+	 * @param time The time.
+	 * @return The index or -1.
+	 */
+	public int indexOfCompleted(long time) {
+		if (time == Long.MAX_VALUE) {
+			return dataList.size() - 1;
+		}
+		if (time < Long.MIN_VALUE + periodTime) {
+			return -1;
+		}
+		return indexOfStart(time - periodTime);
+	}
+
+	/**
+	 * Position the cursor at the first bar completed after the time.
+	 * 
+	 * @param time The time.
+	 */
+	public void seek(long time) {
+		cursor = indexOfCompleted(time) + 1;
+	}
+
+	/**
+	 * Check whether there are more bars to replay.
+	 * 
+	 * @return A boolean.
+	 */
+	public boolean hasNext() {
+		return cursor < dataList.size();
+	}
+
+	/**
+	 * Returns the end time of the next bar to replay, or <tt>Long.MAX_VALUE</tt> if there are no more bars.
+	 * 
+	 * @return The end time of the next bar.
+	 */
+	public long getNextEndTime() {
+		return (hasNext() ? getEndTime(cursor) : Long.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the next bar and advances the cursor.
+	 * 
+	 * @return The next bar.
+	 */
+	public Data next() {
+		return dataList.get(cursor++);
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtplaf.library.util.list;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free, multiple producers and single consumer ring buffer. Producers claim a sequence with an atomic
+ * increment and publish the element by setting the sequence of the slot, so that the consumer only reads completely
+ * published elements, in claim order. The capacity is rounded up to a power of two.
+ * <p>
+ * Only one thread may call <code>poll()</code>.
+ * 
+ * @author Miquel Sas
+ * 
+ * @param <E> The type of the elements.
+ */
+public class RingBuffer<E> {
+
+	/** The elements. */
+	private AtomicReferenceArray<E> elements;
+	/** The sequence of each slot: the sequence to write when free, or the sequence plus one when published. */
+	private AtomicLongArray sequences;
+	/** Mask to get the slot from the sequence. */
+	private int mask;
+	/** Next sequence to claim by producers. */
+	private AtomicLong tail = new AtomicLong(0);
+	/** Next sequence to read by the consumer. */
+	private volatile long head = 0;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param capacity The minimum capacity, rounded up to a power of two.
+	 */
+	public RingBuffer(int capacity) {
+		super();
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be greater than zero");
+		}
+		int size = 1;
+		while (size < capacity) {
+			size <<= 1;
+		}
+		elements = new AtomicReferenceArray<>(size);
+		sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++) {
+			sequences.set(i, i);
+		}
+		mask = size - 1;
+	}
+
+	/**
+	 * Returns the capacity.
+	 * 
+	 * @return The capacity.
+	 */
+	public int getCapacity() {
+		return mask + 1;
+	}
+
+	/**
+	 * Adds the element if there is room. Can be called concurrently by any number of producers.
+	 * 
+	 * @param e The element, not null.
+	 * @return A boolean indicating whether the element was added, false if the buffer is full.
+	 */
+	public boolean offer(E e) {
+		if (e == null) {
+			throw new NullPointerException();
+		}
+		while (true) {
+			long sequence = tail.get();
+			int slot = (int) (sequence & mask);
+			long available = sequences.get(slot);
+			if (available == sequence) {
+				if (tail.compareAndSet(sequence, sequence + 1)) {
+					elements.lazySet(slot, e);
+					sequences.set(slot, sequence + 1);
+					return true;
+				}
+			} else if (available < sequence) {
+				// The slot has not yet been consumed: full.
+				return false;
+			}
+			// Another producer claimed the sequence, retry.
+		}
+	}
+
+	/**
+	 * Removes and returns the next published element, or null if there is none. Must be called by only one consumer.
+	 * 
+	 * @return The element or null.
+	 */
+	public E poll() {
+		long sequence = head;
+		int slot = (int) (sequence & mask);
+		if (sequences.get(slot) != sequence + 1) {
+			return null;
+		}
+		E e = elements.get(slot);
+		elements.lazySet(slot, null);
+		sequences.set(slot, sequence + mask + 1);
+		head = sequence + 1;
+		return e;
+	}
+
+	/**
+	 * Check whether the next element to poll has been published.
+	 * 
+	 * @return A boolean indicating whether the buffer is empty.
+	 */
+	public boolean isEmpty() {
+		long sequence = head;
+		return sequences.get((int) (sequence & mask)) != sequence + 1;
+	}
+
+	/**
+	 * Returns an estimate of the number of elements claimed and not yet polled.
+	 * 
+	 * @return The approximate size.
+	 */
+	public int size() {
+		long size = tail.get() - head;
+		return (int) Math.max(0, Math.min(size, mask + 1));
+	}
+}
@@ -0,0 +1,480 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtplaf.library.util.map;
+
+import java.util.Arrays;
+
+/**
+ * A cache of objects keyed by primitive int keys, with a maximum size and a pluggable eviction policy. Keys are located
+ * through an open addressing hash table, and entries are stored in slots that the policy tracks, so that get, put and
+ * remove do not allocate and run in constant time. The number of hits, misses and evictions is counted.
+ *
+ * @author Miquel Sas
+ */
+public class IntCache<V> {
+
+	/** Initial number of slots. */
+	private static final int INITIAL_SLOTS = 64;
+
+	/** Maximum size, less than zero for no maximum. */
+	private int cacheSize;
+	/** The eviction policy. */
+	private IntCachePolicy policy;
+
+	/** Hash table of slot plus one, zero meaning empty. */
+	private int[] table;
+	/** Keys by slot. */
+	private int[] keys;
+	/** Values by slot. */
+	private Object[] values;
+	/** Used flags by slot. */
+	private boolean[] used;
+	/** Stack of free slots. */
+	private int[] free;
+	/** Number of free slots in the stack. */
+	private int freeCount;
+	/** Number of entries. */
+	private int size;
+	/** Last key accessed through get or put. */
+	private int lastKey;
+
+	/** Number of hits. */
+	private long hits;
+	/** Number of misses. */
+	private long misses;
+	/** Number of evictions. */
+	private long evictions;
+
+	/**
+	 * Constructor with a cache size of 1000 and LRU policy.
+	 */
+	public IntCache() {
+		this(1000);
+	}
+
+	/**
+	 * Constructor with LRU policy.
+	 * 
+	 * @param cacheSize The cache size, less than zero for no maximum.
+	 */
+	public IntCache(int cacheSize) {
+		this(cacheSize, IntCachePolicy.lru());
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param cacheSize The cache size, less than zero for no maximum.
+	 * @param policy The eviction policy.
+	 */
+	public IntCache(int cacheSize, IntCachePolicy policy) {
+		super();
+		this.cacheSize = cacheSize;
+		setPolicy(policy);
+	}
+
+	/**
+	 * Returns the cache size.
+	 * 
+	 * @return The cache size.
+	 */
+	public int getCacheSize() {
+		return cacheSize;
+	}
+
+	/**
+	 * Sets the cache size, evicting entries if the current size exceeds it. Less than zero for no maximum.
+	 * 
+	 * @param cacheSize The cache size.
+	 */
+	public void setCacheSize(int cacheSize) {
+		this.cacheSize = cacheSize;
+		if (cacheSize >= 0) {
+			while (size > cacheSize) {
+				evict();
+			}
+		}
+	}
+
+	/**
+	 * Returns the eviction policy.
+	 * 
+	 * @return The policy.
+	 */
+	public IntCachePolicy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Sets the eviction policy. The cache is cleared.
+	 * 
+	 * @param policy The policy.
+	 */
+	public void setPolicy(IntCachePolicy policy) {
+		if (policy == null) {
+			throw new NullPointerException();
+		}
+		policy.attach(this);
+		this.policy = policy;
+		allocate(INITIAL_SLOTS);
+	}
+
+	/**
+	 * Allocate empty structures with the given number of slots.
+	 * 
+	 * @param slots The number of slots.
+	 */
+	private void allocate(int slots) {
+		table = new int[tableLength(slots)];
+		keys = new int[slots];
+		values = new Object[slots];
+		used = new boolean[slots];
+		free = new int[slots];
+		freeCount = 0;
+		for (int slot = slots - 1; slot >= 0; slot--) {
+			free[freeCount++] = slot;
+		}
+		size = 0;
+		policy.resize(slots);
+	}
+
+	/**
+	 * Returns the length of the hash table for the number of slots, a power of two at least twice the slots.
+	 * 
+	 * @param slots The number of slots.
+	 * @return The table length.
+	 */
+	private static int tableLength(int slots) {
+		return Integer.highestOneBit(Math.max(slots, 2) * 2 - 1) << 1;
+	}
+
+	/**
+	 * Returns the hash position of a key.
+	 * 
+	 * @param key The key.
+	 * @return The position in the table.
+	 */
+	private int hash(int key) {
+		int h = key * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & (table.length - 1);
+	}
+
+	/**
+	 * Returns the position in the table of the key or -1.
+	 * 
+	 * @param key The key.
+	 * @return The position or -1.
+	 */
+	private int position(int key) {
+		int mask = table.length - 1;
+		int position = hash(key);
+		while (table[position] != 0) {
+			if (keys[table[position] - 1] == key) {
+				return position;
+			}
+			position = (position + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the slot of the key or -1 if not present. Used by policies.
+	 * 
+	 * @param key The key.
+	 * @return The slot or -1.
+	 */
+	public int getSlot(int key) {
+		int position = position(key);
+		return (position < 0 ? -1 : table[position] - 1);
+	}
+
+	/**
+	 * Returns the key at the slot. Used by policies.
+	 * 
+	 * @param slot The slot.
+	 * @return The key.
+	 */
+	public int getKey(int slot) {
+		return keys[slot];
+	}
+
+	/**
+	 * Check whether the slot is in use. Used by policies.
+	 * 
+	 * @param slot The slot.
+	 * @return A boolean.
+	 */
+	public boolean isUsed(int slot) {
+		return used[slot];
+	}
+
+	/**
+	 * Returns the last key accessed through get or put. Used by policies.
+	 * 
+	 * @return The last key.
+	 */
+	public int getLastKey() {
+		return lastKey;
+	}
+
+	/**
+	 * Returns the number of entries.
+	 * 
+	 * @return The number of entries.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Check empty.
+	 * 
+	 * @return A boolean.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Check whether the key is cached, without counting a hit or a miss nor registering an access.
+	 * 
+	 * @param key The key.
+	 * @return A boolean.
+	 */
+	public boolean containsKey(int key) {
+		return position(key) >= 0;
+	}
+
+	/**
+	 * Returns the value with the given key or null.
+	 * 
+	 * @param key The key.
+	 * @return The value or null.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(int key) {
+		int position = position(key);
+		if (position < 0) {
+			misses++;
+			return null;
+		}
+		hits++;
+		int slot = table[position] - 1;
+		lastKey = key;
+		policy.accessed(slot);
+		return (V) values[slot];
+	}
+
+	/**
+	 * Put the value with the given key, evicting an entry if the cache is full.
+	 * 
+	 * @param key The key.
+	 * @param value The value.
+	 * @return The previous value or null.
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(int key, V value) {
+		lastKey = key;
+		int position = position(key);
+		if (position >= 0) {
+			int slot = table[position] - 1;
+			V previous = (V) values[slot];
+			values[slot] = value;
+			policy.accessed(slot);
+			return previous;
+		}
+		if (cacheSize == 0) {
+			return null;
+		}
+		if (cacheSize > 0 && size >= cacheSize) {
+			evict();
+		}
+		if (freeCount == 0) {
+			grow();
+		}
+		int slot = free[--freeCount];
+		keys[slot] = key;
+		values[slot] = value;
+		used[slot] = true;
+		size++;
+		int mask = table.length - 1;
+		position = hash(key);
+		while (table[position] != 0) {
+			position = (position + 1) & mask;
+		}
+		table[position] = slot + 1;
+		policy.inserted(slot);
+		return null;
+	}
+
+	/**
+	 * Remove the given key.
+	 * 
+	 * @param key The key to remove.
+	 * @return The removed value or null.
+	 */
+	public V remove(int key) {
+		int position = position(key);
+		if (position < 0) {
+			return null;
+		}
+		return removePosition(position);
+	}
+
+	/**
+	 * Remove the entry at the table position, shifting back the following entries of the probe sequence.
+	 * 
+	 * @param position The table position.
+	 * @return The removed value.
+	 */
+	@SuppressWarnings("unchecked")
+	private V removePosition(int position) {
+		int slot = table[position] - 1;
+		V value = (V) values[slot];
+		values[slot] = null;
+		used[slot] = false;
+		free[freeCount++] = slot;
+		size--;
+
+		int mask = table.length - 1;
+		int hole = position;
+		int next = (hole + 1) & mask;
+		while (table[next] != 0) {
+			int home = hash(keys[table[next] - 1]);
+			// Move back if the home position is not cyclically in (hole, next].
+			if (((next - home) & mask) >= ((next - hole) & mask)) {
+				table[hole] = table[next];
+				hole = next;
+			}
+			next = (next + 1) & mask;
+		}
+		table[hole] = 0;
+		policy.removed(slot);
+		return value;
+	}
+
+	/**
+	 * Evict the entry selected by the policy.
+	 */
+	private void evict() {
+		if (size == 0) {
+			return;
+		}
+		int slot = policy.victim();
+		removePosition(position(keys[slot]));
+		evictions++;
+	}
+
+	/**
+	 * Grow the number of slots, up to the cache size if any.
+	 */
+	private void grow() {
+		int slots = keys.length;
+		int newSlots = slots * 2;
+		if (cacheSize > 0) {
+			newSlots = Math.min(newSlots, Math.max(cacheSize, slots + 1));
+		}
+		keys = Arrays.copyOf(keys, newSlots);
+		values = Arrays.copyOf(values, newSlots);
+		used = Arrays.copyOf(used, newSlots);
+		free = Arrays.copyOf(free, newSlots);
+		for (int slot = newSlots - 1; slot >= slots; slot--) {
+			free[freeCount++] = slot;
+		}
+		policy.resize(newSlots);
+		int length = tableLength(newSlots);
+		if (length != table.length) {
+			table = new int[length];
+			int mask = length - 1;
+			for (int slot = 0; slot < slots; slot++) {
+				if (used[slot]) {
+					int position = hash(keys[slot]);
+					while (table[position] != 0) {
+						position = (position + 1) & mask;
+					}
+					table[position] = slot + 1;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Clear the cache. Statistics are not reset.
+	 */
+	public void clear() {
+		allocate(INITIAL_SLOTS);
+	}
+
+	/**
+	 * Returns the number of hits.
+	 * 
+	 * @return The number of hits.
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of misses.
+	 * 
+	 * @return The number of misses.
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Returns the number of evictions.
+	 * 
+	 * @return The number of evictions.
+	 */
+	public long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Returns the ratio of hits over accesses.
+	 * 
+	 * @return The hit ratio.
+	 */
+	public double getHitRatio() {
+		long accesses = hits + misses;
+		return (accesses == 0 ? 0 : (double) hits / (double) accesses);
+	}
+
+	/**
+	 * Reset the statistics.
+	 */
+	public void resetStatistics() {
+		hits = 0;
+		misses = 0;
+		evictions = 0;
+	}
+
+	/**
+	 * Returns a string representation with the size and statistics.
+	 * 
+	 * @return A string representation.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder b = new StringBuilder();
+		b.append("size=" + size);
+		b.append(", hits=" + hits);
+		b.append(", misses=" + misses);
+		b.append(", evictions=" + evictions);
+		return b.toString();
+	}
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtplaf.library.util.map;
+
+import java.util.Arrays;
+
+/**
+ * Eviction policy of an <tt>IntCache</tt>. The cache notifies the policy of insertions, accesses and removals by slot,
+ * and asks it for the slot to evict when full. A policy instance is bound to a single cache.
+ *
+ * @author Miquel Sas
+ */
+public abstract class IntCachePolicy {
+
+	/**
+	 * Returns a least recently used policy.
+	 * 
+	 * @return The policy.
+	 */
+	public static IntCachePolicy lru() {
+		return new LRU();
+	}
+
+	/**
+	 * Returns a CLOCK (second chance) policy.
+	 * 
+	 * @return The policy.
+	 */
+	public static IntCachePolicy clock() {
+		return new Clock();
+	}
+
+	/**
+	 * Returns a sliding window policy, that evicts the key farthest from the last key accessed.
+	 * 
+	 * @return The policy.
+	 */
+	public static IntCachePolicy window() {
+		return new Window();
+	}
+
+	/**
+	 * Least recently used policy, keeping a doubly linked list of slots in access order.
+	 */
+	public static class LRU extends IntCachePolicy {
+
+		/** Previous slot, towards the least recently used. */
+		private int[] prev = new int[0];
+		/** Next slot, towards the most recently used. */
+		private int[] next = new int[0];
+		/** Least recently used slot or -1. */
+		private int head = -1;
+		/** Most recently used slot or -1. */
+		private int tail = -1;
+
+		@Override
+		protected void resize(int slots) {
+			if (slots < prev.length || getCache().isEmpty()) {
+				head = -1;
+				tail = -1;
+			}
+			prev = Arrays.copyOf(prev, slots);
+			next = Arrays.copyOf(next, slots);
+		}
+
+		@Override
+		protected void inserted(int slot) {
+			link(slot);
+		}
+
+		@Override
+		protected void accessed(int slot) {
+			if (slot != tail) {
+				unlink(slot);
+				link(slot);
+			}
+		}
+
+		@Override
+		protected void removed(int slot) {
+			unlink(slot);
+		}
+
+		@Override
+		protected int victim() {
+			return head;
+		}
+
+		/**
+		 * Link the slot as the most recently used.
+		 * 
+		 * @param slot The slot.
+		 */
+		private void link(int slot) {
+			prev[slot] = tail;
+			next[slot] = -1;
+			if (tail >= 0) {
+				next[tail] = slot;
+			} else {
+				head = slot;
+			}
+			tail = slot;
+		}
+
+		/**
+		 * Unlink the slot.
+		 * 
+		 * @param slot The slot.
+		 */
+		private void unlink(int slot) {
+			if (prev[slot] >= 0) {
+				next[prev[slot]] = next[slot];
+			} else {
+				head = next[slot];
+			}
+			if (next[slot] >= 0) {
+				prev[next[slot]] = prev[slot];
+			} else {
+				tail = prev[slot];
+			}
+		}
+	}
+
+	/**
+	 * CLOCK policy, that gives a second chance to slots referenced since the hand last passed over them.
+	 */
+	public static class Clock extends IntCachePolicy {
+
+		/** Reference bits. */
+		private boolean[] referenced = new boolean[0];
+		/** The clock hand. */
+		private int hand = 0;
+
+		@Override
+		protected void resize(int slots) {
+			referenced = Arrays.copyOf(referenced, slots);
+			if (hand >= slots) {
+				hand = 0;
+			}
+		}
+
+		@Override
+		protected void inserted(int slot) {
+			referenced[slot] = false;
+		}
+
+		@Override
+		protected void accessed(int slot) {
+			referenced[slot] = true;
+		}
+
+		@Override
+		protected void removed(int slot) {
+			referenced[slot] = false;
+		}
+
+		@Override
+		protected int victim() {
+			IntCache<?> cache = getCache();
+			int slots = referenced.length;
+			while (true) {
+				int slot = hand;
+				hand = (hand + 1) % slots;
+				if (!cache.isUsed(slot)) {
+					continue;
+				}
+				if (referenced[slot]) {
+					referenced[slot] = false;
+					continue;
+				}
+				return slot;
+			}
+		}
+	}
+
+	/**
+	 * Sliding window policy, that evicts the minimum or the maximum key, the one farthest from the last key accessed.
+	 * Suited to keys that are indexes accessed around a moving position, like data lists scanned forward or backward
+	 * with look backward or look forward. The minimum and maximum are updated by scanning the keys between them, which
+	 * is constant amortized time when keys are dense.
+	 */
+	public static class Window extends IntCachePolicy {
+
+		/** Minimum key. */
+		private int min;
+		/** Maximum key. */
+		private int max;
+
+		@Override
+		protected void resize(int slots) {
+		}
+
+		@Override
+		protected void inserted(int slot) {
+			IntCache<?> cache = getCache();
+			int key = cache.getKey(slot);
+			if (cache.size() == 1) {
+				min = key;
+				max = key;
+			} else {
+				min = Math.min(min, key);
+				max = Math.max(max, key);
+			}
+		}
+
+		@Override
+		protected void accessed(int slot) {
+		}
+
+		@Override
+		protected void removed(int slot) {
+			IntCache<?> cache = getCache();
+			if (cache.isEmpty()) {
+				return;
+			}
+			int key = cache.getKey(slot);
+			if (key == min) {
+				do {
+					min++;
+				} while (!cache.containsKey(min));
+			} else if (key == max) {
+				do {
+					max--;
+				} while (!cache.containsKey(max));
+			}
+		}
+
+		@Override
+		protected int victim() {
+			IntCache<?> cache = getCache();
+			long last = cache.getLastKey();
+			if (last - min >= max - last) {
+				return cache.getSlot(min);
+			}
+			return cache.getSlot(max);
+		}
+	}
+
+	/** The cache this policy is bound to. */
+	private IntCache<?> cache;
+
+	/**
+	 * Constructor.
+	 */
+	protected IntCachePolicy() {
+		super();
+	}
+
+	/**
+	 * Bind the policy to the cache.
+	 * 
+	 * @param cache The cache.
+	 */
+	void attach(IntCache<?> cache) {
+		if (this.cache != null && this.cache != cache) {
+			throw new IllegalStateException("Policy already bound to another cache");
+		}
+		this.cache = cache;
+	}
+
+	/**
+	 * Returns the cache this policy is bound to.
+	 * 
+	 * @return The cache.
+	 */
+	protected IntCache<?> getCache() {
+		return cache;
+	}
+
+	/**
+	 * Called when the number of slots changes, or with the same number when the cache is cleared.
+	 * 
+	 * @param slots The number of slots.
+	 */
+	protected abstract void resize(int slots);
+
+	/**
+	 * Called when a key is inserted in the slot.
+	 * 
+	 * @param slot The slot.
+	 */
+	protected abstract void inserted(int slot);
+
+	/**
+	 * Called when the key in the slot is accessed or its value replaced.
+	 * 
+	 * @param slot The slot.
+	 */
+	protected abstract void accessed(int slot);
+
+	/**
+	 * Called after the key in the slot has been removed from the cache.
+	 * 
+	 * @param slot The slot.
+	 */
+	protected abstract void removed(int slot);
+
+	/**
+	 * Returns the slot to evict. Called only when the cache is not empty.
+	 * 
+	 * @return The slot.
+	 */
+	protected abstract int victim();
+}
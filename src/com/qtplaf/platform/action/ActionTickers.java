@@ -16,6 +16,7 @@ package com.qtplaf.platform.action;
 
 import java.awt.Color;
 import java.awt.event.ActionEvent;
+import java.io.File;
 import java.util.List;
 
 import javax.swing.AbstractAction;
@@ -32,10 +33,12 @@ import com.qtplaf.library.swing.ActionUtils;
 import com.qtplaf.library.swing.MessageBox;
 import com.qtplaf.library.swing.ProgressManager;
 import com.qtplaf.library.swing.action.ActionTableOption;
+import com.qtplaf.library.swing.core.JFileChooser;
 import com.qtplaf.library.swing.core.JOptionFrame;
 import com.qtplaf.library.swing.core.JPanelTableRecord;
 import com.qtplaf.library.swing.core.JTableRecord;
 import com.qtplaf.library.swing.core.TableModelRecord;
+import com.qtplaf.library.swing.core.TableModelRecordVirtual;
 import com.qtplaf.library.trading.chart.JFrameChart;
 import com.qtplaf.library.trading.data.Data;
 import com.qtplaf.library.trading.data.DataPersistor;
@@ -57,7 +60,7 @@ import com.qtplaf.platform.database.Fields;
 import com.qtplaf.platform.database.Formatters;
 import com.qtplaf.platform.database.Lookup;
 import com.qtplaf.platform.database.tables.TableDataPrice;
-import com.qtplaf.platform.task.TaskDownloadTicker;
+import com.qtplaf.platform.task.TaskDownloadScheduler;
 import com.qtplaf.platform.util.FormUtils;
 import com.qtplaf.platform.util.InstrumentUtils;
 import com.qtplaf.platform.util.PeriodUtils;
@@ -69,7 +72,7 @@ import com.qtplaf.platform.util.RecordSetUtils;
  * <ul>
  * <li>Create</li>
  * <li>Remove</li>
- * <li>Download</li>
+ * <li>Download, to the ticker tables or to binary files</li>
  * </ul>
  * 
  * @author Miquel Sas
@@ -228,17 +231,44 @@ public class ActionTickers extends AbstractAction {
 	}
 
 	/**
-	 * Action to download a ticker.
+	 * Action to download a ticker, to the ticker table or to a binary file per ticker in a selected directory.
 	 */
 	class ActionDownload extends ActionTableOption {
+		/** A boolean that indicates whether to download to binary files. */
+		private boolean binary;
+
 		/**
 		 * Constructor.
 		 * 
 		 * @param session The working session.
+		 * @param binary A boolean that indicates whether to download to binary files.
 		 */
-		public ActionDownload(Session session) {
+		public ActionDownload(Session session, boolean binary) {
 			super();
+			this.binary = binary;
 			ActionUtils.configureDownload(session, this);
+			if (binary) {
+				ActionUtils.setSourceName(this, session.getString("qtActionDownloadBinary"));
+				ActionUtils.setShortDescription(this, session.getString("qtActionDownloadBinary"));
+				ActionUtils.setAcceleratorKey(this, null);
+			}
+		}
+
+		/**
+		 * Returns the directory where to write the binary files, selected by the user.
+		 * 
+		 * @param session The working session.
+		 * @return The directory or null if not selected.
+		 */
+		private File getDirectory(Session session) {
+			JFileChooser chooser = new JFileChooser(session);
+			chooser.setDialogTitle(session.getString("qtSelectBinaryDirectory"));
+			chooser.setDialogType(JFileChooser.OPEN_DIALOG);
+			chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+			if (chooser.showDialog(null) == JFileChooser.APPROVE_OPTION) {
+				return chooser.getSelectedFile();
+			}
+			return null;
 		}
 
 		/**
@@ -254,22 +284,39 @@ public class ActionTickers extends AbstractAction {
 				if (records.isEmpty()) {
 					return;
 				}
-				ProgressManager progress = new ProgressManager(session);
-				progress.setSize(0.4, 0.8);
+				File directory = null;
+				if (binary) {
+					directory = getDirectory(session);
+					if (directory == null) {
+						return;
+					}
+				}
+				TaskDownloadScheduler task = new TaskDownloadScheduler(session, server);
+				StringBuilder description = new StringBuilder();
 				for (Record record : records) {
 					Instrument instrument = InstrumentUtils.getInstrumentFromRecordTickers(session, record);
 					Period period = PeriodUtils.getPeriodFromRecordTickers(record);
 					OfferSide offerSide = OfferSide.valueOf(record.getValue(Fields.OfferSide).getString());
 					Filter filter = Filter.valueOf(record.getValue(Fields.DataFilter).getString());
 
-					TaskDownloadTicker task =
-						new TaskDownloadTicker(session, server, instrument, period, offerSide, filter);
-
-					task.setName(instrument.getId());
-					task.setDescription(period.toString());
-
-					progress.addTask(task);
+					if (binary) {
+						String tableName = record.getValue(Fields.TableName).getString();
+						task.addTicker(instrument, period, offerSide, filter, new File(directory, tableName + ".dat"));
+					} else {
+						task.addTicker(instrument, period, offerSide, filter);
+					}
+
+					if (description.length() > 0) {
+						description.append(", ");
+					}
+					description.append(instrument.getId() + " " + period.toString());
 				}
+				task.setName(session.getString("actionDownloadName"));
+				task.setDescription(description.toString());
+
+				ProgressManager progress = new ProgressManager(session);
+				progress.setSize(0.4, 0.8);
+				progress.addTask(task);
 				progress.showFrame();
 
 			} catch (Exception exc) {
@@ -346,7 +393,7 @@ public class ActionTickers extends AbstractAction {
 
 				JTableRecord tableRecord = new JTableRecord(session, ListSelectionModel.SINGLE_SELECTION);
 				JPanelTableRecord panelTableRecord = new JPanelTableRecord(tableRecord);
-				TableModelRecord tableModelRecord = new TableModelRecord(session, masterRecord);
+				TableModelRecord tableModelRecord = new TableModelRecordVirtual(session, masterRecord);
 				tableModelRecord.addColumn(Fields.Index);
 				tableModelRecord.addColumn(Fields.Time);
 				tableModelRecord.addColumn(Fields.TimeFmt);
@@ -506,7 +553,8 @@ public class ActionTickers extends AbstractAction {
 			frame.addAction(actionChart);
 
 			frame.addAction(new ActionPurge(session));
-			frame.addAction(new ActionDownload(session));
+			frame.addAction(new ActionDownload(session, false));
+			frame.addAction(new ActionDownload(session, true));
 
 			frame.addAction(new ActionClose(session));
 			frame.setSize(0.6, 0.8);
@@ -129,12 +129,17 @@ public class StatesIndicator extends Indicator {
 	}
 
 	/**
-	 * Returns the price data list.
+	 * Returns the price data list, the one shared by the states statistics if set, or a persistor data list on the
+	 * ticker table.
 	 * 
 	 * @return The price data list.
 	 */
-	public PersistorDataList getDataListPrice() {
-		PersistorDataList price = (PersistorDataList) mapDataLists.get("price");
+	public DataList getDataListPrice() {
+		DataList price = mapDataLists.get("price");
+		if (price == null && states.getDataListPrice() != null) {
+			price = states.getDataListPrice();
+			mapDataLists.put("price", price);
+		}
 		if (price == null) {
 			try {
 
@@ -148,15 +153,16 @@ public class StatesIndicator extends Indicator {
 				String tableName = record.getValue(Fields.TableName).getString();
 				DataInfo infoPrice = new PriceInfo(getSession(), instrument, period);
 				Persistor persistor = PersistorUtils.getPersistorDataPrice(getSession(), server, instrument, tableName);
-				price = new PersistorDataList(getSession(), infoPrice, persistor);
-				price.setCacheSize(getIndicatorInfo().getLookBackward());
+				PersistorDataList persistorPrice = new PersistorDataList(getSession(), infoPrice, persistor);
+				persistorPrice.setCacheSize(getIndicatorInfo().getLookBackward());
+				price = persistorPrice;
 
 				mapDataLists.put("price", price);
 			} catch (Exception exc) {
 				logger.catching(exc);
 			}
 		}
-		return (PersistorDataList) price;
+		return price;
 	}
 
 	/**
@@ -222,21 +228,20 @@ public class StatesIndicator extends Indicator {
 		double[] values = new double[info.getOutputCount()];
 
 		// Price values.
-		Data price = getDataListPrice().get(index);
-		values[info.getOutputIndex(Fields.Open)] = Data.getOpen(price);
-		values[info.getOutputIndex(Fields.High)] = Data.getHigh(price);
-		values[info.getOutputIndex(Fields.Low)] = Data.getLow(price);
-		values[info.getOutputIndex(Fields.Close)] = Data.getClose(price);
+		DataList price = getDataListPrice();
+		values[info.getOutputIndex(Fields.Open)] = price.getValue(index, Data.IndexOpen);
+		values[info.getOutputIndex(Fields.High)] = price.getValue(index, Data.IndexHigh);
+		values[info.getOutputIndex(Fields.Low)] = price.getValue(index, Data.IndexLow);
+		values[info.getOutputIndex(Fields.Close)] = price.getValue(index, Data.IndexClose);
 
 		// Averages.
 		List<Field> averageFields = states.getFieldListAverages();
 		for (Field field : averageFields) {
-			Data data = getDataListAverage(field).get(index);
-			values[info.getOutputIndex(field.getName())] = data.getValue(0);
+			values[info.getOutputIndex(field.getName())] = getDataListAverage(field).getValue(index, 0);
 		}
 
 		// Result data.
-		long time = price.getTime();
+		long time = price.getTime(index);
 		Data data = new Data();
 		data.setTime(time);
 		data.setValues(values);
@@ -0,0 +1,499 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtplaf.platform.statistics;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.qtplaf.library.app.Session;
+import com.qtplaf.library.database.Persistor;
+import com.qtplaf.library.database.rdbms.DBEngine;
+import com.qtplaf.library.database.rdbms.DBEngineAdapter;
+import com.qtplaf.library.database.rdbms.DataSourceInfo;
+import com.qtplaf.library.database.rdbms.adapters.DerbyAdapterClient;
+import com.qtplaf.library.database.rdbms.adapters.DerbyAdapterEmbedded;
+import com.qtplaf.library.database.rdbms.adapters.PostgreSQLAdapter;
+import com.qtplaf.library.task.Task;
+import com.qtplaf.library.task.TaskHandler;
+import com.qtplaf.library.task.TaskRunnerThreads;
+import com.qtplaf.library.trading.data.ColumnarDataList;
+import com.qtplaf.library.trading.data.Instrument;
+import com.qtplaf.library.trading.data.Period;
+import com.qtplaf.library.trading.data.info.PriceInfo;
+import com.qtplaf.library.trading.server.Server;
+import com.qtplaf.library.trading.server.ServerFactory;
+import com.qtplaf.library.util.SystemUtils;
+import com.qtplaf.library.util.TextServer;
+import com.qtplaf.platform.database.Schemas;
+import com.qtplaf.platform.database.Tables;
+import com.qtplaf.platform.database.configuration.Configuration;
+import com.qtplaf.platform.statistics.averages.States;
+import com.qtplaf.platform.statistics.averages.task.TaskPatterns;
+import com.qtplaf.platform.statistics.averages.task.TaskPerformance;
+import com.qtplaf.platform.statistics.averages.task.TaskStatesPipeline;
+import com.qtplaf.platform.util.InstrumentUtils;
+import com.qtplaf.platform.util.PersistorUtils;
+
+/**
+ * Headless batch that calculates the tables of a list of states statistics, in parallel in a pool of tasks, by default
+ * as many as available processors. Each statistics is a chain of tasks, states pipeline, patterns and performance, and
+ * the chains of different statistics run concurrently.
+ * <p>
+ * Statistics of the same ticker share the prices, loaded once in an in-memory columnar list when the first states
+ * pipeline of the ticker starts, and released when the last one terminates. Statistics are grouped by ticker so that
+ * the pool starts them one ticker after the other, and only the tickers being calculated are held in memory. Any other
+ * data is cached per statistics with the bounded caches of the indicator data lists.
+ * <p>
+ * When terminated, a report with the rows, times and rows per second of each stage is logged and available through
+ * <code>getReport()</code>.
+ * 
+ * @author Miquel Sas
+ */
+public class StatisticsBatch {
+
+	/** Logger instance. */
+	private static final Logger logger = LogManager.getLogger();
+
+	/**
+	 * A job, the tasks to calculate a states statistics.
+	 */
+	class Job {
+		/** The states statistics. */
+		States states;
+		/** The ticker key. */
+		String ticker;
+		/** States pipeline task. */
+		Task pipeline;
+		/** Patterns task. */
+		Task patterns;
+		/** Performance task. */
+		Task performance;
+	}
+
+	/**
+	 * The prices of a ticker shared by the jobs of the ticker.
+	 */
+	class Prices {
+		/** The in-memory data list, null until loaded. */
+		ColumnarDataList dataList;
+		/** Number of jobs that have not released the prices. */
+		int references;
+		/** Number of rows loaded. */
+		long rows;
+		/** Wall time in millis to load. */
+		long wallTime;
+		/** CPU time in millis to load. */
+		long cpuTime;
+	}
+
+	/**
+	 * Listener of the pipeline tasks that acquires the shared prices when the task starts and releases them when it
+	 * terminates.
+	 */
+	class PricesHandler extends TaskHandler {
+
+		/** The job. */
+		private Job job;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param job The job.
+		 */
+		PricesHandler(Job job) {
+			super();
+			this.job = job;
+		}
+
+		/**
+		 * Acquire the prices when the pipeline starts processing.
+		 */
+		@Override
+		public void processing(Task task) {
+			job.states.setDataListPrice(acquirePrices(job));
+		}
+
+		/**
+		 * Release the prices when the pipeline terminates.
+		 */
+		@Override
+		public void terminated(Task task) {
+			job.states.setDataListPrice(null);
+			releasePrices(job);
+		}
+	}
+
+	/**
+	 * Working session.
+	 */
+	private Session session;
+	/**
+	 * The list of states statistics to calculate.
+	 */
+	private List<States> statesList = new ArrayList<>();
+	/**
+	 * Maximum number of concurrent tasks.
+	 */
+	private int concurrency = Runtime.getRuntime().availableProcessors();
+	/**
+	 * A boolean that indicates whether statistics of the same ticker share in-memory prices.
+	 */
+	private boolean sharePrices = true;
+	/**
+	 * The jobs of the last execution.
+	 */
+	private List<Job> jobs = new ArrayList<>();
+	/**
+	 * The shared prices by ticker.
+	 */
+	private Map<String, Prices> pricesMap = new HashMap<>();
+	/**
+	 * The pool of the last execution.
+	 */
+	private TaskRunnerThreads pool;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param session Working session.
+	 */
+	public StatisticsBatch(Session session) {
+		super();
+		this.session = session;
+	}
+
+	/**
+	 * Add a states statistics to calculate.
+	 * 
+	 * @param states The states statistics.
+	 */
+	public void add(States states) {
+		statesList.add(states);
+	}
+
+	/**
+	 * Set the maximum number of concurrent tasks.
+	 * 
+	 * @param concurrency The maximum number of concurrent tasks.
+	 */
+	public void setConcurrency(int concurrency) {
+		if (concurrency <= 0) {
+			throw new IllegalArgumentException("Concurrency must be greater than zero");
+		}
+		this.concurrency = concurrency;
+	}
+
+	/**
+	 * Set whether statistics of the same ticker share in-memory prices. If not, each statistics reads the prices
+	 * through its own persistor data list.
+	 * 
+	 * @param sharePrices A boolean.
+	 */
+	public void setSharePrices(boolean sharePrices) {
+		this.sharePrices = sharePrices;
+	}
+
+	/**
+	 * Returns the pool of tasks of the last execution.
+	 * 
+	 * @return The pool.
+	 */
+	public TaskRunnerThreads getPool() {
+		return pool;
+	}
+
+	/**
+	 * Execute the batch in the current thread.
+	 * 
+	 * @throws Exception If the pool terminated with an exception or any task failed.
+	 */
+	public void execute() throws Exception {
+
+		// Group statistics by ticker, keeping the order of first appearance.
+		Map<String, List<States>> tickers = new LinkedHashMap<>();
+		for (States states : statesList) {
+			String ticker = getTicker(states);
+			List<States> list = tickers.get(ticker);
+			if (list == null) {
+				list = new ArrayList<>();
+				tickers.put(ticker, list);
+			}
+			list.add(states);
+		}
+
+		// Jobs, shared prices and the pool.
+		jobs.clear();
+		pricesMap.clear();
+		pool = new TaskRunnerThreads(session, concurrency);
+		pool.setName("Statistics batch");
+		pool.setDescription(statesList.size() + " statistics");
+		for (String ticker : tickers.keySet()) {
+			Prices prices = new Prices();
+			pricesMap.put(ticker, prices);
+			for (States states : tickers.get(ticker)) {
+				Job job = new Job();
+				job.states = states;
+				job.ticker = ticker;
+				job.pipeline = new TaskStatesPipeline(states);
+				job.patterns = new TaskPatterns(states);
+				job.performance = new TaskPerformance(states);
+				if (sharePrices) {
+					job.pipeline.addListener(new PricesHandler(job));
+					prices.references++;
+				}
+				pool.addTask(job.pipeline);
+				pool.addTask(job.patterns, job.pipeline);
+				pool.addTask(job.performance, job.patterns);
+				jobs.add(job);
+			}
+		}
+
+		// Execute and report.
+		pool.run();
+		logger.info(getReport());
+
+		// Release prices not released because a pipeline was skipped.
+		for (Prices prices : pricesMap.values()) {
+			if (prices.dataList != null) {
+				prices.dataList.clear();
+				prices.dataList = null;
+			}
+		}
+
+		// Propagate failures.
+		if (pool.getException() != null) {
+			throw pool.getException();
+		}
+		for (Job job : jobs) {
+			for (Task task : new Task[] { job.pipeline, job.patterns, job.performance }) {
+				if (task.getException() != null) {
+					throw task.getException();
+				}
+			}
+		}
+		if (!pool.getExceptions().isEmpty()) {
+			throw pool.getExceptions().get(0);
+		}
+	}
+
+	/**
+	 * Returns the ticker key of the states statistics.
+	 * 
+	 * @param states The states statistics.
+	 * @return The ticker key.
+	 */
+	private String getTicker(States states) {
+		return Tables.ticker(states.getInstrument(), states.getPeriod(), states.getServer().getId());
+	}
+
+	/**
+	 * Acquire the prices of the job ticker, loading them if not already loaded.
+	 * 
+	 * @param job The job.
+	 * @return The prices data list or null if they could not be loaded.
+	 */
+	private ColumnarDataList acquirePrices(Job job) {
+		Prices prices = pricesMap.get(job.ticker);
+		synchronized (prices) {
+			if (prices.dataList == null) {
+				try {
+					ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+					long wallTime = System.nanoTime();
+					long cpuTime = threadMXBean.getCurrentThreadCpuTime();
+					Server server = job.states.getServer();
+					Instrument instrument = job.states.getInstrument();
+					Period period = job.states.getPeriod();
+					String tableName = Tables.ticker(instrument, period);
+					Persistor persistor = PersistorUtils.getPersistorDataPrice(session, server, instrument, tableName);
+					PriceInfo info = new PriceInfo(session, instrument, period);
+					prices.dataList = new ColumnarDataList(session, info, persistor);
+					prices.rows = prices.dataList.size();
+					prices.wallTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - wallTime);
+					prices.cpuTime = TimeUnit.NANOSECONDS.toMillis(threadMXBean.getCurrentThreadCpuTime() - cpuTime);
+				} catch (Exception exc) {
+					logger.catching(exc);
+				}
+			}
+			return prices.dataList;
+		}
+	}
+
+	/**
+	 * Release the prices of the job ticker, clearing them when no more jobs need them.
+	 * 
+	 * @param job The job.
+	 */
+	private void releasePrices(Job job) {
+		Prices prices = pricesMap.get(job.ticker);
+		synchronized (prices) {
+			prices.references--;
+			if (prices.references == 0 && prices.dataList != null) {
+				prices.dataList.clear();
+				prices.dataList = null;
+			}
+		}
+	}
+
+	/**
+	 * Returns the report of the last execution: rows, wall time, CPU time and rows per second by stage and job. Rows
+	 * are the steps of the tasks, the states pipeline counting each row once per pass. Loading prices runs in the
+	 * states pipeline task, so its times are also included in the pipeline times.
+	 * 
+	 * @return The report.
+	 */
+	public String getReport() {
+		String[] stages = new String[] { "Prices", "Pipeline", "Patterns", "Performance" };
+		long[] rows = new long[stages.length];
+		long[] wallTimes = new long[stages.length];
+		long[] cpuTimes = new long[stages.length];
+		for (Prices prices : pricesMap.values()) {
+			rows[0] += prices.rows;
+			wallTimes[0] += prices.wallTime;
+			cpuTimes[0] += prices.cpuTime;
+		}
+		StringBuilder b = new StringBuilder();
+		b.append("Statistics batch report");
+		b.append("\n");
+		for (Job job : jobs) {
+			Task[] tasks = new Task[] { job.pipeline, job.patterns, job.performance };
+			for (int i = 0; i < tasks.length; i++) {
+				Task task = tasks[i];
+				rows[i + 1] += task.getSteps();
+				wallTimes[i + 1] += task.getWallTime();
+				cpuTimes[i + 1] += task.getCpuTime();
+				appendLine(b, task.getName(), stages[i + 1], task.getSteps(), task.getWallTime(), task.getCpuTime());
+			}
+		}
+		for (int i = 0; i < stages.length; i++) {
+			appendLine(b, "Total", stages[i], rows[i], wallTimes[i], cpuTimes[i]);
+		}
+		if (pool != null) {
+			appendLine(b, "Batch", "All", rows[1] + rows[2] + rows[3], pool.getWallTime(), pool.getCpuTime());
+		}
+		return b.toString();
+	}
+
+	/**
+	 * Append a line of the report.
+	 * 
+	 * @param b The string builder.
+	 * @param name The job name.
+	 * @param stage The stage.
+	 * @param rows The number of rows.
+	 * @param wallTime The wall time in millis.
+	 * @param cpuTime The CPU time in millis.
+	 */
+	private void appendLine(StringBuilder b, String name, String stage, long rows, long wallTime, long cpuTime) {
+		b.append(String.format(
+			Locale.UK,
+			"%-40s %-12s %10d rows %10d ms wall %10d ms cpu %12.1f rows/s",
+			name,
+			stage,
+			rows,
+			wallTime,
+			cpuTime,
+			(wallTime > 0 ? (rows * 1000.0) / wallTime : 0.0)));
+		b.append("\n");
+	}
+
+	/**
+	 * Headless entry. Arguments:
+	 * <ol>
+	 * <li>The database connection file, in the class path.</li>
+	 * <li>The database engine, <i>derby</i> (embedded), <i>derbyclient</i> or <i>postgresql</i>.</li>
+	 * <li>The concurrency, zero for the number of available processors.</li>
+	 * <li>One or more jobs <i>server/instrument/period[/configuration]</i>, for instance <i>dkcp/EURUSD/1_min/sm</i>.
+	 * Without configuration, all configurations are calculated.</li>
+	 * </ol>
+	 * 
+	 * @param args Command line arguments.
+	 */
+	public static void main(String[] args) {
+
+		if (args.length < 4) {
+			System.err.println("Usage: dataSourceFile derby|derbyclient|postgresql concurrency server/instrument/period[/cfg] ...");
+			System.exit(1);
+		}
+
+		try {
+
+			// Text resources and session.
+			TextServer.addBaseResource("StringsLibrary.xml");
+			TextServer.addBaseResource("StringsQTPlatform.xml");
+			Session session = new Session(Locale.UK);
+
+			// Database engine.
+			File cnFile = SystemUtils.getFileFromClassPathEntries(args[0]);
+			DataSourceInfo info = DataSourceInfo.getDataSourceInfo(cnFile);
+			DBEngineAdapter adapter;
+			if (args[1].equalsIgnoreCase("derby")) {
+				adapter = new DerbyAdapterEmbedded();
+			} else if (args[1].equalsIgnoreCase("derbyclient")) {
+				adapter = new DerbyAdapterClient();
+			} else if (args[1].equalsIgnoreCase("postgresql")) {
+				adapter = new PostgreSQLAdapter();
+			} else {
+				throw new IllegalArgumentException("Invalid database engine " + args[1]);
+			}
+			PersistorUtils.setDBEngine(new DBEngine(adapter, info));
+
+			// The batch.
+			StatisticsBatch batch = new StatisticsBatch(session);
+			int concurrency = Integer.parseInt(args[2]);
+			if (concurrency > 0) {
+				batch.setConcurrency(concurrency);
+			}
+			Manager manager = new Manager(session);
+			for (int i = 3; i < args.length; i++) {
+				String[] job = args[i].split("/");
+				if (job.length < 3) {
+					throw new IllegalArgumentException("Invalid job " + args[i]);
+				}
+				Server server = ServerFactory.getServer(job[0]);
+				String schema = Schemas.server(server);
+				if (!PersistorUtils.getDDL().existsSchema(schema)) {
+					PersistorUtils.getDDL().createSchema(schema);
+				}
+				Instrument instrument = InstrumentUtils.getInstrument(session, job[0], job[1]);
+				if (instrument == null) {
+					throw new IllegalArgumentException("Invalid instrument " + job[1]);
+				}
+				Period period = Period.parseId(job[2]);
+				for (Configuration cfg : manager.getConfigurations()) {
+					if (job.length == 3 || cfg.getId().equals(job[3])) {
+						batch.add(manager.getStates(server, instrument, period, cfg));
+					}
+				}
+			}
+			batch.execute();
+
+		} catch (Exception exc) {
+			logger.catching(exc);
+			System.exit(1);
+		}
+		System.exit(0);
+	}
+}
@@ -18,6 +18,7 @@ import java.awt.event.ActionEvent;
 
 import javax.swing.ListSelectionModel;
 
+import com.qtplaf.library.database.PageRecordSet;
 import com.qtplaf.library.database.Record;
 import com.qtplaf.library.database.RecordSet;
 import com.qtplaf.library.swing.ActionUtils;
@@ -26,6 +27,8 @@ import com.qtplaf.library.swing.core.JOptionFrame;
 import com.qtplaf.library.swing.core.JPanelTableRecord;
 import com.qtplaf.library.swing.core.JTableRecord;
 import com.qtplaf.library.swing.core.TableModelRecord;
+import com.qtplaf.library.swing.core.TableModelRecordVirtual;
+import com.qtplaf.library.trading.data.DataRecordSet;
 import com.qtplaf.library.util.Icons;
 import com.qtplaf.library.util.ImageIconUtils;
 import com.qtplaf.platform.statistics.TickerStatistics;
@@ -60,6 +63,20 @@ public abstract class ActionBrowse extends ActionTickerStatistics {
 	public abstract RecordSet getRecordSet();
 
 
+	/**
+	 * Returns the table model, virtual for record sets that read from a persistor.
+	 * 
+	 * @param recordSet The record set.
+	 * @param masterRecord The master record.
+	 * @return The table model.
+	 */
+	private TableModelRecord getTableModelRecord(RecordSet recordSet, Record masterRecord) {
+		if (recordSet instanceof DataRecordSet || recordSet instanceof PageRecordSet) {
+			return new TableModelRecordVirtual(getSession(), masterRecord);
+		}
+		return new TableModelRecord(getSession(), masterRecord);
+	}
+
 	/**
 	 * Perform the action.
 	 */
@@ -70,7 +87,7 @@ public abstract class ActionBrowse extends ActionTickerStatistics {
 
 		JTableRecord tableRecord = new JTableRecord(getSession(), ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
 		JPanelTableRecord panelTableRecord = new JPanelTableRecord(tableRecord);
-		TableModelRecord tableModelRecord = new TableModelRecord(getSession(), masterRecord);
+		TableModelRecord tableModelRecord = getTableModelRecord(recordSet, masterRecord);
 		for (int i = 0; i < recordSet.getFieldCount(); i++) {
 			tableModelRecord.addColumn(recordSet.getField(i).getAlias());
 		}
@@ -38,6 +38,8 @@ import com.qtplaf.library.database.View;
 import com.qtplaf.library.swing.ActionGroup;
 import com.qtplaf.library.swing.ActionUtils;
 import com.qtplaf.library.task.Task;
+import com.qtplaf.library.task.TaskRunnerThreads;
+import com.qtplaf.library.trading.data.DataList;
 import com.qtplaf.library.trading.data.DataPersistor;
 import com.qtplaf.library.trading.data.DataRecordSet;
 import com.qtplaf.library.trading.data.PersistorDataList;
@@ -57,6 +59,7 @@ import com.qtplaf.platform.statistics.averages.task.TaskPatterns;
 import com.qtplaf.platform.statistics.averages.task.TaskPerformance;
 import com.qtplaf.platform.statistics.averages.task.TaskRanges;
 import com.qtplaf.platform.statistics.averages.task.TaskStates;
+import com.qtplaf.platform.statistics.averages.task.TaskStatesPipeline;
 import com.qtplaf.platform.util.PersistorUtils;
 
 /**
@@ -146,6 +149,8 @@ public class States extends Averages {
 	private Table tablePatterns;
 	/** Tablke performance. */
 	private Table tablePerformance;
+	/** Optional price data list shared with other statistics of the same ticker. */
+	private DataList dataListPrice;
 
 	/**
 	 * Constructor.
@@ -156,6 +161,25 @@ public class States extends Averages {
 		super(session);
 	}
 
+	/**
+	 * Returns the optional price data list shared with other statistics of the same ticker, or null.
+	 * 
+	 * @return The price data list or null.
+	 */
+	public DataList getDataListPrice() {
+		return dataListPrice;
+	}
+
+	/**
+	 * Sets the price data list shared with other statistics of the same ticker, for instance an in-memory columnar
+	 * list loaded once by a batch. If not set, calculations read prices through a persistor data list.
+	 * 
+	 * @param dataListPrice The price data list or null.
+	 */
+	public void setDataListPrice(DataList dataListPrice) {
+		this.dataListPrice = dataListPrice;
+	}
+
 	/**
 	 * Returns the persistor data list for this states statistics.
 	 * 
@@ -206,6 +230,24 @@ public class States extends Averages {
 		ActionUtils.setActionGroup(actionCalcNorm, new ActionGroup("Calculate", 10000));
 		actions.add(actionCalcNorm);
 
+		// Calculate states, ranges and normalized values in a pipeline.
+		ActionCalculate actionCalcPipeline = new ActionCalculate(this, new TaskStatesPipeline(this));
+		ActionUtils.setName(actionCalcPipeline, "Calculate states pipeline");
+		ActionUtils.setShortDescription(actionCalcPipeline, "Calculate states, ranges and normalized values");
+		ActionUtils.setActionGroup(actionCalcPipeline, new ActionGroup("Calculate", 10000));
+		actions.add(actionCalcPipeline);
+
+		// Calculate all in a pool of tasks.
+		TaskRunnerThreads pool = new TaskRunnerThreads(getSession());
+		pool.setName(getId());
+		pool.setDescription("States, patterns and performance");
+		addTasks(pool);
+		ActionCalculate actionCalcAll = new ActionCalculate(this, pool);
+		ActionUtils.setName(actionCalcAll, "Calculate all");
+		ActionUtils.setShortDescription(actionCalcAll, "Calculate states, patterns and performance");
+		ActionUtils.setActionGroup(actionCalcAll, new ActionGroup("Calculate", 10000));
+		actions.add(actionCalcAll);
+
 		// Calculate patterns.
 		ActionCalculate actionCalcPatterns = new ActionCalculate(this, new TaskPatterns(this));
 		ActionUtils.setName(actionCalcPatterns, "Calculate patterns");
@@ -248,9 +290,7 @@ public class States extends Averages {
 	@Override
 	public List<Task> getTasks() {
 		List<Task> tasks = new ArrayList<>();
-		tasks.add(new TaskStates(this));
-		tasks.add(new TaskRanges(this));
-		tasks.add(new TaskNormalizes(this));
+		tasks.add(new TaskStatesPipeline(this));
 		tasks.add(new TaskPatterns(this));
 		tasks.add(new TaskPerformance(this));
 		return tasks;
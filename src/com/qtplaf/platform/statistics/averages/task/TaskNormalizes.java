@@ -40,6 +40,9 @@ import com.qtplaf.platform.statistics.averages.States;
  */
 public class TaskNormalizes extends TaskAverages {
 
+	/** Number of records per batch update. */
+	private static final int BATCH_SIZE = 1000;
+
 	/** Underlying states statistics. */
 	private States states;
 
@@ -142,6 +145,9 @@ public class TaskNormalizes extends TaskAverages {
 			// Source iterator.
 			iterator = persistor.iterator(new Criteria(), getSelectOrder());
 
+			// Buffer of records to update in batches.
+			List<Record> buffer = new ArrayList<>(BATCH_SIZE);
+
 			// Step and steps.
 			long step = 0;
 			long steps = getSteps();
@@ -168,67 +174,15 @@ public class TaskNormalizes extends TaskAverages {
 				}
 				Record record = iterator.next();
 
-				// Spreads between averages.
-				{
-					List<Field> fieldsRaw = states.getFieldListSpreads(Fields.Suffix.raw);
-					List<Field> fieldsNrm = states.getFieldListSpreads(Fields.Suffix.nrm);
-					for (int i = 0; i < fieldsRaw.size(); i++) {
-						Field fieldRaw = fieldsRaw.get(i);
-						Field fieldNrm = fieldsNrm.get(i);
-						Normalizer normalizer = mapNormalizers.get(fieldRaw.getName());
-						double valueRaw = record.getValue(fieldRaw.getName()).getDouble();
-						double valueNrm = normalizer.getValue(valueRaw);
-						record.getValue(fieldNrm.getName()).setDouble(valueNrm);
-					}
-				}
-
-				// Slopes.
-				{
-					List<Field> fieldsRaw = states.getFieldListSlopes(Fields.Suffix.raw);
-					List<Field> fieldsNrm = states.getFieldListSlopes(Fields.Suffix.nrm);
-					for (int i = 0; i < fieldsRaw.size(); i++) {
-						Field fieldRaw = fieldsRaw.get(i);
-						Field fieldNrm = fieldsNrm.get(i);
-						Normalizer normalizer = mapNormalizers.get(fieldRaw.getName());
-						double valueRaw = record.getValue(fieldRaw.getName()).getDouble();
-						double valueNrm = normalizer.getValue(valueRaw);
-						record.getValue(fieldNrm.getName()).setDouble(valueNrm);
-					}
-				}
-
-				// Calculations: default family
-				{
-					List<Field> fieldsRaw = states.getFieldListCalculations(Family.Default, Fields.Suffix.raw);
-					List<Field> fieldsNrm = states.getFieldListCalculations(Family.Default, Fields.Suffix.nrm);
-					for (int i = 0; i < fieldsRaw.size(); i++) {
-						Field fieldRaw = fieldsRaw.get(i);
-						Field fieldNrm = fieldsNrm.get(i);
-						Normalizer normalizer = mapNormalizers.get(fieldRaw.getName());
-						double valueRaw = record.getValue(fieldRaw.getName()).getDouble();
-						double valueCont = normalizer.getValue(valueRaw);
-						record.getValue(fieldNrm.getName()).setDouble(valueCont);
-					}
-				}
-				
-				// Calculations: family weighted sum nrm and dsc.
-				{
-					List<Field> fieldsNrm = states.getFieldListCalculations(Family.State, Fields.Suffix.nrm);
-					List<Field> fieldsDsc = states.getFieldListCalculations(Family.State, Fields.Suffix.dsc);
-					for (int i = 0; i < fieldsNrm.size(); i++) {
-						Field fieldNrm = fieldsNrm.get(i);
-						Field fieldDsc = fieldsDsc.get(i);
-						Calculation calculation = (Calculation) fieldNrm.getProperty(Fields.Properties.Calculation);
-						Calculator calculator = calculation.getCalculator();
-						Normalizer normalizer = calculation.getNormalizer();
-						double valueNrm = calculator.getValue(record).getDouble();
-						double valueDsc = normalizer.getValue(valueNrm);
-						record.setValue(fieldNrm.getName(), valueNrm);
-						record.setValue(fieldDsc.getName(), valueDsc);
-					}
+				// Flush before buffering the current record, that the iterator may hold locked.
+				if (buffer.size() == BATCH_SIZE) {
+					persistor.update(buffer);
+					buffer.clear();
 				}
 
-				// Update the record.
-				persistor.update(record);
+				// Normalize and buffer.
+				normalize(record, mapNormalizers);
+				buffer.add(record);
 
 				// Notify step end.
 				notifyStepEnd();
@@ -236,6 +190,13 @@ public class TaskNormalizes extends TaskAverages {
 				Thread.yield();
 			}
 
+			// Update pending records, once the iterator is closed.
+			iterator.close();
+			iterator = null;
+			if (!buffer.isEmpty()) {
+				persistor.update(buffer);
+			}
+
 		} finally {
 			if (iterator != null) {
 				iterator.close();
@@ -244,4 +205,72 @@ public class TaskNormalizes extends TaskAverages {
 
 	}
 
+	/**
+	 * Calculates the normalized and discrete values of the record from its raw values.
+	 * 
+	 * @param record The record with raw values.
+	 * @param normalizers The map of normalizers keyed by raw field name.
+	 */
+	void normalize(Record record, Map<String, Normalizer> normalizers) {
+
+		// Spreads between averages.
+		{
+			List<Field> fieldsRaw = states.getFieldListSpreads(Fields.Suffix.raw);
+			List<Field> fieldsNrm = states.getFieldListSpreads(Fields.Suffix.nrm);
+			for (int i = 0; i < fieldsRaw.size(); i++) {
+				Field fieldRaw = fieldsRaw.get(i);
+				Field fieldNrm = fieldsNrm.get(i);
+				Normalizer normalizer = normalizers.get(fieldRaw.getName());
+				double valueRaw = record.getValue(fieldRaw.getName()).getDouble();
+				double valueNrm = normalizer.getValue(valueRaw);
+				record.getValue(fieldNrm.getName()).setDouble(valueNrm);
+			}
+		}
+
+		// Slopes.
+		{
+			List<Field> fieldsRaw = states.getFieldListSlopes(Fields.Suffix.raw);
+			List<Field> fieldsNrm = states.getFieldListSlopes(Fields.Suffix.nrm);
+			for (int i = 0; i < fieldsRaw.size(); i++) {
+				Field fieldRaw = fieldsRaw.get(i);
+				Field fieldNrm = fieldsNrm.get(i);
+				Normalizer normalizer = normalizers.get(fieldRaw.getName());
+				double valueRaw = record.getValue(fieldRaw.getName()).getDouble();
+				double valueNrm = normalizer.getValue(valueRaw);
+				record.getValue(fieldNrm.getName()).setDouble(valueNrm);
+			}
+		}
+
+		// Calculations: default family
+		{
+			List<Field> fieldsRaw = states.getFieldListCalculations(Family.Default, Fields.Suffix.raw);
+			List<Field> fieldsNrm = states.getFieldListCalculations(Family.Default, Fields.Suffix.nrm);
+			for (int i = 0; i < fieldsRaw.size(); i++) {
+				Field fieldRaw = fieldsRaw.get(i);
+				Field fieldNrm = fieldsNrm.get(i);
+				Normalizer normalizer = normalizers.get(fieldRaw.getName());
+				double valueRaw = record.getValue(fieldRaw.getName()).getDouble();
+				double valueCont = normalizer.getValue(valueRaw);
+				record.getValue(fieldNrm.getName()).setDouble(valueCont);
+			}
+		}
+		
+		// Calculations: family weighted sum nrm and dsc.
+		{
+			List<Field> fieldsNrm = states.getFieldListCalculations(Family.State, Fields.Suffix.nrm);
+			List<Field> fieldsDsc = states.getFieldListCalculations(Family.State, Fields.Suffix.dsc);
+			for (int i = 0; i < fieldsNrm.size(); i++) {
+				Field fieldNrm = fieldsNrm.get(i);
+				Field fieldDsc = fieldsDsc.get(i);
+				Calculation calculation = (Calculation) fieldNrm.getProperty(Fields.Properties.Calculation);
+				Calculator calculator = calculation.getCalculator();
+				Normalizer normalizer = calculation.getNormalizer();
+				double valueNrm = calculator.getValue(record).getDouble();
+				double valueDsc = normalizer.getValue(valueNrm);
+				record.setValue(fieldNrm.getName(), valueNrm);
+				record.setValue(fieldDsc.getName(), valueDsc);
+			}
+		}
+	}
+
 }
@@ -28,11 +28,10 @@ import com.qtplaf.library.database.RecordSet;
 import com.qtplaf.library.database.Table;
 import com.qtplaf.library.database.View;
 import com.qtplaf.library.trading.data.PersistorDataList;
-import com.qtplaf.library.trading.pattern.Pattern;
+import com.qtplaf.library.trading.pattern.candle.CandleFeatures;
 import com.qtplaf.library.trading.pattern.candle.CandlePattern;
+import com.qtplaf.library.trading.pattern.candle.CandleScanner;
 import com.qtplaf.library.trading.pattern.candle.patterns.BigPiercingBullish;
-import com.qtplaf.library.trading.pattern.candle.patterns.BigShadowUpper;
-import com.qtplaf.library.util.NumberUtils;
 import com.qtplaf.platform.database.Domains;
 import com.qtplaf.platform.database.Fields;
 import com.qtplaf.platform.database.Fields.Family;
@@ -41,7 +40,8 @@ import com.qtplaf.platform.statistics.averages.States;
 import com.qtplaf.platform.util.PersistorUtils;
 
 /**
- * Identify patterns.
+ * Identify patterns. The states are scanned in chunks with a <tt>CandleScanner</tt>, that calculates the candle
+ * features of each chunk once and checks all the patterns on them, and the matches are inserted in batches.
  *
  * @author Miquel Sas
  */
@@ -50,12 +50,19 @@ public class TaskPatterns extends TaskAverages {
 	/** Logger instance. */
 	private static final Logger logger = LogManager.getLogger();
 
+	/** Number of states scanned per chunk. */
+	private static final int CHUNK_SIZE = 10000;
+	/** Number of records per batch insert. */
+	private static final int BATCH_SIZE = 1000;
+	/** Number of pages of the states list read ahead in background. */
+	private static final int PREFETCH_DEPTH = 4;
+
 	/** Underlying states statistics. */
 	private States states;
 	/** States data list. */
 	private PersistorDataList statesList;
-	/** List of patterns to identify. */
-	private List<Pattern> patternList = new ArrayList<>();
+	/** Number of sub-ranges of a chunk checked in parallel. */
+	private int parallelism = 1;
 
 	/**
 	 * Construtor.
@@ -71,12 +78,21 @@ public class TaskPatterns extends TaskAverages {
 	}
 
 	/**
-	 * Returns the list of candle patterns with the range average and standard deviation.
+	 * Set the number of sub-ranges of a chunk checked in parallel.
 	 * 
-	 * @return The list of candle patterns.
+	 * @param parallelism The parallelism.
 	 */
-	private List<Pattern> getCandlePatterns() {
-		List<Pattern> candlePatterns = new ArrayList<>();
+	public void setParallelism(int parallelism) {
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Returns the scanner of the candle patterns with the range average and standard deviation.
+	 * 
+	 * @return The scanner.
+	 */
+	private CandleScanner getScanner() {
+		List<CandlePattern> candlePatterns = new ArrayList<>();
 //		candlePatterns.add(new VeryBigBearish());
 //		candlePatterns.add(new VeryBigBullish());
 //		candlePatterns.add(new BigBearish());
@@ -90,7 +106,9 @@ public class TaskPatterns extends TaskAverages {
 //		candlePatterns.add(new BigShadowLower());
 //		candlePatterns.add(new BigShadowUpper());
 		candlePatterns.add(new BigPiercingBullish());
-		
+		CandleScanner scanner = new CandleScanner(candlePatterns);
+		scanner.setParallelism(parallelism);
+
 		// States table.
 		Table table = states.getStates().getTableStates();
 
@@ -124,16 +142,12 @@ public class TaskPatterns extends TaskAverages {
 			recordSet = view.getPersistor().select(null);
 			double rangeAverage = recordSet.get(0).getValue(Fields.Average).getDouble();
 			double rangeStdDev = recordSet.get(0).getValue(Fields.StdDev).getDouble();
-			for (Pattern pattern : candlePatterns) {
-				CandlePattern candlePattern = (CandlePattern) pattern;
-				candlePattern.setRangeAverage(rangeAverage);
-				candlePattern.setRangeStdDev(rangeStdDev);
-			}
+			scanner.setRange(rangeAverage, rangeStdDev);
 		} catch (PersistorException exc) {
 			logger.catching(exc);
 		}
 
-		return candlePatterns;
+		return scanner;
 	}
 
 	/**
@@ -165,8 +179,8 @@ public class TaskPatterns extends TaskAverages {
 	@Override
 	public void execute() throws Exception {
 
-		// Fill the list of patterns to identify.
-		patternList.addAll(getCandlePatterns());
+		// The scanner of patterns to identify.
+		CandleScanner scanner = getScanner();
 
 		// Count steps.
 		countSteps();
@@ -181,68 +195,81 @@ public class TaskPatterns extends TaskAverages {
 		}
 		persistor.getDDL().buildTable(table);
 
-		// Set the states list cache size.
-		int cacheSize = -1;
-		for (Pattern pattern : patternList) {
-			cacheSize = Math.max(cacheSize, pattern.getLookBackward());
-		}
+		// Set the states list cache size, to hold a chunk and its look backward.
 		statesList.setPageSize(100);
-		statesList.setCacheSize(Math.max(1000, cacheSize * 10));
-		// The current index to calculate.
-		int index = 0;
-
-		// Step and steps.
-		long step = 0;
-		long steps = getSteps();
-		while (step < steps) {
-
-			// Check request of cancel.
-			if (checkCancel()) {
-				break;
-			}
+		statesList.setCacheSize(Math.max(1000, CHUNK_SIZE + scanner.getLookBackward() * 10));
+		// The states are scanned forward once: read pages ahead in background.
+		statesList.setPrefetchDepth(PREFETCH_DEPTH);
 
-			// Check pause resume.
-			if (checkPause()) {
-				continue;
-			}
+		try {
 
-			// Increase step.
-			step++;
-			// Notify step start.
-			notifyStepStart(step, getStepMessage(step, steps, null, null));
-			
-			if (NumberUtils.in(index, 1007986)) {
-				System.out.println();
-			}
-			
-			// Process patterns.
-			for (Pattern pattern : patternList) {
-				if (pattern.isPattern(statesList, index)) {
+			// State fields copied to patterns.
+			List<Field> fields = states.getFieldListCalculations(Family.State, Fields.Suffix.dsc);
+
+			// Buffer of records to insert in batches.
+			List<Record> buffer = new ArrayList<>(BATCH_SIZE);
+
+			// Scan chunks.
+			int size = statesList.size();
+			long step = 0;
+			long steps = getSteps();
+			int startIndex = 0;
+			while (startIndex < size) {
+
+				// Check request of cancel.
+				if (checkCancel()) {
+					break;
+				}
+
+				// Check pause resume.
+				if (checkPause()) {
+					continue;
+				}
+
+				// Step is the last index of the chunk.
+				int endIndex = Math.min(size, startIndex + CHUNK_SIZE) - 1;
+				step = endIndex + 1;
+				notifyStepStart(step, getStepMessage(step, steps, null, null));
+
+				// Scan the chunk and buffer the matches.
+				CandleFeatures features = scanner.getFeatures(statesList, startIndex, endIndex);
+				List<CandleScanner.Match> matches = scanner.scan(features, startIndex, endIndex);
+				for (CandleScanner.Match match : matches) {
+					int index = match.getIndex();
+					CandlePattern pattern = match.getPattern();
 					Record rcState = statesList.getRecord(index);
 					Record rcPattern = persistor.getDefaultRecord();
 					rcPattern.setValue(Fields.Index, index);
 					rcPattern.setValue(Fields.Time, rcState.getValue(Fields.Time));
 					rcPattern.setValue(Fields.PatternFamily, pattern.getFamily());
 					rcPattern.setValue(Fields.PatternId, pattern.getId());
-					
-					List<Field> fields = states.getFieldListCalculations(Family.State, Fields.Suffix.dsc);
 					for (Field field : fields) {
 						String name = field.getName();
 						rcPattern.setValue(name, rcState.getValue(name));
 					}
-					persistor.insert(rcPattern);
+					buffer.add(rcPattern);
+					if (buffer.size() == BATCH_SIZE) {
+						persistor.insert(buffer);
+						buffer.clear();
+					}
 				}
+
+				// Skip to next chunk.
+				startIndex = endIndex + 1;
+
+				// Notify step end.
+				notifyStepEnd();
+				// Yield.
+				Thread.yield();
 			}
-			
-			// Skip to next index.
-			index++;
-
-			// Notify step end.
-			notifyStepEnd();
-			// Yield.
-			Thread.yield();
-		}
 
+			// Insert pending records.
+			if (!buffer.isEmpty()) {
+				persistor.insert(buffer);
+			}
+		} finally {
+			statesList.close();
+		}
 	}
 
 }
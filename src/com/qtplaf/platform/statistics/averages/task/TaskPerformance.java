@@ -14,6 +14,7 @@
 
 package com.qtplaf.platform.statistics.averages.task;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import com.qtplaf.library.database.Criteria;
@@ -22,6 +23,7 @@ import com.qtplaf.library.database.Record;
 import com.qtplaf.library.database.RecordIterator;
 import com.qtplaf.library.database.Table;
 import com.qtplaf.library.database.View;
+import com.qtplaf.library.math.ForwardExtremum;
 import com.qtplaf.library.trading.data.PersistorDataList;
 import com.qtplaf.library.util.list.ListUtils;
 import com.qtplaf.platform.database.Fields;
@@ -30,11 +32,22 @@ import com.qtplaf.platform.util.PersistorUtils;
 
 /**
  * Register performance on patterns indexes.
+ * <p>
+ * The highs and lows of the states that the pattern windows span are read once, and the maximum high and minimum low
+ * of the forward windows of all the performance periods are calculated scanning them backward with a
+ * <tt>ForwardExtremum</tt>, so that the cost is linear in the length of the series whatever the number of periods.
+ * Results are then inserted in batches. Each state read, each pattern index scanned and each pattern index inserted is
+ * a step, so progress is reported and cancel and pause are checked in the three phases.
  *
  * @author Miquel Sas
  */
 public class TaskPerformance extends TaskAverages {
 
+	/** Number of records per batch insert. */
+	private static final int BATCH_SIZE = 1000;
+	/** Number of pages of the states list read ahead in background. */
+	private static final int PREFETCH_DEPTH = 4;
+
 	/** Underlying states statistics. */
 	private States states;
 	/** States data list. */
@@ -122,21 +135,44 @@ public class TaskPerformance extends TaskAverages {
 			}
 			persistor.getDDL().buildTable(table);
 
-			// Source iterator.
-			iterator = getIndexView().getPersistor().iterator(new Criteria());
-
 			// List of periods for performance.
 			List<Integer> periods = states.getPerformancePeriods();
 			int maxPeriod = ListUtils.getLast(periods);
 
-			// Step and steps.
+			// Pattern indexes.
+			List<Integer> indexes = new ArrayList<>();
+			iterator = getIndexView().getPersistor().iterator(new Criteria());
+			while (iterator.hasNext()) {
+				indexes.add(iterator.next().getValue(Fields.Index).getInteger());
+			}
+			iterator.close();
+			iterator = null;
+			if (indexes.isEmpty()) {
+				return;
+			}
+
+			// Read once times, highs and lows from the first pattern index to the end of the last window.
+			statesList.setCacheSize(Math.max(1000, maxPeriod * 10));
+			// The states are read forward once: read pages ahead in background.
+			statesList.setPrefetchDepth(PREFETCH_DEPTH);
+			int firstIndex = ListUtils.getFirst(indexes);
+			int lastIndex = Math.min(statesList.size() - 1, ListUtils.getLast(indexes) + maxPeriod);
+			int length = Math.max(0, lastIndex - firstIndex + 1);
+			long[] times = new long[length];
+			double[] highs = new double[length];
+			double[] lows = new double[length];
+
+			// Step and steps, now that the number of states to read is known.
 			long step = 0;
-			long steps = getSteps();
-			while (step < steps) {
+			long steps = length + (2L * indexes.size());
+			notifyStepCount(steps);
+
+			int read = 0;
+			while (read < length) {
 
 				// Check request of cancel.
 				if (checkCancel()) {
-					break;
+					return;
 				}
 
 				// Check pause resume.
@@ -149,33 +185,91 @@ public class TaskPerformance extends TaskAverages {
 				// Notify step start.
 				notifyStepStart(step, getStepMessage(step, steps, null, null));
 
-				// End achieved? should not happen.
-				if (!iterator.hasNext()) {
+				Record rcState = statesList.getRecord(firstIndex + read);
+				times[read] = rcState.getValue(Fields.Time).getLong();
+				highs[read] = rcState.getValue(Fields.High).getDouble();
+				lows[read] = rcState.getValue(Fields.Low).getDouble();
+				read++;
+
+				// Notify step end.
+				notifyStepEnd();
+			}
+
+			// Forward maximums and minimums by pattern index and period, scanning backward.
+			ForwardExtremum extremum = new ForwardExtremum(highs, lows);
+			double[][] maximums = new double[indexes.size()][periods.size()];
+			double[][] minimums = new double[indexes.size()][periods.size()];
+			int scan = indexes.size() - 1;
+			while (scan >= 0) {
+
+				// Check request of cancel.
+				if (checkCancel()) {
+					return;
+				}
+
+				// Check pause resume.
+				if (checkPause()) {
+					continue;
+				}
+
+				// Increase step.
+				step++;
+				// Notify step start.
+				notifyStepStart(step, getStepMessage(step, steps, null, null));
+
+				int index = indexes.get(scan) - firstIndex;
+				if (index < length) {
+					extremum.moveTo(index);
+					for (int p = 0; p < periods.size(); p++) {
+						int period = periods.get(p);
+						if (index + period < length) {
+							maximums[scan][p] = Math.max(Double.MIN_VALUE, extremum.getMaximum(period));
+							minimums[scan][p] = Math.min(Double.MAX_VALUE, extremum.getMinimum(period));
+						}
+					}
+				}
+				scan--;
+
+				// Notify step end.
+				notifyStepEnd();
+			}
+
+			// Buffer of records to insert in batches.
+			List<Record> buffer = new ArrayList<>(BATCH_SIZE);
+
+			while (step < steps) {
+
+				// Check request of cancel.
+				if (checkCancel()) {
 					break;
 				}
 
-				// Do calculate.
-				Record rcIndex = iterator.next();
-				int index = rcIndex.getValue(Fields.Index).getInteger();
-				long time = statesList.getRecord(index).getValue(Fields.Time).getLong();
-				double maximum = Double.MIN_VALUE;
-				double minimum = Double.MAX_VALUE;
-				for (int period = 1; period <= maxPeriod; period++) {
-					int stateIndex = index + period;
-					if (stateIndex < statesList.size()) {
-						Record rcState = statesList.getRecord(stateIndex);
-						double high = rcState.getValue(Fields.High).getDouble();
-						double low = rcState.getValue(Fields.Low).getDouble();
-						maximum = Math.max(maximum, high);
-						minimum = Math.min(minimum, low);
-						if (periods.contains(period)) {
-							Record rcPerform = persistor.getDefaultRecord();
-							rcPerform.setValue(Fields.Index, index);
-							rcPerform.setValue(Fields.Time, time);
-							rcPerform.setValue(Fields.Period, period);
-							rcPerform.setValue(Fields.Maximum, maximum);
-							rcPerform.setValue(Fields.Minimum, minimum);
-							persistor.insert(rcPerform);
+				// Check pause resume.
+				if (checkPause()) {
+					continue;
+				}
+
+				// Increase step.
+				step++;
+				// Notify step start.
+				notifyStepStart(step, getStepMessage(step, steps, null, null));
+
+				// Register the periods whose window is within the series.
+				int i = (int) (step - length - indexes.size()) - 1;
+				int index = indexes.get(i);
+				for (int p = 0; p < periods.size(); p++) {
+					int period = periods.get(p);
+					if (index - firstIndex + period < length) {
+						Record rcPerform = persistor.getDefaultRecord();
+						rcPerform.setValue(Fields.Index, index);
+						rcPerform.setValue(Fields.Time, times[index - firstIndex]);
+						rcPerform.setValue(Fields.Period, period);
+						rcPerform.setValue(Fields.Maximum, maximums[i][p]);
+						rcPerform.setValue(Fields.Minimum, minimums[i][p]);
+						buffer.add(rcPerform);
+						if (buffer.size() == BATCH_SIZE) {
+							persistor.insert(buffer);
+							buffer.clear();
 						}
 					}
 				}
@@ -186,10 +280,16 @@ public class TaskPerformance extends TaskAverages {
 				Thread.yield();
 			}
 
+			// Insert pending records.
+			if (!buffer.isEmpty()) {
+				persistor.insert(buffer);
+			}
+
 		} finally {
 			if (iterator != null) {
 				iterator.close();
 			}
+			statesList.close();
 		}
 	}
 
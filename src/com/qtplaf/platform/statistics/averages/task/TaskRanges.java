@@ -20,6 +20,7 @@ import com.qtplaf.library.database.Field;
 import com.qtplaf.library.database.Persistor;
 import com.qtplaf.library.database.Record;
 import com.qtplaf.library.database.Table;
+import com.qtplaf.library.math.SlidingExtremum;
 import com.qtplaf.library.trading.data.PersistorDataList;
 import com.qtplaf.platform.database.Fields;
 import com.qtplaf.platform.database.configuration.Range;
@@ -32,6 +33,9 @@ import com.qtplaf.platform.statistics.averages.States;
  */
 public class TaskRanges extends TaskAverages {
 
+	/** Number of pages of the states list read ahead in background. */
+	private static final int PREFETCH_DEPTH = 4;
+
 	/** Underlying states statistics. */
 	private States states;
 	/** States data list. */
@@ -135,63 +139,84 @@ public class TaskRanges extends TaskAverages {
 		// Fields to calculate ranges.
 		List<Field> fields = states.getFieldListToCalculateRanges();
 
-		// The current index to calculate.
-		int index = 0;
+		// Value indexes and minimum-maximum detectors by field and range.
+		int[] valueIndexes = new int[fields.size()];
+		SlidingExtremum[][] extremums = new SlidingExtremum[fields.size()][rangeList.size()];
+		for (int f = 0; f < fields.size(); f++) {
+			valueIndexes[f] = statesList.getDataInfo().getOutputIndex(fields.get(f).getName());
+			for (int r = 0; r < rangeList.size(); r++) {
+				extremums[f][r] = new SlidingExtremum(rangeList.get(r).getPeriod());
+			}
+		}
+
+		// The states are scanned forward once: read pages ahead in background.
+		statesList.setPrefetchDepth(PREFETCH_DEPTH);
+		try {
 
-		// Step and steps.
-		long step = 0;
-		long steps = getSteps();
-		while (step < steps) {
+			// The current index to calculate.
+			int index = 0;
 
-			// Check request of cancel.
-			if (checkCancel()) {
-				break;
-			}
+			// Step and steps.
+			long step = 0;
+			long steps = getSteps();
+			while (step < steps) {
 
-			// Check pause resume.
-			if (checkPause()) {
-				continue;
-			}
+				// Check request of cancel.
+				if (checkCancel()) {
+					break;
+				}
 
-			// Increase step.
-			step++;
-			// Notify step start.
-			notifyStepStart(step, getStepMessage(step, steps, null, null));
-
-			// Do calculate if min-max for each name and period.
-			for (Field field : fields) {
-				String name = field.getName();
-				int valueIndex = statesList.getDataInfo().getOutputIndex(name);
-				double value = statesList.get(index).getValue(valueIndex);
-				if (value == 0) {
+				// Check pause resume.
+				if (checkPause()) {
 					continue;
 				}
-				for (Range range : rangeList) {
-					int period = range.getPeriod();
-					if (value < 0) {
-						if (statesList.isMinimum(index, valueIndex, period)) {
-							long time = statesList.get(index).getTime();
-							Record record = getRecord(persistor, name, period, true, value, index, time);
-							persistor.insert(record);
+
+				// Increase step.
+				step++;
+				// Notify step start.
+				notifyStepStart(step, getStepMessage(step, steps, null, null));
+
+				// Add the value of each field to the detectors and check if min-max for each name and period, at the index
+				// that is the period behind, whose forward values are now available.
+				for (int f = 0; f < fields.size(); f++) {
+					String name = fields.get(f).getName();
+					double valueAdd = statesList.getValue(index, valueIndexes[f]);
+					for (int r = 0; r < rangeList.size(); r++) {
+						SlidingExtremum extremum = extremums[f][r];
+						extremum.add(valueAdd);
+						int center = extremum.getCenterIndex();
+						if (center < 0) {
+							continue;
 						}
-					}
-					if (value > 0) {
-						if (statesList.isMaximum(index, valueIndex, period)) {
-							long time = statesList.get(index).getTime();
-							Record record = getRecord(persistor, name, period, false, value, index, time);
-							persistor.insert(record);
+						int period = extremum.getPeriod();
+						double value = extremum.getCenterValue();
+						if (value < 0) {
+							if (extremum.isMinimum()) {
+								long time = statesList.getTime(center);
+								Record record = getRecord(persistor, name, period, true, value, center, time);
+								persistor.insert(record);
+							}
+						}
+						if (value > 0) {
+							if (extremum.isMaximum()) {
+								long time = statesList.getTime(center);
+								Record record = getRecord(persistor, name, period, false, value, center, time);
+								persistor.insert(record);
+							}
 						}
 					}
 				}
-			}
 
-			// Skip to next index.
-			index++;
+				// Skip to next index.
+				index++;
 
-			// Notify step end.
-			notifyStepEnd();
-			// Yield.
-			Thread.yield();
+				// Notify step end.
+				notifyStepEnd();
+				// Yield.
+				Thread.yield();
+			}
+		} finally {
+			statesList.close();
 		}
 	}
 
@@ -14,6 +14,7 @@
 
 package com.qtplaf.platform.statistics.averages.task;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import com.qtplaf.library.database.Calculator;
@@ -21,9 +22,9 @@ import com.qtplaf.library.database.Field;
 import com.qtplaf.library.database.Record;
 import com.qtplaf.library.database.Table;
 import com.qtplaf.library.trading.data.Data;
+import com.qtplaf.library.trading.data.DataList;
 import com.qtplaf.library.trading.data.DataPersistor;
 import com.qtplaf.library.trading.data.IndicatorDataList;
-import com.qtplaf.library.trading.data.PersistorDataList;
 import com.qtplaf.library.trading.data.info.IndicatorInfo;
 import com.qtplaf.platform.database.Fields;
 import com.qtplaf.platform.database.Fields.Family;
@@ -40,10 +41,19 @@ import com.qtplaf.platform.statistics.averages.States;
  */
 public class TaskStates extends TaskAverages {
 
+	/** Number of records per batch insert. */
+	private static final int BATCH_SIZE = 1000;
+
 	/** Underlying states statistics. */
 	private States states;
 	/** States indicator. */
 	private StatesIndicator indicator;
+	/** Result indicator info. */
+	private IndicatorInfo info;
+	/** Result indicator data list. */
+	private IndicatorDataList indicatorList;
+	/** The list of indicator data lists that must be calculated prior as sources. */
+	private List<IndicatorDataList> sources;
 
 	/**
 	 * Constructor.
@@ -72,7 +82,7 @@ public class TaskStates extends TaskAverages {
 		notifyCounting();
 
 		// The source price data list.
-		PersistorDataList price = indicator.getDataListPrice();
+		DataList price = indicator.getDataListPrice();
 
 		// Number of steps.
 		int count = price.size();
@@ -103,15 +113,12 @@ public class TaskStates extends TaskAverages {
 		}
 		persistor.getDDL().buildTable(table);
 
-		// And the result indicator info and data list.
-		IndicatorInfo info = indicator.getIndicatorInfo();
-		IndicatorDataList indicatorList = indicator.getDataList();
-		// The list of indicator data lists that must be calculated prior as sources.
-		List<IndicatorDataList> sources = indicator.getIndicatorDataListsToCalculate();
-
 		// The current index to calculate.
 		int index = 0;
 
+		// Buffer of records to insert in batches.
+		List<Record> buffer = new ArrayList<>(BATCH_SIZE);
+
 		// Step and steps.
 		long step = 0;
 		long steps = getSteps();
@@ -132,89 +139,121 @@ public class TaskStates extends TaskAverages {
 			// Notify step start.
 			notifyStepStart(step, getStepMessage(step, steps, null, null));
 
-			// Calculate required sources for the current index.
-			for (IndicatorDataList source : sources) {
-				source.calculate(index);
-			}
-			// Calculate the result indicator and save the data.
-			Data data = indicatorList.calculate(index);
-
-			// Indicator data contains open, high, low, close and the averages. Raw spreads and slopes will be
-			// calculated here.
-			Record record = persistor.getDefaultRecord();
-
-			// Time.
-			record.getValue(Fields.Time).setLong(data.getTime());
-
-			// Open, high, low, close.
-			{
-				record.getValue(Fields.Open).setDouble(data.getValue(info.getOutputIndex(Fields.Open)));
-				record.getValue(Fields.High).setDouble(data.getValue(info.getOutputIndex(Fields.High)));
-				record.getValue(Fields.Low).setDouble(data.getValue(info.getOutputIndex(Fields.Low)));
-				record.getValue(Fields.Close).setDouble(data.getValue(info.getOutputIndex(Fields.Close)));
-			}
+			// Calculate the record.
+			Record record = calculate(persistor, index);
 
-			// Averages.
-			{
-				List<Field> fields = states.getFieldListAverages();
-				for (Field field : fields) {
-					String name = field.getName();
-					record.getValue(name).setDouble(data.getValue(info.getOutputIndex(name)));
-				}
+			// Buffer and insert in batches.
+			buffer.add(record);
+			if (buffer.size() == BATCH_SIZE) {
+				persistor.insert(buffer);
+				buffer.clear();
 			}
 
-			// Raw spreads between averages.
-			{
-				List<Field> fields = states.getFieldListSpreads(Fields.Suffix.raw);
-				for (Field field : fields) {
-					Spread spread = (Spread) field.getProperty(Fields.Properties.Spread);
-					String avgFastName = spread.getFastAverage().getName();
-					String avgSlowName = spread.getSlowAverage().getName();
-					double valueFast = data.getValue(info.getOutputIndex(avgFastName));
-					double valueSlow = data.getValue(info.getOutputIndex(avgSlowName));
-					double valueSpread = (valueFast / valueSlow) - 1;
-					record.getValue(field.getName()).setDouble(valueSpread);
-				}
+			// Skip to next index.
+			index++;
+
+			// Notify step end.
+			notifyStepEnd();
+			// Yield.
+			Thread.yield();
+		}
+
+		// Insert pending records.
+		if (!buffer.isEmpty()) {
+			persistor.insert(buffer);
+		}
+	}
+
+	/**
+	 * Calculates the states record with the raw values at the given index. Indexes must be calculated sequentially
+	 * starting at zero.
+	 * 
+	 * @param persistor The states persistor.
+	 * @param index The index.
+	 * @return The record.
+	 */
+	Record calculate(DataPersistor persistor, int index) {
+
+		// Result indicator info and data lists.
+		if (indicatorList == null) {
+			info = indicator.getIndicatorInfo();
+			indicatorList = indicator.getDataList();
+			sources = indicator.getIndicatorDataListsToCalculate();
+		}
+
+		// Calculate required sources for the current index, in ascending order so that streaming indicators advance
+		// one bar with constant work.
+		for (IndicatorDataList source : sources) {
+			source.get(index);
+		}
+		// Calculate the result indicator and save the data.
+		Data data = indicatorList.get(index);
+
+		// Indicator data contains open, high, low, close and the averages. Raw spreads and slopes will be
+		// calculated here.
+		Record record = persistor.getDefaultRecord();
+
+		// Time.
+		record.getValue(Fields.Time).setLong(data.getTime());
+
+		// Open, high, low, close.
+		{
+			record.getValue(Fields.Open).setDouble(data.getValue(info.getOutputIndex(Fields.Open)));
+			record.getValue(Fields.High).setDouble(data.getValue(info.getOutputIndex(Fields.High)));
+			record.getValue(Fields.Low).setDouble(data.getValue(info.getOutputIndex(Fields.Low)));
+			record.getValue(Fields.Close).setDouble(data.getValue(info.getOutputIndex(Fields.Close)));
+		}
+
+		// Averages.
+		{
+			List<Field> fields = states.getFieldListAverages();
+			for (Field field : fields) {
+				String name = field.getName();
+				record.getValue(name).setDouble(data.getValue(info.getOutputIndex(name)));
 			}
+		}
 
-			// Raw slopes of averages.
-			{
-				if (index > 0) {
-					Data prev = indicatorList.get(index - 1);
-					List<Field> fields = states.getFieldListSlopes(Fields.Suffix.raw);
-					for (Field field : fields) {
-						Slope slope = (Slope) field.getProperty(Fields.Properties.Slope);
-						String avgName = slope.getAverage().getName();
-						double valueCurr = data.getValue(info.getOutputIndex(avgName));
-						double valuePrev = prev.getValue(info.getOutputIndex(avgName));
-						double valueSlope = (valueCurr / valuePrev) - 1;
-						record.getValue(field.getName()).setDouble(valueSlope);
-					}
-				}
+		// Raw spreads between averages.
+		{
+			List<Field> fields = states.getFieldListSpreads(Fields.Suffix.raw);
+			for (Field field : fields) {
+				Spread spread = (Spread) field.getProperty(Fields.Properties.Spread);
+				String avgFastName = spread.getFastAverage().getName();
+				String avgSlowName = spread.getSlowAverage().getName();
+				double valueFast = data.getValue(info.getOutputIndex(avgFastName));
+				double valueSlow = data.getValue(info.getOutputIndex(avgSlowName));
+				double valueSpread = (valueFast / valueSlow) - 1;
+				record.getValue(field.getName()).setDouble(valueSpread);
 			}
+		}
 
-			// Raw calculations.
-			{
-				List<Field> fields = states.getFieldListCalculations(Family.Default, Fields.Suffix.raw);
+		// Raw slopes of averages.
+		{
+			if (index > 0) {
+				Data prev = indicatorList.get(index - 1);
+				List<Field> fields = states.getFieldListSlopes(Fields.Suffix.raw);
 				for (Field field : fields) {
-					Calculation calculation = (Calculation) field.getProperty(Fields.Properties.Calculation);
-					Calculator calculator = calculation.getCalculator();
-					record.setValue(field.getName(), calculator.getValue(record));
+					Slope slope = (Slope) field.getProperty(Fields.Properties.Slope);
+					String avgName = slope.getAverage().getName();
+					double valueCurr = data.getValue(info.getOutputIndex(avgName));
+					double valuePrev = prev.getValue(info.getOutputIndex(avgName));
+					double valueSlope = (valueCurr / valuePrev) - 1;
+					record.getValue(field.getName()).setDouble(valueSlope);
 				}
 			}
+		}
 
-			// Insert.
-			persistor.insert(record);
-
-			// Skip to next index.
-			index++;
-
-			// Notify step end.
-			notifyStepEnd();
-			// Yield.
-			Thread.yield();
+		// Raw calculations.
+		{
+			List<Field> fields = states.getFieldListCalculations(Family.Default, Fields.Suffix.raw);
+			for (Field field : fields) {
+				Calculation calculation = (Calculation) field.getProperty(Fields.Properties.Calculation);
+				Calculator calculator = calculation.getCalculator();
+				record.setValue(field.getName(), calculator.getValue(record));
+			}
 		}
 
+		return record;
 	}
 
 }
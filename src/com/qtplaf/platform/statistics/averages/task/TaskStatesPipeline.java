@@ -0,0 +1,368 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtplaf.platform.statistics.averages.task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.qtplaf.library.ai.rlearning.function.Normalizer;
+import com.qtplaf.library.database.Criteria;
+import com.qtplaf.library.database.Field;
+import com.qtplaf.library.database.Order;
+import com.qtplaf.library.database.Persistor;
+import com.qtplaf.library.database.Record;
+import com.qtplaf.library.database.RecordIterator;
+import com.qtplaf.library.database.Table;
+import com.qtplaf.library.math.SlidingExtremum;
+import com.qtplaf.library.trading.data.DataPersistor;
+import com.qtplaf.platform.database.Fields;
+import com.qtplaf.platform.database.configuration.Range;
+import com.qtplaf.platform.indicators.StatesIndicator;
+import com.qtplaf.platform.statistics.averages.States;
+
+/**
+ * Calculates states raw values, ranges and normalized values in a pipeline of two streaming passes. The first pass
+ * calculates the raw values and detects the ranges (min-max) over a rolling window of raw values, bulk inserting
+ * states and ranges. Normalizers require the statistics of the whole ranges table, so the second pass reads the
+ * states back in order, normalizes them and bulk updates each chunk. The result is the same as executing
+ * <code>TaskStates</code>, <code>TaskRanges</code> and <code>TaskNormalizes</code> in sequence.
+ * 
+ * @author Miquel Sas
+ */
+public class TaskStatesPipeline extends TaskAverages {
+
+	/** Number of records per batch insert or update. */
+	private static final int BATCH_SIZE = 1000;
+
+	/** Label to report the raw values and ranges pass. */
+	private static final String labelRaw = "Raw values and ranges";
+	/** Label to report the normalize pass. */
+	private static final String labelNormalize = "Normalized values";
+
+	/** Underlying states statistics. */
+	private States states;
+	/** States indicator, used to count steps. */
+	private StatesIndicator indicator;
+
+	/** Current step of both passes. */
+	private long step;
+	/** Steps of both passes. */
+	private long steps;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param states The states statistics.
+	 */
+	public TaskStatesPipeline(States states) {
+		super(states.getSession());
+		this.states = states;
+		this.indicator = new StatesIndicator(states);
+
+		setNameAndDescription(states, "States, ranges and normalized values");
+		addAdditionalLabel(labelRaw);
+		addAdditionalLabel(labelNormalize);
+	}
+
+	/**
+	 * If the task supports pre-counting steps, a call to this method forces counting (and storing) the number of steps.
+	 * This task supports counting steps, two per source price: one for each pass.
+	 * 
+	 * @return The number of steps.
+	 * @throws Exception If an unrecoverable error occurs during execution.
+	 */
+	@Override
+	public long countSteps() throws Exception {
+
+		// Notify counting.
+		notifyCounting();
+
+		// Number of steps.
+		long count = 2L * indicator.getDataListPrice().size();
+
+		// Notify.
+		notifyStepCount(count);
+		return getSteps();
+	}
+
+	/**
+	 * Returns the select order of the states table.
+	 * 
+	 * @return The select order.
+	 */
+	private Order getSelectOrder() {
+		Order order = new Order();
+		order.add(states.getTableStates().getField(Fields.Index));
+		return order;
+	}
+
+	/**
+	 * Drops and builds the table.
+	 * 
+	 * @param table The table.
+	 * @throws Exception
+	 */
+	private void buildTable(Table table) throws Exception {
+		Persistor persistor = table.getPersistor();
+		if (persistor.getDDL().existsTable(table)) {
+			persistor.getDDL().dropTable(table);
+		}
+		persistor.getDDL().buildTable(table);
+	}
+
+	/**
+	 * Returns the stage message with the number of records processed, the elapsed time and the rate.
+	 * 
+	 * @param records The number of records processed.
+	 * @param startTime The start time in milliseconds.
+	 * @return The message.
+	 */
+	private String getStageMessage(long records, long startTime) {
+		long elapsed = System.currentTimeMillis() - startTime;
+		StringBuilder b = new StringBuilder();
+		b.append(records);
+		b.append(" records in ");
+		b.append(elapsed / 1000.0);
+		b.append(" s");
+		if (elapsed > 0) {
+			b.append(" (");
+			b.append((records * 1000) / elapsed);
+			b.append(" records/s)");
+		}
+		return b.toString();
+	}
+
+	/**
+	 * Check the step start, cancel and pause.
+	 * 
+	 * @return A boolean indicating whether to continue.
+	 */
+	private boolean checkStepStart() {
+		while (true) {
+			if (checkCancel()) {
+				return false;
+			}
+			if (!checkPause()) {
+				break;
+			}
+		}
+		step++;
+		notifyStepStart(step, getStepMessage(step, steps, null, null));
+		return true;
+	}
+
+	/**
+	 * Executes the underlying task processing.
+	 * 
+	 * @throws Exception If an unrecoverable error occurs during execution.
+	 */
+	@Override
+	public void execute() throws Exception {
+
+		// Count steps.
+		countSteps();
+		step = 0;
+		steps = getSteps();
+
+		// Drop and create the states and ranges tables.
+		buildTable(states.getTableStates());
+		buildTable(states.getTableRanges());
+
+		// First pass: raw values and ranges.
+		if (!executeRaw()) {
+			return;
+		}
+
+		// Second pass: normalized values.
+		executeNormalize();
+	}
+
+	/**
+	 * Executes the first pass, raw values and ranges.
+	 * 
+	 * @return A boolean indicating whether the pass was completed.
+	 * @throws Exception
+	 */
+	private boolean executeRaw() throws Exception {
+
+		long startTime = System.currentTimeMillis();
+
+		// Persistors.
+		DataPersistor persistor = new DataPersistor(states.getTableStates().getPersistor());
+		Persistor persistorRanges = states.getTableRanges().getPersistor();
+
+		// Raw values calculator.
+		TaskStates taskStates = new TaskStates(states);
+
+		// Ranges, fields, minimum-maximum detectors by field and range, and a rolling window of times large enough
+		// to reach the center of the longest range.
+		List<Range> rangeList = states.getConfiguration().getRanges();
+		List<Field> fields = states.getFieldListToCalculateRanges();
+		SlidingExtremum[][] extremums = new SlidingExtremum[fields.size()][rangeList.size()];
+		int maxPeriod = 0;
+		for (int f = 0; f < fields.size(); f++) {
+			for (int r = 0; r < rangeList.size(); r++) {
+				int period = rangeList.get(r).getPeriod();
+				extremums[f][r] = new SlidingExtremum(period);
+				maxPeriod = Math.max(maxPeriod, period);
+			}
+		}
+		int window = maxPeriod + 1;
+		long[] times = new long[window];
+
+		// Buffers of records to insert in batches.
+		List<Record> buffer = new ArrayList<>(BATCH_SIZE);
+		List<Record> bufferRanges = new ArrayList<>(BATCH_SIZE);
+
+		int size = (int) (steps / 2);
+		long records = 0;
+		boolean completed = true;
+		for (int index = 0; index < size; index++) {
+
+			// Check cancel and pause, and notify step start.
+			if (!checkStepStart()) {
+				completed = false;
+				break;
+			}
+
+			// Calculate the record and push the time to the window.
+			Record record = taskStates.calculate(persistor, index);
+			times[index % window] = record.getValue(Fields.Time).getLong();
+
+			// Add raw values to the detectors and check ranges centered at the index that is the period behind, whose
+			// forward values are now available.
+			for (int f = 0; f < fields.size(); f++) {
+				String name = fields.get(f).getName();
+				double valueAdd = record.getValue(name).getDouble();
+				for (int r = 0; r < rangeList.size(); r++) {
+					SlidingExtremum extremum = extremums[f][r];
+					extremum.add(valueAdd);
+					int center = extremum.getCenterIndex();
+					if (center < 0) {
+						continue;
+					}
+					double value = extremum.getCenterValue();
+					if (value == 0) {
+						continue;
+					}
+					boolean minimum = (value < 0);
+					if (minimum ? extremum.isMinimum() : extremum.isMaximum()) {
+						Record recordRange = persistorRanges.getDefaultRecord();
+						recordRange.setValue(Fields.Name, name);
+						recordRange.setValue(Fields.Period, extremum.getPeriod());
+						recordRange.setValue(Fields.MinMax, (minimum ? "min" : "max"));
+						recordRange.setValue(Fields.Value, value);
+						recordRange.setValue(Fields.Index, center);
+						recordRange.setValue(Fields.Time, times[center % window]);
+						bufferRanges.add(recordRange);
+					}
+				}
+			}
+
+			// Buffer and insert in batches.
+			buffer.add(record);
+			records++;
+			if (buffer.size() == BATCH_SIZE) {
+				persistor.insert(buffer);
+				buffer.clear();
+				notifyLabel(labelRaw, getStageMessage(records, startTime));
+			}
+			if (bufferRanges.size() >= BATCH_SIZE) {
+				persistorRanges.insert(bufferRanges);
+				bufferRanges.clear();
+			}
+
+			// Notify step end.
+			notifyStepEnd();
+		}
+
+		// Insert pending records.
+		if (!buffer.isEmpty()) {
+			persistor.insert(buffer);
+		}
+		if (!bufferRanges.isEmpty()) {
+			persistorRanges.insert(bufferRanges);
+		}
+		notifyLabel(labelRaw, getStageMessage(records, startTime));
+		return completed;
+	}
+
+	/**
+	 * Executes the second pass, normalized values.
+	 * 
+	 * @throws Exception
+	 */
+	private void executeNormalize() throws Exception {
+
+		long startTime = System.currentTimeMillis();
+		long records = 0;
+
+		// Normalizers from the ranges just calculated.
+		Map<String, Normalizer> mapNormalizers = states.getMapNormalizers();
+		TaskNormalizes taskNormalizes = new TaskNormalizes(states);
+
+		DataPersistor persistor = new DataPersistor(states.getTableStates().getPersistor());
+		RecordIterator iterator = null;
+		try {
+			iterator = persistor.iterator(new Criteria(), getSelectOrder());
+
+			// Buffer of records to update in batches.
+			List<Record> buffer = new ArrayList<>(BATCH_SIZE);
+
+			while (step < steps) {
+
+				// Check cancel and pause, and notify step start.
+				if (!checkStepStart()) {
+					break;
+				}
+
+				// End achieved? should not happen.
+				if (!iterator.hasNext()) {
+					break;
+				}
+				Record record = iterator.next();
+
+				// Flush before buffering the current record, that the iterator may hold locked.
+				if (buffer.size() == BATCH_SIZE) {
+					persistor.update(buffer);
+					buffer.clear();
+					notifyLabel(labelNormalize, getStageMessage(records, startTime));
+				}
+
+				// Normalize and buffer.
+				taskNormalizes.normalize(record, mapNormalizers);
+				buffer.add(record);
+				records++;
+
+				// Notify step end.
+				notifyStepEnd();
+			}
+
+			// Update pending records, once the iterator is closed.
+			iterator.close();
+			iterator = null;
+			if (!buffer.isEmpty()) {
+				persistor.update(buffer);
+			}
+			notifyLabel(labelNormalize, getStageMessage(records, startTime));
+
+		} finally {
+			if (iterator != null) {
+				iterator.close();
+			}
+		}
+	}
+}
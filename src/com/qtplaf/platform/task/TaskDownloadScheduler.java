@@ -0,0 +1,583 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package com.qtplaf.platform.task;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.qtplaf.library.app.Session;
+import com.qtplaf.library.database.Field;
+import com.qtplaf.library.database.Order;
+import com.qtplaf.library.database.Persistor;
+import com.qtplaf.library.database.PersistorException;
+import com.qtplaf.library.database.Record;
+import com.qtplaf.library.database.RecordIterator;
+import com.qtplaf.library.task.TaskRunner;
+import com.qtplaf.library.trading.data.BinaryDataFile;
+import com.qtplaf.library.trading.data.Data;
+import com.qtplaf.library.trading.data.DataPersistor;
+import com.qtplaf.library.trading.data.Filter;
+import com.qtplaf.library.trading.data.Instrument;
+import com.qtplaf.library.trading.data.Period;
+import com.qtplaf.library.trading.server.HistoryManager;
+import com.qtplaf.library.trading.server.OfferSide;
+import com.qtplaf.library.trading.server.Server;
+import com.qtplaf.library.trading.server.ServerException;
+import com.qtplaf.platform.ServerConnector;
+import com.qtplaf.platform.database.Fields;
+import com.qtplaf.platform.database.Tables;
+import com.qtplaf.platform.database.tables.TableDataPrice;
+import com.qtplaf.platform.util.RecordUtils;
+
+/**
+ * Task to download several tickers from a server concurrently. The range of each ticker, from the last data downloaded
+ * up to the last data available in the server, is split in chunks of bars, and chunks of all the tickers are fetched
+ * by a pool of threads with a configurable concurrency limit, retrying failed requests with exponential backoff.
+ * <p>
+ * Chunks of a ticker are written to the ticker table in time order, in batches, by the task thread, whatever the order
+ * they are fetched. The last time in the table is then a consistent checkpoint: an interrupted or cancelled download
+ * resumes from the bar after it, without deleting any data. A ticker can be written to a <tt>BinaryDataFile</tt>
+ * instead of the table, in which case the last time in the file is the checkpoint.
+ * 
+ * @author Miquel Sas
+ */
+public class TaskDownloadScheduler extends TaskRunner {
+
+	/** Logger instance. */
+	private static final Logger logger = LogManager.getLogger();
+
+	/**
+	 * A ticker to download and the state of its download.
+	 */
+	class Ticker {
+		/** The instrument. */
+		Instrument instrument;
+		/** The period. */
+		Period period;
+		/** The offer side. */
+		OfferSide offerSide;
+		/** The data filter. */
+		Filter filter;
+		/** The persistor of the ticker table. */
+		DataPersistor persistor;
+		/** Optional binary file to write to instead of the ticker table. */
+		File binaryFile;
+		/** The binary data file when writing to a file. */
+		BinaryDataFile dataFile;
+		/** The time of the first bar to download. */
+		long timeFrom;
+		/** The time of the last bar to download. */
+		long timeTo;
+		/** The time span of a chunk. */
+		long chunkTime;
+		/** The number of chunks. */
+		int chunks;
+		/** The index of the next chunk to fetch. */
+		int nextFetch;
+		/** The index of the next chunk to write. */
+		int nextWrite;
+		/** Chunks fetched and waiting for a previous one to be written. */
+		Map<Integer, Chunk> fetched = new HashMap<>();
+
+		/**
+		 * Returns a string representation of the ticker.
+		 */
+		@Override
+		public String toString() {
+			return instrument.getId() + " " + period.toString() + " " + offerSide.name();
+		}
+	}
+
+	/**
+	 * A chunk of bars of a ticker.
+	 */
+	class Chunk {
+		/** The ticker. */
+		Ticker ticker;
+		/** The index of the chunk. */
+		int index;
+		/** The time of the first bar. */
+		long from;
+		/** The time of the last bar. */
+		long to;
+		/** The data fetched. */
+		List<Data> dataList;
+	}
+
+	/** The server to download the tickers from. */
+	private Server server;
+	/** The list of tickers to download. */
+	private List<Ticker> tickers = new ArrayList<>();
+	/** A boolean that indicates whether the ranges to download have been resolved. */
+	private boolean resolved = false;
+
+	/** Maximum number of concurrent requests to the server. */
+	private int concurrency = 4;
+	/** Number of bars per chunk. */
+	private int chunkSize = 5000;
+	/** Number of records per batch insert. */
+	private int batchSize = 1000;
+	/** Maximum number of retries of a failed request. */
+	private int maxRetries = 6;
+	/** Initial backoff delay in millis. */
+	private long initialBackoff = 250;
+	/** Maximum backoff delay in millis. */
+	private long maxBackoff = 30000;
+
+	/** Index of the ticker to fetch the next chunk from, to fetch tickers round robin. */
+	private int roundRobin = 0;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param session Working session.
+	 * @param server The server to download the tickers from.
+	 */
+	public TaskDownloadScheduler(Session session, Server server) {
+		super(session);
+		this.server = server;
+	}
+
+	/**
+	 * Add a ticker to download.
+	 * 
+	 * @param instrument The instrument.
+	 * @param period The period.
+	 * @param offerSide The offer side.
+	 * @param filter The data filter.
+	 */
+	public void addTicker(Instrument instrument, Period period, OfferSide offerSide, Filter filter) {
+		addTicker(instrument, period, offerSide, filter, null);
+	}
+
+	/**
+	 * Add a ticker to download to a binary file instead of the ticker table.
+	 * 
+	 * @param instrument The instrument.
+	 * @param period The period.
+	 * @param offerSide The offer side.
+	 * @param filter The data filter.
+	 * @param binaryFile The binary file or null to write to the ticker table.
+	 */
+	public void addTicker(Instrument instrument, Period period, OfferSide offerSide, Filter filter, File binaryFile) {
+		Ticker ticker = new Ticker();
+		ticker.instrument = instrument;
+		ticker.period = period;
+		ticker.offerSide = offerSide;
+		ticker.filter = filter;
+		ticker.binaryFile = binaryFile;
+		tickers.add(ticker);
+	}
+
+	/**
+	 * Set the maximum number of concurrent requests to the server.
+	 * 
+	 * @param concurrency The maximum number of concurrent requests.
+	 */
+	public void setConcurrency(int concurrency) {
+		if (concurrency <= 0) {
+			throw new IllegalArgumentException("Concurrency must be greater than zero");
+		}
+		this.concurrency = concurrency;
+	}
+
+	/**
+	 * Set the number of bars per chunk.
+	 * 
+	 * @param chunkSize The number of bars per chunk.
+	 */
+	public void setChunkSize(int chunkSize) {
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("Chunk size must be greater than zero");
+		}
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Set the number of records per batch insert.
+	 * 
+	 * @param batchSize The number of records per batch.
+	 */
+	public void setBatchSize(int batchSize) {
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException("Batch size must be greater than zero");
+		}
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Set the retry policy of failed requests. The delay before a retry starts at the initial backoff and doubles on
+	 * each retry up to the maximum backoff, randomized between the half and the full delay.
+	 * 
+	 * @param maxRetries The maximum number of retries.
+	 * @param initialBackoff The initial backoff delay in millis.
+	 * @param maxBackoff The maximum backoff delay in millis.
+	 */
+	public void setRetries(int maxRetries, long initialBackoff, long maxBackoff) {
+		if (maxRetries < 0 || initialBackoff <= 0 || maxBackoff < initialBackoff) {
+			throw new IllegalArgumentException("Invalid retry policy");
+		}
+		this.maxRetries = maxRetries;
+		this.initialBackoff = initialBackoff;
+		this.maxBackoff = maxBackoff;
+	}
+
+	/**
+	 * If the task supports pre-counting steps, a call to this method forces counting (and storing) the number of steps.
+	 * A step is a chunk.
+	 * 
+	 * @return The number of steps.
+	 * @throws Exception If an unrecoverable error occurs during execution.
+	 */
+	@Override
+	public long countSteps() throws Exception {
+		notifyCounting();
+		resolve();
+		long steps = 0;
+		for (Ticker ticker : tickers) {
+			steps += ticker.chunks;
+		}
+		notifyStepCount(steps);
+		return getSteps();
+	}
+
+	/**
+	 * Executes the underlying task processing.
+	 * 
+	 * @throws Exception If an unrecoverable error occurs during execution.
+	 */
+	@Override
+	public void execute() throws Exception {
+
+		// Count steps.
+		if (countSteps() <= 0) {
+			notifyCancelled();
+			return;
+		}
+
+		HistoryManager historyManager = getServer().getHistoryManager();
+		ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+		CompletionService<Chunk> service = new ExecutorCompletionService<>(executor);
+
+		// Chunks being fetched and chunks fetched not yet written, bounded to bound memory.
+		int pending = 0;
+		int buffered = 0;
+		long step = 0;
+		long steps = getSteps();
+
+		try {
+			while (true) {
+
+				// Check request of cancel.
+				if (checkCancel()) {
+					break;
+				}
+
+				// Check pause resume.
+				if (checkPause()) {
+					continue;
+				}
+
+				// Submit chunks up to the concurrency limit.
+				while (pending < concurrency && pending + buffered < concurrency * 2) {
+					Chunk chunk = nextChunk();
+					if (chunk == null) {
+						break;
+					}
+					service.submit(() -> fetch(historyManager, chunk));
+					pending++;
+				}
+
+				// Nothing pending, all chunks written.
+				if (pending == 0) {
+					break;
+				}
+
+				// Wait for a chunk, timing out to check cancel and pause requests.
+				Future<Chunk> future = service.poll(100, TimeUnit.MILLISECONDS);
+				if (future == null) {
+					continue;
+				}
+				pending--;
+				Chunk chunk;
+				try {
+					chunk = future.get();
+				} catch (ExecutionException exc) {
+					Throwable cause = exc.getCause();
+					throw (cause instanceof Exception ? (Exception) cause : exc);
+				}
+
+				// Write the chunks of the ticker that are in sequence.
+				Ticker ticker = chunk.ticker;
+				ticker.fetched.put(chunk.index, chunk);
+				buffered++;
+				while ((chunk = ticker.fetched.remove(ticker.nextWrite)) != null) {
+					buffered--;
+					step++;
+					notifyStepStart(step, getStepMessage(step, steps, null, " " + ticker));
+					write(chunk);
+					ticker.nextWrite++;
+					notifyStepEnd();
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+			closeDataFiles();
+		}
+	}
+
+	/**
+	 * Close the binary data files, flushing the elements buffered.
+	 */
+	private void closeDataFiles() {
+		for (Ticker ticker : tickers) {
+			if (ticker.dataFile != null) {
+				try {
+					ticker.dataFile.close();
+				} catch (IOException exc) {
+					logger.catching(exc);
+				}
+				ticker.dataFile = null;
+			}
+		}
+	}
+
+	/**
+	 * Returns the next chunk to fetch, taking tickers round robin, or null if all chunks have been submitted.
+	 * 
+	 * @return The next chunk or null.
+	 */
+	private Chunk nextChunk() {
+		for (int i = 0; i < tickers.size(); i++) {
+			Ticker ticker = tickers.get(roundRobin);
+			roundRobin = (roundRobin + 1) % tickers.size();
+			if (ticker.nextFetch < ticker.chunks) {
+				Chunk chunk = new Chunk();
+				chunk.ticker = ticker;
+				chunk.index = ticker.nextFetch++;
+				chunk.from = ticker.timeFrom + (chunk.index * ticker.chunkTime);
+				chunk.to = Math.min(chunk.from + ticker.chunkTime - ticker.period.getTime(), ticker.timeTo);
+				return chunk;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Fetch the data of a chunk, retrying with exponential backoff.
+	 * 
+	 * @param historyManager The history manager.
+	 * @param chunk The chunk.
+	 * @return The chunk with the data fetched.
+	 * @throws ServerException If the request fails after the retries.
+	 * @throws InterruptedException If interrupted while waiting to retry.
+	 */
+	private Chunk fetch(HistoryManager historyManager, Chunk chunk) throws ServerException, InterruptedException {
+		Ticker ticker = chunk.ticker;
+		long backoff = initialBackoff;
+		int retry = 0;
+		while (true) {
+			try {
+				chunk.dataList =
+					historyManager.getDataList(
+						ticker.instrument,
+						ticker.period,
+						ticker.offerSide,
+						ticker.filter,
+						chunk.from,
+						chunk.to);
+				return chunk;
+			} catch (ServerException exc) {
+				if (retry++ >= maxRetries) {
+					throw exc;
+				}
+				logger.warn("Retry " + retry + " of " + ticker + " at " + chunk.from + ": " + exc.getMessage());
+				long half = backoff / 2;
+				Thread.sleep(half + ThreadLocalRandom.current().nextLong(half + 1));
+				backoff = Math.min(backoff * 2, maxBackoff);
+			}
+		}
+	}
+
+	/**
+	 * Write the data of a chunk to the ticker table, in batches, or append it to the binary file, flushing it so that
+	 * its last time remains a consistent checkpoint.
+	 * 
+	 * @param chunk The chunk.
+	 * @throws PersistorException
+	 * @throws IOException
+	 */
+	private void write(Chunk chunk) throws PersistorException, IOException {
+		BinaryDataFile dataFile = chunk.ticker.dataFile;
+		if (dataFile != null) {
+			for (Data data : chunk.dataList) {
+				if (data.getTime() < chunk.from || data.getTime() > chunk.to) {
+					continue;
+				}
+				dataFile.append(data);
+			}
+			dataFile.flush();
+			chunk.dataList = null;
+			return;
+		}
+		DataPersistor persistor = chunk.ticker.persistor;
+		List<Record> buffer = new ArrayList<>(batchSize);
+		for (Data data : chunk.dataList) {
+			if (data.getTime() < chunk.from || data.getTime() > chunk.to) {
+				continue;
+			}
+			buffer.add(RecordUtils.getRecordDataPrice(persistor.getDefaultRecord(), data));
+			if (buffer.size() == batchSize) {
+				persistor.insert(buffer);
+				buffer.clear();
+			}
+		}
+		if (!buffer.isEmpty()) {
+			persistor.insert(buffer);
+		}
+		chunk.dataList = null;
+	}
+
+	/**
+	 * Resolve the range to download and the chunks of each ticker.
+	 * 
+	 * @throws Exception
+	 */
+	private void resolve() throws Exception {
+		if (resolved) {
+			return;
+		}
+		HistoryManager historyManager = getServer().getHistoryManager();
+		for (Ticker ticker : tickers) {
+			long checkpoint;
+			if (ticker.binaryFile != null) {
+				ticker.dataFile = new BinaryDataFile(ticker.binaryFile, Data.DataPriceSize);
+				checkpoint = ticker.dataFile.getLastTime();
+			} else {
+				String tableName = Tables.ticker(ticker.instrument, ticker.period);
+				TableDataPrice table = new TableDataPrice(getSession(), server, ticker.instrument, tableName);
+				ticker.persistor = new DataPersistor(table.getPersistor());
+				checkpoint = getTimeOfLastDownloaded(ticker.persistor);
+			}
+
+			long periodTime = ticker.period.getTime();
+			if (checkpoint == -1) {
+				ticker.timeFrom = historyManager.getTimeOfFirstData(ticker.instrument, ticker.period);
+			} else {
+				ticker.timeFrom = checkpoint + periodTime;
+			}
+			ticker.timeTo = historyManager.getLastData(ticker.instrument, ticker.period).getTime();
+			ticker.chunkTime = periodTime * chunkSize;
+			if (ticker.timeFrom <= ticker.timeTo) {
+				ticker.chunks = (int) (((ticker.timeTo - ticker.timeFrom) / ticker.chunkTime) + 1);
+			}
+		}
+		resolved = true;
+	}
+
+	/**
+	 * Returns the last time of downloaded price data, the checkpoint of the ticker, or -1 if nothing was downloaded.
+	 * 
+	 * @param persistor The persistor of the ticker table.
+	 * @return The last time.
+	 * @throws PersistorException
+	 */
+	private long getTimeOfLastDownloaded(Persistor persistor) throws PersistorException {
+		Field fTIME = persistor.getField(Fields.Time);
+		Order order = new Order();
+		order.add(fTIME, false);
+		Record record = null;
+		RecordIterator iter = persistor.iterator(null, order);
+		if (iter.hasNext()) {
+			record = iter.next();
+		}
+		iter.close();
+		if (record != null) {
+			return record.getValue(Fields.Time).getLong();
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the server conveniently connected.
+	 * 
+	 * @return The server.
+	 * @throws Exception
+	 */
+	private Server getServer() throws Exception {
+		if (!ServerConnector.isConnected(server)) {
+			ServerConnector.connect(server);
+		}
+		return server;
+	}
+
+	/**
+	 * Returns a boolean indicating whether the task will support cancel requests. This task supports cancel.
+	 * 
+	 * @return A boolean.
+	 */
+	@Override
+	public boolean isCancelSupported() {
+		return true;
+	}
+
+	/**
+	 * Returns a boolean indicating if the task supports counting steps through a call to <code>countSteps()</code>.
+	 * This task supports counting steps.
+	 * 
+	 * @return A boolean.
+	 */
+	@Override
+	public boolean isCountStepsSupported() {
+		return true;
+	}
+
+	/**
+	 * Returns a boolean indicating if the task is indeterminate, that is, the task can not count its number of steps.
+	 * This task is not indeterminate.
+	 * 
+	 * @return A boolean indicating if the task is indeterminate.
+	 */
+	@Override
+	public boolean isIndeterminate() {
+		return false;
+	}
+
+	/**
+	 * Returns a boolean indicating whether the task will support the pause/resume requests. This task supports pause,
+	 * chunks being fetched when paused are written on resume.
+	 * 
+	 * @return A boolean.
+	 */
+	@Override
+	public boolean isPauseSupported() {
+		return true;
+	}
+}
@@ -0,0 +1,190 @@
+package test.com.msasc.library.ai.fuzzy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import com.qtplaf.library.ai.fuzzy.Control;
+import com.qtplaf.library.ai.fuzzy.Segment;
+import com.qtplaf.library.ai.fuzzy.function.Linear;
+import com.qtplaf.library.util.list.ListUtils;
+
+/**
+ * Test the compiled checks of the fuzzy control against checks on the list of indexes of segments where a value should
+ * be included, for random values and values at the segment boundaries, and benchmark both. Checks by label must also
+ * match the checks by segment index, and <tt>checkIn</tt> by labels the same by indexes.
+ * <p>
+ * Arguments, all optional: number of random values (default 1000000) and rounds (default 3).
+ */
+public class TestControl {
+
+	static int failures = 0;
+
+	public static void main(String[] args) {
+
+		int count = (args.length > 0 ? Integer.parseInt(args[0]) : 1000000);
+		int rounds = (args.length > 1 ? Integer.parseInt(args[1]) : 3);
+
+		// Contiguous segments like those of candle patterns, and overlapping segments.
+		List<Segment> contiguous = new ArrayList<>();
+		double[] maximums = new double[] { 0.10, 0.25, 0.40, 0.60, 0.75, 0.90, 1.00 };
+		int[] signs = new int[] { -1, -1, -1, 0, 1, 1, 1 };
+		for (int i = 0; i < maximums.length; i++) {
+			double minimum = (i == 0 ? 0.0 : Math.nextUp(maximums[i - 1]));
+			contiguous.add(new Segment(Integer.toString(i), maximums[i], minimum, signs[i], new Linear()));
+		}
+		List<Segment> overlapping = new ArrayList<>();
+		overlapping.add(new Segment("Low", 0.4, 0.0, -1, new Linear()));
+		overlapping.add(new Segment("Medium", 0.7, 0.3, 0, new Linear()));
+		overlapping.add(new Segment("High", 1.0, 0.6, 1, new Linear()));
+
+		Random random = new Random(0);
+		double[] values = new double[count];
+		for (int i = 0; i < count; i++) {
+			values[i] = random.nextDouble() * 1.4 - 0.2;
+		}
+
+		for (List<Segment> segments : Arrays.asList(contiguous, overlapping)) {
+			Control control = new Control(segments);
+			String[] labels = new String[segments.size()];
+			List<Double> edges = new ArrayList<>();
+			for (int i = 0; i < segments.size(); i++) {
+				labels[i] = segments.get(i).getLabel();
+				for (double edge : new double[] { segments.get(i).getMinimum(), segments.get(i).getMaximum() }) {
+					edges.add(edge);
+					edges.add(Math.nextUp(edge));
+					edges.add(Math.nextDown(edge));
+				}
+			}
+
+			// Check.
+			int errors = 0;
+			for (int i = 0; i < count + edges.size(); i++) {
+				double value = (i < count ? values[i] : edges.get(i - count));
+				for (String label : labels) {
+					for (int condition = 0; condition < 5; condition++) {
+						boolean expected = checkByList(control, labels, value, label, condition);
+						if (check(control, value, label, condition) != expected) {
+							errors++;
+						}
+						if (checkByIndex(control, value, control.getIndex(label), condition) != expected) {
+							errors++;
+						}
+					}
+				}
+				for (int j = 0; j + 1 < labels.length; j++) {
+					boolean expected = control.checkIn(value, labels[j], labels[j + 1]);
+					int[] labelIndexes = new int[] { control.getIndex(labels[j]), control.getIndex(labels[j + 1]) };
+					if (control.checkIn(value, labelIndexes) != expected) {
+						errors++;
+					}
+				}
+			}
+			if (errors > 0) {
+				failures++;
+			}
+			String status = (errors == 0 ? "ok     " : "FAILED ");
+			System.out.println(status + "Segments " + segments.size() + ", errors: " + errors);
+
+			// Benchmark.
+			for (int round = 0; round < rounds; round++) {
+				long time = System.nanoTime();
+				int matches = 0;
+				for (int i = 0; i < count; i++) {
+					if (checkByList(control, labels, values[i], labels[i % labels.length], i % 5)) {
+						matches++;
+					}
+				}
+				print("By list", round, count, matches, System.nanoTime() - time);
+				time = System.nanoTime();
+				matches = 0;
+				for (int i = 0; i < count; i++) {
+					if (check(control, values[i], labels[i % labels.length], i % 5)) {
+						matches++;
+					}
+				}
+				print("Compiled", round, count, matches, System.nanoTime() - time);
+			}
+		}
+
+		System.out.println(failures == 0 ? "OK" : "FAILED " + failures);
+		System.exit(failures == 0 ? 0 : 1);
+	}
+
+	/**
+	 * Check with the compiled control.
+	 */
+	private static boolean check(Control control, double value, String label, int condition) {
+		switch (condition) {
+		case 0:
+			return control.checkGT(value, label);
+		case 1:
+			return control.checkGE(value, label);
+		case 2:
+			return control.checkEQ(value, label);
+		case 3:
+			return control.checkLE(value, label);
+		default:
+			return control.checkLT(value, label);
+		}
+	}
+
+	/**
+	 * Check with the compiled control by segment index.
+	 */
+	private static boolean checkByIndex(Control control, double value, int labelIndex, int condition) {
+		switch (condition) {
+		case 0:
+			return control.checkGT(value, labelIndex);
+		case 1:
+			return control.checkGE(value, labelIndex);
+		case 2:
+			return control.checkEQ(value, labelIndex);
+		case 3:
+			return control.checkLE(value, labelIndex);
+		default:
+			return control.checkLT(value, labelIndex);
+		}
+	}
+
+	/**
+	 * Check resolving the label by a sequential search of the segment labels, and with the list of indexes of segments
+	 * where the value should be included.
+	 */
+	private static boolean checkByList(Control control, String[] labels, double value, String label, int condition) {
+		int labelIndex = -1;
+		for (int i = 0; i < labels.length; i++) {
+			if (labels[i].equals(label)) {
+				labelIndex = i;
+				break;
+			}
+		}
+		List<Integer> valueIndexes = control.getIndexes(value);
+		switch (condition) {
+		case 0:
+			return ListUtils.getFirst(valueIndexes) > labelIndex;
+		case 1:
+			return ListUtils.getFirst(valueIndexes) >= labelIndex;
+		case 2:
+			return ListUtils.getFirst(valueIndexes) == labelIndex || ListUtils.getLast(valueIndexes) == labelIndex;
+		case 3:
+			return ListUtils.getLast(valueIndexes) <= labelIndex;
+		default:
+			return ListUtils.getLast(valueIndexes) < labelIndex;
+		}
+	}
+
+	private static void print(String method, int round, int count, int matches, long nanos) {
+		StringBuilder b = new StringBuilder();
+		b.append(method);
+		b.append(" round ");
+		b.append(round);
+		b.append(": ");
+		b.append(Math.round(count / (nanos / 1e6)));
+		b.append(" checks/ms, ");
+		b.append(matches);
+		b.append(" matches");
+		System.out.println(b.toString());
+	}
+}
@@ -0,0 +1,165 @@
+package test.com.msasc.library.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import com.qtplaf.library.database.Field;
+import com.qtplaf.library.database.Record;
+import com.qtplaf.library.database.Table;
+import com.qtplaf.library.database.Types;
+import com.qtplaf.library.database.rdbms.BulkLoader;
+import com.qtplaf.library.database.rdbms.DBEngine;
+import com.qtplaf.library.database.rdbms.DataSourceInfo;
+import com.qtplaf.library.database.rdbms.adapters.DerbyAdapterEmbedded;
+
+/**
+ * Checks that the bulk loader does not hang when its workers die, on an in-memory embedded Derby database. A record
+ * without field list is used as poison: the worker that takes it fails with a runtime exception outside the
+ * per-batch catch. Each scenario runs <tt>close</tt> in its own thread and fails if it does not return in time.
+ */
+public class TestBulkLoader {
+
+	static DBEngine dbEngine;
+	static Table table;
+	static int failures = 0;
+
+	public static void main(String[] args) throws Exception {
+		DataSourceInfo info = new DataSourceInfo();
+		info.setDatabase("memory:bulkloader");
+		dbEngine = new DBEngine(new DerbyAdapterEmbedded(), info);
+
+		table = new Table();
+		table.setName("BULK_TEST");
+		Field id = new Field();
+		id.setName("ID");
+		id.setType(Types.Integer);
+		id.setPrimaryKey(true);
+		table.addField(id);
+		Field name = new Field();
+		name.setName("NAME");
+		name.setType(Types.String);
+		name.setLength(40);
+		table.addField(name);
+		dbEngine.executeCreateTable(table);
+
+		oneWorkerKilled();
+		allWorkersKilledWhileAdding();
+		connectionFailure();
+
+		dbEngine.getConnectionPool().close();
+		System.out.println(failures == 0 ? "OK" : "FAILED " + failures);
+		System.exit(failures == 0 ? 0 : 1);
+	}
+
+	/**
+	 * Two workers, one killed in the middle: the other one goes on, close returns and rethrows the failure.
+	 */
+	static void oneWorkerKilled() throws Exception {
+		BulkLoader loader = new BulkLoader(dbEngine, table);
+		loader.setWorkerCount(2);
+		loader.setBatchSize(10);
+		for (int i = 0; i < 1000; i++) {
+			loader.add(i == 500 ? new Record() : record(i));
+		}
+		SQLException exc = closeWithTimeout(loader, "One worker killed");
+		check("One worker killed: failure rethrown", exc != null && exc.getCause() instanceof RuntimeException);
+		check("One worker killed: all records accounted",
+			loader.getWrittenCount() + loader.getFailedCount() == loader.getQueuedCount());
+		check("One worker killed: other worker went on", loader.getWrittenCount() >= 990);
+		print("One worker killed", loader);
+	}
+
+	/**
+	 * A single worker killed on the first record while the queue fills: add fails instead of blocking, queued records
+	 * are counted as failed and close returns.
+	 */
+	static void allWorkersKilledWhileAdding() throws Exception {
+		BulkLoader loader = new BulkLoader(dbEngine, table);
+		loader.setWorkerCount(1);
+		loader.setQueueCapacity(100);
+		SQLException addExc = null;
+		try {
+			loader.add(record(2000));
+			loader.add(new Record());
+			for (int i = 0; i < 10000; i++) {
+				loader.add(record(2001 + i));
+			}
+		} catch (SQLException exc) {
+			addExc = exc;
+		}
+		check("All workers killed: add failed", addExc != null);
+		SQLException exc = closeWithTimeout(loader, "All workers killed");
+		check("All workers killed: failure rethrown", exc != null);
+		check("All workers killed: all records accounted",
+			loader.getWrittenCount() + loader.getFailedCount() == loader.getQueuedCount());
+		print("All workers killed", loader);
+	}
+
+	/**
+	 * A separate engine with a pool of one connection, held by the test, so the worker fails to open its connection
+	 * before its loop starts.
+	 */
+	static void connectionFailure() throws Exception {
+		DataSourceInfo info = new DataSourceInfo();
+		info.setDatabase("memory:bulkloader");
+		DBEngine smallEngine = new DBEngine(new DerbyAdapterEmbedded(), info);
+		smallEngine.getConnectionPool().setMaxSize(1);
+		smallEngine.getConnectionPool().setMaxWait(200);
+		Connection cn = smallEngine.getConnection();
+		BulkLoader loader = new BulkLoader(smallEngine, table);
+		loader.setWorkerCount(1);
+		try {
+			for (int i = 0; i < 50; i++) {
+				loader.add(record(20000 + i));
+			}
+		} catch (SQLException exc) {
+			// Add may already see the worker dead.
+			System.out.println("Connection failure: add failed: " + exc.getMessage());
+		}
+		try {
+			SQLException exc = closeWithTimeout(loader, "Connection failure");
+			check("Connection failure: failure rethrown", exc != null);
+			check("Connection failure: all records failed", loader.getFailedCount() == loader.getQueuedCount());
+			print("Connection failure", loader);
+		} finally {
+			cn.close();
+			smallEngine.getConnectionPool().close();
+		}
+	}
+
+	static Record record(int id) {
+		Record record = table.getDefaultRecord();
+		record.setValue("ID", id);
+		record.setValue("NAME", "Name " + id);
+		return record;
+	}
+
+	static SQLException closeWithTimeout(BulkLoader loader, String scenario) throws InterruptedException {
+		SQLException[] result = new SQLException[1];
+		Thread thread = new Thread(() -> {
+			try {
+				loader.close();
+			} catch (SQLException exc) {
+				result[0] = exc;
+			}
+		}, "Close " + scenario);
+		thread.setDaemon(true);
+		thread.start();
+		thread.join(30000);
+		check(scenario + ": close returned", !thread.isAlive());
+		return result[0];
+	}
+
+	static void check(String name, boolean condition) {
+		if (!condition) {
+			failures++;
+		}
+		System.out.println((condition ? "ok     " : "FAILED ") + name);
+	}
+
+	static void print(String scenario, BulkLoader loader) {
+		System.out.println(
+			scenario + ": queued " + loader.getQueuedCount() + ", written " + loader.getWrittenCount() + ", failed "
+				+ loader.getFailedCount());
+	}
+}
@@ -0,0 +1,264 @@
+package test.com.msasc.library.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.qtplaf.library.database.rdbms.ConnectionPool;
+
+/**
+ * Checks the built-in connection pool on an in-memory embedded Derby database: the timeout when borrowing beyond the
+ * maximum size, the wait until a connection is released, contention of more threads than connections, the statement
+ * cache, the statements closed and reset on release, the rollback on release and the eviction of idle connections.
+ */
+public class TestConnectionPool {
+
+	static final String DRIVER = "org.apache.derby.jdbc.EmbeddedDriver";
+	static final String URL = "jdbc:derby:memory:connectionpool;create=true";
+
+	static int failures = 0;
+
+	public static void main(String[] args) throws Exception {
+		ConnectionPool setup = new ConnectionPool(DRIVER, URL, null, null);
+		try (Connection cn = setup.getConnection(); Statement st = cn.createStatement()) {
+			st.executeUpdate("CREATE TABLE POOL_TEST (ID INTEGER NOT NULL PRIMARY KEY)");
+		}
+		setup.close();
+
+		timeoutBeyondMaximum();
+		waitUntilReleased();
+		contention();
+		statementCache();
+		statementsClosedOnRelease();
+		statementSettingsReset();
+		rollbackOnRelease();
+		idleEviction();
+
+		System.out.println(failures == 0 ? "OK" : "FAILED " + failures);
+		System.exit(failures == 0 ? 0 : 1);
+	}
+
+	/**
+	 * Borrowing one more connection than the maximum size fails after the maximum wait.
+	 */
+	static void timeoutBeyondMaximum() throws Exception {
+		ConnectionPool pool = new ConnectionPool(DRIVER, URL, null, null);
+		pool.setMaxSize(3);
+		pool.setMaxWait(300);
+		List<Connection> held = borrow(pool, 3);
+		long start = System.currentTimeMillis();
+		SQLException timeout = null;
+		try {
+			pool.getConnection();
+		} catch (SQLException exc) {
+			timeout = exc;
+		}
+		long elapsed = System.currentTimeMillis() - start;
+		check("Timeout: borrow beyond maximum failed", timeout != null);
+		check("Timeout: waited the maximum wait, " + elapsed + " ms", elapsed >= 300 && elapsed < 2000);
+		check("Timeout: total connections " + pool.getTotalConnections(), pool.getTotalConnections() == 3);
+		check("Timeout: wait counted", pool.getWaitCount() == 1);
+		release(held);
+		check("Timeout: all idle after release", pool.getIdleConnections() == 3 && pool.getActiveConnections() == 0);
+		System.out.println("Timeout: " + pool.getMetrics());
+		pool.close();
+	}
+
+	/**
+	 * Borrowing beyond the maximum size waits until another thread releases a connection.
+	 */
+	static void waitUntilReleased() throws Exception {
+		ConnectionPool pool = new ConnectionPool(DRIVER, URL, null, null);
+		pool.setMaxSize(2);
+		pool.setMaxWait(5000);
+		List<Connection> held = borrow(pool, 2);
+		Thread releaser = new Thread(() -> {
+			try {
+				Thread.sleep(200);
+				held.get(0).close();
+			} catch (Exception exc) {
+				exc.printStackTrace();
+			}
+		}, "Releaser");
+		long start = System.currentTimeMillis();
+		releaser.start();
+		Connection cn = pool.getConnection();
+		long elapsed = System.currentTimeMillis() - start;
+		releaser.join();
+		check("Wait: served after release, " + elapsed + " ms", elapsed >= 150 && elapsed < 5000);
+		check("Wait: no connection created beyond maximum", pool.getCreatedCount() == 2);
+		cn.close();
+		held.get(1).close();
+		System.out.println("Wait: " + pool.getMetrics());
+		pool.close();
+	}
+
+	/**
+	 * Twenty threads share a pool of ten connections: all are served and the pool never grows beyond its maximum.
+	 */
+	static void contention() throws Exception {
+		ConnectionPool pool = new ConnectionPool(DRIVER, URL, null, null);
+		pool.setMaxSize(10);
+		pool.setMaxWait(10000);
+		AtomicInteger served = new AtomicInteger();
+		AtomicInteger maxTotal = new AtomicInteger();
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 20; t++) {
+			Thread thread = new Thread(() -> {
+				for (int i = 0; i < 5; i++) {
+					try (Connection cn = pool.getConnection()) {
+						maxTotal.accumulateAndGet(pool.getTotalConnections(), Math::max);
+						Thread.sleep(20);
+						if (!cn.isClosed()) {
+							served.incrementAndGet();
+						}
+					} catch (Exception exc) {
+						exc.printStackTrace();
+					}
+				}
+			}, "Contention " + t);
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		check("Contention: all borrows served", served.get() == 100);
+		check("Contention: maximum total " + maxTotal.get(), maxTotal.get() <= 10);
+		check("Contention: borrowers waited", pool.getWaitCount() > 0);
+		System.out.println("Contention: " + pool.getMetrics());
+		pool.close();
+	}
+
+	/**
+	 * Preparing the same statement again on the same physical connection hits the cache.
+	 */
+	static void statementCache() throws Exception {
+		ConnectionPool pool = new ConnectionPool(DRIVER, URL, null, null);
+		pool.setMaxSize(1);
+		String sql = "SELECT COUNT(*) FROM POOL_TEST";
+		for (int i = 0; i < 3; i++) {
+			try (Connection cn = pool.getConnection(); PreparedStatement ps = cn.prepareStatement(sql)) {
+				try (ResultSet rs = ps.executeQuery()) {
+					rs.next();
+				}
+			}
+		}
+		check("Statements: one miss", pool.getStatementMisses() == 1);
+		check("Statements: two hits", pool.getStatementHits() == 2);
+		pool.close();
+	}
+
+	/**
+	 * Statements left open when the connection is returned are closed, prepared statements back to the cache.
+	 */
+	static void statementsClosedOnRelease() throws Exception {
+		ConnectionPool pool = new ConnectionPool(DRIVER, URL, null, null);
+		pool.setMaxSize(1);
+		String sql = "SELECT COUNT(*) FROM POOL_TEST";
+		Connection cn = pool.getConnection();
+		PreparedStatement ps = cn.prepareStatement(sql);
+		ResultSet rs = ps.executeQuery();
+		Statement st = cn.createStatement();
+		List<Statement> closedByCaller = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			Statement statement = cn.createStatement();
+			statement.close();
+			closedByCaller.add(statement);
+		}
+		cn.close();
+		check("Release: prepared statement closed", ps.isClosed());
+		check("Release: result set closed", rs.isClosed());
+		check("Release: statement closed", st.isClosed());
+		try (Connection next = pool.getConnection(); PreparedStatement cached = next.prepareStatement(sql)) {
+			check("Release: prepared statement back to the cache", pool.getStatementHits() == 1 && !cached.isClosed());
+		}
+		pool.close();
+	}
+
+	/**
+	 * A statement taken from the cache does not keep the settings of the previous borrower.
+	 */
+	static void statementSettingsReset() throws Exception {
+		ConnectionPool pool = new ConnectionPool(DRIVER, URL, null, null);
+		pool.setMaxSize(1);
+		String sql = "SELECT ID FROM POOL_TEST";
+		int fetchSize;
+		try (Connection cn = pool.getConnection(); PreparedStatement ps = cn.prepareStatement(sql)) {
+			fetchSize = ps.getFetchSize();
+			ps.setFetchSize(100);
+			ps.setMaxRows(5);
+			ps.setQueryTimeout(30);
+		}
+		try (Connection cn = pool.getConnection(); PreparedStatement ps = cn.prepareStatement(sql)) {
+			check("Settings: statement from the cache", pool.getStatementHits() == 1);
+			check("Settings: fetch size reset", ps.getFetchSize() == fetchSize);
+			check("Settings: maximum rows reset", ps.getMaxRows() == 0);
+			check("Settings: query timeout reset", ps.getQueryTimeout() == 0);
+		}
+		pool.close();
+	}
+
+	/**
+	 * Work not committed when the connection is returned is rolled back.
+	 */
+	static void rollbackOnRelease() throws Exception {
+		ConnectionPool pool = new ConnectionPool(DRIVER, URL, null, null);
+		pool.setMaxSize(1);
+		try (Connection cn = pool.getConnection(); Statement st = cn.createStatement()) {
+			cn.setAutoCommit(false);
+			st.executeUpdate("INSERT INTO POOL_TEST (ID) VALUES (1)");
+		}
+		int count;
+		try (Connection cn = pool.getConnection();
+			Statement st = cn.createStatement();
+			ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM POOL_TEST")) {
+			rs.next();
+			count = rs.getInt(1);
+		}
+		check("Rollback: uncommitted insert discarded", count == 0);
+		pool.close();
+	}
+
+	/**
+	 * Connections idle longer than the idle timeout are closed down to the minimum size.
+	 */
+	static void idleEviction() throws Exception {
+		ConnectionPool pool = new ConnectionPool(DRIVER, URL, null, null);
+		pool.setMinSize(1);
+		pool.setMaxSize(4);
+		pool.setIdleTimeout(100);
+		release(borrow(pool, 4));
+		check("Eviction: four idle", pool.getIdleConnections() == 4);
+		Thread.sleep(200);
+		pool.evictIdle();
+		check("Eviction: down to minimum", pool.getTotalConnections() == 1 && pool.getEvictedCount() == 3);
+		pool.close();
+	}
+
+	static List<Connection> borrow(ConnectionPool pool, int count) throws SQLException {
+		List<Connection> connections = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			connections.add(pool.getConnection());
+		}
+		return connections;
+	}
+
+	static void release(List<Connection> connections) throws SQLException {
+		for (Connection cn : connections) {
+			cn.close();
+		}
+	}
+
+	static void check(String name, boolean condition) {
+		if (!condition) {
+			failures++;
+		}
+		System.out.println((condition ? "ok     " : "FAILED ") + name);
+	}
+}
@@ -0,0 +1,183 @@
+package test.com.msasc.library.database;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import com.qtplaf.library.database.Condition;
+import com.qtplaf.library.database.Condition.Operator;
+import com.qtplaf.library.database.Criteria;
+import com.qtplaf.library.database.Field;
+import com.qtplaf.library.database.Order;
+import com.qtplaf.library.database.PageRecordSet;
+import com.qtplaf.library.database.Record;
+import com.qtplaf.library.database.Table;
+import com.qtplaf.library.database.Types;
+import com.qtplaf.library.database.Value;
+import com.qtplaf.library.database.View;
+import com.qtplaf.library.database.rdbms.DBEngine;
+import com.qtplaf.library.database.rdbms.DBPersistor;
+import com.qtplaf.library.database.rdbms.DataSourceInfo;
+import com.qtplaf.library.database.rdbms.adapters.DerbyAdapterEmbedded;
+
+/**
+ * Checks the records of a page record set on an in-memory embedded Derby table, with a two field order, the first
+ * ascending and the second descending, against the list of records sorted in memory, for several page sizes, from one
+ * to greater than the record set, reading sequentially forward and backward and at random, with and without a filter.
+ * Nullable order fields must be rejected.
+ */
+public class TestPageRecordSet {
+
+	static final int SIZE = 500;
+
+	static int failures = 0;
+
+	public static void main(String[] args) throws Exception {
+		DataSourceInfo info = new DataSourceInfo();
+		info.setDatabase("memory:pagerecordset");
+		DBEngine dbEngine = new DBEngine(new DerbyAdapterEmbedded(), info);
+
+		Table table = new Table();
+		table.setName("PAGES");
+		table.addField(field("GRP", Types.Integer, 0));
+		table.addField(field("CODE", Types.String, 10));
+		table.addField(field("AMOUNT", Types.Integer, 0));
+		table.getField("GRP").setPrimaryKey(true);
+		table.getField("CODE").setPrimaryKey(true);
+		dbEngine.executeBuildTable(table);
+		table.setPersistor(new DBPersistor(dbEngine, table.getSimpleView()));
+
+		// Groups with repeated values, unique codes within the group.
+		Random random = new Random(20170101);
+		List<String[]> rows = new ArrayList<>();
+		Set<String> keys = new HashSet<>();
+		while (rows.size() < SIZE) {
+			int group = random.nextInt(40);
+			String code = "C" + (char) ('A' + random.nextInt(26)) + (char) ('A' + random.nextInt(26));
+			if (!keys.add(group + code)) {
+				continue;
+			}
+			Record record = table.getDefaultRecord();
+			record.setValue(0, new Value(group));
+			record.setValue(1, code);
+			record.setValue(2, new Value(rows.size()));
+			table.getPersistor().insert(record);
+			rows.add(new String[] { Integer.toString(group), code, Integer.toString(rows.size()) });
+		}
+
+		// Expected order: group ascending, code descending.
+		Collections.sort(rows, (a, b) -> {
+			int compare = Integer.compare(Integer.parseInt(a[0]), Integer.parseInt(b[0]));
+			return (compare != 0 ? compare : b[1].compareTo(a[1]));
+		});
+		List<String[]> filtered = new ArrayList<>();
+		for (String[] row : rows) {
+			if (Integer.parseInt(row[0]) >= 10 && Integer.parseInt(row[0]) < 30) {
+				filtered.add(row);
+			}
+		}
+
+		Order order = new Order();
+		order.add(table.getField("GRP"), true);
+		order.add(table.getField("CODE"), false);
+		View view = table.getSimpleView(order);
+		DBPersistor persistor = new DBPersistor(dbEngine, view);
+		Criteria criteria = new Criteria();
+		criteria.add(new Condition(table.getField("GRP"), Operator.FIELD_GE, new Value(10)));
+		criteria.add(new Condition(table.getField("GRP"), Operator.FIELD_LT, new Value(30)));
+
+		int[] pageSizes = { 1, 3, 7, 50, 100, 499, 500, 1000 };
+		for (int pageSize : pageSizes) {
+			for (int pass = 0; pass < 2; pass++) {
+				List<String[]> expected = (pass == 0 ? rows : filtered);
+				String name = "Page size " + pageSize + (pass == 0 ? "" : " filtered");
+
+				// Forward.
+				PageRecordSet recordSet = getRecordSet(persistor, (pass == 0 ? null : criteria), pageSize);
+				check(name + " size", recordSet.size() == expected.size());
+				int mismatches = 0;
+				for (int i = 0; i < expected.size(); i++) {
+					mismatches += compare(recordSet.get(i), expected.get(i));
+				}
+				check(name + " forward, " + mismatches + " mismatches", mismatches == 0);
+
+				// Backward.
+				recordSet = getRecordSet(persistor, (pass == 0 ? null : criteria), pageSize);
+				mismatches = 0;
+				for (int i = expected.size() - 1; i >= 0; i--) {
+					mismatches += compare(recordSet.get(i), expected.get(i));
+				}
+				check(name + " backward, " + mismatches + " mismatches", mismatches == 0);
+
+				// Random.
+				recordSet = getRecordSet(persistor, (pass == 0 ? null : criteria), pageSize);
+				mismatches = 0;
+				for (int r = 0; r < 300; r++) {
+					int i = random.nextInt(expected.size());
+					mismatches += compare(recordSet.get(i), expected.get(i));
+				}
+				check(name + " random, " + mismatches + " mismatches", mismatches == 0);
+			}
+		}
+
+		// Nullable order fields are rejected.
+		Order nullableOrder = new Order();
+		nullableOrder.add(table.getField("AMOUNT"), true);
+		boolean rejected = false;
+		try {
+			getRecordSet(new DBPersistor(dbEngine, table.getSimpleView(nullableOrder)), null, 10);
+		} catch (IllegalArgumentException exc) {
+			rejected = true;
+		}
+		check("Nullable order field rejected", rejected);
+
+		dbEngine.getConnectionPool().close();
+		System.out.println(failures == 0 ? "OK" : "FAILED " + failures);
+		System.exit(failures == 0 ? 0 : 1);
+	}
+
+	static Field field(String name, Types type, int length) {
+		Field field = new Field();
+		field.setName(name);
+		field.setType(type);
+		if (length > 0) {
+			field.setLength(length);
+		}
+		return field;
+	}
+
+	/**
+	 * Returns a page record set with a cache of two pages, so that pages are read again.
+	 */
+	static PageRecordSet getRecordSet(DBPersistor persistor, Criteria criteria, int pageSize) {
+		PageRecordSet recordSet = new PageRecordSet(persistor.getView().getFieldList());
+		recordSet.setPersistor(persistor);
+		recordSet.setCriteria(criteria);
+		recordSet.setPageSize(pageSize);
+		recordSet.setCacheSize(2);
+		return recordSet;
+	}
+
+	/**
+	 * Returns 1 if the record is null or not the expected row.
+	 */
+	static int compare(Record record, String[] row) {
+		if (record == null
+			|| record.getValue(0).getInteger() != Integer.parseInt(row[0])
+			|| !record.getValue(1).getString().equals(row[1])
+			|| record.getValue(2).getInteger() != Integer.parseInt(row[2])) {
+			return 1;
+		}
+		return 0;
+	}
+
+	static void check(String name, boolean condition) {
+		if (!condition) {
+			failures++;
+		}
+		System.out.println((condition ? "ok     " : "FAILED ") + name);
+	}
+}
@@ -0,0 +1,93 @@
+package test.com.msasc.library.math;
+
+import java.util.Random;
+
+import com.qtplaf.library.math.ForwardExtremum;
+
+/**
+ * Checks the maximums and minimums of the forward windows returned by the forward extremum against a scan of the
+ * windows, for random series with repeated values, random backward moves and random periods.
+ */
+public class TestForwardExtremum {
+
+	static int failures = 0;
+
+	public static void main(String[] args) {
+		Random random = new Random(20170101);
+		int[] lengths = { 1, 2, 3, 10, 100, 5000 };
+		for (int length : lengths) {
+			for (int values : new int[] { 2, 10, 1000 }) {
+				double[] highs = new double[length];
+				double[] lows = new double[length];
+				for (int i = 0; i < length; i++) {
+					highs[i] = random.nextInt(values);
+					lows[i] = highs[i] - random.nextInt(values);
+				}
+				int mismatches = check(highs, lows, random);
+				check("Length " + length + ", " + values + " values, " + mismatches + " mismatches", mismatches == 0);
+			}
+		}
+
+		// Monotonic series, the worst case of the stacks.
+		double[] ascending = new double[2000];
+		double[] descending = new double[2000];
+		for (int i = 0; i < ascending.length; i++) {
+			ascending[i] = i;
+			descending[i] = -i;
+		}
+		int mismatches = check(ascending, descending, random) + check(descending, ascending, random);
+		check("Monotonic, " + mismatches + " mismatches", mismatches == 0);
+
+		// Moving forward is rejected.
+		ForwardExtremum extremum = new ForwardExtremum(ascending, descending);
+		extremum.moveTo(100);
+		boolean rejected = false;
+		try {
+			extremum.moveTo(101);
+		} catch (IllegalArgumentException exc) {
+			rejected = true;
+		}
+		check("Move forward rejected", rejected);
+
+		System.out.println(failures == 0 ? "OK" : "FAILED " + failures);
+		System.exit(failures == 0 ? 0 : 1);
+	}
+
+	/**
+	 * Moves backward in random steps and returns the number of windows whose maximum or minimum differ from a scan.
+	 */
+	static int check(double[] highs, double[] lows, Random random) {
+		int length = highs.length;
+		int mismatches = 0;
+		ForwardExtremum extremum = new ForwardExtremum(highs, lows);
+		int index = length - 1;
+		while (index >= 0) {
+			extremum.moveTo(index);
+			int maxPeriod = length - 1 - index;
+			for (int k = 0; k < Math.min(maxPeriod, 20); k++) {
+				int period = (k < 5 ? k + 1 : 1 + random.nextInt(maxPeriod));
+				if (period > maxPeriod) {
+					continue;
+				}
+				double maximum = Double.NEGATIVE_INFINITY;
+				double minimum = Double.POSITIVE_INFINITY;
+				for (int i = index + 1; i <= index + period; i++) {
+					maximum = Math.max(maximum, highs[i]);
+					minimum = Math.min(minimum, lows[i]);
+				}
+				if (extremum.getMaximum(period) != maximum || extremum.getMinimum(period) != minimum) {
+					mismatches++;
+				}
+			}
+			index -= 1 + random.nextInt(3);
+		}
+		return mismatches;
+	}
+
+	static void check(String name, boolean condition) {
+		if (!condition) {
+			failures++;
+		}
+		System.out.println((condition ? "ok     " : "FAILED ") + name);
+	}
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2015 Miquel Sas
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package test.com.msasc.library.trading;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Locale;
+import java.util.Random;
+
+import com.qtplaf.library.app.Session;
+import com.qtplaf.library.trading.chart.JChart;
+import com.qtplaf.library.trading.chart.JChartContainer;
+import com.qtplaf.library.trading.chart.JChartPlotter;
+import com.qtplaf.library.trading.chart.plotter.data.BufferedLinePlotter;
+import com.qtplaf.library.trading.chart.plotter.data.CandlestickPlotter;
+import com.qtplaf.library.trading.data.ColumnarDataList;
+import com.qtplaf.library.trading.data.Data;
+import com.qtplaf.library.trading.data.DataList;
+import com.qtplaf.library.trading.data.Instrument;
+import com.qtplaf.library.trading.data.Period;
+import com.qtplaf.library.trading.data.PlotData;
+import com.qtplaf.library.trading.data.info.PriceInfo;
+
+/**
+ * Headless benchmark of the chart plotter painting into an off-screen <tt>BufferedImage</tt>. A random walk of one
+ * minute prices is plotted as candlesticks plus a line of the close, with increasing numbers of visible bars, with
+ * plotters that plot every bar and with plotters that plot the level of detail pyramid buckets.
+ * <p>
+ * Arguments, all optional: number of bars (default 500000), image width (default 1600) and height (default 800), and
+ * rounds per measure (default 5).
+ * 
+ * @author Miquel Sas
+ */
+public class TestChartRendering {
+
+	/**
+	 * A candlestick plotter that does not support decimation, to plot every bar.
+	 */
+	static class CandlestickPlotterByIndex extends CandlestickPlotter {
+		@Override
+		public boolean isDecimationSupported() {
+			return false;
+		}
+	}
+
+	/**
+	 * A line plotter that does not support decimation, to plot every bar.
+	 */
+	static class LinePlotterByIndex extends BufferedLinePlotter {
+		@Override
+		public boolean isDecimationSupported() {
+			return false;
+		}
+	}
+
+	/**
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		System.setProperty("java.awt.headless", "true");
+
+		int bars = (args.length > 0 ? Integer.parseInt(args[0]) : 500000);
+		int width = (args.length > 1 ? Integer.parseInt(args[1]) : 1600);
+		int height = (args.length > 2 ? Integer.parseInt(args[2]) : 800);
+		int rounds = (args.length > 3 ? Integer.parseInt(args[3]) : 5);
+
+		Session session = new Session(Locale.UK);
+		PriceInfo info = new PriceInfo(session, new Instrument(), Period.OneMin);
+		ColumnarDataList prices = new ColumnarDataList(session, info, 5, bars);
+		Random random = new Random(0);
+		double close = 1.0;
+		for (int i = 0; i < bars; i++) {
+			double open = close;
+			close = open + random.nextGaussian() * 0.0005;
+			double high = Math.max(open, close) + Math.abs(random.nextGaussian()) * 0.0002;
+			double low = Math.min(open, close) - Math.abs(random.nextGaussian()) * 0.0002;
+			Data data = new Data(5);
+			data.setTime(i * 60000L);
+			data.setValue(0, open);
+			data.setValue(1, high);
+			data.setValue(2, low);
+			data.setValue(3, close);
+			data.setValue(4, random.nextInt(1000));
+			prices.add(data);
+		}
+
+		for (int visible = 1000; visible <= bars; visible *= 10) {
+			long byIndex = measure(session, prices, false, visible, width, height, rounds);
+			long decimated = measure(session, prices, true, visible, width, height, rounds);
+			StringBuilder b = new StringBuilder();
+			b.append("Visible bars ");
+			b.append(visible);
+			b.append(": by index ");
+			b.append(byIndex / 1000);
+			b.append(" us, decimated ");
+			b.append(decimated / 1000);
+			b.append(" us");
+			System.out.println(b.toString());
+		}
+		System.exit(0);
+	}
+
+	/**
+	 * Returns the average nanos to paint the chart plotter, after a warm up paint.
+	 * 
+	 * @param session The session.
+	 * @param prices The prices.
+	 * @param decimation A boolean that indicates if plotters support decimation.
+	 * @param visible The number of visible bars.
+	 * @param width The image width.
+	 * @param height The image height.
+	 * @param rounds The number of paints to measure.
+	 * @return The average nanos per paint.
+	 */
+	private static long measure(
+		Session session,
+		DataList prices,
+		boolean decimation,
+		int visible,
+		int width,
+		int height,
+		int rounds) {
+
+		prices.getDataPlotters().clear();
+		CandlestickPlotter candlestickPlotter = (decimation ? new CandlestickPlotter() : new CandlestickPlotterByIndex());
+		BufferedLinePlotter linePlotter = (decimation ? new BufferedLinePlotter() : new LinePlotterByIndex());
+		linePlotter.setIndex(3);
+		prices.addDataPlotter(candlestickPlotter);
+		prices.addDataPlotter(linePlotter);
+
+		PlotData plotData = new PlotData();
+		plotData.add(prices);
+		plotData.setInitialStartAndEndIndexes(visible);
+
+		JChart chart = new JChart(session);
+		JChartContainer chartContainer = new JChartContainer(chart);
+		chartContainer.setPlotData(plotData);
+		JChartPlotter chartPlotter = chartContainer.getChartPlotter();
+		chartPlotter.setSize(width, height);
+
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		long time = 0;
+		for (int round = 0; round <= rounds; round++) {
+			Graphics2D g2 = image.createGraphics();
+			g2.setClip(0, 0, width, height);
+			long start = System.nanoTime();
+			chartPlotter.paint(g2);
+			if (round > 0) {
+				time += System.nanoTime() - start;
+			}
+			g2.dispose();
+		}
+		return time / rounds;
+	}
+}
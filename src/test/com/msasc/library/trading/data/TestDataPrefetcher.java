@@ -0,0 +1,119 @@
+package test.com.msasc.library.trading.data;
+
+import com.qtplaf.library.database.Field;
+import com.qtplaf.library.database.Record;
+import com.qtplaf.library.database.RecordSet;
+import com.qtplaf.library.database.Table;
+import com.qtplaf.library.database.Types;
+import com.qtplaf.library.database.rdbms.DBEngine;
+import com.qtplaf.library.database.rdbms.DBPersistor;
+import com.qtplaf.library.database.rdbms.DataSourceInfo;
+import com.qtplaf.library.database.rdbms.adapters.DerbyAdapterEmbedded;
+import com.qtplaf.library.trading.data.DataPersistor;
+import com.qtplaf.library.trading.data.DataPrefetcher;
+
+/**
+ * Checks the read-ahead of pages on an in-memory embedded Derby table with gaps in the indexes. Pages without records
+ * must be returned empty without restarting the worker, pages beyond the end of data null, and only the pages the
+ * consumer waited for must count as stalls.
+ */
+public class TestDataPrefetcher {
+
+	static final int PAGE_SIZE = 50;
+	static final int PAGES = 20;
+
+	static int failures = 0;
+
+	public static void main(String[] args) throws Exception {
+		DataSourceInfo info = new DataSourceInfo();
+		info.setDatabase("memory:prefetcher");
+		DBEngine dbEngine = new DBEngine(new DerbyAdapterEmbedded(), info);
+
+		Table table = new Table();
+		table.setName("PREFETCH");
+		table.addField(field("INDEX", Types.Long));
+		table.addField(field("TIME", Types.Long));
+		table.addField(field("PRICE", Types.Double));
+		table.getField("TIME").setPrimaryKey(true);
+		dbEngine.executeBuildTable(table);
+		table.setPersistor(new DBPersistor(dbEngine, table.getSimpleView()));
+
+		// Pages 2 to 5 and 10 are empty, page 19 is partial.
+		int[] expected = new int[PAGES];
+		for (int index = 0; index < PAGE_SIZE * PAGES - 20; index++) {
+			int page = index / PAGE_SIZE;
+			if ((page >= 2 && page <= 5) || page == 10) {
+				continue;
+			}
+			Record record = table.getDefaultRecord();
+			record.setValue(0, (long) index);
+			record.setValue(1, 1000L * index);
+			record.setValue(2, 1.0 + index);
+			table.getPersistor().insert(record);
+			expected[page]++;
+		}
+
+		DataPersistor persistor = new DataPersistor(table.getPersistor());
+		DataPrefetcher prefetcher = new DataPrefetcher(persistor, PAGE_SIZE, 4);
+
+		// Forward.
+		int mismatches = 0;
+		for (int page = 0; page < PAGES; page++) {
+			mismatches += checkPage(prefetcher.getPage(page * PAGE_SIZE, true), page, expected[page]);
+		}
+		check("Forward pages, " + mismatches + " mismatches", mismatches == 0);
+		check("Forward restarts " + prefetcher.getRestarts(), prefetcher.getRestarts() == 0);
+		check("Forward hits and stalls " + prefetcher, prefetcher.getHits() + prefetcher.getStalls() == PAGES);
+
+		// Beyond the end of data, once the worker has finished.
+		long stalls = prefetcher.getStalls();
+		RecordSet beyond = prefetcher.getPage(PAGES * PAGE_SIZE, true);
+		check("Beyond end is null", beyond == null);
+		check("Beyond end without waiting is not a stall", prefetcher.getStalls() == stalls);
+
+		// Backward, one restart for the change of direction.
+		mismatches = 0;
+		for (int page = PAGES - 1; page >= 0; page--) {
+			mismatches += checkPage(prefetcher.getPage(page * PAGE_SIZE + PAGE_SIZE - 1, false), page, expected[page]);
+		}
+		check("Backward pages, " + mismatches + " mismatches", mismatches == 0);
+		check("Backward restarts " + prefetcher.getRestarts(), prefetcher.getRestarts() == 1);
+		System.out.println(prefetcher);
+
+		prefetcher.stop();
+		dbEngine.getConnectionPool().close();
+		System.out.println(failures == 0 ? "OK" : "FAILED " + failures);
+		System.exit(failures == 0 ? 0 : 1);
+	}
+
+	static Field field(String name, Types type) {
+		Field field = new Field();
+		field.setName(name);
+		field.setType(type);
+		return field;
+	}
+
+	/**
+	 * Returns 1 if the page is null, has not the expected size or contains an index of another page.
+	 */
+	static int checkPage(RecordSet recordSet, int page, int size) {
+		if (recordSet == null || recordSet.size() != size) {
+			System.out.println("  page " + page + ": " + (recordSet == null ? "null" : recordSet.size()) + " <> " + size);
+			return 1;
+		}
+		for (int i = 0; i < recordSet.size(); i++) {
+			if (recordSet.get(i).getValue(0).getLong() / PAGE_SIZE != page) {
+				System.out.println("  page " + page + ": index " + recordSet.get(i).getValue(0));
+				return 1;
+			}
+		}
+		return 0;
+	}
+
+	static void check(String name, boolean condition) {
+		if (!condition) {
+			failures++;
+		}
+		System.out.println((condition ? "ok     " : "FAILED ") + name);
+	}
+}
@@ -0,0 +1,96 @@
+package test.com.msasc.library.trading.data;
+
+import java.util.Random;
+
+import com.qtplaf.library.app.Session;
+import com.qtplaf.library.trading.chart.plotter.data.BufferedLinePlotter;
+import com.qtplaf.library.trading.data.ColumnarDataList;
+import com.qtplaf.library.trading.data.Data;
+import com.qtplaf.library.trading.data.DataList;
+import com.qtplaf.library.trading.data.Instrument;
+import com.qtplaf.library.trading.data.Period;
+import com.qtplaf.library.trading.data.PlotIndex;
+import com.qtplaf.library.trading.data.info.PriceInfo;
+
+/**
+ * Checks the minimum and maximum of random ranges returned by the plot index against a scan of the data, while data is
+ * appended, and the plotted indexes and the data plotters change.
+ */
+public class TestPlotIndex {
+
+	static int failures = 0;
+
+	public static void main(String[] args) {
+		Session session = new Session();
+		Instrument instrument = new Instrument();
+		instrument.setId("EURUSD");
+		instrument.setPipScale(4);
+		instrument.setTickScale(5);
+		DataList dataList = new ColumnarDataList(session, new PriceInfo(session, instrument, Period.OneMin), 5);
+		Random random = new Random(20170101);
+		for (int i = 0; i < 1000; i++) {
+			dataList.add(new Data(i * 60000L, random.nextDouble(), 2 + random.nextDouble(), -random.nextDouble(), 1, 1));
+		}
+		BufferedLinePlotter plotter = new BufferedLinePlotter();
+		plotter.setIndex(0);
+		dataList.addDataPlotter(plotter);
+		PlotIndex plotIndex = new PlotIndex(dataList);
+
+		check("Index 0", checkRanges(plotIndex, dataList, random));
+		plotter.setIndex(1);
+		check("Index changed to 1", checkRanges(plotIndex, dataList, random));
+		plotter.setIndexes(new int[] { 2 });
+		check("Indexes changed to 2", checkRanges(plotIndex, dataList, random));
+		plotter.getIndexes()[0] = 1;
+		check("Indexes array changed to 1", checkRanges(plotIndex, dataList, random));
+		BufferedLinePlotter other = new BufferedLinePlotter();
+		other.setIndex(2);
+		dataList.getDataPlotters().set(0, other);
+		check("Plotter replaced", checkRanges(plotIndex, dataList, random));
+		dataList.addDataPlotter(plotter);
+		check("Plotter added", checkRanges(plotIndex, dataList, random));
+		for (int i = 0; i < 300; i++) {
+			dataList.add(new Data((1000 + i) * 60000L, 5, 5 + random.nextDouble(), -5, 1, 1));
+		}
+		check("Data appended", checkRanges(plotIndex, dataList, random));
+
+		System.out.println(failures == 0 ? "OK" : "FAILED " + failures);
+		System.exit(failures == 0 ? 0 : 1);
+	}
+
+	/**
+	 * Returns a boolean indicating whether the plot index returns the minimum and maximum of a scan for random ranges.
+	 */
+	static boolean checkRanges(PlotIndex plotIndex, DataList dataList, Random random) {
+		for (int r = 0; r < 200; r++) {
+			int start = random.nextInt(dataList.size());
+			int end = start + random.nextInt(dataList.size() - start);
+			double[] minMax = new double[] { Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY };
+			plotIndex.calculate(start, end, minMax);
+			double min = Double.POSITIVE_INFINITY;
+			double max = Double.NEGATIVE_INFINITY;
+			for (int i = start; i <= end; i++) {
+				Data data = dataList.get(i);
+				for (int p = 0; p < dataList.getDataPlotters().size(); p++) {
+					for (int index : dataList.getDataPlotters().get(p).getIndexes(data)) {
+						min = Math.min(min, data.getValue(index));
+						max = Math.max(max, data.getValue(index));
+					}
+				}
+			}
+			if (minMax[0] != min || minMax[1] != max) {
+				System.out.println("  range " + start + "-" + end + ": " + minMax[0] + " " + minMax[1] + " <> " + min
+					+ " " + max);
+				return false;
+			}
+		}
+		return true;
+	}
+
+	static void check(String name, boolean condition) {
+		if (!condition) {
+			failures++;
+		}
+		System.out.println((condition ? "ok     " : "FAILED ") + name);
+	}
+}
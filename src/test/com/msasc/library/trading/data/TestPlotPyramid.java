@@ -0,0 +1,136 @@
+package test.com.msasc.library.trading.data;
+
+import java.util.List;
+import java.util.Random;
+
+import com.qtplaf.library.app.Session;
+import com.qtplaf.library.trading.data.ColumnarDataList;
+import com.qtplaf.library.trading.data.Data;
+import com.qtplaf.library.trading.data.DataList;
+import com.qtplaf.library.trading.data.DelegateDataList;
+import com.qtplaf.library.trading.data.Instrument;
+import com.qtplaf.library.trading.data.Period;
+import com.qtplaf.library.trading.data.PlotPyramid;
+import com.qtplaf.library.trading.data.info.PriceInfo;
+
+/**
+ * Checks the buckets of the level of detail pyramid against an aggregation of the data for random levels and ranges,
+ * while data is appended, and that a range only reads the data of the buckets it contains.
+ */
+public class TestPlotPyramid {
+
+	/**
+	 * Data list that counts the data retrieved.
+	 */
+	static class CountingDataList extends DelegateDataList {
+		int reads = 0;
+
+		CountingDataList(Session session, DataList dataList) {
+			super(session, dataList.getDataInfo(), dataList);
+		}
+
+		@Override
+		public Data get(int index) {
+			reads++;
+			return super.get(index);
+		}
+	}
+
+	static final int[] INDEXES = { Data.IndexOpen, Data.IndexHigh, Data.IndexLow, Data.IndexClose };
+
+	static int failures = 0;
+	static Random random = new Random(20170101);
+	static double close = 1.1;
+
+	public static void main(String[] args) {
+		Session session = new Session();
+		Instrument instrument = new Instrument();
+		instrument.setId("EURUSD");
+		instrument.setPipScale(4);
+		instrument.setTickScale(5);
+		DataList prices = new ColumnarDataList(session, new PriceInfo(session, instrument, Period.OneMin), 5);
+		append(prices, 100000);
+		CountingDataList dataList = new CountingDataList(session, prices);
+		PlotPyramid pyramid = new PlotPyramid(dataList, INDEXES);
+
+		// A first range at the end of the data reads only the buckets of the range.
+		pyramid.getBuckets(6, 90000, 90999);
+		check("First range reads " + dataList.reads, dataList.reads <= 1000 + 128);
+		dataList.reads = 0;
+		pyramid.getBuckets(9, 50000, 59999);
+		check("Higher level range reads " + dataList.reads, dataList.reads <= 10000 + 1024);
+		dataList.reads = 0;
+		pyramid.getBuckets(6, 90000, 90999);
+		check("Cached range reads " + dataList.reads, dataList.reads == 0);
+
+		check("Random ranges", checkRanges(pyramid, dataList));
+		append(prices, 5000);
+		check("Random ranges after append", checkRanges(pyramid, dataList));
+		pyramid.clear();
+		check("Random ranges after clear", checkRanges(pyramid, dataList));
+
+		System.out.println(failures == 0 ? "OK" : "FAILED " + failures);
+		System.exit(failures == 0 ? 0 : 1);
+	}
+
+	/**
+	 * Append random walk prices.
+	 */
+	static void append(DataList prices, int count) {
+		long time = prices.size() * Period.OneMin.getTime();
+		for (int i = 0; i < count; i++) {
+			double open = close;
+			close = Math.max(0.5, close + random.nextGaussian() * 0.001);
+			double high = Math.max(open, close) + random.nextDouble() * 0.0005;
+			double low = Math.min(open, close) - random.nextDouble() * 0.0005;
+			prices.add(new Data(time, open, high, low, close, 1));
+			time += Period.OneMin.getTime();
+		}
+	}
+
+	/**
+	 * Returns a boolean indicating whether the buckets of random levels and ranges are those aggregated from the data.
+	 */
+	static boolean checkRanges(PlotPyramid pyramid, DataList dataList) {
+		int size = dataList.size();
+		for (int r = 0; r < 200; r++) {
+			int level = 1 + random.nextInt(12);
+			int start = random.nextInt(size);
+			int end = Math.min(size - 1, start + random.nextInt(20 << level));
+			List<PlotPyramid.Bucket> buckets = pyramid.getBuckets(level, start, end);
+			int bucketSize = 1 << level;
+			int expected = (end >> level) - (start >> level) + 1;
+			if (buckets.size() != expected) {
+				System.out.println("  level " + level + " " + start + "-" + end + ": " + buckets.size() + " buckets");
+				return false;
+			}
+			for (PlotPyramid.Bucket bucket : buckets) {
+				int from = bucket.getIndex();
+				int to = Math.min(size - 1, from + bucketSize - 1);
+				double minimum = Double.POSITIVE_INFINITY;
+				double maximum = Double.NEGATIVE_INFINITY;
+				for (int i = from; i <= to; i++) {
+					minimum = Math.min(minimum, dataList.get(i).getValue(Data.IndexLow));
+					maximum = Math.max(maximum, dataList.get(i).getValue(Data.IndexHigh));
+				}
+				double first = dataList.get(from).getValue(Data.IndexOpen);
+				double last = dataList.get(to).getValue(Data.IndexClose);
+				if (bucket.getFirst() != first
+					|| bucket.getLast() != last
+					|| bucket.getMinimum() != minimum
+					|| bucket.getMaximum() != maximum) {
+					System.out.println("  level " + level + " bucket " + from + ": not equal");
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	static void check(String name, boolean condition) {
+		if (!condition) {
+			failures++;
+		}
+		System.out.println((condition ? "ok     " : "FAILED ") + name);
+	}
+}
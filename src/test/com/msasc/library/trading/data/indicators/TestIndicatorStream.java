@@ -0,0 +1,184 @@
+package test.com.msasc.library.trading.data.indicators;
+
+import java.util.List;
+import java.util.Random;
+
+import com.qtplaf.library.app.Session;
+import com.qtplaf.library.trading.data.ColumnarDataList;
+import com.qtplaf.library.trading.data.Data;
+import com.qtplaf.library.trading.data.DataList;
+import com.qtplaf.library.trading.data.IndicatorDataList;
+import com.qtplaf.library.trading.data.IndicatorSource;
+import com.qtplaf.library.trading.data.Instrument;
+import com.qtplaf.library.trading.data.Period;
+import com.qtplaf.library.trading.data.indicators.ExponentialMovingAverage;
+import com.qtplaf.library.trading.data.indicators.PeriodIndicator;
+import com.qtplaf.library.trading.data.indicators.SimpleMovingAverage;
+import com.qtplaf.library.trading.data.indicators.WeightedMovingAverage;
+import com.qtplaf.library.trading.data.info.PriceInfo;
+import com.qtplaf.library.util.list.ListUtils;
+
+/**
+ * Checks that the SMA, EMA and WMA calculated through the indicator streams, requesting the indexes in ascending order,
+ * are equal for every bar, including the warm-up bars, to those calculated by <tt>PeriodIndicator.getSMA</tt>,
+ * <tt>getEMA</tt> and <tt>getWMA</tt>, alone and chained, and that random access still calculates the same values.
+ */
+public class TestIndicatorStream {
+
+	static final int SIZE = 600;
+	static final double EPSILON = 1e-9;
+
+	static final int SMA = 0;
+	static final int EMA = 1;
+	static final int WMA = 2;
+	static final String[] NAMES = { "SMA", "EMA", "WMA" };
+
+	static int failures = 0;
+	static Session session;
+	static PriceInfo priceInfo;
+
+	public static void main(String[] args) {
+		session = new Session();
+		Instrument instrument = new Instrument();
+		instrument.setId("EURUSD");
+		instrument.setPipScale(4);
+		instrument.setTickScale(5);
+		priceInfo = new PriceInfo(session, instrument, Period.OneMin);
+
+		// Random walk of prices.
+		DataList prices = new ColumnarDataList(session, priceInfo, 5, SIZE);
+		Random random = new Random(20170101);
+		long time = 1483228800000L;
+		double close = 1.1;
+		for (int i = 0; i < SIZE; i++) {
+			double open = close;
+			close = Math.max(0.5, close + random.nextGaussian() * 0.001);
+			double high = Math.max(open, close) + random.nextDouble() * 0.0005;
+			double low = Math.min(open, close) - random.nextDouble() * 0.0005;
+			prices.add(new Data(time, open, high, low, close, 1 + random.nextInt(100)));
+			time += Period.OneMin.getTime();
+		}
+
+		// Each average alone, with periods shorter, equal and longer than the warm-up.
+		int[] periods = { 1, 2, 5, 20, 100 };
+		for (int kind = SMA; kind <= WMA; kind++) {
+			for (int period : periods) {
+				IndicatorDataList streamed = getList(kind, period, prices, Data.IndexClose);
+				DataList expected = getReference(kind, streamed, prices, Data.IndexClose);
+				int mismatches = 0;
+				for (int index = 0; index < SIZE; index++) {
+					mismatches += compare(streamed.get(index), expected.get(index));
+				}
+				check(NAMES[kind] + "(" + period + ") streamed, " + mismatches + " mismatches", mismatches == 0);
+
+				// Already calculated indexes are returned from the cache without restarting the stream.
+				Data first = streamed.get(0);
+				Data last = streamed.get(SIZE - 1);
+				check(NAMES[kind] + "(" + period + ") cached", first == streamed.get(0) && last == streamed.get(SIZE - 1));
+
+				// Random access, last index first.
+				IndicatorDataList randomAccess = getList(kind, period, prices, Data.IndexClose);
+				mismatches = compare(randomAccess.get(SIZE - 1), expected.get(SIZE - 1));
+				for (int index = 0; index < SIZE; index++) {
+					mismatches += compare(randomAccess.get(index), expected.get(index));
+				}
+				check(NAMES[kind] + "(" + period + ") random access, " + mismatches + " mismatches", mismatches == 0);
+			}
+		}
+
+		// A chain SMA(5) -> WMA(4) -> EMA(6) requesting only the last list.
+		{
+			IndicatorDataList sma = getList(SMA, 5, prices, Data.IndexClose);
+			IndicatorDataList wma = getList(WMA, 4, sma, 0);
+			IndicatorDataList ema = getList(EMA, 6, wma, 0);
+			DataList smaExpected = getReference(SMA, sma, prices, Data.IndexClose);
+			DataList wmaExpected = getReference(WMA, wma, smaExpected, 0);
+			DataList emaExpected = getReference(EMA, ema, wmaExpected, 0);
+			int mismatches = 0;
+			for (int index = 0; index < SIZE; index++) {
+				mismatches += compare(ema.get(index), emaExpected.get(index));
+			}
+			for (int index = 0; index < SIZE; index++) {
+				mismatches += compare(sma.get(index), smaExpected.get(index));
+				mismatches += compare(wma.get(index), wmaExpected.get(index));
+			}
+			check("Chain SMA(5) WMA(4) EMA(6), " + mismatches + " mismatches", mismatches == 0);
+		}
+
+		// A chain of smoothed SMA calculated in the order of precedence.
+		{
+			IndicatorDataList sma = getList(SMA, 10, prices, Data.IndexClose);
+			IndicatorDataList smooth1 = getList(SMA, 3, sma, 0);
+			IndicatorDataList smooth2 = getList(SMA, 3, smooth1, 0);
+			DataList smaExpected = getReference(SMA, sma, prices, Data.IndexClose);
+			DataList smooth1Expected = getReference(SMA, smooth1, smaExpected, 0);
+			DataList smooth2Expected = getReference(SMA, smooth2, smooth1Expected, 0);
+			int mismatches = 0;
+			for (int index = 0; index < SIZE; index++) {
+				sma.get(index);
+				smooth1.get(index);
+				mismatches += compare(smooth2.get(index), smooth2Expected.get(index));
+			}
+			check("Chain SMA(10) SMA(3) SMA(3), " + mismatches + " mismatches", mismatches == 0);
+		}
+
+		System.out.println(failures == 0 ? "OK" : "FAILED " + failures);
+		System.exit(failures == 0 ? 0 : 1);
+	}
+
+	/**
+	 * Returns an indicator data list of the average on the index of the source list.
+	 */
+	static IndicatorDataList getList(int kind, int period, DataList source, int index) {
+		PeriodIndicator indicator;
+		if (kind == SMA) {
+			indicator = new SimpleMovingAverage(session);
+		} else if (kind == EMA) {
+			indicator = new ExponentialMovingAverage(session);
+		} else {
+			indicator = new WeightedMovingAverage(session);
+		}
+		indicator.getIndicatorInfo().getParameter(PeriodIndicator.ParamPeriodIndex).getValue().setInteger(period);
+		List<IndicatorSource> sources = ListUtils.asList(new IndicatorSource(source, index));
+		return new IndicatorDataList(session, indicator, sources);
+	}
+
+	/**
+	 * Returns the reference values of the average of the indicator data list, calculated with the static methods on
+	 * the index of the source list, that may be another reference list.
+	 */
+	static DataList getReference(int kind, IndicatorDataList list, DataList source, int index) {
+		PeriodIndicator indicator = (PeriodIndicator) list.getIndicator();
+		List<IndicatorSource> sources = ListUtils.asList(new IndicatorSource(source, index));
+		DataList reference = new ColumnarDataList(session, priceInfo, 1, SIZE);
+		for (int i = 0; i < SIZE; i++) {
+			if (kind == SMA) {
+				reference.add(PeriodIndicator.getSMA(indicator, i, sources, reference));
+			} else if (kind == EMA) {
+				reference.add(PeriodIndicator.getEMA(indicator, i, sources, reference));
+			} else {
+				reference.add(PeriodIndicator.getWMA(indicator, i, sources, reference));
+			}
+		}
+		return reference;
+	}
+
+	/**
+	 * Returns 1 if the time or the first value differ.
+	 */
+	static int compare(Data data, Data expected) {
+		double value = data.getValue(0);
+		double expectedValue = expected.getValue(0);
+		if (data.getTime() != expected.getTime() || Math.abs(value - expectedValue) > EPSILON * Math.abs(expectedValue)) {
+			return 1;
+		}
+		return 0;
+	}
+
+	static void check(String name, boolean condition) {
+		if (!condition) {
+			failures++;
+		}
+		System.out.println((condition ? "ok     " : "FAILED ") + name);
+	}
+}
@@ -0,0 +1,136 @@
+package test.com.msasc.library.trading.pattern.candle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.qtplaf.library.trading.data.ColumnarDataList;
+import com.qtplaf.library.trading.data.Data;
+import com.qtplaf.library.trading.data.Instrument;
+import com.qtplaf.library.trading.data.Period;
+import com.qtplaf.library.trading.data.info.PriceInfo;
+import com.qtplaf.library.trading.pattern.candle.CandlePattern;
+import com.qtplaf.library.trading.pattern.candle.CandleScanner;
+import com.qtplaf.library.trading.pattern.candle.CandleScanner.Match;
+
+/**
+ * Checks and benchmarks the candle scanner over a random walk of prices. The reference is the per pattern loop, each
+ * pattern checked at each index of the data list with <tt>isPattern(DataList, int)</tt>, that calculates the candle
+ * features of the look backward window of the pattern at each call. The scanner, sequential and in parallel, must
+ * return the same (index, pattern) matches in the same order.
+ * <p>
+ * The per pattern loop here is not the baseline of the scanner. Before the features were introduced each pattern read
+ * the data and derived only the factors it needed, which is faster than building the features at each call. The
+ * scanner must be compared with that loop measured on the code before the change.
+ * <p>
+ * Arguments, all optional: number of bars (default 200000), parallelism (default the number of processors) and rounds
+ * (default 3).
+ */
+public class TestCandleScanner {
+
+	static int failures = 0;
+
+	public static void main(String[] args) {
+
+		int bars = (args.length > 0 ? Integer.parseInt(args[0]) : 200000);
+		int parallelism = (args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors());
+		int rounds = (args.length > 2 ? Integer.parseInt(args[2]) : 3);
+
+		// Random walk prices and their range average and standard deviation.
+		ColumnarDataList prices = new ColumnarDataList(null, new PriceInfo(null, new Instrument(), Period.OneMin), 4);
+		Random random = new Random(0);
+		double close = 1.0;
+		double sum = 0;
+		double sumSquares = 0;
+		for (int i = 0; i < bars; i++) {
+			double open = close;
+			close = open + random.nextGaussian() * 0.0005;
+			double high = Math.max(open, close) + Math.abs(random.nextGaussian()) * 0.0003;
+			double low = Math.min(open, close) - Math.abs(random.nextGaussian()) * 0.0003;
+			Data data = new Data(4);
+			data.setValue(0, open);
+			data.setValue(1, high);
+			data.setValue(2, low);
+			data.setValue(3, close);
+			prices.add(data);
+			sum += high - low;
+			sumSquares += (high - low) * (high - low);
+		}
+		double rangeAverage = sum / bars;
+		double rangeStdDev = Math.sqrt(sumSquares / bars - rangeAverage * rangeAverage);
+
+		List<CandlePattern> patterns = CandleScanner.getAllPatterns();
+		CandleScanner scanner = new CandleScanner(patterns);
+		scanner.setRange(rangeAverage, rangeStdDev);
+		System.out.println("Patterns: " + patterns.size() + ", bars: " + bars + ", parallelism: " + parallelism);
+
+		for (int round = 0; round < rounds; round++) {
+
+			// Each pattern at each index.
+			long time = System.nanoTime();
+			List<Match> reference = new ArrayList<>();
+			for (int index = 0; index < bars; index++) {
+				for (CandlePattern pattern : patterns) {
+					if (pattern.isPattern(prices, index)) {
+						reference.add(new Match(index, pattern));
+					}
+				}
+			}
+			print("Per pattern", round, bars, reference.size(), System.nanoTime() - time);
+
+			// Scanner sequential.
+			scanner.setParallelism(1);
+			time = System.nanoTime();
+			List<Match> matches = scanner.scan(prices, 0, bars - 1);
+			print("Scanner", round, bars, matches.size(), System.nanoTime() - time);
+			compare("Scanner", round, reference, matches);
+
+			// Scanner parallel.
+			scanner.setParallelism(parallelism);
+			time = System.nanoTime();
+			matches = scanner.scan(prices, 0, bars - 1);
+			print("Scanner parallel", round, bars, matches.size(), System.nanoTime() - time);
+			compare("Scanner parallel", round, reference, matches);
+		}
+
+		System.out.println(failures == 0 ? "OK" : "FAILED " + failures);
+		System.exit(failures == 0 ? 0 : 1);
+	}
+
+	/**
+	 * Compares the matches with the reference element by element, index and pattern.
+	 */
+	private static void compare(String method, int round, List<Match> reference, List<Match> matches) {
+		int mismatches = Math.abs(reference.size() - matches.size());
+		for (int i = 0; i < Math.min(reference.size(), matches.size()); i++) {
+			Match expected = reference.get(i);
+			Match actual = matches.get(i);
+			if (expected.getIndex() != actual.getIndex() || expected.getPattern() != actual.getPattern()) {
+				if (mismatches++ < 5) {
+					System.out.println("  " + i + ": " + toString(expected) + " <> " + toString(actual));
+				}
+			}
+		}
+		if (mismatches > 0) {
+			failures++;
+		}
+		System.out.println((mismatches == 0 ? "ok     " : "FAILED ") + method + " round " + round + " matches");
+	}
+
+	private static String toString(Match match) {
+		return match.getIndex() + " " + match.getPattern().getClass().getSimpleName();
+	}
+
+	private static void print(String method, int round, int bars, int matches, long nanos) {
+		StringBuilder b = new StringBuilder();
+		b.append(method);
+		b.append(" round ");
+		b.append(round);
+		b.append(": ");
+		b.append(Math.round(bars / (nanos / 1e9)));
+		b.append(" bars/s, ");
+		b.append(matches);
+		b.append(" matches");
+		System.out.println(b.toString());
+	}
+}
@@ -0,0 +1,172 @@
+package test.com.msasc.library.trading.server.feed;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.qtplaf.library.trading.data.Data;
+import com.qtplaf.library.trading.data.Instrument;
+import com.qtplaf.library.trading.data.Period;
+import com.qtplaf.library.trading.data.Tick;
+import com.qtplaf.library.trading.server.OfferSide;
+import com.qtplaf.library.trading.server.feed.DataEvent;
+import com.qtplaf.library.trading.server.feed.DataSubscription;
+import com.qtplaf.library.trading.server.feed.FeedDispatcher;
+import com.qtplaf.library.trading.server.feed.FeedListenerAdapter;
+import com.qtplaf.library.trading.server.feed.TickEvent;
+import com.qtplaf.library.trading.server.feed.TickSubscription;
+
+/**
+ * Throughput and latency benchmark of the feed dispatcher, with synthetic producers that play the role of the
+ * Dukascopy strategy listener. The tick time and data time carry the publish nano time to measure latency.
+ * <p>
+ * Arguments: producers, instruments, listeners per instrument, events per producer and events per second per
+ * producer, zero (the default) to publish as fast as possible and measure saturated throughput, and whether to
+ * conflate ticks, in which case listeners receive only the latest tick of each instrument when they fall behind.
+ */
+public class TestFeedDispatcher {
+
+	/**
+	 * Listener that records the latency of each event received.
+	 */
+	static class LatencyListener extends FeedListenerAdapter {
+		long[] latencies;
+		int count;
+
+		LatencyListener(int capacity) {
+			latencies = new long[capacity];
+		}
+
+		void record(long publishTime) {
+			if (count < latencies.length) {
+				latencies[count] = System.nanoTime() - publishTime;
+			}
+			count++;
+		}
+
+		@Override
+		public void onTick(TickEvent tickEvent) {
+			record(tickEvent.getTick().getTime());
+		}
+
+		@Override
+		public void onData(DataEvent dataEvent) {
+			record(dataEvent.getData().getTime());
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		int producers = (args.length > 0 ? Integer.parseInt(args[0]) : 2);
+		int instruments = (args.length > 1 ? Integer.parseInt(args[1]) : 20);
+		int listenersPerInstrument = (args.length > 2 ? Integer.parseInt(args[2]) : 2);
+		int eventsPerProducer = (args.length > 3 ? Integer.parseInt(args[3]) : 1000000);
+		int rate = (args.length > 4 ? Integer.parseInt(args[4]) : 0);
+		long interval = (rate > 0 ? 1000000000L / rate : 0);
+		boolean conflation = (args.length > 5 ? Boolean.parseBoolean(args[5]) : false);
+
+		Instrument[] instrumentArray = new Instrument[instruments];
+		for (int i = 0; i < instruments; i++) {
+			instrumentArray[i] = new Instrument();
+			instrumentArray[i].setId("INS" + i);
+		}
+		Period period = Period.OneMin;
+
+		// Listeners subscribed to ticks and bid data of one instrument each.
+		FeedDispatcher dispatcher = new FeedDispatcher();
+		dispatcher.setConflation(conflation);
+		List<LatencyListener> listeners = new ArrayList<>();
+		int expected = (producers * eventsPerProducer / instruments) * listenersPerInstrument;
+		for (int i = 0; i < instruments; i++) {
+			for (int j = 0; j < listenersPerInstrument; j++) {
+				LatencyListener listener = new LatencyListener(expected + 1);
+				listener.addTickSubscription(new TickSubscription(instrumentArray[i]));
+				listener.addDataSubscription(new DataSubscription(instrumentArray[i], period, OfferSide.Bid));
+				dispatcher.addFeedListener(listener);
+				listeners.add(listener);
+			}
+		}
+		Thread dispatcherThread = new Thread(dispatcher, "Feed dispatcher");
+		dispatcherThread.start();
+
+		// Synthetic producers, nine ticks per completed bar.
+		Thread[] threads = new Thread[producers];
+		for (int p = 0; p < producers; p++) {
+			final int seed = p;
+			threads[p] = new Thread(() -> {
+				long next = System.nanoTime();
+				for (int e = 0; e < eventsPerProducer; e++) {
+					if (interval > 0) {
+						next += interval;
+						while (System.nanoTime() < next) {
+							Thread.yield();
+						}
+					}
+					Instrument instrument = instrumentArray[(e + seed) % instruments];
+					if (e % 10 == 9) {
+						dispatcher.addData(instrument, period, OfferSide.Bid, new Data(System.nanoTime(), 1, 1, 1, 1, 1));
+					} else {
+						Tick tick = new Tick();
+						tick.setTime(System.nanoTime());
+						dispatcher.addTick(instrument, tick);
+					}
+				}
+			}, "Producer " + p);
+		}
+		long start = System.nanoTime();
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		long total = (long) producers * eventsPerProducer;
+		while (dispatcher.getPendingEvents() > 0) {
+			Thread.sleep(1);
+		}
+		long elapsed = System.nanoTime() - start;
+		dispatcher.stop();
+		dispatcherThread.join();
+
+		// Merge latencies.
+		int size = 0;
+		for (LatencyListener listener : listeners) {
+			size += Math.min(listener.count, listener.latencies.length);
+		}
+		long[] latencies = new long[size];
+		int index = 0;
+		for (LatencyListener listener : listeners) {
+			int count = Math.min(listener.count, listener.latencies.length);
+			System.arraycopy(listener.latencies, 0, latencies, index, count);
+			index += count;
+		}
+		Arrays.sort(latencies);
+
+		System.out.println("Events published:  " + total);
+		System.out.println("Events delivered:  " + size);
+		System.out.println("Elapsed ms:        " + (elapsed / 1000000));
+		System.out.println("Events/s:          " + (total * 1000000000L / elapsed));
+		System.out.println("Full buffer waits: " + dispatcher.getFullWaits());
+		System.out.println("Latency p50 us:    " + percentile(latencies, 0.50) / 1000);
+		System.out.println("Latency p99 us:    " + percentile(latencies, 0.99) / 1000);
+		System.out.println("Latency p99.9 us:  " + percentile(latencies, 0.999) / 1000);
+		System.out.println("Latency max us:    " + percentile(latencies, 1.0) / 1000);
+		if (conflation) {
+			long conflated = 0;
+			long maxLag = 0;
+			for (LatencyListener listener : listeners) {
+				conflated += dispatcher.getConflatedEvents(listener);
+				maxLag = Math.max(maxLag, dispatcher.getMaxLag(listener));
+			}
+			System.out.println("Updates conflated: " + conflated);
+			System.out.println("Max lag us:        " + maxLag / 1000);
+		}
+	}
+
+	private static long percentile(long[] sorted, double percentile) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		int index = (int) Math.ceil(percentile * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+	}
+}
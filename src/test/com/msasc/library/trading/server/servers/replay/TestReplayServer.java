@@ -0,0 +1,290 @@
+package test.com.msasc.library.trading.server.servers.replay;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.qtplaf.library.app.Session;
+import com.qtplaf.library.trading.data.ColumnarDataList;
+import com.qtplaf.library.trading.data.Data;
+import com.qtplaf.library.trading.data.DataList;
+import com.qtplaf.library.trading.data.Instrument;
+import com.qtplaf.library.trading.data.Period;
+import com.qtplaf.library.trading.data.info.PriceInfo;
+import com.qtplaf.library.trading.server.OfferSide;
+import com.qtplaf.library.trading.server.Order;
+import com.qtplaf.library.trading.server.OrderCommand;
+import com.qtplaf.library.trading.server.OrderManager;
+import com.qtplaf.library.trading.server.ServerException;
+import com.qtplaf.library.trading.server.feed.DataEvent;
+import com.qtplaf.library.trading.server.feed.DataSubscription;
+import com.qtplaf.library.trading.server.feed.FeedListenerAdapter;
+import com.qtplaf.library.trading.server.feed.TickEvent;
+import com.qtplaf.library.trading.server.feed.TickSubscription;
+import com.qtplaf.library.trading.server.servers.replay.ReplayServer;
+
+/**
+ * Determinism and throughput harness of the replay server. A synthetic random walk of one minute bars per offer side,
+ * plus five minute bars built from them, is replayed twice through a new server each time, with a strategy that
+ * submits market, limit and stop orders with stop loss and take profit from the completed bars. The digest of every
+ * event delivered and the fills and closes of every order must be identical in both runs.
+ * <p>
+ * Arguments: number of one minute bars (default 1,000,000) and random seed.
+ */
+public class TestReplayServer {
+
+	/**
+	 * Strategy that records a digest of the events received and submits orders every few completed bars.
+	 */
+	static class Strategy extends FeedListenerAdapter {
+		OrderManager orderManager;
+		Instrument instrument;
+		long digest = 17;
+		long ticks;
+		long currentData;
+		long completedData;
+		long bars;
+
+		Strategy(OrderManager orderManager, Instrument instrument) {
+			this.orderManager = orderManager;
+			this.instrument = instrument;
+			addTickSubscription(new TickSubscription(instrument));
+			for (OfferSide offerSide : OfferSide.values()) {
+				addCurrentDataSubscription(new DataSubscription(instrument, Period.OneMin, offerSide));
+				addDataSubscription(new DataSubscription(instrument, Period.OneMin, offerSide));
+				addDataSubscription(new DataSubscription(instrument, Period.FiveMins, offerSide));
+			}
+		}
+
+		void mix(long value) {
+			digest = digest * 31 + value;
+		}
+
+		void mix(Data data) {
+			mix(data.getTime());
+			mix(Double.doubleToLongBits(Data.getClose(data)));
+		}
+
+		@Override
+		public void onTick(TickEvent tickEvent) {
+			ticks++;
+			mix(tickEvent.getTick().getTime());
+			mix(Double.doubleToLongBits(tickEvent.getTick().getBid().getValue()));
+			mix(Double.doubleToLongBits(tickEvent.getTick().getAsk().getValue()));
+		}
+
+		@Override
+		public void onCurrentData(DataEvent dataEvent) {
+			currentData++;
+			mix(dataEvent.getPeriod().getTime());
+			mix(dataEvent.getOfferSide().ordinal());
+			mix(dataEvent.getData());
+		}
+
+		@Override
+		public void onData(DataEvent dataEvent) {
+			completedData++;
+			mix(dataEvent.getPeriod().getTime());
+			mix(dataEvent.getOfferSide().ordinal());
+			mix(dataEvent.getData());
+			if (!dataEvent.getPeriod().equals(Period.OneMin) || dataEvent.getOfferSide() != OfferSide.Bid) {
+				return;
+			}
+			bars++;
+			if (bars % 50 != 0) {
+				return;
+			}
+			Data bar = dataEvent.getData();
+			double close = Data.getClose(bar);
+			double range = Math.max(Data.getHigh(bar) - Data.getLow(bar), 0.0001);
+			long expiration = bar.getTime() + 20 * Period.OneMin.getTime();
+			try {
+				switch ((int) (bars / 50 % 4)) {
+				case 0:
+					orderManager.submitOrder(
+						"B" + bars, instrument, OrderCommand.BuyMarket, 1, 0, 0, close - 5 * range, close + 5 * range);
+					break;
+				case 1:
+					orderManager.submitOrder(
+						"S" + bars, instrument, OrderCommand.SellMarket, 1, 0, 0, close + 5 * range, close - 5 * range);
+					break;
+				case 2:
+					orderManager.submitOrder(
+						"BL" + bars,
+						instrument,
+						OrderCommand.BuyLimitAsk,
+						1,
+						close - range,
+						0,
+						close - 6 * range,
+						close + 4 * range,
+						expiration);
+					break;
+				default:
+					orderManager.submitOrder(
+						"SS" + bars,
+						instrument,
+						OrderCommand.SellStopBid,
+						1,
+						close - range,
+						0,
+						close + 4 * range,
+						close - 6 * range,
+						expiration);
+					break;
+				}
+			} catch (ServerException exc) {
+				throw new IllegalStateException(exc);
+			}
+		}
+	}
+
+	/**
+	 * Result of a run.
+	 */
+	static class Result {
+		long bars;
+		long elapsed;
+		Strategy strategy;
+		List<String> orders = new ArrayList<>();
+	}
+
+	public static void main(String[] args) throws Exception {
+		int size = (args.length > 0 ? Integer.parseInt(args[0]) : 1000000);
+		long seed = (args.length > 1 ? Long.parseLong(args[1]) : 20170101);
+
+		Session session = new Session();
+		Instrument instrument = new Instrument();
+		instrument.setId("EURUSD");
+		instrument.setDescription("Synthetic EUR/USD");
+		instrument.setPipScale(4);
+		instrument.setTickScale(5);
+
+		// Synthetic one minute bid bars, ask bars with a fixed spread, and five minute bars aggregated.
+		DataList bid1 = new ColumnarDataList(session, new PriceInfo(session, instrument, Period.OneMin), 5, size);
+		DataList ask1 = new ColumnarDataList(session, new PriceInfo(session, instrument, Period.OneMin), 5, size);
+		DataList bid5 = new ColumnarDataList(session, new PriceInfo(session, instrument, Period.FiveMins), 5);
+		DataList ask5 = new ColumnarDataList(session, new PriceInfo(session, instrument, Period.FiveMins), 5);
+		Random random = new Random(seed);
+		long oneMin = Period.OneMin.getTime();
+		long time = 1483228800000L;
+		double spread = 0.0002;
+		double close = 1.1;
+		for (int i = 0; i < size; i++) {
+			double open = close;
+			double high = open;
+			double low = open;
+			for (int t = 0; t < 4; t++) {
+				close = Math.max(0.5, close + random.nextGaussian() * 0.0002);
+				high = Math.max(high, close);
+				low = Math.min(low, close);
+			}
+			double volume = 1 + random.nextInt(100);
+			bid1.add(new Data(time, open, high, low, close, volume));
+			ask1.add(new Data(time, open + spread, high + spread, low + spread, close + spread, volume));
+			time += oneMin;
+		}
+		aggregate(bid1, bid5, 5);
+		aggregate(ask1, ask5, 5);
+
+		Result first = run(instrument, bid1, ask1, bid5, ask5);
+		Result second = run(instrument, bid1, ask1, bid5, ask5);
+
+		long totalBars = bid1.size() + ask1.size() + bid5.size() + ask5.size();
+		boolean ok = true;
+		ok &= check("Bars replayed", first.bars == totalBars && second.bars == totalBars);
+		ok &= check("Ticks", first.strategy.ticks == second.strategy.ticks);
+		ok &= check("Current data events", first.strategy.currentData == second.strategy.currentData);
+		ok &= check("Completed data events", first.strategy.completedData == second.strategy.completedData);
+		ok &= check("Event digest", first.strategy.digest == second.strategy.digest);
+		ok &= check("Orders", first.orders.size() == second.orders.size() && !first.orders.isEmpty());
+		int mismatches = 0;
+		for (int i = 0; i < Math.min(first.orders.size(), second.orders.size()); i++) {
+			if (!first.orders.get(i).equals(second.orders.get(i))) {
+				if (mismatches++ < 5) {
+					System.out.println("  " + first.orders.get(i) + " <> " + second.orders.get(i));
+				}
+			}
+		}
+		ok &= check("Fills and closes, " + mismatches + " mismatches", mismatches == 0);
+
+		int filled = 0;
+		int closed = 0;
+		for (String order : first.orders) {
+			filled += (order.contains("fill=") ? 1 : 0);
+			closed += (order.contains("close=") ? 1 : 0);
+		}
+		System.out.println();
+		System.out.println("Bars per run:      " + totalBars);
+		System.out.println("Ticks per run:     " + first.strategy.ticks);
+		System.out.println(
+			"Orders per run:    " + first.orders.size() + ", filled " + filled + ", closed or expired " + closed);
+		System.out.println("Run 1 ms:          " + first.elapsed / 1000000);
+		System.out.println("Run 2 ms:          " + second.elapsed / 1000000);
+		System.out.println("Run 1 bars/s:      " + first.bars * 1000000000L / first.elapsed);
+		System.out.println("Run 2 bars/s:      " + second.bars * 1000000000L / second.elapsed);
+		System.out.println(ok ? "OK" : "FAILED");
+		System.exit(ok ? 0 : 1);
+	}
+
+	/**
+	 * Replays all the sources through a new server and collects the events digest and the orders.
+	 */
+	static Result run(Instrument instrument, DataList bid1, DataList ask1, DataList bid5, DataList ask5)
+		throws ServerException {
+		ReplayServer server = new ReplayServer();
+		server.addSource(instrument, Period.OneMin, OfferSide.Bid, bid1);
+		server.addSource(instrument, Period.OneMin, OfferSide.Ask, ask1);
+		server.addSource(instrument, Period.FiveMins, OfferSide.Bid, bid5);
+		server.addSource(instrument, Period.FiveMins, OfferSide.Ask, ask5);
+		Strategy strategy = new Strategy(server.getOrderManager(), instrument);
+		server.getFeedManager().addFeedListener(strategy);
+
+		Result result = new Result();
+		result.strategy = strategy;
+		long start = System.nanoTime();
+		result.bars = server.replay(Long.MIN_VALUE, Long.MAX_VALUE);
+		result.elapsed = System.nanoTime() - start;
+
+		for (Order order : server.getReplayOrderManager().getOrderHistory()) {
+			StringBuilder b = new StringBuilder();
+			b.append(order.getId());
+			b.append(" ").append(order.getLabel());
+			b.append(" ").append(order.getOrderState());
+			if (order.getFillTime() > 0) {
+				b.append(" fill=").append(order.getFillTime()).append("@").append(order.getOpenPrice());
+			}
+			if (order.getCloseTime() > 0) {
+				b.append(" close=").append(order.getCloseTime()).append("@").append(order.getClosePrice());
+			}
+			b.append(" pl=").append(order.getProfitLoss());
+			result.orders.add(b.toString());
+		}
+		return result;
+	}
+
+	/**
+	 * Aggregates consecutive bars of the source into bars of the given number of source bars.
+	 */
+	static void aggregate(DataList source, DataList target, int count) {
+		for (int i = 0; i + count <= source.size(); i += count) {
+			Data first = source.get(i);
+			double high = Data.getHigh(first);
+			double low = Data.getLow(first);
+			double volume = 0;
+			for (int j = i; j < i + count; j++) {
+				Data data = source.get(j);
+				high = Math.max(high, Data.getHigh(data));
+				low = Math.min(low, Data.getLow(data));
+				volume += Data.getVolume(data);
+			}
+			Data last = source.get(i + count - 1);
+			target.add(new Data(first.getTime(), Data.getOpen(first), high, low, Data.getClose(last), volume));
+		}
+	}
+
+	static boolean check(String name, boolean condition) {
+		System.out.println((condition ? "ok     " : "FAILED ") + name);
+		return condition;
+	}
+}
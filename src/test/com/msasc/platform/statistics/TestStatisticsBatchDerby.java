@@ -0,0 +1,200 @@
+package test.com.msasc.platform.statistics;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import com.qtplaf.library.app.Session;
+import com.qtplaf.library.database.Criteria;
+import com.qtplaf.library.database.Order;
+import com.qtplaf.library.database.Record;
+import com.qtplaf.library.database.RecordSet;
+import com.qtplaf.library.database.Table;
+import com.qtplaf.library.database.rdbms.DBEngine;
+import com.qtplaf.library.database.rdbms.DataSourceInfo;
+import com.qtplaf.library.database.rdbms.adapters.DerbyAdapterEmbedded;
+import com.qtplaf.library.trading.data.Data;
+import com.qtplaf.library.trading.data.DataPersistor;
+import com.qtplaf.library.trading.data.Instrument;
+import com.qtplaf.library.trading.data.Period;
+import com.qtplaf.library.trading.server.Server;
+import com.qtplaf.library.trading.server.servers.replay.ReplayServer;
+import com.qtplaf.library.util.TextServer;
+import com.qtplaf.platform.database.Fields;
+import com.qtplaf.platform.database.Schemas;
+import com.qtplaf.platform.database.Tables;
+import com.qtplaf.platform.database.configuration.Configuration;
+import com.qtplaf.platform.database.tables.TableDataPrice;
+import com.qtplaf.platform.statistics.Manager;
+import com.qtplaf.platform.statistics.StatisticsBatch;
+import com.qtplaf.platform.statistics.averages.States;
+import com.qtplaf.platform.statistics.averages.task.TaskNormalizes;
+import com.qtplaf.platform.util.PersistorUtils;
+import com.qtplaf.platform.util.RecordUtils;
+
+/**
+ * Smoke test of the statistics batch on an in-memory embedded Derby database. A synthetic random walk of prices is
+ * loaded in a price table, with the reserved column names <i>open</i> and <i>close</i>, and the batch calculates the
+ * states, ranges, patterns and performance tables of all the configurations. The ranges query uses the
+ * <code>STDDEV</code> aggregate, checked against the standard deviation calculated in Java.
+ * <p>
+ * Arguments: number of bars (default 3000) and random seed.
+ */
+public class TestStatisticsBatchDerby {
+
+	static int failures = 0;
+
+	public static void main(String[] args) throws Exception {
+		int size = (args.length > 0 ? Integer.parseInt(args[0]) : 3000);
+		long seed = (args.length > 1 ? Long.parseLong(args[1]) : 20170101);
+
+		TextServer.addBaseResource("StringsLibrary.xml");
+		TextServer.addBaseResource("StringsQTPlatform.xml");
+		Session session = new Session(Locale.UK);
+
+		DataSourceInfo info = new DataSourceInfo();
+		info.setDatabase("memory:statistics");
+		DBEngine dbEngine = new DBEngine(new DerbyAdapterEmbedded(), info);
+		PersistorUtils.setDBEngine(dbEngine);
+
+		Server server = new ReplayServer();
+		Instrument instrument = new Instrument();
+		instrument.setId("EURUSD");
+		instrument.setDescription("Synthetic EUR/USD");
+		instrument.setPipValue(0.0001);
+		instrument.setPipScale(4);
+		instrument.setTickValue(0.00001);
+		instrument.setTickScale(5);
+		instrument.setVolumeScale(0);
+		instrument.setPrimaryCurrency(Currency.getInstance("EUR"));
+		instrument.setSecondaryCurrency(Currency.getInstance("USD"));
+		Period period = Period.OneHour;
+
+		// Schema and price table.
+		String schema = Schemas.server(server);
+		if (!PersistorUtils.getDDL().existsSchema(schema)) {
+			PersistorUtils.getDDL().createSchema(schema);
+		}
+		Table table = new TableDataPrice(session, server, instrument, Tables.ticker(instrument, period));
+		PersistorUtils.getDDL().buildTable(table);
+
+		// Synthetic prices.
+		DataPersistor persistor = new DataPersistor(table.getPersistor());
+		Random random = new Random(seed);
+		List<Record> records = new ArrayList<>();
+		List<Double> closes = new ArrayList<>();
+		long time = 1483228800000L;
+		double close = 1.1;
+		for (int i = 0; i < size; i++) {
+			double open = close;
+			double high = open;
+			double low = open;
+			for (int t = 0; t < 4; t++) {
+				close = Math.max(0.5, close + random.nextGaussian() * 0.001);
+				high = Math.max(high, close);
+				low = Math.min(low, close);
+			}
+			Data data = new Data(time, open, high, low, close, 1 + random.nextInt(1000));
+			records.add(RecordUtils.getRecordDataPrice(persistor.getDefaultRecord(), data));
+			closes.add(close);
+			time += period.getTime();
+		}
+		persistor.insert(records);
+		check("Prices inserted", persistor.count(new Criteria()) == size);
+
+		// STDDEV aggregate on a reserved column name.
+		double expected = stddev(closes);
+		double actual;
+		try (Connection cn = dbEngine.getConnection(); Statement st = cn.createStatement()) {
+			String sql = "SELECT STDDEV(\"CLOSE\") FROM " + table.getNameSchema();
+			try (ResultSet rs = st.executeQuery(sql)) {
+				rs.next();
+				actual = rs.getDouble(1);
+			}
+			cn.commit();
+		}
+		check("STDDEV " + actual + " expected " + expected, Math.abs(actual - expected) < 1e-9);
+
+		// The batch.
+		StatisticsBatch batch = new StatisticsBatch(session);
+		batch.setConcurrency(2);
+		Manager manager = new Manager(session);
+		List<States> statesList = new ArrayList<>();
+		for (Configuration cfg : manager.getConfigurations()) {
+			States states = manager.getStates(server, instrument, period, cfg);
+			statesList.add(states);
+			batch.add(states);
+		}
+		batch.execute();
+
+		for (States states : statesList) {
+			for (Table result : states.getTables()) {
+				long count = result.getPersistor().count(new Criteria());
+				check(states.getId() + " " + result.getName() + " rows " + count, count > 0);
+			}
+			RecordSet ranges = states.getRecordSetRanges(false);
+			check(states.getId() + " ranges rows " + ranges.size(), ranges.size() > 0);
+			boolean stddevs = true;
+			for (int i = 0; i < ranges.size(); i++) {
+				stddevs &= !ranges.get(i).getValue(Fields.StdDev).isNull();
+			}
+			check(states.getId() + " ranges standard deviations", stddevs);
+		}
+
+		// The normalize task alone, over more rows than a batch, must not wait on the cursor lock and must give the
+		// same normalized values as the pipeline.
+		States states = statesList.get(0);
+		RecordSet before = selectStates(states);
+		new TaskNormalizes(states).execute();
+		RecordSet after = selectStates(states);
+		check(states.getId() + " normalize task rows " + after.size(), after.size() == before.size());
+		int differences = 0;
+		for (int i = 0; i < Math.min(before.size(), after.size()); i++) {
+			Record recordBefore = before.get(i);
+			Record recordAfter = after.get(i);
+			for (int j = 0; j < recordBefore.getFieldCount(); j++) {
+				if (!recordBefore.getValue(j).equals(recordAfter.getValue(j))) {
+					differences++;
+				}
+			}
+		}
+		check(states.getId() + " normalize task values, " + differences + " differences", differences == 0);
+
+		dbEngine.getConnectionPool().close();
+		System.out.println(batch.getReport());
+		System.out.println(failures == 0 ? "OK" : "FAILED " + failures);
+		System.exit(failures == 0 ? 0 : 1);
+	}
+
+	static RecordSet selectStates(States states) throws Exception {
+		Table table = states.getTableStates();
+		Order order = new Order();
+		order.add(table.getField(Fields.Index));
+		return table.getPersistor().select(new Criteria(), order);
+	}
+
+	static double stddev(List<Double> values) {
+		double mean = 0;
+		for (double value : values) {
+			mean += value;
+		}
+		mean /= values.size();
+		double sum = 0;
+		for (double value : values) {
+			sum += (value - mean) * (value - mean);
+		}
+		return Math.sqrt(sum / (values.size() - 1));
+	}
+
+	static void check(String name, boolean condition) {
+		if (!condition) {
+			failures++;
+		}
+		System.out.println((condition ? "ok     " : "FAILED ") + name);
+	}
+}